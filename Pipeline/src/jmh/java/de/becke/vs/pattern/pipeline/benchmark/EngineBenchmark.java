@@ -0,0 +1,162 @@
+package de.becke.vs.pattern.pipeline.benchmark;
+
+import de.becke.vs.pattern.pipeline.async.AsyncPipeline;
+import de.becke.vs.pattern.pipeline.async.AsyncPipelineStage;
+import de.becke.vs.pattern.pipeline.core.CompiledPipeline;
+import de.becke.vs.pattern.pipeline.core.Pipeline;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineStage;
+import de.becke.vs.pattern.pipeline.distributed.DistributedPipeline;
+import de.becke.vs.pattern.pipeline.distributed.ServiceEndpoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Misst Durchsatz und Latenz eines einzelnen Elements durch jede Engine.
+ *
+ * Alle Engines führen dieselbe Kette von {@code stageCount} Stages aus, die jeweils eine
+ * Prüfsumme über den Payload von {@code payloadSize} Bytes bilden. Bei kleinen Payloads
+ * dominiert der Overhead der Engine, bei großen die Arbeit der Stages. Die Anzahl der
+ * Threads wird über {@code -t} gewählt; jeder Thread verarbeitet einen eigenen Payload.
+ *
+ * Der Durchsatz wird als Operationen pro Mikrosekunde, die Latenz über
+ * {@link Mode#SampleTime} mit Perzentilen ausgegeben. Die Forks laufen mit festem Heap und
+ * protokollieren nur Warnungen, damit die Ausgabe der Pipelines nicht mitgemessen wird.
+ *
+ * Aufruf: {@code java -jar target/benchmarks.jar EngineBenchmark -t 1 -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+AlwaysPreTouch",
+        "-Dlogback.configurationFile=logback-benchmark.xml"})
+public class EngineBenchmark {
+
+    @Param({"1", "5", "20"})
+    public int stageCount;
+
+    @Param({"64", "4096", "65536"})
+    public int payloadSize;
+
+    private Pipeline<byte[], byte[]> pipeline;
+    private CompiledPipeline<byte[], byte[]> compiled;
+    private AsyncPipeline<byte[], byte[]> asyncPipeline;
+    private DistributedPipeline<byte[], byte[]> distributedPipeline;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pipeline = new Pipeline<>("EngineBenchmark");
+        asyncPipeline = new AsyncPipeline<>("AsyncEngineBenchmark");
+        distributedPipeline = new DistributedPipeline<>("DistributedEngineBenchmark");
+        for (int i = 0; i < stageCount; i++) {
+            ChecksumStage stage = new ChecksumStage(i);
+            pipeline.addStage(stage);
+            asyncPipeline.addStage(stage);
+            distributedPipeline.registerStage(stage.getStageName(), stage);
+        }
+        compiled = pipeline.compile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        distributedPipeline.close();
+    }
+
+    /**
+     * Der Payload eines Benchmark-Threads, mit festem Seed befüllt.
+     */
+    @State(Scope.Thread)
+    public static class Input {
+        byte[] payload;
+
+        @Setup(Level.Trial)
+        public void setUp(EngineBenchmark benchmark) {
+            payload = new byte[benchmark.payloadSize];
+            new Random(42).nextBytes(payload);
+        }
+    }
+
+    @Benchmark
+    public byte[] pipeline(Input input) throws PipelineException {
+        return pipeline.execute(input.payload);
+    }
+
+    @Benchmark
+    public byte[] compiledPipeline(Input input) throws PipelineException {
+        return compiled.execute(input.payload);
+    }
+
+    @Benchmark
+    public byte[] asyncPipeline(Input input) {
+        return asyncPipeline.executeAsync(input.payload).join();
+    }
+
+    @Benchmark
+    public byte[] distributedPipeline(Input input) throws PipelineException {
+        return distributedPipeline.execute(input.payload);
+    }
+
+    /**
+     * Bildet eine Prüfsumme über den Payload und legt sie im ersten Byte ab.
+     *
+     * Implementiert die Stage-Schnittstellen aller Engines, damit alle dieselbe Arbeit leisten.
+     */
+    private static final class ChecksumStage implements PipelineStage<byte[], byte[]>,
+            AsyncPipelineStage<byte[], byte[]>, ServiceEndpoint<byte[], byte[]> {
+        private final int seed;
+        private final String name;
+
+        ChecksumStage(int seed) {
+            this.seed = seed;
+            this.name = "ChecksumStage-" + seed;
+        }
+
+        @Override
+        public byte[] process(byte[] input, PipelineContext context) {
+            int sum = seed;
+            for (byte b : input) {
+                sum = 31 * sum + b;
+            }
+            input[0] = (byte) sum;
+            return input;
+        }
+
+        @Override
+        public CompletableFuture<byte[]> processAsync(byte[] input, PipelineContext context) {
+            return CompletableFuture.completedFuture(process(input, context));
+        }
+
+        @Override
+        public byte[] invokeService(byte[] input, PipelineContext context) {
+            return process(input, context);
+        }
+
+        @Override
+        public String getStageName() {
+            return name;
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "local://" + name;
+        }
+    }
+}
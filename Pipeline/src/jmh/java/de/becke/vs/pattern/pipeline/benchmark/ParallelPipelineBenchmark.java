@@ -0,0 +1,110 @@
+package de.becke.vs.pattern.pipeline.benchmark;
+
+import de.becke.vs.pattern.pipeline.core.BatchResult;
+import de.becke.vs.pattern.pipeline.core.CompiledPipeline;
+import de.becke.vs.pattern.pipeline.core.ParallelPipelineExecutor;
+import de.becke.vs.pattern.pipeline.core.Pipeline;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineStage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Misst die Skalierung der parallelen Batch-Ausführung über die Anzahl der Kerne.
+ *
+ * Aufruf: {@code java -jar target/benchmarks.jar ParallelPipelineBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelPipelineBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    @Param({"100000"})
+    public int batchSize;
+
+    @Param({"10"})
+    public int stageCount;
+
+    private List<Long> inputs;
+    private CompiledPipeline<Long, Long> plan;
+    private ParallelPipelineExecutor<Long, Long> executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Pipeline<Long, Long> pipeline = new Pipeline<>("ParallelBenchmark");
+        for (int i = 0; i < stageCount; i++) {
+            pipeline.addStage(new MixStage(i));
+        }
+        plan = pipeline.compile();
+        executor = new ParallelPipelineExecutor<>(plan, parallelism);
+
+        inputs = new ArrayList<>(batchSize);
+        for (long i = 0; i < batchSize; i++) {
+            inputs.add(i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public List<Long> sequentialBatch() throws PipelineException {
+        return plan.executeBatch(inputs);
+    }
+
+    @Benchmark
+    public BatchResult<Long> parallelBatch() {
+        return executor.execute(inputs);
+    }
+
+    /**
+     * Eine rein rechnende Stage mit einigen Dutzend Nanosekunden Arbeit pro Element.
+     */
+    private static class MixStage implements PipelineStage<Long, Long> {
+        private final int index;
+
+        MixStage(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Long process(Long input, PipelineContext context) {
+            long x = input + index;
+            for (int i = 0; i < 16; i++) {
+                x ^= x >>> 33;
+                x *= 0xff51afd7ed558ccdL;
+                x ^= x >>> 33;
+            }
+            return x;
+        }
+
+        @Override
+        public String getStageName() {
+            return "MixStage-" + index;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package de.becke.vs.pattern.pipeline.benchmark;
+
+import de.becke.vs.pattern.pipeline.async.AsyncPipeline;
+import de.becke.vs.pattern.pipeline.async.AsyncPipelineStage;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.reactive.ReactivePipeline;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleicht den Durchsatz der reaktiven Pipeline mit der CompletableFuture-Verkettung
+ * von {@link AsyncPipeline}.
+ *
+ * Beide Varianten verarbeiten {@code elements} Eingaben durch dieselben Stages. Die Stages
+ * liefern sofort abgeschlossene Futures, sodass der Overhead der Engines gemessen wird.
+ * Die reaktive Pipeline wird einmal ohne und einmal mit Scheduler-Wechsel pro Stage
+ * gemessen.
+ *
+ * Aufruf: {@code java -jar target/benchmarks.jar ReactivePipelineBenchmark -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReactivePipelineBenchmark {
+
+    @Param({"5"})
+    public int stageCount;
+
+    @Param({"1000"})
+    public int elements;
+
+    @Param({"1", "16"})
+    public int maxConcurrency;
+
+    private AsyncPipeline<Long, Long> asyncPipeline;
+    private ReactivePipeline<Long, Long> reactivePipeline;
+    private ReactivePipeline<Long, Long> scheduledPipeline;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        asyncPipeline = new AsyncPipeline<>("AsyncBenchmark");
+        reactivePipeline = new ReactivePipeline<>("ReactiveBenchmark");
+        scheduledPipeline = new ReactivePipeline<>("ScheduledReactiveBenchmark");
+        for (int i = 0; i < stageCount; i++) {
+            IncrementStage stage = new IncrementStage();
+            asyncPipeline.addStage(stage);
+            reactivePipeline.addStage(stage, null, maxConcurrency);
+            scheduledPipeline.addStage(stage, Schedulers.computation(), maxConcurrency);
+        }
+    }
+
+    @Benchmark
+    public Object asyncPipeline() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[elements];
+        for (int i = 0; i < elements; i++) {
+            futures[i] = asyncPipeline.executeAsync((long) i);
+        }
+        return CompletableFuture.allOf(futures).join();
+    }
+
+    @Benchmark
+    public Long reactivePipeline() {
+        return reactivePipeline.execute(Flowable.rangeLong(0, elements)).blockingLast();
+    }
+
+    @Benchmark
+    public Long reactivePipelineWithSchedulers() {
+        return scheduledPipeline.execute(Flowable.rangeLong(0, elements)).blockingLast();
+    }
+
+    private static final class IncrementStage implements AsyncPipelineStage<Long, Long> {
+        @Override
+        public CompletableFuture<Long> processAsync(Long input, PipelineContext context) {
+            return CompletableFuture.completedFuture(input + 1);
+        }
+
+        @Override
+        public String getStageName() {
+            return "IncrementStage";
+        }
+    }
+}
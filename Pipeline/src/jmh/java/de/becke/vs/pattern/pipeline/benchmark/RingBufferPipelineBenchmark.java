@@ -0,0 +1,166 @@
+package de.becke.vs.pattern.pipeline.benchmark;
+
+import de.becke.vs.pattern.pipeline.async.AsyncPipeline;
+import de.becke.vs.pattern.pipeline.async.AsyncPipelineStage;
+import de.becke.vs.pattern.pipeline.core.CompiledPipeline;
+import de.becke.vs.pattern.pipeline.core.Pipeline;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineStage;
+import de.becke.vs.pattern.pipeline.ringbuffer.BusySpinWaitStrategy;
+import de.becke.vs.pattern.pipeline.ringbuffer.ParkingWaitStrategy;
+import de.becke.vs.pattern.pipeline.ringbuffer.ResultHandler;
+import de.becke.vs.pattern.pipeline.ringbuffer.RingBufferPipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleicht Latenz und Durchsatz der Ringpuffer-Engine mit {@link Pipeline#execute(Object)},
+ * dem kompilierten Plan und {@link AsyncPipeline#executeAsync(Object)}.
+ *
+ * Die {@code *Latency}-Benchmarks messen die Zeit vom Übergeben eines Elements bis zum
+ * Ergebnis, {@code ringBufferThroughput} misst die Rate bei vollem Puffer.
+ *
+ * Aufruf: {@code java -jar target/benchmarks.jar RingBufferPipelineBenchmark -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RingBufferPipelineBenchmark {
+
+    private static final int BATCH = 1024;
+
+    @Param({"5"})
+    public int stageCount;
+
+    @Param({"busy-spin", "parking"})
+    public String waitStrategy;
+
+    private Pipeline<Long, Long> pipeline;
+    private CompiledPipeline<Long, Long> compiled;
+    private AsyncPipeline<Long, Long> asyncPipeline;
+    private RingBufferPipeline<Long, Long> ringBuffer;
+    private CountingHandler handler;
+    private long published;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pipeline = new Pipeline<>("RingBufferBenchmark");
+        asyncPipeline = new AsyncPipeline<>("RingBufferBenchmarkAsync");
+        for (int i = 0; i < stageCount; i++) {
+            pipeline.addStage(new IncrementStage());
+            asyncPipeline.addStage(new AsyncIncrementStage());
+        }
+        compiled = pipeline.compile();
+
+        handler = new CountingHandler();
+        ringBuffer = new RingBufferPipeline<>(pipeline, 4096,
+                "busy-spin".equals(waitStrategy) ? new BusySpinWaitStrategy() : new ParkingWaitStrategy(),
+                handler);
+        published = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ringBuffer.close();
+    }
+
+    @Benchmark
+    public Long pipelineExecuteLatency() throws PipelineException {
+        return pipeline.execute(1L);
+    }
+
+    @Benchmark
+    public Long compiledExecuteLatency() throws PipelineException {
+        return compiled.execute(1L);
+    }
+
+    @Benchmark
+    public Long asyncExecuteLatency() {
+        return asyncPipeline.executeAsync(1L).join();
+    }
+
+    @Benchmark
+    public long ringBufferLatency() {
+        ringBuffer.publish(1L);
+        published++;
+        return awaitCompleted(published);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long ringBufferThroughput() {
+        for (int i = 0; i < BATCH; i++) {
+            ringBuffer.publish(1L);
+        }
+        published += BATCH;
+        return awaitCompleted(published);
+    }
+
+    private long awaitCompleted(long expected) {
+        long completed;
+        while ((completed = handler.completed) < expected) {
+            Thread.onSpinWait();
+        }
+        return completed;
+    }
+
+    /**
+     * Zählt abgeschlossene Elemente; wird nur vom Thread der letzten Stage geschrieben.
+     */
+    private static final class CountingHandler implements ResultHandler<Long> {
+        private volatile long completed;
+
+        @Override
+        public void onResult(Long output, PipelineContext context) {
+            completed++;
+        }
+
+        @Override
+        public void onError(PipelineException error, PipelineContext context) {
+            completed++;
+        }
+    }
+
+    private static final class IncrementStage implements PipelineStage<Long, Long> {
+        @Override
+        public Long process(Long input, PipelineContext context) {
+            return input + 1;
+        }
+
+        @Override
+        public String getStageName() {
+            return "IncrementStage";
+        }
+    }
+
+    private static final class AsyncIncrementStage implements AsyncPipelineStage<Long, Long> {
+        @Override
+        public CompletableFuture<Long> processAsync(Long input, PipelineContext context) {
+            return CompletableFuture.completedFuture(input + 1);
+        }
+
+        @Override
+        public String getStageName() {
+            return "AsyncIncrementStage";
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package de.becke.vs.pattern.pipeline;
 
+import de.becke.vs.pattern.pipeline.core.CompiledPipeline;
+import de.becke.vs.pattern.pipeline.core.FusablePipelineStage;
 import de.becke.vs.pattern.pipeline.core.Pipeline;
 import de.becke.vs.pattern.pipeline.core.PipelineContext;
 import de.becke.vs.pattern.pipeline.core.PipelineException;
@@ -52,6 +54,12 @@ public class Main {
         String result = textPipeline.execute(inputText);
         
         LOGGER.info("Ergebnis der Textverarbeitungs-Pipeline: {}", result);
+
+        // Kompiliere die Pipeline für wiederholte Ausführungen; die drei Text-Stages werden verschmolzen
+        CompiledPipeline<String, String> compiledPipeline = textPipeline.compile(true);
+        String compiledResult = compiledPipeline.execute(inputText);
+
+        LOGGER.info("Ergebnis der kompilierten Textverarbeitungs-Pipeline: {}", compiledResult);
     }
 
     /**
@@ -82,7 +90,7 @@ public class Main {
     /**
      * Pipeline-Stage, die Text in Großbuchstaben umwandelt.
      */
-    private static class TextToUpperCaseStage implements PipelineStage<String, String> {
+    private static class TextToUpperCaseStage implements FusablePipelineStage<String, String> {
         @Override
         public String process(String input, PipelineContext context) {
             return input.toUpperCase();
@@ -97,7 +105,7 @@ public class Main {
     /**
      * Pipeline-Stage, die Leerzeichen aus einem Text entfernt.
      */
-    private static class RemoveSpacesStage implements PipelineStage<String, String> {
+    private static class RemoveSpacesStage implements FusablePipelineStage<String, String> {
         @Override
         public String process(String input, PipelineContext context) {
             return input.replaceAll("\\s+", "");
@@ -112,7 +120,7 @@ public class Main {
     /**
      * Pipeline-Stage, die einem Text ein Präfix hinzufügt.
      */
-    private static class AddPrefixStage implements PipelineStage<String, String> {
+    private static class AddPrefixStage implements FusablePipelineStage<String, String> {
         private final String prefix;
 
         public AddPrefixStage(String prefix) {
@@ -0,0 +1,213 @@
+package de.becke.vs.pattern.pipeline.async;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ein adaptives Limit für die Anzahl gleichzeitig laufender Aufrufe einer Stage.
+ *
+ * Das Limit folgt dem Gradientenverfahren: Eine langsame gleitende Mittelung der Latenz
+ * dient als Referenz für den unbelasteten Zustand, eine schnelle Mittelung zeigt die
+ * aktuelle Latenz. Steigt die aktuelle Latenz über die Referenz, bilden sich in der Stage
+ * Warteschlangen, und das Limit sinkt proportional zum Verhältnis beider Werte. Bleibt sie
+ * im Toleranzbereich, wächst das Limit um etwa die Wurzel seines Werts. Zeitüberschreitungen
+ * halbieren das Limit nicht, sondern senken es um zehn Prozent.
+ *
+ * Aufrufe oberhalb des Limits werden nicht eingereiht, sondern sofort abgelehnt, sodass die
+ * Latenz der angenommenen Aufrufe stabil bleibt.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    // Faktor, um den die aktuelle Latenz die Referenz übersteigen darf
+    private static final double TOLERANCE = 1.5;
+
+    // Gewichte der schnellen und der langsamen Mittelung
+    private static final double SHORT_WEIGHT = 0.5;
+    private static final double LONG_WEIGHT = 2.0 / 601;
+
+    // Anteil eines neuen Limits, der übernommen wird
+    private static final double SMOOTHING = 0.2;
+
+    // Faktor bei Zeitüberschreitungen
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    // Geschätztes Limit und Latenzen (nur unter der Sperre geschrieben)
+    private double estimatedLimit;
+    private double shortLatency;
+    private double longLatency;
+    private volatile int limit;
+
+    /**
+     * Erstellt ein Limit, das bei 20 beginnt und zwischen 1 und 200 schwankt.
+     */
+    public AdaptiveConcurrencyLimiter() {
+        this(20, 1, 200);
+    }
+
+    /**
+     * Erstellt ein Limit.
+     *
+     * @param initialLimit Das Limit vor der ersten Messung
+     * @param minLimit Das kleinste erlaubte Limit
+     * @param maxLimit Das größte erlaubte Limit
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Ungültiger Bereich für das Limit: " + minLimit + ".." + maxLimit);
+        }
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Das Startlimit liegt außerhalb von " + minLimit + ".." +
+                    maxLimit + ": " + initialLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Versucht, einen Aufruf anzunehmen.
+     *
+     * Bei Erfolg muss der Aufrufer genau eine der Methoden {@link #onSuccess(long)},
+     * {@link #onDropped()} oder {@link #onIgnore()} aufrufen.
+     *
+     * @return true, wenn der Aufruf angenommen wurde; false, wenn das Limit erreicht ist
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        accepted.increment();
+        return true;
+    }
+
+    /**
+     * Beendet einen erfolgreichen Aufruf und passt das Limit an seine Latenz an.
+     *
+     * @param latencyNanos Die Dauer des Aufrufs in Nanosekunden
+     */
+    public void onSuccess(long latencyNanos) {
+        int current = inFlight.getAndDecrement();
+        update(Math.max(1, latencyNanos), current);
+    }
+
+    /**
+     * Beendet einen Aufruf, der wegen Überlast abgebrochen wurde (z.B. durch eine
+     * Zeitüberschreitung), und senkt das Limit.
+     */
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        dropped.increment();
+        synchronized (this) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF);
+            limit = (int) estimatedLimit;
+        }
+    }
+
+    /**
+     * Beendet einen Aufruf, dessen Latenz nichts über die Last aussagt (z.B. bei einem
+     * fachlichen Fehler), ohne das Limit anzupassen.
+     */
+    public void onIgnore() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void update(long latencyNanos, int inFlightAtCompletion) {
+        if (longLatency == 0) {
+            shortLatency = latencyNanos;
+            longLatency = latencyNanos;
+        } else {
+            shortLatency += SHORT_WEIGHT * (latencyNanos - shortLatency);
+            longLatency += LONG_WEIGHT * (latencyNanos - longLatency);
+        }
+
+        // Nach einer Überlastphase die Referenz schneller an die wieder kürzere Latenz angleichen
+        if (longLatency > 2 * shortLatency) {
+            longLatency *= 0.95;
+        }
+
+        // Wird das Limit nicht ausgeschöpft, sagt die Latenz nichts über eine Erhöhung aus
+        if (inFlightAtCompletion * 2 < estimatedLimit) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longLatency / shortLatency));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Gibt das aktuelle Limit zurück.
+     *
+     * @return Die maximale Anzahl gleichzeitiger Aufrufe
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Gibt die Anzahl der gerade laufenden Aufrufe zurück.
+     *
+     * @return Die Anzahl der angenommenen, noch nicht beendeten Aufrufe
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Gibt die Anzahl der angenommenen Aufrufe zurück.
+     *
+     * @return Die Anzahl der angenommenen Aufrufe
+     */
+    public long getAcceptedCount() {
+        return accepted.sum();
+    }
+
+    /**
+     * Gibt die Anzahl der abgelehnten Aufrufe zurück.
+     *
+     * @return Die Anzahl der wegen des Limits abgelehnten Aufrufe
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Gibt die Anzahl der wegen Überlast abgebrochenen Aufrufe zurück.
+     *
+     * @return Die Anzahl der über {@link #onDropped()} gemeldeten Aufrufe
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gibt die Referenzlatenz zurück, an der das Limit gemessen wird.
+     *
+     * @return Die langsam gemittelte Latenz in Nanosekunden oder 0 vor der ersten Messung
+     */
+    public synchronized long getReferenceLatencyNanos() {
+        return (long) longLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveConcurrencyLimiter{limit=" + limit + ", inFlight=" + getInFlight() +
+                ", rejected=" + getRejectedCount() + "}";
+    }
+}
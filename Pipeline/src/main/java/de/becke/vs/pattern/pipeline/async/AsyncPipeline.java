@@ -1,7 +1,12 @@
 package de.becke.vs.pattern.pipeline.async;
 
+import de.becke.vs.pattern.pipeline.core.ContextKey;
+import de.becke.vs.pattern.pipeline.core.DeadlineExceededException;
 import de.becke.vs.pattern.pipeline.core.PipelineContext;
 import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineRejectedException;
+import de.becke.vs.pattern.pipeline.metrics.PipelineMetrics;
+import de.becke.vs.pattern.pipeline.metrics.StageMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,7 +14,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Implementierung einer asynchronen Pipeline, die Stages parallel oder asynchron ausführt.
@@ -27,6 +34,15 @@ public class AsyncPipeline<I, O> {
     // Liste der Pipeline-Stages
     private final List<AsyncPipelineStage<?, ?>> stages = new ArrayList<>();
     
+    // Parallelitätslimits der Stages (null, wenn eine Stage unbegrenzt ist)
+    private final List<AdaptiveConcurrencyLimiter> limiters = new ArrayList<>();
+
+    // Scheduler für Stage-Aufrufe (null = Aufrufe starten sofort)
+    private volatile PriorityStageScheduler scheduler;
+
+    // Latenzen und Zähler aller Durchläufe und Stages
+    private final PipelineMetrics metrics;
+    
     /**
      * Erstellt eine neue asynchrone Pipeline mit einem Namen.
      * 
@@ -34,6 +50,7 @@ public class AsyncPipeline<I, O> {
      */
     public AsyncPipeline(String name) {
         this.name = name;
+        this.metrics = new PipelineMetrics(name);
         LOGGER.info("Asynchrone Pipeline '{}' erstellt", name);
     }
     
@@ -46,7 +63,26 @@ public class AsyncPipeline<I, O> {
      * @return Diese Pipeline für Method Chaining
      */
     public <T, R> AsyncPipeline<I, O> addStage(AsyncPipelineStage<T, R> stage) {
+        return addStage(stage, null);
+    }
+    
+    /**
+     * Fügt eine Stage mit einem adaptiven Parallelitätslimit zur asynchronen Pipeline hinzu.
+     * 
+     * Ist das Limit erreicht, wird ein Durchlauf an dieser Stage sofort mit einer
+     * {@link ConcurrencyLimitExceededException} abgebrochen, statt auf die Stage zu warten.
+     * Das Limit passt sich an die gemessene Latenz der Stage an.
+     * 
+     * @param stage Die hinzuzufügende Stage
+     * @param limiter Das Parallelitätslimit der Stage oder null für unbegrenzte Parallelität
+     * @param <T> Der Eingabetyp der Stage
+     * @param <R> Der Ausgabetyp der Stage
+     * @return Diese Pipeline für Method Chaining
+     */
+    public <T, R> AsyncPipeline<I, O> addStage(AsyncPipelineStage<T, R> stage, AdaptiveConcurrencyLimiter limiter) {
         stages.add(stage);
+        limiters.add(limiter);
+        metrics.stage(stage.getStageName());
         LOGGER.info("Stage '{}' zur asynchronen Pipeline '{}' hinzugefügt", stage.getStageName(), name);
         return this;
     }
@@ -93,14 +129,31 @@ public class AsyncPipeline<I, O> {
      * @param input Die Eingabe für die Pipeline
      * @return Ein CompletableFuture mit dem Ergebnis der Pipeline
      */
-    @SuppressWarnings("unchecked")
     public CompletableFuture<O> executeAsync(I input) {
+        return executeAsync(input, new PipelineContext());
+    }
+    
+    /**
+     * Führt die asynchrone Pipeline mit der angegebenen Eingabe und einem vom Aufrufer
+     * erzeugten Kontext aus.
+     * 
+     * Über den Kontext lassen sich {@link PipelineContext#setPriority(int) Priorität} und
+     * {@link PipelineContext#setDeadline(long) Frist} des Durchlaufs festlegen. Ist die Frist
+     * vor dem Start einer Stage abgelaufen, wird der Durchlauf mit einer
+     * {@link DeadlineExceededException} beendet, ohne die Stage auszuführen.
+     * 
+     * @param input Die Eingabe für die Pipeline
+     * @param context Der Kontext für diesen Durchlauf
+     * @return Ein CompletableFuture mit dem Ergebnis der Pipeline
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<O> executeAsync(I input, PipelineContext context) {
         LOGGER.info("Starte asynchrone Ausführung der Pipeline '{}'", name);
         
-        // Erstelle einen neuen Kontext für diesen Pipeline-Durchlauf
-        PipelineContext context = new PipelineContext();
-        context.setAttribute("pipeline.name", name);
-        context.setAttribute("pipeline.type", "async");
+        context.set(ContextKey.PIPELINE_NAME, name);
+        context.set(ContextKey.PIPELINE_TYPE, "async");
+        long runStart = metrics.runs().start();
+        PriorityStageScheduler currentScheduler = scheduler;
         
         // Starte mit einem CompletableFuture, das den Input enthält
         CompletableFuture<Object> future = CompletableFuture.completedFuture(input);
@@ -111,41 +164,43 @@ public class AsyncPipeline<I, O> {
             AsyncPipelineStage<Object, Object> stage = (AsyncPipelineStage<Object, Object>) stages.get(i);
             
             future = future.thenCompose(result -> {
-                LOGGER.info("Führe asynchrone Stage '{}' ({}. von {}) aus", 
-                        stage.getStageName(), stageIndex + 1, stages.size());
-                
-                try {
-                    // Verarbeite die Eingabe mit der aktuellen Stage
-                    return stage.processAsync(result, context)
+                // Arbeit mit abgelaufener Frist wird gar nicht erst eingereiht
+                if (context.isDeadlineExceeded()) {
+                    DeadlineExceededException expired =
+                            new DeadlineExceededException(stage.getStageName(), context.getDeadline());
+                    context.setError(expired);
+                    return CompletableFuture.failedFuture(expired);
+                }
+                if (currentScheduler == null) {
+                    return runStage(stageIndex, stage, result, context);
+                }
+                return currentScheduler.schedule(context, stage.getStageName(),
+                        () -> runStage(stageIndex, stage, result, context))
                         .whenComplete((r, e) -> {
-                            if (e != null) {
-                                LOGGER.error("Fehler in asynchroner Stage '{}': {}", 
-                                        stage.getStageName(), e.getMessage(), e);
+                            if (e instanceof DeadlineExceededException) {
                                 context.setError(e);
-                            } else {
-                                LOGGER.info("Asynchrone Stage '{}' erfolgreich abgeschlossen", 
-                                        stage.getStageName());
                             }
                         });
-                } catch (Exception e) {
-                    LOGGER.error("Fehler beim Starten der asynchronen Stage '{}': {}", 
-                            stage.getStageName(), e.getMessage(), e);
-                    context.setError(e);
-                    return CompletableFuture.failedFuture(
-                            new PipelineException("Fehler beim Starten der asynchronen Stage '" + 
-                                    stage.getStageName() + "'", e));
-                }
             });
         }
         
         // Wandle das Ergebnis in den erwarteten Ausgabetyp um
         return future.thenApply(result -> {
+            context.releaseResources(result);
+            metrics.runs().success(runStart);
             LOGGER.info("Asynchrone Pipeline '{}' erfolgreich abgeschlossen in {}ms", 
                     name, context.getDuration());
             return (O) result;
         }).exceptionally(e -> {
+            context.releaseResources(null);
+            metrics.runs().failure(runStart);
             Throwable cause = e.getCause();
-            LOGGER.error("Asynchrone Pipeline '{}' fehlgeschlagen: {}", name, cause != null ? cause.getMessage() : e.getMessage(), e);
+            if (cause instanceof PipelineRejectedException || cause instanceof DeadlineExceededException) {
+                // Ablehnungen sind unter Überlast häufig und werden ohne Stacktrace protokolliert
+                LOGGER.warn("Asynchrone Pipeline '{}' abgelehnt: {}", name, cause.getMessage());
+            } else {
+                LOGGER.error("Asynchrone Pipeline '{}' fehlgeschlagen: {}", name, cause != null ? cause.getMessage() : e.getMessage(), e);
+            }
             
             // Werfen der originalen Exception, wenn sie eine PipelineException ist
             if (cause instanceof PipelineException) {
@@ -157,6 +212,75 @@ public class AsyncPipeline<I, O> {
         });
     }
     
+    /**
+     * Führt eine einzelne Stage unter ihrem Parallelitätslimit aus und erfasst ihre Metriken.
+     */
+    private CompletableFuture<Object> runStage(int stageIndex, AsyncPipelineStage<Object, Object> stage,
+                                               Object input, PipelineContext context) {
+        StageMetrics stageMetrics = metrics.stage(stage.getStageName());
+        AdaptiveConcurrencyLimiter limiter = limiters.get(stageIndex);
+        if (limiter != null && !limiter.tryAcquire()) {
+            ConcurrencyLimitExceededException rejected =
+                    new ConcurrencyLimitExceededException(stage.getStageName(), limiter.getLimit());
+            context.setError(rejected);
+            return CompletableFuture.failedFuture(rejected);
+        }
+        
+        LOGGER.info("Führe asynchrone Stage '{}' ({}. von {}) aus", 
+                stage.getStageName(), stageIndex + 1, stages.size());
+        
+        long stageStart = stageMetrics.start();
+        try {
+            // Verarbeite die Eingabe mit der aktuellen Stage
+            return stage.processAsync(input, context)
+                .whenComplete((r, e) -> {
+                    if (limiter != null) {
+                        releaseLimiter(limiter, stageStart, e);
+                    }
+                    if (e != null) {
+                        stageMetrics.failure(stageStart);
+                        LOGGER.error("Fehler in asynchroner Stage '{}': {}", 
+                                stage.getStageName(), e.getMessage(), e);
+                        context.setError(e);
+                    } else {
+                        stageMetrics.success(stageStart);
+                        LOGGER.info("Asynchrone Stage '{}' erfolgreich abgeschlossen", 
+                                stage.getStageName());
+                    }
+                });
+        } catch (Exception e) {
+            if (limiter != null) {
+                limiter.onIgnore();
+            }
+            stageMetrics.failure(stageStart);
+            LOGGER.error("Fehler beim Starten der asynchronen Stage '{}': {}", 
+                    stage.getStageName(), e.getMessage(), e);
+            context.setError(e);
+            return CompletableFuture.failedFuture(
+                    new PipelineException("Fehler beim Starten der asynchronen Stage '" + 
+                            stage.getStageName() + "'", e));
+        }
+    }
+    
+    /**
+     * Meldet das Ende eines Stage-Aufrufs an das Parallelitätslimit.
+     * 
+     * Nur Zeitüberschreitungen gelten als Zeichen von Überlast; andere Fehler passen das
+     * Limit nicht an.
+     */
+    private static void releaseLimiter(AdaptiveConcurrencyLimiter limiter, long stageStart, Throwable error) {
+        if (error == null) {
+            limiter.onSuccess(System.nanoTime() - stageStart);
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException) {
+            limiter.onDropped();
+        } else {
+            limiter.onIgnore();
+        }
+    }
+    
     /**
      * Gibt den Namen der Pipeline zurück.
      * 
@@ -166,6 +290,15 @@ public class AsyncPipeline<I, O> {
         return name;
     }
     
+    /**
+     * Gibt die Metriken dieser Pipeline zurück.
+     * 
+     * @return Die Metriken der Pipeline
+     */
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+    
     /**
      * Gibt eine unveränderliche Liste aller Stages in dieser Pipeline zurück.
      * 
@@ -174,4 +307,41 @@ public class AsyncPipeline<I, O> {
     public List<AsyncPipelineStage<?, ?>> getStages() {
         return Collections.unmodifiableList(stages);
     }
+    
+    /**
+     * Setzt den Scheduler, über den alle Stage-Aufrufe nach Priorität und Frist gestartet werden.
+     * 
+     * Der Scheduler gehört dem Aufrufer und wird von der Pipeline nicht beendet.
+     * 
+     * @param scheduler Der Scheduler oder null, um Stages sofort zu starten
+     * @return Diese Pipeline für Method Chaining
+     */
+    public AsyncPipeline<I, O> setScheduler(PriorityStageScheduler scheduler) {
+        this.scheduler = scheduler;
+        return this;
+    }
+    
+    /**
+     * Gibt den Scheduler der Pipeline zurück.
+     * 
+     * @return Der Scheduler oder null, wenn Stages sofort gestartet werden
+     */
+    public PriorityStageScheduler getScheduler() {
+        return scheduler;
+    }
+    
+    /**
+     * Gibt das Parallelitätslimit einer Stage zurück.
+     * 
+     * @param stageName Der Name der Stage
+     * @return Das Limit oder null, wenn die Stage nicht existiert oder unbegrenzt ist
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter(String stageName) {
+        for (int i = 0; i < stages.size(); i++) {
+            if (stages.get(i).getStageName().equals(stageName)) {
+                return limiters.get(i);
+            }
+        }
+        return null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package de.becke.vs.pattern.pipeline.async;
+
+import de.becke.vs.pattern.pipeline.core.PipelineRejectedException;
+
+/**
+ * Eine Exception, die geworfen wird, wenn eine Stage einen Aufruf ablehnt, weil ihr
+ * {@link AdaptiveConcurrencyLimiter} bereits ausgeschöpft ist.
+ */
+public class ConcurrencyLimitExceededException extends PipelineRejectedException {
+
+    // Limit zum Zeitpunkt der Ablehnung
+    private final int limit;
+
+    /**
+     * Erstellt eine neue ConcurrencyLimitExceededException.
+     *
+     * @param stageName Der Name der Stage, die den Aufruf abgelehnt hat
+     * @param limit Das Limit zum Zeitpunkt der Ablehnung
+     */
+    public ConcurrencyLimitExceededException(String stageName, int limit) {
+        super("Parallelitätslimit von " + limit + " erreicht", stageName);
+        this.limit = limit;
+    }
+
+    /**
+     * Gibt das Limit zum Zeitpunkt der Ablehnung zurück.
+     *
+     * @return Die maximale Anzahl gleichzeitiger Aufrufe
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
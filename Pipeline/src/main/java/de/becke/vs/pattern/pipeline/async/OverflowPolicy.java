@@ -0,0 +1,10 @@
+package de.becke.vs.pattern.pipeline.async;
+
+/**
+ * Verhalten einer Stage-Warteschlange, wenn sie voll ist.
+ */
+public enum OverflowPolicy {
+    BLOCK,     // Der Absender wartet, bis wieder Platz in der Warteschlange ist
+    DROP,      // Das älteste wartende Element wird verworfen, um Platz zu schaffen
+    FAIL_FAST  // Das neue Element wird sofort abgelehnt
+}
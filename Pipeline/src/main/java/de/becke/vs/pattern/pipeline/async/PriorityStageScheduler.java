@@ -0,0 +1,270 @@
+package de.becke.vs.pattern.pipeline.async;
+
+import de.becke.vs.pattern.pipeline.core.DeadlineExceededException;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Ein Scheduler, der wartende Stage-Aufrufe einer {@link AsyncPipeline} nach Priorität
+ * und Frist ordnet.
+ *
+ * Aufrufe warten in einer gemeinsamen Prioritätswarteschlange und werden von einer festen
+ * Anzahl Worker-Threads gestartet: zuerst nach der höchsten {@link PipelineContext#getPriority()},
+ * bei gleicher Priorität nach der frühesten {@link PipelineContext#getDeadline()} und zuletzt
+ * in Ankunftsreihenfolge. Ist die Frist eines Aufrufs abgelaufen, wenn er an der Reihe ist,
+ * wird er nicht gestartet, sondern mit einer {@link DeadlineExceededException} verworfen.
+ * Wartende Aufrufe werden außerdem bei Ablauf ihrer Frist aus der Warteschlange entfernt,
+ * damit sie dort keinen Platz belegen und der Aufrufer sofort benachrichtigt wird.
+ *
+ * Die Worker führen den synchronen Teil von {@link AsyncPipelineStage#processAsync} aus.
+ * Stages, die ihre Arbeit direkt im Aufruf erledigen, werden damit vollständig priorisiert;
+ * Stages, die ihre Arbeit an einen eigenen Executor abgeben, nur in ihrem Start.
+ */
+public class PriorityStageScheduler implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PriorityStageScheduler.class);
+
+    private final String name;
+    private final PriorityBlockingQueue<Task<?>> queue = new PriorityBlockingQueue<>();
+    private final Thread[] workers;
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Entfernt wartende Aufrufe bei Ablauf ihrer Frist
+    private final ScheduledThreadPoolExecutor deadlineTimer;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    private volatile boolean running = true;
+
+    /**
+     * Erstellt einen Scheduler und startet seine Worker-Threads.
+     *
+     * @param name Der Name des Schedulers, der in den Thread-Namen erscheint
+     * @param threads Die Anzahl der Worker-Threads
+     */
+    public PriorityStageScheduler(String name, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Es muss mindestens ein Worker angegeben werden");
+        }
+        this.name = name;
+        this.deadlineTimer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, name + "-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Gestartete Aufrufe sollen den Timer nicht bis zu ihrer Frist belegen
+        deadlineTimer.setRemoveOnCancelPolicy(true);
+        this.workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::runWorker, name + "-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        LOGGER.info("Prioritäts-Scheduler '{}' mit {} Workern gestartet", name, threads);
+    }
+
+    /**
+     * Stellt einen Stage-Aufruf in die Warteschlange.
+     *
+     * Wird der Scheduler währenddessen beendet, wird der Aufruf entweder von
+     * {@link #close()} oder hier wieder entfernt und abgelehnt.
+     *
+     * @param context Der Kontext des Durchlaufs mit Priorität und Frist
+     * @param stageName Der Name der Stage
+     * @param work Der Aufruf der Stage
+     * @param <T> Der Ergebnistyp der Stage
+     * @return Ein CompletableFuture mit dem Ergebnis der Stage
+     */
+    public <T> CompletableFuture<T> schedule(PipelineContext context, String stageName,
+                                             Supplier<CompletableFuture<T>> work) {
+        Task<T> task = new Task<>(context, stageName, work, sequence.incrementAndGet());
+        if (!running) {
+            task.result.completeExceptionally(new PipelineRejectedException(
+                    "Der Scheduler '" + name + "' wurde beendet", stageName));
+            return task.result;
+        }
+        if (context.isDeadlineExceeded()) {
+            expire(task);
+            return task.result;
+        }
+        if (task.deadline != 0) {
+            scheduleExpiry(task);
+        }
+        queue.offer(task);
+        if (!running && queue.remove(task)) {
+            task.cancelExpiry();
+            task.result.completeExceptionally(new PipelineRejectedException(
+                    "Der Scheduler '" + name + "' wurde beendet", stageName));
+        }
+        return task.result;
+    }
+
+    /**
+     * Plant das Entfernen eines wartenden Aufrufs zum Ablauf seiner Frist.
+     */
+    private void scheduleExpiry(Task<?> task) {
+        long delay = task.deadline - System.currentTimeMillis() + 1;
+        try {
+            task.expiry = deadlineTimer.schedule(() -> {
+                // Nur entfernen, wenn noch kein Worker den Aufruf übernommen hat
+                if (task.context.isDeadlineExceeded() && queue.remove(task)) {
+                    expire(task);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Der Scheduler wird gerade beendet und lehnt den Aufruf ab
+        }
+    }
+
+    /**
+     * Schleife eines Worker-Threads: den dringendsten Aufruf entnehmen und starten.
+     */
+    private void runWorker() {
+        while (running) {
+            Task<?> task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            task.cancelExpiry();
+            if (task.context.isDeadlineExceeded()) {
+                expire(task);
+            } else {
+                executed.increment();
+                task.run();
+            }
+        }
+    }
+
+    private void expire(Task<?> task) {
+        expired.increment();
+        LOGGER.debug("Aufruf der Stage '{}' verworfen: Frist abgelaufen", task.stageName);
+        task.result.completeExceptionally(new DeadlineExceededException(task.stageName, task.deadline));
+    }
+
+    /**
+     * Gibt die Anzahl der wartenden Aufrufe zurück.
+     *
+     * @return Die Tiefe der Warteschlange
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Gibt die Anzahl der gestarteten Aufrufe zurück.
+     *
+     * @return Die Anzahl der ausgeführten Aufrufe
+     */
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    /**
+     * Gibt die Anzahl der wegen abgelaufener Frist verworfenen Aufrufe zurück.
+     *
+     * @return Die Anzahl der verworfenen Aufrufe
+     */
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    /**
+     * Beendet alle Worker und lehnt noch wartende Aufrufe ab.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        deadlineTimer.shutdownNow();
+        Task<?> task;
+        while ((task = queue.poll()) != null) {
+            task.result.completeExceptionally(new PipelineRejectedException(
+                    "Der Scheduler '" + name + "' wurde beendet", task.stageName));
+        }
+
+        LOGGER.info("Prioritäts-Scheduler '{}' beendet", name);
+    }
+
+    /**
+     * Ein wartender Stage-Aufruf.
+     *
+     * Priorität und Frist werden beim Einreihen festgehalten, da sich die Ordnung eines
+     * Elements in der Warteschlange nicht mehr ändern darf.
+     */
+    private static final class Task<T> implements Comparable<Task<?>> {
+        private final PipelineContext context;
+        private final String stageName;
+        private final Supplier<CompletableFuture<T>> work;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final int priority;
+        private final long deadline;
+        private final long sequence;
+
+        // Das geplante Entfernen bei Ablauf der Frist oder null
+        private volatile ScheduledFuture<?> expiry;
+
+        Task(PipelineContext context, String stageName, Supplier<CompletableFuture<T>> work, long sequence) {
+            this.context = context;
+            this.stageName = stageName;
+            this.work = work;
+            this.priority = context.getPriority();
+            this.deadline = context.getDeadline();
+            this.sequence = sequence;
+        }
+
+        void cancelExpiry() {
+            ScheduledFuture<?> current = expiry;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+
+        void run() {
+            try {
+                work.get().whenComplete((value, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public int compareTo(Task<?> other) {
+            if (priority != other.priority) {
+                return Integer.compare(other.priority, priority);
+            }
+            if (deadline != other.deadline) {
+                // Aufrufe ohne Frist (0) kommen nach allen Aufrufen mit Frist
+                return Long.compareUnsigned(deadline - 1, other.deadline - 1);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
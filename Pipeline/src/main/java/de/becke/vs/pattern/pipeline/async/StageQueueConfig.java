@@ -0,0 +1,67 @@
+package de.becke.vs.pattern.pipeline.async;
+
+/**
+ * Konfiguration der Warteschlange und des Worker-Pools einer Stage im
+ * {@link StagedAsyncPipeline}-Laufzeitsystem.
+ */
+public class StageQueueConfig {
+    
+    private final int queueCapacity;
+    private final int workers;
+    private final OverflowPolicy overflowPolicy;
+    
+    /**
+     * Erstellt eine neue Stage-Konfiguration.
+     * 
+     * @param queueCapacity Die maximale Anzahl wartender Elemente
+     * @param workers Die Anzahl der Worker-Threads, die die Stage gleichzeitig ausführen
+     * @param overflowPolicy Das Verhalten bei voller Warteschlange
+     */
+    public StageQueueConfig(int queueCapacity, int workers, OverflowPolicy overflowPolicy) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Die Kapazität der Warteschlange muss mindestens 1 sein");
+        }
+        if (workers < 1) {
+            throw new IllegalArgumentException("Es muss mindestens ein Worker angegeben werden");
+        }
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Es muss eine Überlaufstrategie angegeben werden");
+        }
+        this.queueCapacity = queueCapacity;
+        this.workers = workers;
+        this.overflowPolicy = overflowPolicy;
+    }
+    
+    /**
+     * Gibt die maximale Anzahl wartender Elemente zurück.
+     * 
+     * @return Die Kapazität der Warteschlange
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    /**
+     * Gibt die Anzahl der Worker-Threads zurück.
+     * 
+     * @return Die Anzahl der Worker
+     */
+    public int getWorkers() {
+        return workers;
+    }
+    
+    /**
+     * Gibt das Verhalten bei voller Warteschlange zurück.
+     * 
+     * @return Die Überlaufstrategie
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+    
+    @Override
+    public String toString() {
+        return "StageQueueConfig{capacity=" + queueCapacity + ", workers=" + workers +
+                ", policy=" + overflowPolicy + "}";
+    }
+}
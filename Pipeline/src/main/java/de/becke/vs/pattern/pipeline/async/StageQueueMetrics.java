@@ -0,0 +1,141 @@
+package de.becke.vs.pattern.pipeline.async;
+
+/**
+ * Momentaufnahme der Warteschlangen-Kennzahlen einer Stage.
+ */
+public class StageQueueMetrics {
+    
+    private final String stageName;
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final int maxQueueDepth;
+    private final int busyWorkers;
+    private final long enqueued;
+    private final long processed;
+    private final long dropped;
+    private final long rejected;
+    
+    /**
+     * Erstellt eine neue Momentaufnahme.
+     * 
+     * @param stageName Der Name der Stage
+     * @param queueDepth Die aktuelle Anzahl wartender Elemente
+     * @param queueCapacity Die Kapazität der Warteschlange
+     * @param maxQueueDepth Die höchste bisher beobachtete Anzahl wartender Elemente
+     * @param busyWorkers Die Anzahl der gerade laufenden Aufrufe der Stage
+     * @param enqueued Die Anzahl der angenommenen Elemente
+     * @param processed Die Anzahl der verarbeiteten Elemente
+     * @param dropped Die Anzahl der verworfenen Elemente
+     * @param rejected Die Anzahl der abgelehnten Elemente
+     */
+    public StageQueueMetrics(String stageName, int queueDepth, int queueCapacity, int maxQueueDepth,
+                             int busyWorkers, long enqueued, long processed, long dropped, long rejected) {
+        this.stageName = stageName;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.maxQueueDepth = maxQueueDepth;
+        this.busyWorkers = busyWorkers;
+        this.enqueued = enqueued;
+        this.processed = processed;
+        this.dropped = dropped;
+        this.rejected = rejected;
+    }
+    
+    /**
+     * Gibt den Namen der Stage zurück.
+     * 
+     * @return Der Name der Stage
+     */
+    public String getStageName() {
+        return stageName;
+    }
+    
+    /**
+     * Gibt die aktuelle Anzahl wartender Elemente zurück.
+     * 
+     * @return Die Tiefe der Warteschlange
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+    
+    /**
+     * Gibt die Kapazität der Warteschlange zurück.
+     * 
+     * @return Die Kapazität der Warteschlange
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    /**
+     * Gibt die höchste bisher beobachtete Anzahl wartender Elemente zurück.
+     * 
+     * @return Die maximale Tiefe der Warteschlange
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+    
+    /**
+     * Gibt die Anzahl der laufenden Aufrufe zurück, die je einen Worker-Platz belegen.
+     * 
+     * @return Die Anzahl belegter Worker-Plätze
+     */
+    public int getBusyWorkers() {
+        return busyWorkers;
+    }
+    
+    /**
+     * Gibt die Anzahl der angenommenen Elemente zurück.
+     * 
+     * @return Die Anzahl angenommener Elemente
+     */
+    public long getEnqueued() {
+        return enqueued;
+    }
+    
+    /**
+     * Gibt die Anzahl der verarbeiteten Elemente zurück.
+     * 
+     * @return Die Anzahl verarbeiteter Elemente
+     */
+    public long getProcessed() {
+        return processed;
+    }
+    
+    /**
+     * Gibt die Anzahl der wegen Überlauf verworfenen Elemente zurück.
+     * 
+     * @return Die Anzahl verworfener Elemente
+     */
+    public long getDropped() {
+        return dropped;
+    }
+    
+    /**
+     * Gibt die Anzahl der wegen Überlauf abgelehnten Elemente zurück.
+     * 
+     * @return Die Anzahl abgelehnter Elemente
+     */
+    public long getRejected() {
+        return rejected;
+    }
+    
+    /**
+     * Gibt die Auslastung der Warteschlange zurück.
+     * 
+     * @return Der Anteil belegter Plätze zwischen 0.0 und 1.0
+     */
+    public double getUtilization() {
+        return (double) queueDepth / queueCapacity;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: Tiefe %d/%d (max %d), aktiv %d, angenommen %d, verarbeitet %d, " +
+                        "verworfen %d, abgelehnt %d",
+                stageName, queueDepth, queueCapacity, maxQueueDepth, busyWorkers,
+                enqueued, processed, dropped, rejected);
+    }
+}
@@ -0,0 +1,522 @@
+package de.becke.vs.pattern.pipeline.async;
+
+import de.becke.vs.pattern.pipeline.core.ContextKey;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gestuftes Laufzeitsystem (SEDA) für eine {@link AsyncPipeline}.
+ *
+ * Jede Stage erhält eine eigene, begrenzte Warteschlange und einen eigenen Pool von
+ * Worker-Threads. Die Worker starten die Aufrufe, ohne auf deren Ende zu warten; die
+ * Anzahl der laufenden Aufrufe pro Stage ist durch die Anzahl der Worker begrenzt. Das
+ * Ergebnis eines Aufrufs reicht der Thread weiter, der ihn abschließt.
+ * Ist die Warteschlange einer Stage voll, entscheidet ihre {@link OverflowPolicy}, ob der
+ * Absender wartet, ältere Arbeit verworfen oder die neue Arbeit abgelehnt wird. Mit
+ * {@link OverflowPolicy#BLOCK} pflanzt sich der Gegendruck so bis zum Aufrufer fort, da
+ * eine Stage ihren Platz erst nach dem Weiterreichen des Ergebnisses freigibt. Beim
+ * Weiterreichen zwischen Stages wird dabei nie blockiert: Findet ein Ergebnis keinen Platz,
+ * wird es bei der Folge-Stage geparkt und übernommen, sobald deren Worker ein Element
+ * entnimmt. Bis dahin bleibt der Platz der abgebenden Stage belegt.
+ *
+ * Die im Kontext eines Elements registrierten Ressourcen werden freigegeben, sobald das
+ * Element abgeschlossen, abgelehnt oder verworfen wird.
+ *
+ * @param <I> Der Eingabetyp der Pipeline
+ * @param <O> Der Ausgabetyp der Pipeline
+ */
+public class StagedAsyncPipeline<I, O> implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StagedAsyncPipeline.class);
+
+    // Name der Pipeline
+    private final String name;
+
+    // Laufzeitdaten der Stages in Ausführungsreihenfolge
+    private final List<StageRuntime> runtimes = new ArrayList<>();
+
+    // Gibt an, ob das Laufzeitsystem Arbeit annimmt
+    private volatile boolean running = true;
+
+    /**
+     * Erstellt ein gestuftes Laufzeitsystem mit derselben Konfiguration für alle Stages.
+     *
+     * @param pipeline Die asynchrone Pipeline, deren Stages ausgeführt werden
+     * @param defaultConfig Die Konfiguration für alle Stages
+     */
+    public StagedAsyncPipeline(AsyncPipeline<I, O> pipeline, StageQueueConfig defaultConfig) {
+        this(pipeline, defaultConfig, Collections.emptyMap());
+    }
+
+    /**
+     * Erstellt ein gestuftes Laufzeitsystem mit individueller Konfiguration pro Stage.
+     *
+     * @param pipeline Die asynchrone Pipeline, deren Stages ausgeführt werden
+     * @param defaultConfig Die Konfiguration für Stages ohne eigenen Eintrag
+     * @param stageConfigs Die Konfigurationen pro Stage-Name
+     */
+    @SuppressWarnings("unchecked")
+    public StagedAsyncPipeline(AsyncPipeline<I, O> pipeline, StageQueueConfig defaultConfig,
+                               Map<String, StageQueueConfig> stageConfigs) {
+        if (pipeline.getStages().isEmpty()) {
+            throw new IllegalArgumentException("Die Pipeline muss mindestens eine Stage enthalten");
+        }
+
+        this.name = pipeline.getName();
+
+        List<AsyncPipelineStage<?, ?>> stages = pipeline.getStages();
+        for (int i = 0; i < stages.size(); i++) {
+            AsyncPipelineStage<Object, Object> stage = (AsyncPipelineStage<Object, Object>) stages.get(i);
+            StageQueueConfig config = stageConfigs.getOrDefault(stage.getStageName(), defaultConfig);
+            runtimes.add(new StageRuntime(i, stage, config));
+        }
+
+        for (StageRuntime runtime : runtimes) {
+            runtime.start();
+        }
+
+        LOGGER.info("Gestuftes Laufzeitsystem für Pipeline '{}' mit {} Stages gestartet", name, runtimes.size());
+    }
+
+    /**
+     * Übergibt eine Eingabe an die erste Stage.
+     *
+     * Ist die Warteschlange der ersten Stage voll, greift deren Überlaufstrategie. Bei
+     * {@link OverflowPolicy#BLOCK} blockiert dieser Aufruf, bis wieder Platz frei ist.
+     * Abgelehnte oder verworfene Eingaben führen zu einem Future, das mit einer
+     * {@link PipelineRejectedException} abgeschlossen wird.
+     *
+     * @param input Die Eingabe für die Pipeline
+     * @return Ein CompletableFuture mit dem Ergebnis der Pipeline
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<O> executeAsync(I input) {
+        WorkItem item = newWorkItem(input);
+        StageRuntime first = runtimes.get(0);
+
+        if (!running) {
+            item.reject(first.stage.getStageName(), "Das Laufzeitsystem der Pipeline '" + name + "' wurde beendet");
+        } else {
+            first.submit(item, first.config.getOverflowPolicy());
+        }
+
+        return (CompletableFuture<O>) (CompletableFuture<?>) item.result;
+    }
+
+    /**
+     * Versucht, eine Eingabe an die erste Stage zu übergeben, ohne zu blockieren.
+     *
+     * @param input Die Eingabe für die Pipeline
+     * @return Ein CompletableFuture mit dem Ergebnis oder ein leeres Optional, wenn die
+     *         erste Stage ausgelastet ist
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<CompletableFuture<O>> tryExecuteAsync(I input) {
+        StageRuntime first = runtimes.get(0);
+        if (!running) {
+            return Optional.empty();
+        }
+
+        WorkItem item = newWorkItem(input);
+        if (!first.submit(item, OverflowPolicy.FAIL_FAST)) {
+            return Optional.empty();
+        }
+
+        return Optional.of((CompletableFuture<O>) (CompletableFuture<?>) item.result);
+    }
+
+    /**
+     * Prüft, ob die Warteschlange der ersten Stage voll ist.
+     *
+     * @return true, wenn neue Eingaben derzeit nicht sofort angenommen werden können
+     */
+    public boolean isSaturated() {
+        return runtimes.get(0).queue.remainingCapacity() == 0;
+    }
+
+    /**
+     * Gibt die aktuellen Warteschlangen-Kennzahlen aller Stages zurück.
+     *
+     * @return Die Kennzahlen in Ausführungsreihenfolge
+     */
+    public List<StageQueueMetrics> getStageMetrics() {
+        List<StageQueueMetrics> metrics = new ArrayList<>(runtimes.size());
+        for (StageRuntime runtime : runtimes) {
+            metrics.add(runtime.snapshot());
+        }
+        return metrics;
+    }
+
+    /**
+     * Gibt den Namen der Pipeline zurück.
+     *
+     * @return Der Name der Pipeline
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Beendet alle Worker und lehnt noch wartende Elemente ab.
+     *
+     * Bereits laufende Aufrufe werden nicht abgebrochen; ihre Elemente werden abgelehnt,
+     * sobald sie an die nächste Stage weitergereicht werden.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        for (StageRuntime runtime : runtimes) {
+            runtime.stop();
+        }
+
+        LOGGER.info("Gestuftes Laufzeitsystem für Pipeline '{}' beendet", name);
+    }
+
+    /**
+     * Erzeugt ein neues Arbeitselement mit einem eigenen Kontext.
+     */
+    private WorkItem newWorkItem(Object input) {
+        PipelineContext context = new PipelineContext();
+        context.set(ContextKey.PIPELINE_NAME, name);
+        context.set(ContextKey.PIPELINE_TYPE, "staged");
+        return new WorkItem(input, context);
+    }
+
+    /**
+     * Ein Element, das zusammen mit seinem Kontext durch die Stages wandert.
+     */
+    private static final class WorkItem {
+        private Object value;
+        private final PipelineContext context;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        WorkItem(Object value, PipelineContext context) {
+            this.value = value;
+            this.context = context;
+        }
+
+        void complete(Object output) {
+            context.releaseResources(output);
+            result.complete(output);
+        }
+
+        void fail(PipelineException e) {
+            context.setError(e);
+            context.releaseResources(null);
+            result.completeExceptionally(e);
+        }
+
+        void reject(String stageName, String message) {
+            fail(new PipelineRejectedException(message, stageName));
+        }
+    }
+
+    /**
+     * Ein geparktes Element und die Stage, deren Platz es belegt.
+     */
+    private final class Parked {
+
+        private final WorkItem item;
+        private final StageRuntime source;
+
+        Parked(WorkItem item, StageRuntime source) {
+            this.item = item;
+            this.source = source;
+        }
+    }
+
+    /**
+     * Warteschlange, Worker und Zähler einer einzelnen Stage.
+     */
+    private final class StageRuntime {
+
+        private final int index;
+        private final AsyncPipelineStage<Object, Object> stage;
+        private final StageQueueConfig config;
+        private final ArrayBlockingQueue<WorkItem> queue;
+        private final Thread[] workers;
+
+        // Von der vorherigen Stage geparkte Elemente, die auf Platz in der Warteschlange warten
+        private final ConcurrentLinkedDeque<Parked> parked = new ConcurrentLinkedDeque<>();
+
+        // Freie Plätze für laufende Aufrufe, einer pro Worker
+        private final Semaphore slots;
+
+        private final AtomicInteger busyWorkers = new AtomicInteger();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private final LongAdder enqueued = new LongAdder();
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        StageRuntime(int index, AsyncPipelineStage<Object, Object> stage, StageQueueConfig config) {
+            this.index = index;
+            this.stage = stage;
+            this.config = config;
+            this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+            this.workers = new Thread[config.getWorkers()];
+            this.slots = new Semaphore(config.getWorkers());
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new Thread(this::runWorker, name + "-" + stage.getStageName() + "-" + i);
+                workers[i].setDaemon(true);
+            }
+            LOGGER.info("Stage '{}' der Pipeline '{}' konfiguriert: {}", stage.getStageName(), name, config);
+        }
+
+        void start() {
+            for (Thread worker : workers) {
+                worker.start();
+            }
+        }
+
+        void stop() {
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+            WorkItem item;
+            while ((item = queue.poll()) != null) {
+                item.reject(stage.getStageName(), "Das Laufzeitsystem der Pipeline '" + name + "' wurde beendet");
+            }
+            Parked entry;
+            while ((entry = parked.pollFirst()) != null) {
+                entry.item.reject(stage.getStageName(), "Das Laufzeitsystem der Pipeline '" + name + "' wurde beendet");
+                entry.source.slots.release();
+            }
+        }
+
+        /**
+         * Stellt ein Element gemäß der angegebenen Überlaufstrategie in die Warteschlange.
+         *
+         * Wird das Laufzeitsystem währenddessen beendet, nimmt das Element entweder ein
+         * Worker oder {@link #stop()} aus der Warteschlange, oder es wird hier wieder
+         * entfernt und abgelehnt.
+         *
+         * @return true, wenn das Element angenommen wurde, sonst false
+         */
+        boolean submit(WorkItem item, OverflowPolicy policy) {
+            switch (policy) {
+                case BLOCK:
+                    try {
+                        queue.put(item);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        rejected.increment();
+                        item.reject(stage.getStageName(), "Warten auf Platz in Stage '" + stage.getStageName() + "' wurde unterbrochen");
+                        return false;
+                    }
+                    break;
+                case DROP:
+                    while (!queue.offer(item)) {
+                        WorkItem oldest = queue.poll();
+                        if (oldest != null) {
+                            dropped.increment();
+                            oldest.reject(stage.getStageName(), "Element wurde wegen Überlast aus Stage '" +
+                                    stage.getStageName() + "' verworfen");
+                        }
+                    }
+                    break;
+                case FAIL_FAST:
+                default:
+                    if (!queue.offer(item)) {
+                        rejected.increment();
+                        item.reject(stage.getStageName(), "Stage '" + stage.getStageName() + "' ist ausgelastet");
+                        return false;
+                    }
+                    break;
+            }
+            return accepted(item);
+        }
+
+        /**
+         * Übernimmt ein Element von der vorherigen Stage, ohne zu blockieren. Ist bei
+         * {@link OverflowPolicy#BLOCK} kein Platz frei, wird das Element geparkt; der Platz
+         * der abgebenden Stage wird erst frei, wenn das Element übernommen wurde.
+         *
+         * @param item Das weitergereichte Element
+         * @param source Die abgebende Stage
+         */
+        void handOff(WorkItem item, StageRuntime source) {
+            OverflowPolicy policy = config.getOverflowPolicy();
+            if (policy != OverflowPolicy.BLOCK) {
+                try {
+                    submit(item, policy);
+                } finally {
+                    source.slots.release();
+                }
+                return;
+            }
+            if (parked.isEmpty() && queue.offer(item)) {
+                accepted(item);
+                source.slots.release();
+                return;
+            }
+            parked.addLast(new Parked(item, source));
+            if (!running) {
+                stop();
+                return;
+            }
+            drainParked();
+        }
+
+        /**
+         * Überführt geparkte Elemente in die Warteschlange, solange dort Platz ist.
+         */
+        private void drainParked() {
+            Parked entry;
+            while ((entry = parked.pollFirst()) != null) {
+                if (!queue.offer(entry.item)) {
+                    parked.addFirst(entry);
+                    // Ist weiterhin kein Platz frei, übernimmt die nächste Entnahme
+                    if (queue.remainingCapacity() == 0) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    accepted(entry.item);
+                } finally {
+                    entry.source.slots.release();
+                }
+            }
+        }
+
+        /**
+         * Verbucht ein in die Warteschlange gestelltes Element. Wurde das Laufzeitsystem
+         * inzwischen beendet, wird es wieder entfernt und abgelehnt.
+         */
+        private boolean accepted(WorkItem item) {
+            if (!running && queue.remove(item)) {
+                rejected.increment();
+                item.reject(stage.getStageName(), "Das Laufzeitsystem der Pipeline '" + name + "' wurde beendet");
+                return false;
+            }
+
+            enqueued.increment();
+            int depth = queue.size();
+            int max = maxQueueDepth.get();
+            while (depth > max && !maxQueueDepth.compareAndSet(max, depth)) {
+                max = maxQueueDepth.get();
+            }
+            return true;
+        }
+
+        /**
+         * Schleife eines Worker-Threads: auf einen freien Platz warten, Element entnehmen
+         * und den Aufruf starten.
+         */
+        private void runWorker() {
+            while (running) {
+                WorkItem item;
+                try {
+                    slots.acquire();
+                } catch (InterruptedException e) {
+                    break;
+                }
+                try {
+                    item = queue.take();
+                } catch (InterruptedException e) {
+                    slots.release();
+                    break;
+                }
+
+                drainParked();
+                process(item);
+            }
+        }
+
+        /**
+         * Startet den Aufruf der Stage. Der Platz wird frei, sobald das Ergebnis
+         * weitergereicht wurde.
+         */
+        private void process(WorkItem item) {
+            busyWorkers.incrementAndGet();
+            CompletableFuture<Object> future;
+            try {
+                future = stage.processAsync(item.value, item.context);
+                if (future == null) {
+                    future = CompletableFuture.failedFuture(new NullPointerException(
+                            "Stage '" + stage.getStageName() + "' hat kein Future geliefert"));
+                }
+            } catch (Exception e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+
+            future.whenComplete((output, error) -> {
+                busyWorkers.decrementAndGet();
+                boolean forwarded = false;
+                try {
+                    if (error != null) {
+                        handleFailure(item, unwrap(error));
+                    } else {
+                        processed.increment();
+                        forwarded = forward(item, output);
+                    }
+                } finally {
+                    if (!forwarded) {
+                        slots.release();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Reicht das Ergebnis weiter. Der Aufruf blockiert nicht, da er auf dem Thread
+         * läuft, der das Future der Stage abschließt.
+         *
+         * @return true, wenn die Folge-Stage den Platz dieser Stage freigibt
+         */
+        private boolean forward(WorkItem item, Object output) {
+            if (index == runtimes.size() - 1) {
+                item.complete(output);
+                return false;
+            }
+            item.value = output;
+            runtimes.get(index + 1).handOff(item, this);
+            return true;
+        }
+
+        private void handleFailure(WorkItem item, Throwable cause) {
+            LOGGER.error("Fehler in gestufter Stage '{}': {}", stage.getStageName(), cause.getMessage(), cause);
+
+            if (cause instanceof PipelineException) {
+                item.fail((PipelineException) cause);
+            } else {
+                item.fail(new PipelineException("Fehler während der Verarbeitung in asynchroner Stage '" +
+                        stage.getStageName() + "'", cause));
+            }
+        }
+
+        private Throwable unwrap(Throwable error) {
+            if (error instanceof CompletionException && error.getCause() != null) {
+                return error.getCause();
+            }
+            return error;
+        }
+
+        StageQueueMetrics snapshot() {
+            return new StageQueueMetrics(stage.getStageName(), queue.size(), config.getQueueCapacity(),
+                    maxQueueDepth.get(), busyWorkers.get(), enqueued.sum(), processed.sum(),
+                    dropped.sum(), rejected.sum());
+        }
+    }
+}
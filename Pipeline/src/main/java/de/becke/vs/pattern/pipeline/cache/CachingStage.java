@@ -0,0 +1,170 @@
+package de.becke.vs.pattern.pipeline.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import de.becke.vs.pattern.pipeline.core.ContextKey;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineStage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Ein Decorator, der die Ergebnisse einer deterministischen Stage zwischenspeichert.
+ *
+ * Der Cache basiert auf Caffeine: Er ist in der Größe begrenzt, verdrängt Einträge nach
+ * W-TinyLFU und lässt Einträge nach einer festen Zeit verfallen. Der Schlüssel ist die
+ * Eingabe der Stage, sie muss daher {@code equals} und {@code hashCode} sinnvoll
+ * implementieren.
+ *
+ * Fragen mehrere Threads gleichzeitig dieselbe, noch nicht gecachte Eingabe an, wird die
+ * Stage nur einmal ausgeführt; die übrigen Threads warten auf dieses Ergebnis. Der Cache
+ * hält dazu ein Future je Eingabe, die Stage selbst läuft auf dem aufrufenden Thread und
+ * außerhalb der Sperren des Caches. Bei einem
+ * Treffer wird die Stage nicht aufgerufen, Änderungen am Kontext durch die Stage
+ * entfallen dann. Fehler und null-Ergebnisse werden nicht gecacht.
+ *
+ * @param <I> Der Typ der Eingabedaten
+ * @param <O> Der Typ der Ausgabedaten
+ */
+public class CachingStage<I, O> implements PipelineStage<I, O> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingStage.class);
+
+    // Standardwerte für den Cache
+    private static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+
+    private final PipelineStage<I, O> delegate;
+    private final AsyncCache<I, O> cache;
+
+    /**
+     * Erstellt einen Cache mit Standardgröße und -verfallszeit für die angegebene Stage.
+     *
+     * @param delegate Die zu cachende Stage
+     */
+    public CachingStage(PipelineStage<I, O> delegate) {
+        this(delegate, DEFAULT_MAXIMUM_SIZE, DEFAULT_TTL);
+    }
+
+    /**
+     * Erstellt einen Cache für die angegebene Stage.
+     *
+     * @param delegate Die zu cachende Stage
+     * @param maximumSize Die maximale Anzahl der Einträge
+     * @param ttl Die Zeit, nach der ein Eintrag verfällt
+     */
+    public CachingStage(PipelineStage<I, O> delegate, long maximumSize, Duration ttl) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+
+        LOGGER.info("Cache für Stage '{}' erstellt (maximal {} Einträge, TTL {})",
+                delegate.getStageName(), maximumSize, ttl);
+    }
+
+    @Override
+    public O process(I input, PipelineContext context) throws PipelineException {
+        // Caffeine erlaubt keine null-Schlüssel
+        if (input == null) {
+            return delegate.process(null, context);
+        }
+
+        // Unter der Sperre des Caches wird nur das Future eingetragen
+        CompletableFuture<O> loading = new CompletableFuture<>();
+        CompletableFuture<O> inFlight = cache.get(input, (key, executor) -> loading);
+        if (inFlight != loading) {
+            return await(inFlight);
+        }
+
+        try {
+            O result = delegate.process(input, context);
+            loading.complete(result);
+            return result;
+        } catch (PipelineException | RuntimeException | Error e) {
+            // Ein nicht abgeschlossenes Future bliebe im Cache und ließe alle Wartenden hängen
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Gibt den Namen der zugrunde liegenden Stage zurück, damit Fehlermeldungen und
+     * Metriken unverändert bleiben.
+     *
+     * @return Der Name der Stage
+     */
+    @Override
+    public String getStageName() {
+        return delegate.getStageName();
+    }
+
+    @Override
+    public Collection<ContextKey<?>> getContextKeys() {
+        return delegate.getContextKeys();
+    }
+
+    /**
+     * Gibt die Statistiken des Caches zurück.
+     *
+     * @return Treffer, Fehlschläge, Ladezeiten und Verdrängungen des Caches
+     */
+    public CacheStats getStatistics() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * Gibt die ungefähre Anzahl der Einträge im Cache zurück.
+     *
+     * @return Die Anzahl der Einträge
+     */
+    public long getSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    /**
+     * Entfernt alle Einträge aus dem Cache.
+     */
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    /**
+     * Gibt die zugrunde liegende Stage zurück.
+     *
+     * @return Die gecachte Stage
+     */
+    public PipelineStage<I, O> getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Wartet auf das Ergebnis eines anderen Threads und reicht dessen Fehler unverändert weiter.
+     */
+    private O await(CompletableFuture<O> inFlight) throws PipelineException {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof PipelineException) {
+                throw (PipelineException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new PipelineException("Fehler beim Laden des Cache-Eintrags", cause, getStageName());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package de.becke.vs.pattern.pipeline.checkpoint;
+
+/**
+ * Der Zwischenstand eines Pipeline-Durchlaufs nach einer abgeschlossenen Stage.
+ */
+public final class Checkpoint {
+
+    /**
+     * Index, unter dem die Eingabe der Pipeline vor der ersten Stage gespeichert wird.
+     */
+    public static final int INPUT_INDEX = -1;
+
+    private final String executionId;
+    private final int stageIndex;
+    private final String stageName;
+    private final Object value;
+    private final long timestamp;
+
+    /**
+     * Erstellt einen neuen Checkpoint.
+     *
+     * @param executionId Die ID des Pipeline-Durchlaufs
+     * @param stageIndex Der Index der zuletzt abgeschlossenen Stage oder {@link #INPUT_INDEX}
+     * @param stageName Der Name der zuletzt abgeschlossenen Stage oder null für die Eingabe
+     * @param value Die Ausgabe der Stage bzw. die Eingabe der Pipeline
+     * @param timestamp Der Zeitpunkt der Speicherung in Millisekunden
+     */
+    public Checkpoint(String executionId, int stageIndex, String stageName, Object value, long timestamp) {
+        this.executionId = executionId;
+        this.stageIndex = stageIndex;
+        this.stageName = stageName;
+        this.value = value;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Gibt die ID des Pipeline-Durchlaufs zurück.
+     *
+     * @return Die ID des Pipeline-Durchlaufs
+     */
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    /**
+     * Gibt den Index der zuletzt abgeschlossenen Stage zurück.
+     *
+     * @return Der Index der Stage oder {@link #INPUT_INDEX}, wenn noch keine Stage abgeschlossen wurde
+     */
+    public int getStageIndex() {
+        return stageIndex;
+    }
+
+    /**
+     * Gibt den Namen der zuletzt abgeschlossenen Stage zurück.
+     *
+     * @return Der Name der Stage oder null, wenn noch keine Stage abgeschlossen wurde
+     */
+    public String getStageName() {
+        return stageName;
+    }
+
+    /**
+     * Gibt den gespeicherten Zwischenwert zurück.
+     *
+     * @return Die Ausgabe der Stage bzw. die Eingabe der Pipeline
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * Gibt den Zeitpunkt der Speicherung zurück.
+     *
+     * @return Der Zeitpunkt in Millisekunden
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "Checkpoint{executionId=" + executionId + ", stageIndex=" + stageIndex +
+                ", stageName=" + stageName + "}";
+    }
+}
@@ -0,0 +1,38 @@
+package de.becke.vs.pattern.pipeline.checkpoint;
+
+import java.io.IOException;
+
+/**
+ * Ein Speicher für Zwischenstände von Pipeline-Durchläufen.
+ *
+ * Pro Durchlauf wird nur der jeweils neueste Checkpoint benötigt; ein neuer Checkpoint
+ * ersetzt den vorherigen derselben Ausführungs-ID. Implementierungen müssen von mehreren
+ * Threads gleichzeitig verwendet werden können.
+ */
+public interface CheckpointStore {
+
+    /**
+     * Speichert den Zwischenstand eines Durchlaufs und ersetzt den vorherigen.
+     *
+     * @param checkpoint Der Checkpoint
+     * @throws IOException Wenn der Checkpoint nicht gespeichert werden kann
+     */
+    void save(Checkpoint checkpoint) throws IOException;
+
+    /**
+     * Lädt den neuesten Zwischenstand eines Durchlaufs.
+     *
+     * @param executionId Die ID des Pipeline-Durchlaufs
+     * @return Der Checkpoint oder null, wenn keiner gespeichert ist
+     * @throws IOException Wenn der Checkpoint nicht gelesen werden kann
+     */
+    Checkpoint load(String executionId) throws IOException;
+
+    /**
+     * Entfernt den Zwischenstand eines Durchlaufs, z.B. nach dessen erfolgreichem Abschluss.
+     *
+     * @param executionId Die ID des Pipeline-Durchlaufs
+     * @throws IOException Wenn der Checkpoint nicht entfernt werden kann
+     */
+    void remove(String executionId) throws IOException;
+}
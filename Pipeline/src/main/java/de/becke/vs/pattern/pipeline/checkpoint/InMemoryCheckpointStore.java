@@ -0,0 +1,39 @@
+package de.becke.vs.pattern.pipeline.checkpoint;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ein Checkpoint-Speicher im Hauptspeicher.
+ *
+ * Die Zwischenstände überleben keinen Neustart des Prozesses, erlauben aber die
+ * Wiederaufnahme nach einem fehlgeschlagenen Stage-Aufruf ohne Serialisierung der Werte.
+ */
+public class InMemoryCheckpointStore implements CheckpointStore {
+
+    private final Map<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(Checkpoint checkpoint) {
+        checkpoints.put(checkpoint.getExecutionId(), checkpoint);
+    }
+
+    @Override
+    public Checkpoint load(String executionId) {
+        return checkpoints.get(executionId);
+    }
+
+    @Override
+    public void remove(String executionId) {
+        checkpoints.remove(executionId);
+    }
+
+    /**
+     * Gibt die Anzahl der gespeicherten Checkpoints zurück.
+     *
+     * @return Die Anzahl der Durchläufe mit Zwischenstand
+     */
+    public int size() {
+        return checkpoints.size();
+    }
+}
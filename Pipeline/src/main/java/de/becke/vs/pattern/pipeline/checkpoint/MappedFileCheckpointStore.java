@@ -0,0 +1,446 @@
+package de.becke.vs.pattern.pipeline.checkpoint;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Ein Checkpoint-Speicher in speicherabgebildeten Dateisegmenten.
+ *
+ * Checkpoints werden nur angehängt, nie überschrieben: Jeder Datensatz besteht aus Länge,
+ * CRC32-Prüfsumme und Inhalt und wird in das aktuelle Segment geschrieben; ist es voll,
+ * wird ein neues angelegt. Entfernte Durchläufe erhalten einen Löschvermerk. Ein Index im
+ * Hauptspeicher verweist auf den neuesten Datensatz je Ausführungs-ID und wird beim Öffnen
+ * durch Lesen aller Segmente wiederhergestellt; ein unvollständig geschriebener letzter
+ * Datensatz wird dabei an seiner Prüfsumme erkannt und verworfen.
+ *
+ * Das älteste Segment wird gelöscht, sobald es keinen gültigen Checkpoint mehr enthält.
+ * Belegen seine gültigen Checkpoints höchstens die Hälfte des Segments, werden sie in das
+ * aktive Segment kopiert und das Segment danach gelöscht. So hält auch ein einzelner nie
+ * fortgesetzter Durchlauf keine alten Segmente fest. Löschvermerke im ältesten Segment
+ * werden dabei nicht übernommen, da es keine älteren Checkpoints mehr gibt, die sie
+ * verdecken müssten.
+ *
+ * Da die Segmente im Seiten-Cache des Betriebssystems liegen, überstehen gespeicherte
+ * Checkpoints einen Absturz des Prozesses; {@link #close()} schreibt sie zusätzlich auf
+ * das Speichermedium. Die Werte werden mit Java-Serialisierung gespeichert und müssen
+ * daher {@link java.io.Serializable} sein.
+ */
+public class MappedFileCheckpointStore implements CheckpointStore, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedFileCheckpointStore.class);
+
+    private static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "checkpoints-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    // Länge und Prüfsumme vor jedem Datensatz
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte TYPE_CHECKPOINT = 1;
+    private static final byte TYPE_TOMBSTONE = 2;
+
+    private final Path directory;
+    private final int segmentSize;
+
+    // Alle Segmente vom ältesten zum neuesten; das letzte ist das aktive
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    // Neuester Datensatz je Ausführungs-ID
+    private final Map<String, Location> index = new HashMap<>();
+
+    private int nextSegmentId;
+    private boolean closed;
+
+    /**
+     * Öffnet den Speicher im angegebenen Verzeichnis mit Segmenten von 16 MB.
+     *
+     * @param directory Das Verzeichnis der Segmente
+     * @throws IOException Wenn das Verzeichnis nicht gelesen oder angelegt werden kann
+     */
+    public MappedFileCheckpointStore(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Öffnet den Speicher im angegebenen Verzeichnis und stellt den Index aus vorhandenen
+     * Segmenten wieder her.
+     *
+     * @param directory Das Verzeichnis der Segmente
+     * @param segmentSize Die Größe neuer Segmente in Bytes
+     * @throws IOException Wenn das Verzeichnis nicht gelesen oder angelegt werden kann
+     */
+    public MappedFileCheckpointStore(Path directory, int segmentSize) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Die Segmentgröße ist zu klein: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(directory);
+        for (Path path : listSegments()) {
+            Segment segment = new Segment(path, map(path, Files.size(path), false));
+            segments.addLast(segment);
+            recover(segment);
+            nextSegmentId = segmentId(path) + 1;
+        }
+        compact();
+
+        LOGGER.info("Checkpoint-Speicher in '{}' geöffnet: {} Segmente, {} Checkpoints",
+                directory, segments.size(), index.size());
+    }
+
+    @Override
+    public void save(Checkpoint checkpoint) throws IOException {
+        byte[] record = encode(checkpoint);
+        synchronized (this) {
+            Location location = append(record);
+            release(index.put(checkpoint.getExecutionId(), location));
+            retain(location);
+            compact();
+        }
+    }
+
+    @Override
+    public Checkpoint load(String executionId) throws IOException {
+        byte[] record;
+        synchronized (this) {
+            ensureOpen();
+            Location location = index.get(executionId);
+            if (location == null) {
+                return null;
+            }
+            ByteBuffer buffer = location.segment.buffer.duplicate();
+            record = new byte[buffer.getInt(location.offset)];
+            buffer.position(location.offset + HEADER_SIZE);
+            buffer.get(record);
+        }
+        return decode(record);
+    }
+
+    @Override
+    public void remove(String executionId) throws IOException {
+        synchronized (this) {
+            if (!index.containsKey(executionId)) {
+                ensureOpen();
+                return;
+            }
+            append(encodeTombstone(executionId));
+            release(index.remove(executionId));
+            compact();
+        }
+    }
+
+    /**
+     * Gibt die Anzahl der gespeicherten Checkpoints zurück.
+     *
+     * @return Die Anzahl der Durchläufe mit Zwischenstand
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Gibt die Anzahl der Segmentdateien zurück.
+     *
+     * @return Die Anzahl der Segmente
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Gibt das Verzeichnis der Segmente zurück.
+     *
+     * @return Das Verzeichnis
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Schreibt alle Segmente auf das Speichermedium und schließt den Speicher.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+        segments.clear();
+        index.clear();
+        LOGGER.info("Checkpoint-Speicher in '{}' geschlossen", directory);
+    }
+
+    /**
+     * Hängt einen Datensatz an das aktive Segment an und legt bei Bedarf ein neues an.
+     * Die Länge wird zuletzt geschrieben, damit ein halb geschriebener Datensatz beim
+     * Wiederherstellen als Ende des Segments gilt.
+     */
+    private Location append(byte[] record) throws IOException {
+        ensureOpen();
+        int required = HEADER_SIZE + record.length;
+        Segment active = segments.peekLast();
+        if (active == null || active.buffer.capacity() - active.writePosition < required) {
+            active = createSegment(Math.max(segmentSize, required));
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(record);
+
+        int offset = active.writePosition;
+        MappedByteBuffer buffer = active.buffer;
+        buffer.position(offset + HEADER_SIZE);
+        buffer.put(record);
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.putInt(offset, record.length);
+        active.writePosition = offset + required;
+        return new Location(active, offset, required);
+    }
+
+    /**
+     * Liest die Datensätze eines Segments und übernimmt sie in den Index.
+     */
+    private void recover(Segment segment) throws IOException {
+        ByteBuffer buffer = segment.buffer.duplicate();
+        int position = 0;
+        while (position + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            byte[] record = new byte[length];
+            buffer.position(position + HEADER_SIZE);
+            buffer.get(record);
+
+            CRC32 crc = new CRC32();
+            crc.update(record);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                LOGGER.warn("Unvollständiger Datensatz in Segment '{}' an Position {} verworfen",
+                        segment.path.getFileName(), position);
+                break;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+            byte type = in.readByte();
+            String executionId = in.readUTF();
+            if (type == TYPE_CHECKPOINT) {
+                Location location = new Location(segment, position, HEADER_SIZE + length);
+                release(index.put(executionId, location));
+                retain(location);
+            } else {
+                release(index.remove(executionId));
+            }
+            position += HEADER_SIZE + length;
+        }
+        segment.writePosition = position;
+    }
+
+    /**
+     * Vermerkt, dass ein Datensatz der neueste seines Durchlaufs ist.
+     */
+    private static void retain(Location location) {
+        location.segment.live++;
+        location.segment.liveBytes += location.length;
+    }
+
+    /**
+     * Vermerkt, dass ein Datensatz nicht mehr der neueste seines Durchlaufs ist.
+     */
+    private static void release(Location location) {
+        if (location != null) {
+            location.segment.live--;
+            location.segment.liveBytes -= location.length;
+        }
+    }
+
+    /**
+     * Löscht Segmente ohne gültige Checkpoints, beginnend beim ältesten. Nur so ist
+     * sichergestellt, dass kein Löschvermerk verschwindet, solange ein älteres Segment den
+     * zugehörigen Checkpoint noch enthält. Ist das älteste Segment höchstens zur Hälfte
+     * gültig, werden seine Checkpoints zuvor in das aktive Segment verschoben.
+     */
+    private void compact() throws IOException {
+        while (segments.size() > 1) {
+            Segment oldest = segments.peekFirst();
+            if (oldest.live > 0) {
+                if (oldest.liveBytes * 2L > oldest.writePosition) {
+                    return;
+                }
+                relocate(oldest);
+            }
+            segments.removeFirst();
+            Files.deleteIfExists(oldest.path);
+            LOGGER.debug("Segment '{}' ohne gültige Checkpoints gelöscht", oldest.path.getFileName());
+        }
+    }
+
+    /**
+     * Kopiert die gültigen Checkpoints eines Segments unverändert an das Ende des aktiven
+     * Segments. Bricht der Prozess dazwischen ab, gilt beim Wiederherstellen die neuere Kopie.
+     */
+    private void relocate(Segment segment) throws IOException {
+        for (Map.Entry<String, Location> entry : index.entrySet()) {
+            Location location = entry.getValue();
+            if (location.segment != segment) {
+                continue;
+            }
+            ByteBuffer buffer = segment.buffer.duplicate();
+            byte[] record = new byte[location.length - HEADER_SIZE];
+            buffer.position(location.offset + HEADER_SIZE);
+            buffer.get(record);
+
+            Location moved = append(record);
+            entry.setValue(moved);
+            release(location);
+            retain(moved);
+        }
+        LOGGER.debug("Gültige Checkpoints aus Segment '{}' verschoben", segment.path.getFileName());
+    }
+
+    private Segment createSegment(int size) throws IOException {
+        Path path = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, nextSegmentId, SEGMENT_SUFFIX));
+        Segment segment = new Segment(path, map(path, size, true));
+        nextSegmentId++;
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private static MappedByteBuffer map(Path path, long size, boolean create) throws IOException {
+        StandardOpenOption[] options = create
+                ? new StandardOpenOption[]{StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> result = files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .collect(Collectors.toCollection(ArrayList::new));
+            result.sort((a, b) -> Integer.compare(segmentId(a), segmentId(b)));
+            return result;
+        }
+    }
+
+    private static int segmentId(Path path) {
+        String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Der Checkpoint-Speicher in '" + directory + "' wurde geschlossen");
+        }
+    }
+
+    private static byte[] encode(Checkpoint checkpoint) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(TYPE_CHECKPOINT);
+        out.writeUTF(checkpoint.getExecutionId());
+        out.writeInt(checkpoint.getStageIndex());
+        out.writeBoolean(checkpoint.getStageName() != null);
+        if (checkpoint.getStageName() != null) {
+            out.writeUTF(checkpoint.getStageName());
+        }
+        out.writeLong(checkpoint.getTimestamp());
+        out.flush();
+
+        try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+            objects.writeObject(checkpoint.getValue());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeTombstone(String executionId) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(TYPE_TOMBSTONE);
+        out.writeUTF(executionId);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Checkpoint decode(byte[] record) throws IOException {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(record);
+        DataInputStream in = new DataInputStream(bytes);
+        in.readByte();
+        String executionId = in.readUTF();
+        int stageIndex = in.readInt();
+        String stageName = in.readBoolean() ? in.readUTF() : null;
+        long timestamp = in.readLong();
+
+        try (ObjectInputStream objects = new ObjectInputStream(bytes)) {
+            return new Checkpoint(executionId, stageIndex, stageName, objects.readObject(), timestamp);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Checkpoint für Ausführung '" + executionId + "' kann nicht gelesen werden", e);
+        }
+    }
+
+    /**
+     * Eine speicherabgebildete Segmentdatei.
+     */
+    private static final class Segment {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+
+        // Anzahl und Größe der Checkpoints, die noch die neuesten ihres Durchlaufs sind
+        private int live;
+        private long liveBytes;
+
+        Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Die Position eines Datensatzes.
+     */
+    private static final class Location {
+        private final Segment segment;
+        private final int offset;
+
+        // Länge des Datensatzes einschließlich Kopf
+        private final int length;
+
+        Location(Segment segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package de.becke.vs.pattern.pipeline.core;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Eine Pipeline-Stage, die mehrere Eingaben in einem Aufruf verarbeiten kann.
+ *
+ * Bei der Batch-Ausführung ({@link Pipeline#executeBatch(java.util.Collection)}) wird jede
+ * Stage zunächst auf den gesamten Batch angewendet, bevor die nächste Stage beginnt.
+ * Stages, die diese Schnittstelle implementieren, erhalten den Batch in einem einzigen
+ * Aufruf und können so Vorbereitungskosten (Verbindungen, Puffer, Lookups) einmal pro
+ * Batch statt einmal pro Element bezahlen.
+ *
+ * @param <I> Der Typ der Eingabedaten
+ * @param <O> Der Typ der Ausgabedaten
+ */
+public interface BatchPipelineStage<I, O> extends PipelineStage<I, O> {
+
+    /**
+     * Verarbeitet alle Eingabedaten eines Batches.
+     *
+     * Die zurückgegebene Liste muss genauso viele Elemente enthalten wie die Eingabeliste,
+     * und das i-te Ergebnis muss zur i-ten Eingabe gehören.
+     *
+     * @param inputs Die Eingabedaten des Batches
+     * @param context Der Pipeline-Kontext mit zusätzlichen Metadaten
+     * @return Die Ausgabedaten in derselben Reihenfolge wie die Eingaben
+     * @throws PipelineException Wenn ein Fehler während der Verarbeitung auftritt
+     */
+    List<O> processBatch(List<I> inputs, PipelineContext context) throws PipelineException;
+
+    /**
+     * Verarbeitet eine einzelne Eingabe als Batch mit genau einem Element.
+     *
+     * @param input Die Eingabedaten
+     * @param context Der Pipeline-Kontext mit zusätzlichen Metadaten
+     * @return Die Ausgabedaten
+     * @throws PipelineException Wenn ein Fehler während der Verarbeitung auftritt
+     */
+    @Override
+    default O process(I input, PipelineContext context) throws PipelineException {
+        return processBatch(Collections.singletonList(input), context).get(0);
+    }
+}
@@ -0,0 +1,89 @@
+package de.becke.vs.pattern.pipeline.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Das Ergebnis einer Batch-Ausführung, bei der Fehler pro Element gemeldet werden.
+ *
+ * Die Ergebnisse stehen in derselben Reihenfolge wie die Eingaben. Für Elemente, deren
+ * Verarbeitung fehlgeschlagen ist, enthält die Ergebnisliste null, und die zugehörige
+ * {@link PipelineException} ist über {@link #getFailures()} abrufbar.
+ *
+ * @param <O> Der Ausgabetyp der Pipeline
+ */
+public class BatchResult<O> {
+
+    private final List<O> results;
+    private final Map<Integer, PipelineException> failures;
+    private final PipelineContext context;
+
+    /**
+     * Erstellt ein neues Batch-Ergebnis.
+     *
+     * @param results Die Ergebnisse in Eingabereihenfolge
+     * @param failures Die Fehler pro Element (null bei Erfolg)
+     * @param context Der zusammengeführte Kontext aller Teilausführungen
+     */
+    @SuppressWarnings("unchecked")
+    BatchResult(Object[] results, PipelineException[] failures, PipelineContext context) {
+        this.results = Collections.unmodifiableList((List<O>) Arrays.asList(results));
+        Map<Integer, PipelineException> failureMap = new TreeMap<>();
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null) {
+                failureMap.put(i, failures[i]);
+            }
+        }
+        this.failures = Collections.unmodifiableMap(failureMap);
+        this.context = context;
+    }
+
+    /**
+     * Gibt die Ergebnisse in Eingabereihenfolge zurück.
+     *
+     * @return Die Ergebnisse; null für fehlgeschlagene Elemente
+     */
+    public List<O> getResults() {
+        return results;
+    }
+
+    /**
+     * Gibt die Fehler der fehlgeschlagenen Elemente zurück.
+     *
+     * @return Eine nach Index sortierte Map vom Elementindex auf den Fehler
+     */
+    public Map<Integer, PipelineException> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Prüft, ob mindestens ein Element fehlgeschlagen ist.
+     *
+     * @return true, wenn Fehler aufgetreten sind, sonst false
+     */
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    /**
+     * Prüft, ob das Element mit dem angegebenen Index erfolgreich verarbeitet wurde.
+     *
+     * @param index Der Index des Elements
+     * @return true, wenn das Element erfolgreich verarbeitet wurde, sonst false
+     */
+    public boolean isSuccess(int index) {
+        return !failures.containsKey(index);
+    }
+
+    /**
+     * Gibt den zusammengeführten Kontext aller Teilausführungen zurück.
+     *
+     * @return Der zusammengeführte Kontext
+     */
+    public PipelineContext getContext() {
+        return context;
+    }
+}
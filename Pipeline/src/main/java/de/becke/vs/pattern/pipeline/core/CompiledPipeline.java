@@ -0,0 +1,614 @@
+package de.becke.vs.pattern.pipeline.core;
+
+import de.becke.vs.pattern.pipeline.metrics.PipelineMetrics;
+import de.becke.vs.pattern.pipeline.metrics.StageMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Ein unveränderlicher, vorkompilierter Ausführungsplan einer {@link Pipeline}.
+ *
+ * Der Plan hält die Stages in einem Array, damit beim Ausführen weder Listenzugriffe
+ * noch Casts pro Stage anfallen. Kontexte werden pro Thread wiederverwendet, und
+ * Log-Meldungen pro Stage werden nur formatiert, wenn das DEBUG-Level aktiv ist.
+ * Latenzen und Fehler werden in den {@link PipelineMetrics} der ursprünglichen Pipeline
+ * erfasst, verschmolzene Stages unter den Namen ihrer ursprünglichen Stages.
+ *
+ * Eine Instanz wird über {@link Pipeline#compile()} erzeugt. Spätere Änderungen an der
+ * ursprünglichen Pipeline wirken sich nicht auf einen bereits kompilierten Plan aus.
+ *
+ * @param <I> Der Eingabetyp der Pipeline
+ * @param <O> Der Ausgabetyp der Pipeline
+ */
+public final class CompiledPipeline<I, O> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompiledPipeline.class);
+
+    // Name der Pipeline
+    private final String name;
+
+    // Eingefrorene Stages und ihre Namen
+    private final PipelineStage<Object, Object>[] stages;
+    private final String[] stageNames;
+
+    // Batch-fähige Stages (null, wenn die Stage nur einzelne Elemente verarbeitet)
+    private final BatchPipelineStage<Object, Object>[] batchStages;
+
+    // Verschmolzene Stages (null, wenn die Stage nicht verschmolzen ist)
+    private final FusedPipelineStage[] fusedStages;
+
+    // Metriken der Durchläufe, der Stages und der Teile verschmolzener Stages
+    private final PipelineMetrics metrics;
+    private final StageMetrics runMetrics;
+    private final StageMetrics[] stageMetrics;
+    private final StageMetrics[][] fusedMetrics;
+
+    // Präfix und Zähler für die IDs der Durchläufe; der zufällige Teil des Präfixes hält
+    // die IDs über mehrere Pläne gleichen Namens und über Neustarts hinweg eindeutig
+    private final String executionIdPrefix;
+    private final AtomicLong executionCounter = new AtomicLong();
+
+    // Positionen der von den Stages verwendeten Kontextschlüssel
+    private final ContextLayout layout;
+
+    // Pro Thread wiederverwendeter Kontext
+    private final ThreadLocal<PooledContext> pooledContext = ThreadLocal.withInitial(() -> new PooledContext(this));
+
+    /**
+     * Erstellt einen neuen Ausführungsplan aus den angegebenen Stages.
+     *
+     * @param name Der Name der Pipeline
+     * @param stages Die Stages in Ausführungsreihenfolge
+     * @param metrics Die Metriken, in denen die Ausführungen erfasst werden
+     * @throws IllegalArgumentException Wenn Stages einen Kontextschlüssel mit verschiedenen Typen verwenden
+     */
+    @SuppressWarnings("unchecked")
+    CompiledPipeline(String name, List<PipelineStage<?, ?>> stages, PipelineMetrics metrics) {
+        this.name = name;
+        this.stages = stages.toArray(new PipelineStage[0]);
+        this.stageNames = new String[this.stages.length];
+        this.batchStages = new BatchPipelineStage[this.stages.length];
+        this.fusedStages = new FusedPipelineStage[this.stages.length];
+        this.metrics = metrics;
+        this.runMetrics = metrics.runs();
+        this.stageMetrics = new StageMetrics[this.stages.length];
+        this.fusedMetrics = new StageMetrics[this.stages.length][];
+        for (int i = 0; i < this.stages.length; i++) {
+            this.stageNames[i] = this.stages[i].getStageName();
+            if (this.stages[i] instanceof BatchPipelineStage) {
+                this.batchStages[i] = (BatchPipelineStage<Object, Object>) this.stages[i];
+            }
+            if (this.stages[i] instanceof FusedPipelineStage) {
+                this.fusedStages[i] = (FusedPipelineStage) this.stages[i];
+                List<String> partNames = this.fusedStages[i].getFusedStageNames();
+                this.fusedMetrics[i] = new StageMetrics[partNames.size()];
+                for (int k = 0; k < partNames.size(); k++) {
+                    this.fusedMetrics[i][k] = metrics.stage(partNames.get(k));
+                }
+            } else {
+                this.stageMetrics[i] = metrics.stage(stageNames[i]);
+            }
+        }
+        List<ContextKey<?>> contextKeys = new ArrayList<>();
+        for (PipelineStage<?, ?> stage : this.stages) {
+            contextKeys.addAll(stage.getContextKeys());
+        }
+        this.layout = new ContextLayout(contextKeys);
+        this.executionIdPrefix = name + "-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    }
+
+    /**
+     * Führt den Plan mit der angegebenen Eingabe und einem wiederverwendeten Kontext aus.
+     *
+     * Der Kontext gehört dem aktuellen Thread und wird nach dem Durchlauf für den nächsten
+     * Aufruf zurückgesetzt. Stages dürfen ihn daher nicht über den Durchlauf hinaus halten.
+     *
+     * @param input Die Eingabe für die Pipeline
+     * @return Das Ergebnis der Pipeline
+     * @throws PipelineException Wenn ein Fehler während der Ausführung auftritt
+     */
+    public O execute(I input) throws PipelineException {
+        PooledContext pooled = pooledContext.get();
+
+        // Verschachtelte Aufrufe auf demselben Thread erhalten einen eigenen Kontext
+        if (pooled.inUse) {
+            return executeOwned(input, newContext());
+        }
+
+        pooled.inUse = true;
+        try {
+            pooled.context.reset(executionIdPrefix, executionCounter.incrementAndGet());
+            pooled.context.set(ContextKey.PIPELINE_NAME, name);
+            return executeOwned(input, pooled.context);
+        } finally {
+            pooled.inUse = false;
+        }
+    }
+
+    /**
+     * Führt den Plan aus und gibt anschließend die am Kontext registrierten Ressourcen frei.
+     */
+    private O executeOwned(I input, PipelineContext context) throws PipelineException {
+        O result = null;
+        try {
+            result = execute(input, context);
+            return result;
+        } finally {
+            context.releaseResources(result);
+        }
+    }
+
+    /**
+     * Führt den Plan mit der angegebenen Eingabe und einem vom Aufrufer verwalteten Kontext aus.
+     *
+     * Damit kann der Aufrufer einen eigenen Kontext-Pool verwenden. Der Kontext wird
+     * unverändert übernommen und nicht zurückgesetzt; registrierte Ressourcen gibt der
+     * Aufrufer mit {@link PipelineContext#releaseResources(Object)} frei.
+     *
+     * @param input Die Eingabe für die Pipeline
+     * @param context Der zu verwendende Pipeline-Kontext
+     * @return Das Ergebnis der Pipeline
+     * @throws PipelineException Wenn ein Fehler während der Ausführung auftritt
+     */
+    @SuppressWarnings("unchecked")
+    public O execute(I input, PipelineContext context) throws PipelineException {
+        final boolean debug = LOGGER.isDebugEnabled();
+        if (debug) {
+            LOGGER.debug("Starte Ausführung der kompilierten Pipeline '{}'", name);
+        }
+
+        Object current = input;
+        long runStart = runMetrics.start();
+
+        for (int i = 0; i < stages.length; i++) {
+            if (debug) {
+                LOGGER.debug("Führe Stage '{}' ({}. von {}) aus", stageNames[i], i + 1, stages.length);
+            }
+
+            try {
+                current = invoke(i, current, context);
+            } catch (Exception e) {
+                runMetrics.failure(runStart);
+                String stageName = failedStageName(i, e);
+                Throwable cause = failureCause(e);
+                LOGGER.error("Fehler in Stage '{}': {}", stageName, cause.getMessage(), cause);
+
+                context.setError(cause);
+                throw new PipelineException("Fehler während der Verarbeitung in Stage '" +
+                        stageName + "'", cause);
+            }
+        }
+        runMetrics.success(runStart);
+
+        if (debug) {
+            LOGGER.debug("Kompilierte Pipeline '{}' erfolgreich abgeschlossen in {}ms",
+                    name, context.getDuration());
+        }
+
+        return (O) current;
+    }
+
+    /**
+     * Führt den Plan für alle Eingaben eines Batches mit einem wiederverwendeten Kontext aus.
+     *
+     * @param inputs Die Eingaben für die Pipeline
+     * @return Die Ergebnisse in derselben Reihenfolge wie die Eingaben
+     * @throws PipelineException Wenn ein Fehler während der Ausführung auftritt
+     * @see #executeBatch(Collection, PipelineContext)
+     */
+    public List<O> executeBatch(Collection<? extends I> inputs) throws PipelineException {
+        PooledContext pooled = pooledContext.get();
+
+        if (pooled.inUse) {
+            return executeBatchOwned(inputs, newContext());
+        }
+
+        pooled.inUse = true;
+        try {
+            pooled.context.reset(executionIdPrefix, executionCounter.incrementAndGet());
+            pooled.context.set(ContextKey.PIPELINE_NAME, name);
+            return executeBatchOwned(inputs, pooled.context);
+        } finally {
+            pooled.inUse = false;
+        }
+    }
+
+    private List<O> executeBatchOwned(Collection<? extends I> inputs, PipelineContext context)
+            throws PipelineException {
+        List<O> results = null;
+        try {
+            results = executeBatch(inputs, context);
+            return results;
+        } finally {
+            context.releaseResources(results);
+        }
+    }
+
+    /**
+     * Führt den Plan für alle Eingaben eines Batches aus.
+     *
+     * Die Verarbeitung erfolgt stageweise: Jede Stage wird auf den gesamten Batch
+     * angewendet, bevor die nächste Stage beginnt. Stages, die {@link BatchPipelineStage}
+     * implementieren, erhalten den Batch in einem einzigen Aufruf, alle anderen Stages
+     * werden für jedes Element einzeln aufgerufen. Alle Elemente teilen sich den Kontext.
+     *
+     * @param inputs Die Eingaben für die Pipeline
+     * @param context Der zu verwendende Pipeline-Kontext
+     * @return Die Ergebnisse in derselben Reihenfolge wie die Eingaben
+     * @throws PipelineException Wenn ein Fehler während der Ausführung auftritt
+     */
+    @SuppressWarnings("unchecked")
+    public List<O> executeBatch(Collection<? extends I> inputs, PipelineContext context) throws PipelineException {
+        final boolean debug = LOGGER.isDebugEnabled();
+        if (debug) {
+            LOGGER.debug("Starte Batch-Ausführung der kompilierten Pipeline '{}' mit {} Elementen",
+                    name, inputs.size());
+        }
+
+        // Der Puffer wird von allen Stages wiederverwendet und in-place überschrieben
+        List<Object> current = new ArrayList<>(inputs);
+        final int size = current.size();
+        long runStart = runMetrics.start();
+
+        for (int i = 0; i < stages.length; i++) {
+            if (debug) {
+                LOGGER.debug("Führe Stage '{}' ({}. von {}) für {} Elemente aus",
+                        stageNames[i], i + 1, stages.length, size);
+            }
+
+            if (batchStages[i] != null) {
+                List<Object> results;
+                long stageStart = stageMetrics[i].start();
+                try {
+                    results = batchStages[i].processBatch(current, context);
+                    stageMetrics[i].success(stageStart);
+                } catch (Exception e) {
+                    stageMetrics[i].failure(stageStart);
+                    LOGGER.error("Fehler in Stage '{}': {}", stageNames[i], e.getMessage(), e);
+
+                    context.setError(e);
+                    runMetrics.failure(runStart);
+                    throw new PipelineException("Fehler während der Batch-Verarbeitung in Stage '" +
+                            stageNames[i] + "'", e);
+                }
+
+                if (results == null || results.size() != size) {
+                    PipelineException e = new PipelineException("Stage '" + stageNames[i] + "' lieferte " +
+                            (results == null ? "kein Ergebnis" : results.size() + " statt " + size + " Ergebnisse"));
+                    context.setError(e);
+                    runMetrics.failure(runStart);
+                    throw e;
+                }
+
+                for (int j = 0; j < size; j++) {
+                    current.set(j, results.get(j));
+                }
+            } else {
+                for (int j = 0; j < size; j++) {
+                    try {
+                        current.set(j, invoke(i, current.get(j), context));
+                    } catch (Exception e) {
+                        String stageName = failedStageName(i, e);
+                        Throwable cause = failureCause(e);
+                        LOGGER.error("Fehler in Stage '{}' bei Element {}: {}", stageName, j, cause.getMessage(), cause);
+
+                        context.setError(cause);
+                        runMetrics.failure(runStart);
+                        throw new PipelineException("Fehler während der Verarbeitung in Stage '" +
+                                stageName + "' bei Element " + j, cause);
+                    }
+                }
+            }
+        }
+
+        runMetrics.success(runStart);
+
+        if (debug) {
+            LOGGER.debug("Batch-Ausführung der kompilierten Pipeline '{}' abgeschlossen in {}ms",
+                    name, context.getDuration());
+        }
+
+        return (List<O>) current;
+    }
+
+    /**
+     * Schickt die Elemente eines Streams einzeln und erst bei Bedarf durch den Plan.
+     *
+     * Der zurückgegebene Stream ist so lazy wie der Eingabe-Stream: Ein Element wird erst
+     * verarbeitet, wenn die nachgelagerte Operation es anfordert, und es wird nie mehr als
+     * ein Element gleichzeitig gehalten. Das Schließen des Ergebnisses schließt auch den
+     * Eingabe-Stream, etwa bei {@code Files.lines(...)}.
+     *
+     * @param inputs Die Eingaben für die Pipeline
+     * @return Ein Stream mit den Ergebnissen in derselben Reihenfolge
+     * @throws UncheckedPipelineException Beim Verarbeiten, wenn ein Element fehlschlägt
+     */
+    public Stream<O> executeStream(Stream<? extends I> inputs) {
+        return inputs.map(this::executeUnchecked);
+    }
+
+    /**
+     * Schickt die Elemente eines Iterators einzeln und erst bei Bedarf durch den Plan.
+     *
+     * @param inputs Die Eingaben für die Pipeline
+     * @return Ein Iterator, der bei jedem Aufruf von {@code next()} genau ein Element verarbeitet
+     * @throws UncheckedPipelineException Beim Verarbeiten, wenn ein Element fehlschlägt
+     */
+    public Iterator<O> executeIterator(Iterator<? extends I> inputs) {
+        return new Iterator<O>() {
+            @Override
+            public boolean hasNext() {
+                return inputs.hasNext();
+            }
+
+            @Override
+            public O next() {
+                return executeUnchecked(inputs.next());
+            }
+        };
+    }
+
+    /**
+     * Schickt die Elemente eines {@link Flow.Publisher}s durch den Plan.
+     *
+     * Die Nachfrage der Abonnenten wird unverändert an den Eingabe-Publisher
+     * weitergereicht, sodass dessen Gegendruck erhalten bleibt. Schlägt ein Element fehl,
+     * wird das Abonnement beendet und der Abonnent erhält die {@link PipelineException}.
+     *
+     * @param inputs Der Publisher der Eingaben
+     * @return Ein Publisher der Ergebnisse
+     */
+    public Flow.Publisher<O> executePublisher(Flow.Publisher<? extends I> inputs) {
+        return new PipelinePublisher<>(inputs, this);
+    }
+
+    /**
+     * Führt den Plan aus und verpackt Fehler in eine ungeprüfte Exception.
+     */
+    private O executeUnchecked(I input) {
+        try {
+            return execute(input);
+        } catch (PipelineException e) {
+            throw new UncheckedPipelineException(e);
+        }
+    }
+
+    /**
+     * Führt den Plan stageweise für einen Ausschnitt eines Batches aus, ohne bei
+     * fehlerhaften Elementen abzubrechen.
+     *
+     * Die Werte im Bereich {@code [from, to)} werden in-place durch die Ergebnisse ersetzt.
+     * Schlägt ein Element in einer Stage fehl, wird der Fehler in {@code failures} abgelegt
+     * und das Element von allen weiteren Stages übersprungen. Wirft eine Batch-Stage eine
+     * Exception, werden die betroffenen Elemente einzeln wiederholt, um den Fehler dem
+     * verursachenden Element zuzuordnen. In den Metriken zählt jedes Element als eigener
+     * Durchlauf.
+     *
+     * @param values Die Eingaben, die durch die Ergebnisse überschrieben werden
+     * @param failures Die Fehler pro Element (null bei Erfolg)
+     * @param from Der erste Index des Ausschnitts (inklusive)
+     * @param to Der letzte Index des Ausschnitts (exklusive)
+     * @param context Der Kontext für diesen Ausschnitt
+     */
+    void executeIsolated(Object[] values, PipelineException[] failures, int from, int to,
+                         PipelineContext context) {
+        long runStart = 0;
+        for (int j = from; j < to; j++) {
+            if (failures[j] == null) {
+                runStart = runMetrics.start();
+            }
+        }
+
+        for (int i = 0; i < stages.length; i++) {
+            if (batchStages[i] != null && processBatchIsolated(i, values, failures, from, to, context)) {
+                continue;
+            }
+
+            for (int j = from; j < to; j++) {
+                if (failures[j] != null) {
+                    continue;
+                }
+                try {
+                    values[j] = invoke(i, values[j], context);
+                } catch (Exception e) {
+                    String stageName = failedStageName(i, e);
+                    Throwable cause = failureCause(e);
+                    LOGGER.error("Fehler in Stage '{}' bei Element {}: {}", stageName, j, cause.getMessage());
+
+                    context.setError(cause);
+                    values[j] = null;
+                    failures[j] = new PipelineException("Verarbeitung von Element " + j + " fehlgeschlagen",
+                            cause, stageName);
+                    runMetrics.failure(runStart);
+                }
+            }
+        }
+
+        for (int j = from; j < to; j++) {
+            if (failures[j] == null) {
+                runMetrics.success(runStart);
+            }
+        }
+    }
+
+    /**
+     * Wendet eine Batch-Stage auf alle noch fehlerfreien Elemente eines Ausschnitts an.
+     *
+     * @return true, wenn die Batch-Stage erfolgreich war, false, wenn die Elemente
+     *         einzeln verarbeitet werden müssen
+     */
+    private boolean processBatchIsolated(int stageIndex, Object[] values, PipelineException[] failures,
+                                         int from, int to, PipelineContext context) {
+        List<Object> survivors = new ArrayList<>(to - from);
+        for (int j = from; j < to; j++) {
+            if (failures[j] == null) {
+                survivors.add(values[j]);
+            }
+        }
+        if (survivors.isEmpty()) {
+            return true;
+        }
+
+        List<Object> results;
+        long stageStart = stageMetrics[stageIndex].start();
+        try {
+            results = batchStages[stageIndex].processBatch(survivors, context);
+        } catch (Exception e) {
+            stageMetrics[stageIndex].failure(stageStart);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Batch-Stage '{}' fehlgeschlagen, verarbeite {} Elemente einzeln: {}",
+                        stageNames[stageIndex], survivors.size(), e.getMessage());
+            }
+            return false;
+        }
+        if (results == null || results.size() != survivors.size()) {
+            stageMetrics[stageIndex].failure(stageStart);
+            return false;
+        }
+        stageMetrics[stageIndex].success(stageStart);
+
+        int k = 0;
+        for (int j = from; j < to; j++) {
+            if (failures[j] == null) {
+                values[j] = results.get(k++);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ruft eine einzelne Stage auf und erfasst Latenz und Fehler. Verschmolzene Stages
+     * erfassen ihre ursprünglichen Stages selbst.
+     */
+    private Object invoke(int stageIndex, Object input, PipelineContext context) throws Exception {
+        if (fusedStages[stageIndex] != null) {
+            return fusedStages[stageIndex].process(input, context, fusedMetrics[stageIndex]);
+        }
+
+        StageMetrics metrics = stageMetrics[stageIndex];
+        long start = metrics.start();
+        try {
+            Object result = stages[stageIndex].process(input, context);
+            metrics.success(start);
+            return result;
+        } catch (Exception e) {
+            metrics.failure(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Ermittelt den Namen der Stage, in der ein Fehler aufgetreten ist. Bei verschmolzenen
+     * Stages ist das die ursprüngliche Stage innerhalb der Fusion.
+     */
+    private String failedStageName(int stageIndex, Exception e) {
+        return e instanceof FusedStageException ? ((FusedStageException) e).getStageName() : stageNames[stageIndex];
+    }
+
+    /**
+     * Packt den ursprünglichen Fehler einer verschmolzenen Stage aus.
+     */
+    private static Throwable failureCause(Exception e) {
+        return e instanceof FusedStageException ? e.getCause() : e;
+    }
+
+    /**
+     * Gibt den Namen der Pipeline zurück.
+     *
+     * @return Der Name der Pipeline
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gibt die Anzahl der Stages in diesem Plan zurück. Verschmolzene Stages zählen als
+     * eine Stage.
+     *
+     * @return Die Anzahl der Stages
+     */
+    public int getStageCount() {
+        return stages.length;
+    }
+
+    /**
+     * Gibt die Namen der Stages in Ausführungsreihenfolge zurück. Verschmolzene Stages
+     * werden mit den Namen ihrer ursprünglichen Stages aufgeführt.
+     *
+     * @return Eine unveränderliche Liste der Stage-Namen
+     */
+    public List<String> getStageNames() {
+        List<String> names = new ArrayList<>(stageNames.length);
+        for (PipelineStage<Object, Object> stage : stages) {
+            if (stage instanceof FusedPipelineStage) {
+                names.addAll(((FusedPipelineStage) stage).getFusedStageNames());
+            } else {
+                names.add(stage.getStageName());
+            }
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Gibt die Metriken zurück, in denen dieser Plan seine Ausführungen erfasst.
+     *
+     * Der Plan teilt die Metriken mit der {@link Pipeline}, aus der er kompiliert wurde.
+     *
+     * @return Die Metriken der Pipeline
+     */
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Erzeugt einen neuen Kontext für einen Durchlauf außerhalb des Pools.
+     *
+     * @return Der neue Kontext
+     */
+    private PipelineContext newContext() {
+        PipelineContext context = newContext(nextExecutionId());
+        context.set(ContextKey.PIPELINE_NAME, name);
+        return context;
+    }
+
+    /**
+     * Erzeugt die nächste fortlaufende ID für einen Durchlauf.
+     *
+     * @return Die ID des Durchlaufs
+     */
+    String nextExecutionId() {
+        return executionIdPrefix + executionCounter.incrementAndGet();
+    }
+
+    /**
+     * Erzeugt einen Kontext mit dem Slot-Layout dieses Plans.
+     *
+     * @param executionId Die ID des Durchlaufs
+     * @return Der neue Kontext
+     */
+    PipelineContext newContext(String executionId) {
+        return new PipelineContext(executionId, layout);
+    }
+
+    /**
+     * Ein pro Thread gehaltener Kontext mit Belegungsmarkierung.
+     */
+    private static final class PooledContext {
+        private final PipelineContext context;
+        private boolean inUse;
+
+        PooledContext(CompiledPipeline<?, ?> plan) {
+            this.context = plan.newContext("");
+        }
+    }
+}
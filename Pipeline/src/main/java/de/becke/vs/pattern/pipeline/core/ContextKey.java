@@ -0,0 +1,131 @@
+package de.becke.vs.pattern.pipeline.core;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Ein typisierter Schlüssel für ein Attribut im {@link PipelineContext}.
+ *
+ * Schlüssel werden nicht global registriert. Stages geben die Schlüssel, die sie verwenden,
+ * über {@link PipelineStage#getContextKeys()} bekannt; {@link Pipeline#compile()} legt
+ * daraus das Slot-Layout des Plans fest, sodass {@link PipelineContext#get(ContextKey)} und
+ * {@link PipelineContext#set(ContextKey, Object)} in Kontexten des Plans weder hashen noch
+ * allokieren. Nicht bekannt gegebene Schlüssel funktionieren ebenfalls, ihre Werte liegen
+ * dann in einer Map des Kontexts.
+ *
+ * Schlüssel mit gleichem Namen und Typ sind gleich. Die String-basierten Methoden des
+ * Kontexts verwenden denselben Speicherplatz, sodass {@code getAttribute("pipeline.name")}
+ * und {@code get(ContextKey.PIPELINE_NAME)} denselben Wert liefern.
+ *
+ * @param <T> Der Typ des Attributwerts
+ */
+public final class ContextKey<T> {
+
+    /**
+     * Der Name der ausführenden Pipeline.
+     */
+    public static final ContextKey<String> PIPELINE_NAME = new ContextKey<>("pipeline.name", String.class, 0);
+
+    /**
+     * Die Art der ausführenden Engine, z.B. "async" oder "distributed".
+     */
+    public static final ContextKey<String> PIPELINE_TYPE = new ContextKey<>("pipeline.type", String.class, 1);
+
+    // Schlüssel, die in jedem Layout an fester Position liegen
+    static final List<ContextKey<?>> BUILT_IN = List.of(PIPELINE_NAME, PIPELINE_TYPE);
+
+    private final String name;
+    private final Class<T> type;
+
+    // Feste Position der eingebauten Schlüssel, sonst -1
+    private final int fixedIndex;
+
+    // Zuletzt aufgelöste Position, damit Zugriffe im selben Plan nicht hashen
+    private volatile Resolution resolution;
+
+    private ContextKey(String name, Class<T> type, int fixedIndex) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.type = Objects.requireNonNull(type, "type");
+        this.fixedIndex = fixedIndex;
+    }
+
+    /**
+     * Erstellt einen Schlüssel für ein Attribut.
+     *
+     * @param name Der Name des Attributs
+     * @param type Der Typ des Attributwerts
+     * @param <T> Der Typ des Attributwerts
+     * @return Der Schlüssel
+     */
+    public static <T> ContextKey<T> of(String name, Class<T> type) {
+        return new ContextKey<>(name, type, -1);
+    }
+
+    /**
+     * Gibt den Namen des Attributs zurück.
+     *
+     * @return Der Name des Attributs
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gibt den Typ des Attributwerts zurück.
+     *
+     * @return Der Typ des Attributwerts
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Gibt die Position des Schlüssels im angegebenen Layout zurück.
+     *
+     * @param layout Das Slot-Layout eines Kontexts
+     * @return Die Position oder -1, wenn das Layout den Schlüssel nicht enthält
+     */
+    int indexIn(ContextLayout layout) {
+        if (fixedIndex >= 0) {
+            return fixedIndex;
+        }
+        Resolution cached = resolution;
+        if (cached != null && cached.layout == layout) {
+            return cached.index;
+        }
+        int index = layout.indexOf(name);
+        resolution = new Resolution(layout, index);
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ContextKey)) return false;
+        ContextKey<?> other = (ContextKey<?>) o;
+        return name.equals(other.name) && type == other.type;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * name.hashCode() + type.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ContextKey{" + name + ": " + type.getSimpleName() + "}";
+    }
+
+    /**
+     * Die Position eines Schlüssels in einem bestimmten Layout.
+     */
+    private static final class Resolution {
+        private final ContextLayout layout;
+        private final int index;
+
+        Resolution(ContextLayout layout, int index) {
+            this.layout = layout;
+            this.index = index;
+        }
+    }
+}
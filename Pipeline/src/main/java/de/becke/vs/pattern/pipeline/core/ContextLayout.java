@@ -0,0 +1,81 @@
+package de.becke.vs.pattern.pipeline.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Die Zuordnung von Kontextschlüsseln zu Array-Positionen für die Kontexte eines Plans.
+ *
+ * Die eingebauten Schlüssel liegen in jedem Layout vorne an fester Position, danach folgen
+ * die von den Stages bekannt gegebenen Schlüssel. Ein Layout ist unveränderlich und gehört
+ * zu dem {@link CompiledPipeline}, für den es erstellt wurde.
+ */
+final class ContextLayout {
+
+    /**
+     * Das Layout für Kontexte ohne Plan, das nur die eingebauten Schlüssel enthält.
+     */
+    static final ContextLayout DEFAULT = new ContextLayout(List.of());
+
+    private final String[] names;
+    private final Map<String, Integer> indexByName;
+
+    /**
+     * Erstellt ein Layout für die eingebauten und die angegebenen Schlüssel.
+     *
+     * @param keys Die von den Stages bekannt gegebenen Schlüssel
+     * @throws IllegalArgumentException Wenn ein Name mit verschiedenen Typen bekannt gegeben wurde
+     */
+    ContextLayout(Collection<ContextKey<?>> keys) {
+        List<ContextKey<?>> ordered = new ArrayList<>(ContextKey.BUILT_IN);
+        Map<String, ContextKey<?>> byName = new HashMap<>();
+        for (ContextKey<?> key : ContextKey.BUILT_IN) {
+            byName.put(key.getName(), key);
+        }
+        for (ContextKey<?> key : keys) {
+            ContextKey<?> existing = byName.putIfAbsent(key.getName(), key);
+            if (existing == null) {
+                ordered.add(key);
+            } else if (existing.getType() != key.getType()) {
+                throw new IllegalArgumentException("Der Kontextschlüssel '" + key.getName() +
+                        "' wird mit den Typen " + existing.getType().getName() + " und " +
+                        key.getType().getName() + " verwendet");
+            }
+        }
+
+        this.names = new String[ordered.size()];
+        this.indexByName = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            names[i] = ordered.get(i).getName();
+            indexByName.put(names[i], i);
+        }
+    }
+
+    /**
+     * Gibt die Position eines Attributnamens zurück.
+     *
+     * @param name Der Name des Attributs
+     * @return Die Position oder -1, wenn das Layout den Namen nicht enthält
+     */
+    int indexOf(String name) {
+        Integer index = indexByName.get(name);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Gibt den Attributnamen an einer Position zurück.
+     */
+    String nameAt(int index) {
+        return names[index];
+    }
+
+    /**
+     * Gibt die Anzahl der Positionen zurück.
+     */
+    int size() {
+        return names.length;
+    }
+}
@@ -0,0 +1,34 @@
+package de.becke.vs.pattern.pipeline.core;
+
+/**
+ * Eine Exception, die geworfen wird, wenn die Frist eines Pipeline-Durchlaufs abgelaufen ist,
+ * bevor eine Stage mit der Verarbeitung begonnen hat.
+ * 
+ * Die betroffene Stage wurde nicht ausgeführt; vorherige Stages können ihre Arbeit bereits
+ * erledigt haben.
+ */
+public class DeadlineExceededException extends PipelineException {
+    
+    // Abgelaufene Frist in Millisekunden seit der Epoche
+    private final long deadline;
+    
+    /**
+     * Erstellt eine neue DeadlineExceededException.
+     * 
+     * @param stageName Der Name der Stage, deren Arbeit verworfen wurde
+     * @param deadline Die abgelaufene Frist in Millisekunden seit der Epoche
+     */
+    public DeadlineExceededException(String stageName, long deadline) {
+        super("Frist um " + (System.currentTimeMillis() - deadline) + "ms überschritten", null, stageName);
+        this.deadline = deadline;
+    }
+    
+    /**
+     * Gibt die abgelaufene Frist zurück.
+     * 
+     * @return Die Frist in Millisekunden seit der Epoche
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+}
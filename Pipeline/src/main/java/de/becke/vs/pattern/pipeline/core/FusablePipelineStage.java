@@ -0,0 +1,17 @@
+package de.becke.vs.pattern.pipeline.core;
+
+/**
+ * Markierungsschnittstelle für Stages, die mit benachbarten Stages verschmolzen werden dürfen.
+ *
+ * Eine fusionierbare Stage sollte eine reine, günstige Funktion ihrer Eingabe sein: Sie
+ * darf sich nicht darauf verlassen, dass zwischen ihr und der vorherigen Stage geloggt
+ * oder der Kontext von der Pipeline verändert wird. Beim Kompilieren mit
+ * {@link Pipeline#compile(boolean)} werden aufeinanderfolgende fusionierbare Stages zu
+ * einer einzigen Stage zusammengefasst.
+ *
+ * @param <I> Der Typ der Eingabedaten
+ * @param <O> Der Typ der Ausgabedaten
+ * @see StageFusionOptimizer
+ */
+public interface FusablePipelineStage<I, O> extends PipelineStage<I, O> {
+}
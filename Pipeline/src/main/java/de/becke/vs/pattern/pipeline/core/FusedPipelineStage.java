@@ -0,0 +1,102 @@
+package de.becke.vs.pattern.pipeline.core;
+
+import de.becke.vs.pattern.pipeline.metrics.StageMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Eine zusammengesetzte Stage, die mehrere fusionierbare Stages in einer Schleife ausführt.
+ *
+ * Die Engine sieht nur noch eine Stage, sodass Schleifendurchlauf, Fehlerbehandlung und
+ * Logging pro ursprünglicher Stage entfallen. Tritt ein Fehler auf, wird er weiterhin
+ * der ursprünglichen Stage zugeordnet.
+ *
+ * Instanzen werden von {@link StageFusionOptimizer} erzeugt.
+ */
+public final class FusedPipelineStage implements PipelineStage<Object, Object> {
+
+    private final PipelineStage<Object, Object>[] parts;
+    private final String[] partNames;
+    private final String stageName;
+
+    /**
+     * Erstellt eine fusionierte Stage aus den angegebenen Stages.
+     *
+     * @param stages Die zu verschmelzenden Stages in Ausführungsreihenfolge
+     */
+    @SuppressWarnings("unchecked")
+    FusedPipelineStage(List<PipelineStage<?, ?>> stages) {
+        this.parts = stages.toArray(new PipelineStage[0]);
+        this.partNames = new String[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            partNames[i] = parts[i].getStageName();
+        }
+        this.stageName = String.join("+", partNames);
+    }
+
+    @Override
+    public Object process(Object input, PipelineContext context) throws PipelineException {
+        Object current = input;
+        int i = 0;
+        try {
+            for (; i < parts.length; i++) {
+                current = parts[i].process(current, context);
+            }
+        } catch (Exception e) {
+            throw new FusedStageException(partNames[i], e);
+        }
+        return current;
+    }
+
+    /**
+     * Führt alle Teile aus und erfasst Latenz und Fehler jeder ursprünglichen Stage in den
+     * angegebenen Metriken.
+     *
+     * @param input Die Eingabe der ersten Stage
+     * @param context Der Pipeline-Kontext
+     * @param partMetrics Die Metriken der ursprünglichen Stages in Ausführungsreihenfolge
+     * @return Die Ausgabe der letzten Stage
+     * @throws PipelineException Wenn eine der Stages fehlschlägt
+     */
+    Object process(Object input, PipelineContext context, StageMetrics[] partMetrics) throws PipelineException {
+        Object current = input;
+        for (int i = 0; i < parts.length; i++) {
+            long start = partMetrics[i].start();
+            try {
+                current = parts[i].process(current, context);
+                partMetrics[i].success(start);
+            } catch (Exception e) {
+                partMetrics[i].failure(start);
+                throw new FusedStageException(partNames[i], e);
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public String getStageName() {
+        return stageName;
+    }
+
+    @Override
+    public Collection<ContextKey<?>> getContextKeys() {
+        List<ContextKey<?>> keys = new ArrayList<>();
+        for (PipelineStage<Object, Object> part : parts) {
+            keys.addAll(part.getContextKeys());
+        }
+        return keys;
+    }
+
+    /**
+     * Gibt die Namen der ursprünglichen Stages zurück.
+     *
+     * @return Die Namen in Ausführungsreihenfolge
+     */
+    public List<String> getFusedStageNames() {
+        return Collections.unmodifiableList(Arrays.asList(partNames));
+    }
+}
@@ -0,0 +1,21 @@
+package de.becke.vs.pattern.pipeline.core;
+
+/**
+ * Interne Exception einer {@link FusedPipelineStage}, die den Namen der ursprünglichen
+ * Stage transportiert, in der der Fehler aufgetreten ist.
+ *
+ * Die Ausführungs-Engines packen sie wieder aus, sodass Fehlermeldungen dieselbe Form
+ * haben wie ohne Fusion.
+ */
+final class FusedStageException extends PipelineException {
+
+    /**
+     * Erstellt eine neue Exception für die angegebene ursprüngliche Stage.
+     *
+     * @param stageName Der Name der ursprünglichen Stage
+     * @param cause Der ursprüngliche Fehler
+     */
+    FusedStageException(String stageName, Throwable cause) {
+        super(cause.getMessage(), cause, stageName);
+    }
+}
@@ -0,0 +1,207 @@
+package de.becke.vs.pattern.pipeline.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Führt einen kompilierten Pipeline-Plan parallel auf einem {@link ForkJoinPool} aus.
+ *
+ * Die Eingaben werden in Abschnitte (Chunks) aufgeteilt, die per Fork/Join auf die
+ * verfügbaren Kerne verteilt werden. Jeder Abschnitt wird stageweise verarbeitet und
+ * erhält einen eigenen {@link PipelineContext}; nach Abschluss werden die Kontexte in
+ * Abschnittsreihenfolge zusammengeführt. Die Reihenfolge der Ergebnisse entspricht
+ * immer der Reihenfolge der Eingaben.
+ *
+ * Fehler brechen den Batch nicht ab, sondern werden pro Element im {@link BatchResult}
+ * gemeldet. Die am Kontext eines Abschnitts registrierten Ressourcen werden nach dessen
+ * Verarbeitung freigegeben; die Ergebnisse des Abschnitts behalten je eine Referenz.
+ *
+ * @param <I> Der Eingabetyp der Pipeline
+ * @param <O> Der Ausgabetyp der Pipeline
+ */
+public class ParallelPipelineExecutor<I, O> implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelPipelineExecutor.class);
+
+    // Anzahl der Abschnitte pro Worker-Thread, damit Lastungleichgewichte ausgeglichen werden
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final CompiledPipeline<I, O> plan;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final int chunkSize;
+
+    /**
+     * Erstellt einen Executor mit einem eigenen ForkJoinPool der angegebenen Parallelität.
+     *
+     * Der Pool wird beim Schließen des Executors beendet.
+     *
+     * @param plan Der auszuführende Pipeline-Plan
+     * @param parallelism Die Anzahl der Worker-Threads
+     */
+    public ParallelPipelineExecutor(CompiledPipeline<I, O> plan, int parallelism) {
+        this(plan, new ForkJoinPool(parallelism), 0, true);
+    }
+
+    /**
+     * Erstellt einen Executor, der einen vorhandenen ForkJoinPool nutzt.
+     *
+     * @param plan Der auszuführende Pipeline-Plan
+     * @param pool Der zu verwendende ForkJoinPool
+     * @param chunkSize Die Anzahl der Elemente pro Abschnitt; 0 für eine automatische Wahl
+     */
+    public ParallelPipelineExecutor(CompiledPipeline<I, O> plan, ForkJoinPool pool, int chunkSize) {
+        this(plan, pool, chunkSize, false);
+    }
+
+    private ParallelPipelineExecutor(CompiledPipeline<I, O> plan, ForkJoinPool pool, int chunkSize, boolean ownsPool) {
+        if (chunkSize < 0) {
+            throw new IllegalArgumentException("Die Chunk-Größe darf nicht negativ sein");
+        }
+        this.plan = plan;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.ownsPool = ownsPool;
+        LOGGER.info("Paralleler Executor für Pipeline '{}' erstellt (Parallelität: {}, Chunk-Größe: {})",
+                plan.getName(), pool.getParallelism(), chunkSize == 0 ? "automatisch" : chunkSize);
+    }
+
+    /**
+     * Führt die Pipeline parallel für alle Eingaben aus.
+     *
+     * @param inputs Die Eingaben für die Pipeline
+     * @return Das Ergebnis mit Ausgaben und Fehlern pro Element
+     */
+    public BatchResult<O> execute(Collection<? extends I> inputs) {
+        Object[] values = inputs.toArray();
+        PipelineException[] failures = new PipelineException[values.length];
+
+        int size = effectiveChunkSize(values.length);
+        int chunkCount = values.length == 0 ? 0 : (values.length + size - 1) / size;
+        PipelineContext[] contexts = new PipelineContext[chunkCount];
+
+        String executionId = plan.nextExecutionId();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Starte parallele Ausführung '{}' mit {} Elementen in {} Abschnitten",
+                    executionId, values.length, chunkCount);
+        }
+
+        if (chunkCount > 0) {
+            pool.invoke(new ChunkTask(values, failures, contexts, executionId, size, 0, chunkCount));
+        }
+
+        PipelineContext merged = mergeContexts(executionId, contexts);
+        BatchResult<O> result = new BatchResult<>(values, failures, merged);
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Parallele Ausführung '{}' abgeschlossen in {}ms ({} Fehler)",
+                    executionId, merged.getDuration(), result.getFailures().size());
+        }
+
+        return result;
+    }
+
+    /**
+     * Gibt die Parallelität des verwendeten Pools zurück.
+     *
+     * @return Die Anzahl der Worker-Threads
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Beendet den ForkJoinPool, sofern er von diesem Executor erzeugt wurde.
+     */
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Bestimmt die Chunk-Größe für die angegebene Anzahl von Elementen.
+     */
+    private int effectiveChunkSize(int elementCount) {
+        if (chunkSize > 0) {
+            return chunkSize;
+        }
+        int chunks = pool.getParallelism() * CHUNKS_PER_THREAD;
+        return Math.max(1, (elementCount + chunks - 1) / chunks);
+    }
+
+    /**
+     * Führt die Kontexte aller Abschnitte in Abschnittsreihenfolge zusammen.
+     */
+    private PipelineContext mergeContexts(String executionId, PipelineContext[] contexts) {
+        PipelineContext merged = new PipelineContext(executionId);
+        for (PipelineContext context : contexts) {
+            for (Map.Entry<String, Object> entry : context.getAttributes().entrySet()) {
+                merged.setAttribute(entry.getKey(), entry.getValue());
+            }
+            if (context.hasError() && !merged.hasError()) {
+                merged.setError(context.getError());
+            }
+        }
+        merged.set(ContextKey.PIPELINE_NAME, plan.getName());
+        merged.set(ContextKey.PIPELINE_TYPE, "parallel");
+        merged.setAttribute("pipeline.chunks", contexts.length);
+        return merged;
+    }
+
+    /**
+     * Fork/Join-Aufgabe, die einen Bereich von Abschnitten rekursiv aufteilt.
+     */
+    private final class ChunkTask extends RecursiveAction {
+
+        private final Object[] values;
+        private final PipelineException[] failures;
+        private final PipelineContext[] contexts;
+        private final String executionId;
+        private final int chunkSize;
+        private final int fromChunk;
+        private final int toChunk;
+
+        ChunkTask(Object[] values, PipelineException[] failures, PipelineContext[] contexts,
+                  String executionId, int chunkSize, int fromChunk, int toChunk) {
+            this.values = values;
+            this.failures = failures;
+            this.contexts = contexts;
+            this.executionId = executionId;
+            this.chunkSize = chunkSize;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk == 1) {
+                int from = fromChunk * chunkSize;
+                int to = Math.min(values.length, from + chunkSize);
+
+                PipelineContext context = plan.newContext(executionId + "/" + fromChunk);
+                context.set(ContextKey.PIPELINE_NAME, plan.getName());
+                contexts[fromChunk] = context;
+
+                try {
+                    plan.executeIsolated(values, failures, from, to, context);
+                } finally {
+                    context.releaseResources(Arrays.asList(values).subList(from, to));
+                }
+                return;
+            }
+
+            int middle = (fromChunk + toChunk) >>> 1;
+            invokeAll(
+                    new ChunkTask(values, failures, contexts, executionId, chunkSize, fromChunk, middle),
+                    new ChunkTask(values, failures, contexts, executionId, chunkSize, middle, toChunk));
+        }
+    }
+}
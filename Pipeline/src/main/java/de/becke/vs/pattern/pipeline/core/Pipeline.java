@@ -1,11 +1,18 @@
 package de.becke.vs.pattern.pipeline.core;
 
+import de.becke.vs.pattern.pipeline.metrics.PipelineMetrics;
+import de.becke.vs.pattern.pipeline.metrics.StageMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 /**
  * Basisimplementierung einer Pipeline, die mehrere Stages sequentiell ausführt.
@@ -22,6 +29,9 @@ public class Pipeline<I, O> {
     
     // Liste der Pipeline-Stages
     private final List<PipelineStage<?, ?>> stages = new ArrayList<>();
+
+    // Latenzen und Zähler aller Durchläufe und Stages
+    private final PipelineMetrics metrics;
     
     /**
      * Erstellt eine neue Pipeline mit einem Namen.
@@ -30,6 +40,7 @@ public class Pipeline<I, O> {
      */
     public Pipeline(String name) {
         this.name = name;
+        this.metrics = new PipelineMetrics(name);
         LOGGER.info("Pipeline '{}' erstellt", name);
     }
     
@@ -43,6 +54,7 @@ public class Pipeline<I, O> {
      */
     public <T, R> Pipeline<I, O> addStage(PipelineStage<T, R> stage) {
         stages.add(stage);
+        metrics.stage(stage.getStageName());
         LOGGER.info("Stage '{}' zur Pipeline '{}' hinzugefügt", stage.getStageName(), name);
         return this;
     }
@@ -60,26 +72,31 @@ public class Pipeline<I, O> {
         
         // Erstelle einen neuen Kontext für diesen Pipeline-Durchlauf
         PipelineContext context = new PipelineContext();
-        context.setAttribute("pipeline.name", name);
+        context.set(ContextKey.PIPELINE_NAME, name);
         
         // Der aktuelle Wert, der durch die Pipeline fließt
         Object current = input;
+        long runStart = metrics.runs().start();
         
         try {
             // Durchlaufe alle Stages der Pipeline
             for (int i = 0; i < stages.size(); i++) {
                 PipelineStage<Object, Object> stage = (PipelineStage<Object, Object>) stages.get(i);
+                StageMetrics stageMetrics = metrics.stage(stage.getStageName());
                 
                 LOGGER.info("Führe Stage '{}' ({}. von {}) aus", 
                         stage.getStageName(), i + 1, stages.size());
                 
+                long stageStart = stageMetrics.start();
                 try {
                     // Verarbeite die Eingabe mit der aktuellen Stage
                     current = stage.process(current, context);
+                    stageMetrics.success(stageStart);
                     
                     LOGGER.info("Stage '{}' erfolgreich abgeschlossen", stage.getStageName());
                     
                 } catch (Exception e) {
+                    stageMetrics.failure(stageStart);
                     LOGGER.error("Fehler in Stage '{}': {}", stage.getStageName(), e.getMessage(), e);
                     
                     // Setze den Fehler im Kontext und wirf eine PipelineException
@@ -89,6 +106,8 @@ public class Pipeline<I, O> {
                 }
             }
             
+            context.releaseResources(current);
+            metrics.runs().success(runStart);
             LOGGER.info("Pipeline '{}' erfolgreich abgeschlossen in {}ms", 
                     name, context.getDuration());
             
@@ -96,14 +115,139 @@ public class Pipeline<I, O> {
             return (O) current;
             
         } catch (PipelineException e) {
+            context.releaseResources(null);
+            metrics.runs().failure(runStart);
             LOGGER.error("Pipeline '{}' fehlgeschlagen: {}", name, e.getMessage());
             throw e;
         } catch (Exception e) {
+            context.releaseResources(null);
+            metrics.runs().failure(runStart);
             LOGGER.error("Unerwarteter Fehler in Pipeline '{}': {}", name, e.getMessage(), e);
             throw new PipelineException("Unerwarteter Fehler in Pipeline: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Führt die Pipeline für alle Eingaben eines Batches aus.
+     *
+     * Jede Stage wird zunächst auf den gesamten Batch angewendet, bevor die nächste Stage
+     * beginnt. Stages, die {@link BatchPipelineStage} implementieren, verarbeiten den Batch
+     * in einem einzigen Aufruf; alle anderen Stages werden pro Element aufgerufen.
+     *
+     * @param inputs Die Eingaben für die Pipeline
+     * @return Die Ergebnisse in derselben Reihenfolge wie die Eingaben
+     * @throws PipelineException Wenn ein Fehler während der Ausführung auftritt
+     */
+    public List<O> executeBatch(Collection<? extends I> inputs) throws PipelineException {
+        LOGGER.info("Starte Batch-Ausführung der Pipeline '{}' mit {} Elementen", name, inputs.size());
+
+        try {
+            List<O> results = new CompiledPipeline<I, O>(name, stages, metrics).executeBatch(inputs);
+            LOGGER.info("Batch-Ausführung der Pipeline '{}' erfolgreich abgeschlossen", name);
+            return results;
+        } catch (PipelineException e) {
+            LOGGER.error("Batch-Ausführung der Pipeline '{}' fehlgeschlagen: {}", name, e.getMessage());
+            throw e;
+        }
+    }
+    
+    /**
+     * Führt die Pipeline für alle Eingaben parallel auf dem angegebenen ForkJoinPool aus.
+     *
+     * Die Eingaben werden in Abschnitte aufgeteilt, die jeweils einen eigenen Kontext
+     * erhalten. Fehler werden pro Element im Ergebnis gemeldet, statt den gesamten Batch
+     * abzubrechen.
+     *
+     * @param inputs Die Eingaben für die Pipeline
+     * @param pool Der ForkJoinPool, auf dem die Abschnitte ausgeführt werden
+     * @return Das Ergebnis mit Ausgaben und Fehlern pro Element
+     * @see ParallelPipelineExecutor
+     */
+    public BatchResult<O> executeParallel(Collection<? extends I> inputs, ForkJoinPool pool) {
+        LOGGER.info("Starte parallele Ausführung der Pipeline '{}' mit {} Elementen", name, inputs.size());
+
+        BatchResult<O> result = new ParallelPipelineExecutor<>(new CompiledPipeline<I, O>(name, stages, metrics), pool, 0)
+                .execute(inputs);
+
+        LOGGER.info("Parallele Ausführung der Pipeline '{}' abgeschlossen ({} Fehler)",
+                name, result.getFailures().size());
+        return result;
+    }
+    
+    /**
+     * Schickt die Elemente eines Streams lazy durch die Pipeline.
+     *
+     * Jedes Element wird erst verarbeitet, wenn es angefordert wird; die Eingabe wird nie
+     * vollständig in den Speicher geladen. Damit lassen sich auch unbeschränkte Quellen wie
+     * die Zeilen großer Dateien verarbeiten.
+     *
+     * @param inputs Die Eingaben für die Pipeline
+     * @return Ein Stream mit den Ergebnissen
+     * @see CompiledPipeline#executeStream(Stream)
+     */
+    public Stream<O> executeStream(Stream<? extends I> inputs) {
+        LOGGER.info("Starte Streaming-Ausführung der Pipeline '{}'", name);
+        return new CompiledPipeline<I, O>(name, stages, metrics).executeStream(inputs);
+    }
+
+    /**
+     * Schickt die Elemente eines Iterators lazy durch die Pipeline.
+     *
+     * @param inputs Die Eingaben für die Pipeline
+     * @return Ein Iterator über die Ergebnisse
+     * @see CompiledPipeline#executeIterator(Iterator)
+     */
+    public Iterator<O> executeIterator(Iterator<? extends I> inputs) {
+        LOGGER.info("Starte Streaming-Ausführung der Pipeline '{}'", name);
+        return new CompiledPipeline<I, O>(name, stages, metrics).executeIterator(inputs);
+    }
+
+    /**
+     * Schickt die Elemente eines {@link Flow.Publisher}s durch die Pipeline und reicht die
+     * Nachfrage der Abonnenten an den Publisher weiter.
+     *
+     * @param inputs Der Publisher der Eingaben
+     * @return Ein Publisher der Ergebnisse
+     * @see CompiledPipeline#executePublisher(Flow.Publisher)
+     */
+    public Flow.Publisher<O> executePublisher(Flow.Publisher<? extends I> inputs) {
+        LOGGER.info("Starte Streaming-Ausführung der Pipeline '{}'", name);
+        return new CompiledPipeline<I, O>(name, stages, metrics).executePublisher(inputs);
+    }
+    
+    /**
+     * Friert die aktuelle Stage-Liste in einen unveränderlichen Ausführungsplan ein.
+     *
+     * Der kompilierte Plan ist für häufige Aufrufe optimiert: Er arbeitet auf einem Array,
+     * verwendet Kontexte wieder und protokolliert einzelne Stages nur auf DEBUG-Level.
+     * Die von den Stages über {@link PipelineStage#getContextKeys()} bekannt gegebenen
+     * Kontextschlüssel erhalten feste Positionen in den Kontexten des Plans.
+     *
+     * @return Der kompilierte Ausführungsplan
+     * @throws IllegalArgumentException Wenn Stages einen Kontextschlüssel mit verschiedenen Typen verwenden
+     */
+    public CompiledPipeline<I, O> compile() {
+        return compile(false);
+    }
+
+    /**
+     * Friert die aktuelle Stage-Liste in einen unveränderlichen Ausführungsplan ein und
+     * verschmilzt auf Wunsch benachbarte {@link FusablePipelineStage}s.
+     *
+     * Fehlermeldungen des Plans nennen auch bei verschmolzenen Stages die ursprüngliche
+     * Stage.
+     *
+     * @param fuseStages true, wenn fusionierbare Stages verschmolzen werden sollen
+     * @return Der kompilierte Ausführungsplan
+     * @throws IllegalArgumentException Wenn Stages einen Kontextschlüssel mit verschiedenen Typen verwenden
+     * @see StageFusionOptimizer
+     */
+    public CompiledPipeline<I, O> compile(boolean fuseStages) {
+        List<PipelineStage<?, ?>> plan = fuseStages ? StageFusionOptimizer.fuse(stages) : stages;
+        LOGGER.info("Pipeline '{}' mit {} Stages kompiliert ({} nach Fusion)", name, stages.size(), plan.size());
+        return new CompiledPipeline<>(name, plan, metrics);
+    }
+
     /**
      * Gibt den Namen der Pipeline zurück.
      * 
@@ -113,6 +257,17 @@ public class Pipeline<I, O> {
         return name;
     }
     
+    /**
+     * Gibt die Metriken dieser Pipeline zurück.
+     *
+     * Die Metriken werden mit allen kompilierten Plänen der Pipeline geteilt.
+     *
+     * @return Die Metriken der Pipeline
+     */
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Gibt eine unveränderliche Liste aller Stages in dieser Pipeline zurück.
      * 
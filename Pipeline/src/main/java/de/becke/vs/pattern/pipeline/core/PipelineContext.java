@@ -1,38 +1,81 @@
 package de.becke.vs.pattern.pipeline.core;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Kontext für die Ausführung einer Pipeline.
  * 
  * Der Kontext enthält Metadaten und Zustandsinformationen, die von verschiedenen
- * Pipeline-Phasen gemeinsam genutzt werden können.
+ * Pipeline-Phasen gemeinsam genutzt werden können. Attribute und Fehler dürfen auch von
+ * parallel laufenden Stages gesetzt werden.
+ * 
+ * Attribute, deren Schlüssel im Slot-Layout des ausführenden Plans enthalten sind, liegen
+ * in einem Array; alle anderen landen in einer bei Bedarf erzeugten Map. Kontexte, die
+ * nicht von einem {@link CompiledPipeline} stammen, kennen nur die eingebauten Schlüssel.
+ * Die ID eines Durchlaufs wird fortlaufend vergeben und erst beim ersten Abruf als String
+ * erzeugt.
  */
 public class PipelineContext {
     
-    // ID des Pipeline-Durchlaufs
-    private final String executionId;
+    // Präfix der fortlaufenden IDs, eindeutig pro JVM
+    private static final String DEFAULT_ID_PREFIX = UUID.randomUUID().toString().substring(0, 8) + "-";
+    private static final AtomicLong ID_SEQUENCE = new AtomicLong();
+    
+    // ID des Pipeline-Durchlaufs (null, solange sie noch nicht abgerufen wurde)
+    private volatile String executionId;
+    private String executionIdPrefix;
+    private long executionSequence;
     
     // Startzeit der Ausführung
-    private final long startTime;
+    private long startTime;
+    
+    // Positionen der Kontextschlüssel und die Attribute an diesen Positionen
+    private final ContextLayout layout;
+    private final AtomicReferenceArray<Object> slots;
     
-    // Metadaten und andere Attribute
-    private final Map<String, Object> attributes = new HashMap<>();
+    // Attribute außerhalb des Layouts (bei Bedarf angelegt)
+    private volatile Map<String, Object> attributes;
+    
+    // Nur lesende Sicht auf alle Attribute
+    private final Map<String, Object> attributeView = new AttributeView();
     
     // Fehlerkontext
-    private Throwable error;
+    private volatile Throwable error;
     
     // Versuch der Ausführung
     private int attemptCount = 1;
     
+    // Priorität des Durchlaufs (höhere Werte werden bevorzugt)
+    private volatile int priority;
+    
+    // Absolute Frist in Millisekunden seit der Epoche (0 = keine Frist)
+    private volatile long deadline;
+    
+    // Ressourcen, die mit dem Durchlauf freigegeben werden (bei Bedarf angelegt)
+    private List<PipelineResource> resources;
+    
     /**
-     * Erstellt einen neuen PipelineContext mit einer zufälligen ID.
+     * Erstellt einen neuen PipelineContext mit einer fortlaufenden, in dieser JVM eindeutigen ID.
      */
     public PipelineContext() {
-        this.executionId = UUID.randomUUID().toString();
+        this.executionIdPrefix = DEFAULT_ID_PREFIX;
+        this.executionSequence = ID_SEQUENCE.incrementAndGet();
         this.startTime = System.currentTimeMillis();
+        this.layout = ContextLayout.DEFAULT;
+        this.slots = new AtomicReferenceArray<>(layout.size());
     }
     
     /**
@@ -41,8 +84,66 @@ public class PipelineContext {
      * @param executionId Die ID des Pipeline-Durchlaufs
      */
     public PipelineContext(String executionId) {
+        this(executionId, ContextLayout.DEFAULT);
+    }
+    
+    /**
+     * Erstellt einen neuen PipelineContext mit dem Slot-Layout eines Plans.
+     * 
+     * @param executionId Die ID des Pipeline-Durchlaufs
+     * @param layout Das Slot-Layout des Plans
+     */
+    PipelineContext(String executionId, ContextLayout layout) {
+        this.executionId = executionId;
+        this.startTime = System.currentTimeMillis();
+        this.layout = layout;
+        this.slots = new AtomicReferenceArray<>(layout.size());
+    }
+    
+    /**
+     * Setzt den Kontext für einen neuen Pipeline-Durchlauf zurück.
+     * 
+     * Wird von Ausführungs-Engines wie {@link CompiledPipeline} verwendet, um Kontexte
+     * wiederzuverwenden, statt für jeden Durchlauf einen neuen Kontext zu erzeugen.
+     * Stages sollten diese Methode nicht aufrufen.
+     * 
+     * @param executionId Die ID des neuen Pipeline-Durchlaufs
+     */
+    public void reset(String executionId) {
+        clear();
         this.executionId = executionId;
+    }
+    
+    /**
+     * Setzt den Kontext für einen neuen Pipeline-Durchlauf mit fortlaufender ID zurück.
+     * 
+     * Die ID ergibt sich aus Präfix und Sequenznummer und wird erst erzeugt, wenn sie
+     * abgerufen wird, sodass ein Durchlauf ohne Zugriff auf die ID keinen String allokiert.
+     * 
+     * @param executionIdPrefix Das Präfix der ID
+     * @param executionSequence Die Sequenznummer des Durchlaufs
+     */
+    public void reset(String executionIdPrefix, long executionSequence) {
+        clear();
+        this.executionIdPrefix = executionIdPrefix;
+        this.executionSequence = executionSequence;
+        this.executionId = null;
+    }
+    
+    private void clear() {
+        releaseResources(null);
         this.startTime = System.currentTimeMillis();
+        for (int i = 0; i < slots.length(); i++) {
+            slots.lazySet(i, null);
+        }
+        Map<String, Object> extra = attributes;
+        if (extra != null) {
+            extra.clear();
+        }
+        this.error = null;
+        this.attemptCount = 1;
+        this.priority = 0;
+        this.deadline = 0;
     }
     
     /**
@@ -51,7 +152,12 @@ public class PipelineContext {
      * @return Die ID des Pipeline-Durchlaufs
      */
     public String getExecutionId() {
-        return executionId;
+        String id = executionId;
+        if (id == null) {
+            id = executionIdPrefix + executionSequence;
+            executionId = id;
+        }
+        return id;
     }
     
     /**
@@ -72,24 +178,169 @@ public class PipelineContext {
         return System.currentTimeMillis() - startTime;
     }
     
+    /**
+     * Gibt die Priorität des Pipeline-Durchlaufs zurück.
+     * 
+     * @return Die Priorität; höhere Werte werden bevorzugt, Standard ist 0
+     */
+    public int getPriority() {
+        return priority;
+    }
+    
+    /**
+     * Setzt die Priorität des Pipeline-Durchlaufs.
+     * 
+     * Scheduler wie der {@link de.becke.vs.pattern.pipeline.async.PriorityStageScheduler}
+     * führen wartende Arbeit mit höherer Priorität zuerst aus.
+     * 
+     * @param priority Die Priorität; höhere Werte werden bevorzugt
+     */
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+    
+    /**
+     * Gibt die Frist des Pipeline-Durchlaufs zurück.
+     * 
+     * @return Die Frist in Millisekunden seit der Epoche oder 0, wenn keine Frist gesetzt ist
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+    
+    /**
+     * Setzt eine absolute Frist für den Pipeline-Durchlauf.
+     * 
+     * Ist die Frist abgelaufen, wird noch nicht begonnene Arbeit des Durchlaufs verworfen
+     * und der Durchlauf mit einer {@link DeadlineExceededException} beendet.
+     * 
+     * @param deadline Die Frist in Millisekunden seit der Epoche oder 0 für keine Frist
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+    
+    /**
+     * Prüft, ob eine Frist gesetzt ist.
+     * 
+     * @return true, wenn eine Frist gesetzt ist, sonst false
+     */
+    public boolean hasDeadline() {
+        return deadline != 0;
+    }
+    
+    /**
+     * Prüft, ob die Frist des Pipeline-Durchlaufs abgelaufen ist.
+     * 
+     * @return true, wenn eine Frist gesetzt und abgelaufen ist, sonst false
+     */
+    public boolean isDeadlineExceeded() {
+        long current = deadline;
+        return current != 0 && System.currentTimeMillis() > current;
+    }
+    
+    /**
+     * Gibt den Wert eines typisierten Attributs zurück.
+     * 
+     * @param key Der Schlüssel des Attributs
+     * @param <T> Der Typ des Attributwerts
+     * @return Der Wert des Attributs oder null, wenn nicht vorhanden oder vom falschen Typ
+     */
+    public <T> T get(ContextKey<T> key) {
+        return typed(key, getValue(key));
+    }
+    
+    private Object getValue(ContextKey<?> key) {
+        int index = key.indexIn(layout);
+        if (index >= 0) {
+            return slots.get(index);
+        }
+        Map<String, Object> extra = attributes;
+        return extra == null ? null : extra.get(key.getName());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> T typed(ContextKey<T> key, Object value) {
+        return key.getType().isInstance(value) ? (T) value : null;
+    }
+    
+    /**
+     * Setzt ein typisiertes Attribut.
+     * 
+     * @param key Der Schlüssel des Attributs
+     * @param value Der Wert des Attributs (null entfernt das Attribut)
+     * @param <T> Der Typ des Attributwerts
+     */
+    public <T> void set(ContextKey<T> key, T value) {
+        int index = key.indexIn(layout);
+        if (index >= 0) {
+            slots.set(index, value);
+        } else if (value == null) {
+            Map<String, Object> extra = attributes;
+            if (extra != null) {
+                extra.remove(key.getName());
+            }
+        } else {
+            extraAttributes().put(key.getName(), value);
+        }
+    }
+    
+    /**
+     * Entfernt ein typisiertes Attribut.
+     * 
+     * @param key Der Schlüssel des Attributs
+     * @param <T> Der Typ des Attributwerts
+     * @return Der frühere Wert des Attributs oder null, wenn nicht vorhanden oder vom falschen Typ
+     */
+    public <T> T remove(ContextKey<T> key) {
+        int index = key.indexIn(layout);
+        if (index >= 0) {
+            return typed(key, slots.getAndSet(index, null));
+        }
+        Map<String, Object> extra = attributes;
+        return extra == null ? null : typed(key, extra.remove(key.getName()));
+    }
+    
     /**
      * Setzt ein Attribut im Kontext.
      * 
+     * Da parallel laufende Stages Attribute setzen dürfen, werden weder null-Schlüssel noch
+     * null-Werte gespeichert: Ein null-Wert entfernt das Attribut, sodass es auch in
+     * {@link #getAttributes()} nicht mehr erscheint.
+     * 
      * @param key Der Schlüssel des Attributs
-     * @param value Der Wert des Attributs
+     * @param value Der Wert des Attributs (null entfernt das Attribut)
+     * @throws NullPointerException Wenn der Schlüssel null ist
      */
     public void setAttribute(String key, Object value) {
-        attributes.put(key, value);
+        Objects.requireNonNull(key, "Der Schlüssel eines Attributs darf nicht null sein");
+        int index = layout.indexOf(key);
+        if (index >= 0) {
+            // Ein Wert anderen Typs ist über den Schlüssel nicht sichtbar, siehe get(ContextKey)
+            slots.set(index, value);
+        } else if (value == null) {
+            removeAttribute(key);
+        } else {
+            extraAttributes().put(key, value);
+        }
     }
     
     /**
      * Gibt ein Attribut aus dem Kontext zurück.
      * 
      * @param key Der Schlüssel des Attributs
-     * @return Der Wert des Attributs oder null, wenn nicht vorhanden
+     * @return Der Wert des Attributs oder null, wenn nicht vorhanden oder der Schlüssel null ist
      */
     public Object getAttribute(String key) {
-        return attributes.get(key);
+        if (key == null) {
+            return null;
+        }
+        int index = layout.indexOf(key);
+        if (index >= 0) {
+            return slots.get(index);
+        }
+        Map<String, Object> extra = attributes;
+        return extra == null ? null : extra.get(key);
     }
     
     /**
@@ -102,7 +353,7 @@ public class PipelineContext {
      */
     @SuppressWarnings("unchecked")
     public <T> T getAttribute(String key, Class<T> clazz) {
-        Object value = attributes.get(key);
+        Object value = getAttribute(key);
         if (value != null && clazz.isAssignableFrom(value.getClass())) {
             return (T) value;
         }
@@ -113,19 +364,44 @@ public class PipelineContext {
      * Entfernt ein Attribut aus dem Kontext.
      * 
      * @param key Der Schlüssel des zu entfernenden Attributs
-     * @return Der frühere Wert des Attributs oder null, wenn nicht vorhanden
+     * @return Der frühere Wert des Attributs oder null, wenn nicht vorhanden oder der Schlüssel null ist
      */
     public Object removeAttribute(String key) {
-        return attributes.remove(key);
+        if (key == null) {
+            return null;
+        }
+        int index = layout.indexOf(key);
+        if (index >= 0) {
+            return slots.getAndSet(index, null);
+        }
+        Map<String, Object> extra = attributes;
+        return extra == null ? null : extra.remove(key);
     }
     
     /**
      * Gibt alle Attribute im Kontext zurück.
      * 
-     * @return Eine Map mit allen Attributen
+     * Die Map ist eine nur lesende Sicht ohne Kopie: Spätere Änderungen am Kontext sind
+     * darin sichtbar. Wer einen festen Stand benötigt, kopiert sie selbst.
+     * 
+     * @return Eine nicht veränderbare Sicht auf alle Attribute
      */
     public Map<String, Object> getAttributes() {
-        return new HashMap<>(attributes);
+        return attributeView;
+    }
+    
+    private Map<String, Object> extraAttributes() {
+        Map<String, Object> extra = attributes;
+        if (extra == null) {
+            synchronized (this) {
+                extra = attributes;
+                if (extra == null) {
+                    extra = new ConcurrentHashMap<>();
+                    attributes = extra;
+                }
+            }
+        }
+        return extra;
     }
     
     /**
@@ -155,6 +431,72 @@ public class PipelineContext {
         return error != null;
     }
     
+    /**
+     * Registriert eine Ressource, die freigegeben wird, wenn der Durchlauf endet.
+     * 
+     * @param resource Die Ressource, deren Referenz an den Durchlauf übergeht
+     */
+    public synchronized void registerResource(PipelineResource resource) {
+        if (resources == null) {
+            resources = new ArrayList<>(4);
+        }
+        resources.add(resource);
+    }
+    
+    /**
+     * Gibt alle registrierten Ressourcen frei.
+     * 
+     * Wird von den Ausführungs-Engines am Ende eines Durchlaufs aufgerufen. Ist das
+     * Ergebnis selbst eine Ressource oder eine Collection von Ressourcen, wird vorher je
+     * eine Referenz für den Aufrufer hinzugefügt.
+     * 
+     * @param result Das Ergebnis des Durchlaufs oder null
+     */
+    public void releaseResources(Object result) {
+        List<PipelineResource> released;
+        synchronized (this) {
+            if (resources == null || resources.isEmpty()) {
+                return;
+            }
+            released = resources;
+            resources = null;
+        }
+        
+        retain(result);
+        for (PipelineResource resource : released) {
+            resource.release();
+        }
+    }
+    
+    /**
+     * Fügt dem Ergebnis eine Referenz für den Aufrufer hinzu, ohne die Ressourcen freizugeben.
+     * 
+     * Für Engines, die das Ergebnis ausliefern, bevor alle Stages des Durchlaufs beendet
+     * sind. Sie rufen später {@link #releaseResources(Object)} mit null auf.
+     * 
+     * @param result Das Ergebnis des Durchlaufs oder null
+     */
+    public void retainResult(Object result) {
+        synchronized (this) {
+            if (resources == null || resources.isEmpty()) {
+                return;
+            }
+        }
+        retain(result);
+    }
+    
+    private static void retain(Object result) {
+        if (result instanceof PipelineResource) {
+            ((PipelineResource) result).retain();
+        } else if (result instanceof Collection) {
+            for (Object element : (Collection<?>) result) {
+                if (element instanceof PipelineResource) {
+                    ((PipelineResource) element).retain();
+                }
+            }
+        }
+    }
+    
     /**
      * Erhöht den Versuchszähler.
      */
@@ -170,4 +512,97 @@ public class PipelineContext {
     public int getAttemptCount() {
         return attemptCount;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Nur lesende Sicht auf die Attribute innerhalb und außerhalb des Layouts.
+     * 
+     * Größe und Iteration lesen die Attribute direkt, ohne sie vorher zu kopieren.
+     */
+    private final class AttributeView extends AbstractMap<String, Object> {
+        
+        private final Set<Entry<String, Object>> entries = new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new AttributeIterator();
+            }
+            
+            @Override
+            public int size() {
+                int size = 0;
+                for (int i = 0; i < slots.length(); i++) {
+                    if (slots.get(i) != null) {
+                        size++;
+                    }
+                }
+                Map<String, Object> extra = attributes;
+                return extra == null ? size : size + extra.size();
+            }
+        };
+        
+        @Override
+        public Object get(Object key) {
+            return key instanceof String ? getAttribute((String) key) : null;
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+        
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return entries;
+        }
+    }
+    
+    /**
+     * Durchläuft erst die belegten Positionen des Layouts, dann die übrigen Attribute.
+     */
+    private final class AttributeIterator implements Iterator<Map.Entry<String, Object>> {
+        
+        private int slot = -1;
+        private Map.Entry<String, Object> next;
+        private Iterator<Map.Entry<String, Object>> extra;
+        
+        AttributeIterator() {
+            advance();
+        }
+        
+        private void advance() {
+            next = null;
+            while (++slot < slots.length()) {
+                Object value = slots.get(slot);
+                if (value != null) {
+                    next = new AbstractMap.SimpleImmutableEntry<>(layout.nameAt(slot), value);
+                    return;
+                }
+            }
+            if (extra == null) {
+                Map<String, Object> map = attributes;
+                if (map == null) {
+                    return;
+                }
+                extra = map.entrySet().iterator();
+            }
+            if (extra.hasNext()) {
+                Map.Entry<String, Object> entry = extra.next();
+                next = new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue());
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+        
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<String, Object> current = next;
+            advance();
+            return current;
+        }
+    }
+}
@@ -5,6 +5,9 @@ package de.becke.vs.pattern.pipeline.core;
  */
 public class PipelineException extends Exception {
     
+    // Name der Stage, in der der Fehler aufgetreten ist (null, wenn unbekannt)
+    private final String stageName;
+    
     /**
      * Erstellt eine neue PipelineException mit einer Nachricht.
      * 
@@ -12,6 +15,7 @@ public class PipelineException extends Exception {
      */
     public PipelineException(String message) {
         super(message);
+        this.stageName = null;
     }
     
     /**
@@ -22,6 +26,7 @@ public class PipelineException extends Exception {
      */
     public PipelineException(String message, Throwable cause) {
         super(message, cause);
+        this.stageName = null;
     }
     
     /**
@@ -33,5 +38,15 @@ public class PipelineException extends Exception {
      */
     public PipelineException(String message, Throwable cause, String stageName) {
         super("Fehler in Stage '" + stageName + "': " + message, cause);
+        this.stageName = stageName;
+    }
+    
+    /**
+     * Gibt den Namen der Stage zurück, in der der Fehler aufgetreten ist.
+     * 
+     * @return Der Name der Stage oder null, wenn er nicht bekannt ist
+     */
+    public String getStageName() {
+        return stageName;
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package de.becke.vs.pattern.pipeline.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Ein {@link Flow.Publisher}, der jedes Element eines vorgelagerten Publishers durch einen
+ * {@link CompiledPipeline kompilierten Plan} schickt.
+ * 
+ * Jedes Abonnement abonniert den vorgelagerten Publisher erneut. Da jedes Element genau
+ * ein Ergebnis liefert, wird die Nachfrage des Abonnenten unverändert nach oben
+ * weitergereicht; es werden also nie mehr Elemente angefordert, als der Abonnent
+ * verarbeiten kann, und nichts wird zwischengespeichert. Schlägt ein Element fehl, wird
+ * das vorgelagerte Abonnement gekündigt und der Abonnent erhält die
+ * {@link PipelineException} über {@code onError}.
+ * 
+ * @param <I> Der Eingabetyp der Pipeline
+ * @param <O> Der Ausgabetyp der Pipeline
+ */
+final class PipelinePublisher<I, O> implements Flow.Publisher<O> {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinePublisher.class);
+    
+    private final Flow.Publisher<? extends I> upstream;
+    private final CompiledPipeline<I, O> pipeline;
+    
+    PipelinePublisher(Flow.Publisher<? extends I> upstream, CompiledPipeline<I, O> pipeline) {
+        this.upstream = upstream;
+        this.pipeline = pipeline;
+    }
+    
+    @Override
+    public void subscribe(Flow.Subscriber<? super O> subscriber) {
+        upstream.subscribe(new MappingSubscriber<>(subscriber, pipeline));
+    }
+    
+    /**
+     * Verbindet ein vorgelagertes Abonnement mit einem Abonnenten.
+     */
+    private static final class MappingSubscriber<I, O> implements Flow.Subscriber<I>, Flow.Subscription {
+        
+        private final Flow.Subscriber<? super O> downstream;
+        private final CompiledPipeline<I, O> pipeline;
+        private Flow.Subscription subscription;
+        private volatile boolean done;
+        
+        MappingSubscriber(Flow.Subscriber<? super O> downstream, CompiledPipeline<I, O> pipeline) {
+            this.downstream = downstream;
+            this.pipeline = pipeline;
+        }
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            downstream.onSubscribe(this);
+        }
+        
+        @Override
+        public void onNext(I item) {
+            if (done) {
+                return;
+            }
+            
+            O result;
+            try {
+                result = pipeline.execute(item);
+            } catch (PipelineException e) {
+                LOGGER.error("Streaming-Ausführung der Pipeline '{}' abgebrochen: {}",
+                        pipeline.getName(), e.getMessage());
+                done = true;
+                subscription.cancel();
+                downstream.onError(e);
+                return;
+            }
+            downstream.onNext(result);
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            if (!done) {
+                done = true;
+                downstream.onError(throwable);
+            }
+        }
+        
+        @Override
+        public void onComplete() {
+            if (!done) {
+                done = true;
+                downstream.onComplete();
+            }
+        }
+        
+        @Override
+        public void request(long n) {
+            subscription.request(n);
+        }
+        
+        @Override
+        public void cancel() {
+            done = true;
+            subscription.cancel();
+        }
+    }
+}
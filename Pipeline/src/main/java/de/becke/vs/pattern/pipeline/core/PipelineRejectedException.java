@@ -0,0 +1,21 @@
+package de.becke.vs.pattern.pipeline.core;
+
+/**
+ * Eine Exception, die geworfen wird, wenn eine Pipeline neue Arbeit wegen Überlast ablehnt.
+ * 
+ * Im Gegensatz zu anderen {@link PipelineException}s wurde die betroffene Eingabe nicht
+ * verarbeitet. Aufrufer können die Anfrage daher später erneut senden oder auf einen
+ * anderen Knoten ausweichen.
+ */
+public class PipelineRejectedException extends PipelineException {
+    
+    /**
+     * Erstellt eine neue PipelineRejectedException mit einer Nachricht und dem Namen der Stage.
+     * 
+     * @param message Die Fehlernachricht
+     * @param stageName Der Name der Stage, die die Arbeit abgelehnt hat
+     */
+    public PipelineRejectedException(String message, String stageName) {
+        super(message, null, stageName);
+    }
+}
@@ -0,0 +1,26 @@
+package de.becke.vs.pattern.pipeline.core;
+
+/**
+ * Eine referenzgezählte Ressource, die einem Pipeline-Durchlauf gehören kann.
+ *
+ * Am {@link PipelineContext} registrierte Ressourcen werden von den Ausführungs-Engines
+ * freigegeben, sobald der Durchlauf endet. Ist das Ergebnis des Durchlaufs selbst eine
+ * solche Ressource, erhält der Aufrufer eine eigene Referenz und muss sie freigeben.
+ */
+public interface PipelineResource {
+
+    /**
+     * Erhöht den Referenzzähler.
+     *
+     * @throws IllegalStateException Wenn die Ressource bereits freigegeben wurde
+     */
+    void retain();
+
+    /**
+     * Verringert den Referenzzähler und gibt die Ressource frei, wenn er null erreicht.
+     *
+     * @return true, wenn die Ressource dadurch freigegeben wurde
+     * @throws IllegalStateException Wenn die Ressource bereits freigegeben wurde
+     */
+    boolean release();
+}
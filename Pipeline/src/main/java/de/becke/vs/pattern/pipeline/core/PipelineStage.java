@@ -1,5 +1,8 @@
 package de.becke.vs.pattern.pipeline.core;
 
+import java.util.Collection;
+import java.util.Collections;
+
 /**
  * Eine Schnittstelle, die eine Phase (Stage) in einer Pipeline repräsentiert.
  * 
@@ -24,4 +27,16 @@ public interface PipelineStage<I, O> {
      * @return Der Name der Stage
      */
     String getStageName();
+    
+    /**
+     * Gibt die Kontextschlüssel zurück, die diese Stage liest oder schreibt.
+     * 
+     * {@link Pipeline#compile()} legt für diese Schlüssel feste Positionen im Kontext an,
+     * sodass Zugriffe über sie im kompilierten Plan ohne Hashing auskommen.
+     * 
+     * @return Die verwendeten Kontextschlüssel, standardmäßig keine
+     */
+    default Collection<ContextKey<?>> getContextKeys() {
+        return Collections.emptyList();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package de.becke.vs.pattern.pipeline.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Optimierungsschritt, der benachbarte {@link FusablePipelineStage}s verschmilzt.
+ *
+ * Jede zusammenhängende Folge von mindestens zwei fusionierbaren Stages wird durch eine
+ * {@link FusedPipelineStage} ersetzt. Batch-Stages werden nie verschmolzen, damit ihre
+ * Batch-Verarbeitung erhalten bleibt.
+ */
+public final class StageFusionOptimizer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StageFusionOptimizer.class);
+
+    private StageFusionOptimizer() {
+    }
+
+    /**
+     * Verschmilzt benachbarte fusionierbare Stages.
+     *
+     * @param stages Die Stages in Ausführungsreihenfolge
+     * @return Eine neue Liste, in der fusionierbare Folgen durch fusionierte Stages ersetzt sind
+     */
+    public static List<PipelineStage<?, ?>> fuse(List<PipelineStage<?, ?>> stages) {
+        List<PipelineStage<?, ?>> result = new ArrayList<>(stages.size());
+        List<PipelineStage<?, ?>> run = new ArrayList<>();
+
+        for (PipelineStage<?, ?> stage : stages) {
+            if (isFusable(stage)) {
+                run.add(stage);
+            } else {
+                flush(run, result);
+                result.add(stage);
+            }
+        }
+        flush(run, result);
+
+        return result;
+    }
+
+    private static boolean isFusable(PipelineStage<?, ?> stage) {
+        return stage instanceof FusablePipelineStage && !(stage instanceof BatchPipelineStage);
+    }
+
+    private static void flush(List<PipelineStage<?, ?>> run, List<PipelineStage<?, ?>> result) {
+        if (run.size() == 1) {
+            result.add(run.get(0));
+        } else if (run.size() > 1) {
+            FusedPipelineStage fused = new FusedPipelineStage(run);
+            LOGGER.info("{} Stages zu '{}' verschmolzen", run.size(), fused.getStageName());
+            result.add(fused);
+        }
+        run.clear();
+    }
+}
@@ -0,0 +1,30 @@
+package de.becke.vs.pattern.pipeline.core;
+
+/**
+ * Verpackt eine {@link PipelineException} in eine ungeprüfte Exception.
+ * 
+ * Wird von den Streaming-Einstiegspunkten geworfen, deren Schnittstellen wie
+ * {@link java.util.stream.Stream} und {@link java.util.Iterator} keine geprüften
+ * Exceptions zulassen.
+ */
+public class UncheckedPipelineException extends RuntimeException {
+    
+    /**
+     * Erstellt eine neue UncheckedPipelineException.
+     * 
+     * @param cause Die verpackte PipelineException
+     */
+    public UncheckedPipelineException(PipelineException cause) {
+        super(cause.getMessage(), cause);
+    }
+    
+    /**
+     * Gibt die verpackte PipelineException zurück.
+     * 
+     * @return Die ursprüngliche PipelineException
+     */
+    @Override
+    public synchronized PipelineException getCause() {
+        return (PipelineException) super.getCause();
+    }
+}
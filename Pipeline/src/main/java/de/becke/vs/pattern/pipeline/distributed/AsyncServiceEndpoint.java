@@ -0,0 +1,49 @@
+package de.becke.vs.pattern.pipeline.distributed;
+
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Ein Dienst-Endpunkt, dessen Aufrufe nicht blockieren.
+ *
+ * {@link DistributedPipeline#executeAsync(Object)} verkettet die Futures solcher
+ * Endpunkte direkt, sodass während eines entfernten Aufrufs kein Thread belegt ist und
+ * viele Durchläufe gleichzeitig mit wenigen Threads unterwegs sein können.
+ *
+ * @param <I> Der Typ der Eingabedaten
+ * @param <O> Der Typ der Ausgabedaten
+ */
+public interface AsyncServiceEndpoint<I, O> extends ServiceEndpoint<I, O> {
+
+    /**
+     * Ruft den Dienst auf, ohne auf das Ergebnis zu warten.
+     *
+     * @param input Die Eingabedaten
+     * @param context Der Pipeline-Kontext mit zusätzlichen Metadaten
+     * @return Ein CompletableFuture, das mit den Ausgabedaten oder dem Fehler des Aufrufs abgeschlossen wird
+     */
+    CompletableFuture<O> invokeServiceAsync(I input, PipelineContext context);
+
+    /**
+     * Ruft den Dienst auf und wartet auf das Ergebnis.
+     *
+     * @param input Die Eingabedaten
+     * @param context Der Pipeline-Kontext mit zusätzlichen Metadaten
+     * @return Die Ausgabedaten
+     * @throws Exception Der Fehler des asynchronen Aufrufs
+     */
+    @Override
+    default O invokeService(I input, PipelineContext context) throws Exception {
+        try {
+            return invokeServiceAsync(input, context).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package de.becke.vs.pattern.pipeline.distributed;
+
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+
+import java.util.List;
+
+/**
+ * Ein Dienst-Endpunkt, der mehrere Eingaben in einem einzigen Aufruf verarbeiten kann.
+ * 
+ * Wird von {@link BatchingServiceEndpoint} verwendet, um die Roundtrips mehrerer
+ * gleichzeitiger Aufrufe zu einem Roundtrip zusammenzufassen.
+ * 
+ * @param <I> Der Typ der Eingabedaten
+ * @param <O> Der Typ der Ausgabedaten
+ */
+public interface BatchServiceEndpoint<I, O> {
+    
+    /**
+     * Ruft den Dienst für alle Eingaben eines Batches auf.
+     * 
+     * @param inputs Die Eingaben des Batches
+     * @param contexts Die Kontexte der Aufrufer, in derselben Reihenfolge wie die Eingaben
+     * @return Die Ausgaben in derselben Reihenfolge und Anzahl wie die Eingaben
+     * @throws Exception Wenn der Aufruf fehlschlägt; alle Aufrufer des Batches erhalten den Fehler
+     */
+    List<O> invokeBatch(List<I> inputs, List<PipelineContext> contexts) throws Exception;
+    
+    /**
+     * Gibt die Adresse des Endpunkts zurück.
+     * 
+     * @return Die Adresse des Endpunkts (z.B. URL oder Dienstname)
+     */
+    String getEndpointAddress();
+}
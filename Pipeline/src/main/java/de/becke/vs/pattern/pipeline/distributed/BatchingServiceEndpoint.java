@@ -0,0 +1,321 @@
+package de.becke.vs.pattern.pipeline.distributed;
+
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.metrics.Histogram;
+import de.becke.vs.pattern.pipeline.metrics.HistogramSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ein Endpunkt, der gleichzeitige Einzelaufrufe zu Batches zusammenfasst.
+ * 
+ * Jeder Aufruf von {@link #invokeServiceAsync(Object, PipelineContext)} wird in eine
+ * Warteschlange gestellt. Ein Dispatcher-Thread sammelt Aufrufe, bis entweder
+ * {@code maxBatchSize} Elemente vorliegen oder seit dem ersten Element {@code lingerMicros}
+ * vergangen sind, und sendet sie mit einem einzigen
+ * {@link BatchServiceEndpoint#invokeBatch(List, List)} an den Dienst. Jedes Ergebnis wird
+ * an den Aufrufer zurückgegeben, zu dem es gehört.
+ * 
+ * Höchstens {@code maxInFlightBatches} Batches sind gleichzeitig unterwegs. Sind alle
+ * belegt, sammeln sich weitere Aufrufe in der Warteschlange, sodass die nächsten Batches
+ * unter Last automatisch größer werden.
+ * 
+ * @param <I> Der Typ der Eingabedaten
+ * @param <O> Der Typ der Ausgabedaten
+ */
+public class BatchingServiceEndpoint<I, O> implements AsyncServiceEndpoint<I, O>, AutoCloseable {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchingServiceEndpoint.class);
+    
+    private final BatchServiceEndpoint<I, O> delegate;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final int maxInFlightBatches;
+    
+    // Wartende Aufrufe
+    private final BlockingQueue<PendingCall<I, O>> queue = new LinkedBlockingQueue<>();
+    
+    // Begrenzung und Ausführung der gleichzeitig gesendeten Batches
+    private final Semaphore inFlight;
+    private final ExecutorService sender;
+    private final Thread dispatcher;
+    
+    // Verteilung der Batch-Größen
+    private final Histogram batchSizes = new Histogram();
+    
+    private volatile boolean running = true;
+    
+    /**
+     * Erstellt einen neuen bündelnden Endpunkt.
+     * 
+     * @param delegate Der Endpunkt, der die Batches verarbeitet
+     * @param maxBatchSize Die maximale Anzahl der Elemente pro Batch
+     * @param lingerMicros Die maximale Wartezeit auf weitere Elemente in Mikrosekunden
+     * @param maxInFlightBatches Die maximale Anzahl gleichzeitig gesendeter Batches
+     */
+    public BatchingServiceEndpoint(BatchServiceEndpoint<I, O> delegate, int maxBatchSize, long lingerMicros,
+                                   int maxInFlightBatches) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Die Batch-Größe muss mindestens 1 sein: " + maxBatchSize);
+        }
+        if (lingerMicros < 0) {
+            throw new IllegalArgumentException("Die Wartezeit darf nicht negativ sein: " + lingerMicros);
+        }
+        if (maxInFlightBatches < 1) {
+            throw new IllegalArgumentException("Es muss mindestens ein Batch gleichzeitig erlaubt sein: " +
+                    maxInFlightBatches);
+        }
+        
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.inFlight = new Semaphore(maxInFlightBatches);
+        
+        String address = delegate.getEndpointAddress();
+        AtomicInteger senderCount = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(maxInFlightBatches, runnable -> {
+            Thread thread = new Thread(runnable, address + "-batch-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = new Thread(this::dispatch, address + "-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+        
+        LOGGER.info("Bündelnder Endpunkt für '{}' gestartet (Batch-Größe {}, Wartezeit {}µs, {} Batches gleichzeitig)",
+                address, maxBatchSize, lingerMicros, maxInFlightBatches);
+    }
+    
+    /**
+     * Stellt einen Aufruf in die Warteschlange, ohne auf das Ergebnis zu warten.
+     * 
+     * @param input Die Eingabedaten
+     * @param context Der Pipeline-Kontext
+     * @return Ein CompletableFuture, das mit dem Ergebnis des Batches abgeschlossen wird
+     */
+    @Override
+    public CompletableFuture<O> invokeServiceAsync(I input, PipelineContext context) {
+        PendingCall<I, O> call = new PendingCall<>(input, context);
+        if (!running) {
+            call.future.completeExceptionally(closedException());
+            return call.future;
+        }
+        queue.add(call);
+
+        // Wurde der Endpunkt währenddessen geschlossen, holt den Aufruf niemand mehr ab
+        if (!running && queue.remove(call)) {
+            call.future.completeExceptionally(closedException());
+        }
+        return call.future;
+    }
+    
+    /**
+     * Schleife des Dispatcher-Threads: Aufrufe sammeln und als Batch senden.
+     */
+    private void dispatch() {
+        while (running) {
+            List<PendingCall<I, O>> batch = null;
+            try {
+                batch = collectBatch();
+                if (batch == null) {
+                    continue;
+                }
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                if (batch != null) {
+                    fail(batch, closedException());
+                }
+                break;
+            }
+            
+            List<PendingCall<I, O>> collected = batch;
+            batchSizes.record(collected.size());
+            try {
+                sender.execute(() -> send(collected));
+            } catch (RuntimeException e) {
+                inFlight.release();
+                fail(collected, e);
+            }
+        }
+        
+        // Übrig gebliebene Aufrufe nicht hängen lassen
+        List<PendingCall<I, O>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        fail(remaining, closedException());
+    }
+    
+    /**
+     * Wartet auf den ersten Aufruf und sammelt weitere, bis der Batch voll oder die
+     * Wartezeit abgelaufen ist.
+     * 
+     * @return Der Batch oder null, wenn innerhalb des Abfrageintervalls kein Aufruf kam
+     */
+    private List<PendingCall<I, O>> collectBatch() throws InterruptedException {
+        PendingCall<I, O> first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return null;
+        }
+        
+        List<PendingCall<I, O>> batch = new ArrayList<>(maxBatchSize);
+        batch.add(first);
+        long deadline = System.nanoTime() + lingerNanos;
+        
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0) {
+                break;
+            }
+            PendingCall<I, O> next;
+            try {
+                next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                // Der bereits gesammelte Batch wird vom Aufrufer abgeschlossen
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+    
+    /**
+     * Sendet einen Batch und verteilt die Ergebnisse auf die Aufrufer.
+     */
+    private void send(List<PendingCall<I, O>> batch) {
+        try {
+            List<I> inputs = new ArrayList<>(batch.size());
+            List<PipelineContext> contexts = new ArrayList<>(batch.size());
+            for (PendingCall<I, O> call : batch) {
+                inputs.add(call.input);
+                contexts.add(call.context);
+            }
+            
+            List<O> results = delegate.invokeBatch(inputs, contexts);
+            if (results == null || results.size() != batch.size()) {
+                throw new IllegalStateException("Endpunkt '" + delegate.getEndpointAddress() + "' lieferte " +
+                        (results == null ? "kein Ergebnis" : results.size() + " statt " + batch.size() + " Ergebnisse"));
+            }
+            
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(results.get(i));
+            }
+        } catch (Exception e) {
+            LOGGER.error("Batch mit {} Elementen an '{}' fehlgeschlagen: {}",
+                    batch.size(), delegate.getEndpointAddress(), e.getMessage(), e);
+            fail(batch, e);
+        } finally {
+            inFlight.release();
+        }
+    }
+    
+    private static <I, O> void fail(List<PendingCall<I, O>> calls, Throwable error) {
+        for (PendingCall<I, O> call : calls) {
+            call.future.completeExceptionally(error);
+        }
+    }
+    
+    private IllegalStateException closedException() {
+        return new IllegalStateException("Bündelnder Endpunkt für '" + delegate.getEndpointAddress() +
+                "' wurde geschlossen");
+    }
+    
+    @Override
+    public String getEndpointAddress() {
+        return delegate.getEndpointAddress();
+    }
+    
+    /**
+     * Gibt die Verteilung der gesendeten Batch-Größen zurück.
+     * 
+     * @return Eine Momentaufnahme des Histogramms der Batch-Größen
+     */
+    public HistogramSnapshot getBatchSizes() {
+        return batchSizes.snapshot();
+    }
+    
+    /**
+     * Gibt die Anzahl der Aufrufe zurück, die auf einen Batch warten.
+     * 
+     * @return Die Anzahl der wartenden Aufrufe
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+    
+    /**
+     * Gibt die maximale Anzahl der Elemente pro Batch zurück.
+     * 
+     * @return Die maximale Batch-Größe
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+    
+    /**
+     * Gibt die maximale Wartezeit auf weitere Elemente zurück.
+     * 
+     * @return Die Wartezeit in Mikrosekunden
+     */
+    public long getLingerMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(lingerNanos);
+    }
+    
+    /**
+     * Gibt die maximale Anzahl gleichzeitig gesendeter Batches zurück.
+     * 
+     * @return Die maximale Anzahl der Batches
+     */
+    public int getMaxInFlightBatches() {
+        return maxInFlightBatches;
+    }
+    
+    /**
+     * Beendet den Dispatcher. Wartende Aufrufe schlagen fehl, bereits gesendete Batches
+     * werden noch zugestellt.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sender.shutdown();
+        LOGGER.info("Bündelnder Endpunkt für '{}' beendet", delegate.getEndpointAddress());
+    }
+    
+    /**
+     * Ein wartender Aufruf mit dem Future seines Aufrufers.
+     */
+    private static final class PendingCall<I, O> {
+        private final I input;
+        private final PipelineContext context;
+        private final CompletableFuture<O> future = new CompletableFuture<>();
+        
+        PendingCall(I input, PipelineContext context) {
+            this.input = input;
+            this.context = context;
+        }
+    }
+}
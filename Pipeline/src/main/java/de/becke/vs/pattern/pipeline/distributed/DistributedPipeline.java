@@ -1,26 +1,65 @@
 package de.becke.vs.pattern.pipeline.distributed;
 
+import de.becke.vs.pattern.pipeline.checkpoint.Checkpoint;
+import de.becke.vs.pattern.pipeline.checkpoint.CheckpointStore;
+import de.becke.vs.pattern.pipeline.core.ContextKey;
 import de.becke.vs.pattern.pipeline.core.PipelineContext;
 import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.metrics.PipelineMetrics;
+import de.becke.vs.pattern.pipeline.metrics.StageMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implementierung einer verteilten Pipeline, die Verarbeitungsschritte auf verschiedene
  * Dienste oder Knoten verteilt.
  * 
+ * Standardmäßig werden die Stages nacheinander in der Reihenfolge ihrer Registrierung
+ * aufgerufen. Sobald eine Stage mit expliziten Abhängigkeiten registriert wird, arbeitet
+ * die Pipeline im DAG-Modus: Jede Stage startet, sobald alle ihre Abhängigkeiten fertig
+ * sind, sodass unabhängige Endpunkte parallel auf dem Executor aufgerufen werden und die
+ * Latenz dem kritischen Pfad statt der Summe aller Aufrufe entspricht. Das Ergebnis ist
+ * die Ausgabe der zuletzt registrierten Stage.
+ * 
+ * {@link #executeAsync(Object)} liefert das Ergebnis als CompletableFuture und
+ * verkettet die Aufrufe von {@link AsyncServiceEndpoint}s, ohne Threads zu blockieren.
+ * 
+ * Mit einem {@link CheckpointStore} speichert die sequenzielle Ausführung unter einer vom
+ * Aufrufer vorgegebenen Ausführungs-ID ({@link #execute(Object, String)}) nach jeder Stage
+ * den Zwischenstand, sodass ein fehlgeschlagener Durchlauf mit {@link #resume(String)} ohne
+ * Wiederholung der bereits erfolgreichen Aufrufe fortgesetzt werden kann.
+ * 
+ * Ohne übergebenen Executor ruft die Pipeline blockierende Endpunkte auf einem eigenen
+ * Thread-Pool fester Größe auf, der mit {@link #close()} beendet wird.
+ * 
  * @param <I> Der Eingabetyp der Pipeline
  * @param <O> Der Ausgabetyp der Pipeline
  */
-public class DistributedPipeline<I, O> {
+public class DistributedPipeline<I, O> implements AutoCloseable {
     
     private static final Logger LOGGER = LoggerFactory.getLogger(DistributedPipeline.class);
     
+    // Größe des eigenen Thread-Pools, wenn kein Executor übergeben wird
+    private static final int DEFAULT_THREADS = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+    
     // Name der Pipeline
     private final String name;
     
@@ -30,16 +69,72 @@ public class DistributedPipeline<I, O> {
     // Liste zur Speicherung der Reihenfolge der Stages
     private final List<String> stageSequence = new ArrayList<>();
     
+    // Abhängigkeiten und Zusammenführungen der Stages für den DAG-Modus
+    private final Map<String, List<String>> stageDependencies = new HashMap<>();
+    private final Map<String, StageInputMerger> stageMergers = new HashMap<>();
+    
+    // Ob mindestens eine Stage explizite Abhängigkeiten deklariert hat
+    private boolean dagMode;
+    
+    // Executor für parallele und asynchrone Aufrufe blockierender Endpunkte
+    private final Executor executor;
+    
+    // Der eigene Thread-Pool, sofern kein Executor übergeben wurde, sonst null
+    private final ExecutorService ownedExecutor;
+    
+    // Von der Pipeline erzeugte Endpunkt-Pools, die mit ihr geschlossen werden
+    private final List<LoadBalancedServiceEndpoint<?, ?>> ownedEndpoints = new ArrayList<>();
+
+    // Latenzen und Zähler aller Durchläufe und Stages
+    private final PipelineMetrics metrics;
+    
+    // Optionaler Speicher für Zwischenstände
+    private CheckpointStore checkpointStore;
+    
     /**
      * Erstellt eine neue verteilte Pipeline mit einem Namen.
      * 
+     * Blockierende Endpunkte werden im DAG-Modus und bei asynchroner Ausführung auf einem
+     * eigenen Thread-Pool fester Größe aufgerufen, den {@link #close()} beendet.
+     * 
      * @param name Der Name der Pipeline
      */
     public DistributedPipeline(String name) {
+        this(name, newCallExecutor(name), true);
+    }
+    
+    /**
+     * Erstellt eine neue verteilte Pipeline, die im DAG-Modus und bei asynchroner Ausführung
+     * blockierende Endpunkte auf dem angegebenen Executor aufruft.
+     * 
+     * Da Dienstaufrufe meist blockieren, sollte für entfernte Endpunkte ein eigener
+     * Thread-Pool statt des gemeinsamen ForkJoinPools übergeben werden. Der Executor
+     * gehört weiterhin dem Aufrufer und wird von {@link #close()} nicht beendet.
+     * 
+     * @param name Der Name der Pipeline
+     * @param executor Der Executor für parallele Stage-Aufrufe
+     */
+    public DistributedPipeline(String name, Executor executor) {
+        this(name, executor, false);
+    }
+    
+    private DistributedPipeline(String name, Executor executor, boolean ownsExecutor) {
         this.name = name;
+        this.executor = executor;
+        this.ownedExecutor = ownsExecutor ? (ExecutorService) executor : null;
+        this.metrics = new PipelineMetrics(name);
         LOGGER.info("Verteilte Pipeline '{}' erstellt", name);
     }
     
+    private static ExecutorService newCallExecutor(String name) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(DEFAULT_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, name + "-call-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
     /**
      * Registriert eine Stage mit einem Endpunkt in der Pipeline.
      * 
@@ -50,12 +145,100 @@ public class DistributedPipeline<I, O> {
      * @return Diese Pipeline für Method Chaining
      */
     public <T, R> DistributedPipeline<I, O> registerStage(String stageName, ServiceEndpoint<T, R> endpoint) {
+        // Im DAG-Modus hängt eine linear registrierte Stage von der vorherigen Stage ab
+        stageDependencies.put(stageName, stageSequence.isEmpty()
+                ? Collections.emptyList()
+                : Collections.singletonList(stageSequence.get(stageSequence.size() - 1)));
         stageEndpoints.put(stageName, endpoint);
         stageSequence.add(stageName);
+        metrics.stage(stageName);
         LOGGER.info("Stage '{}' zur verteilten Pipeline '{}' hinzugefügt", stageName, name);
         return this;
     }
     
+    /**
+     * Registriert eine Stage, deren Aufrufe auf mehrere gleichwertige Endpunkte verteilt werden.
+     * 
+     * @param stageName Der Name der Stage
+     * @param endpoints Die Endpunkte der Stage
+     * @param <T> Der Eingabetyp der Stage
+     * @param <R> Der Ausgabetyp der Stage
+     * @return Diese Pipeline für Method Chaining
+     * @see LoadBalancedServiceEndpoint
+     */
+    public <T, R> DistributedPipeline<I, O> registerStage(String stageName, List<? extends ServiceEndpoint<T, R>> endpoints) {
+        return registerStage(stageName, endpoints, false);
+    }
+    
+    /**
+     * Registriert eine Stage, deren Aufrufe auf mehrere gleichwertige Endpunkte verteilt
+     * werden, und sichert langsame Aufrufe optional über einen zweiten Endpunkt ab.
+     * 
+     * @param stageName Der Name der Stage
+     * @param endpoints Die Endpunkte der Stage
+     * @param hedging true, um Aufrufe oberhalb des 95. Perzentils zusätzlich an einen zweiten Endpunkt zu senden
+     * @param <T> Der Eingabetyp der Stage
+     * @param <R> Der Ausgabetyp der Stage
+     * @return Diese Pipeline für Method Chaining
+     * @see LoadBalancedServiceEndpoint
+     */
+    public <T, R> DistributedPipeline<I, O> registerStage(String stageName, List<? extends ServiceEndpoint<T, R>> endpoints,
+                                                          boolean hedging) {
+        LoadBalancedServiceEndpoint<T, R> pool =
+                new LoadBalancedServiceEndpoint<T, R>(stageName, endpoints, executor).setHedging(hedging);
+        registerStage(stageName, pool);
+        ownedEndpoints.add(pool);
+        return this;
+    }
+    
+    /**
+     * Registriert eine Stage, die von den angegebenen Stages abhängt, und schaltet die
+     * Pipeline in den DAG-Modus.
+     * 
+     * Eine Stage ohne Abhängigkeiten erhält die Eingabe der Pipeline, eine Stage mit einer
+     * Abhängigkeit deren Ausgabe. Bei mehreren Abhängigkeiten führt der Merger deren
+     * Ausgaben zur Eingabe zusammen. Abhängigkeiten müssen vorher registriert worden sein,
+     * wodurch Zyklen ausgeschlossen sind.
+     * 
+     * @param stageName Der Name der Stage
+     * @param endpoint Der Endpunkt der Stage
+     * @param dependencies Die Namen der Stages, deren Ausgaben benötigt werden
+     * @param merger Führt die Ausgaben mehrerer Abhängigkeiten zusammen (bei höchstens einer Abhängigkeit optional)
+     * @param <T> Der Eingabetyp der Stage
+     * @param <R> Der Ausgabetyp der Stage
+     * @return Diese Pipeline für Method Chaining
+     * @throws IllegalArgumentException Wenn die Stage bereits existiert, eine Abhängigkeit
+     *                                  unbekannt ist oder der Merger fehlt
+     */
+    public <T, R> DistributedPipeline<I, O> registerStage(String stageName, ServiceEndpoint<T, R> endpoint,
+                                                          List<String> dependencies, StageInputMerger merger) {
+        if (stageEndpoints.containsKey(stageName)) {
+            throw new IllegalArgumentException("Stage '" + stageName + "' ist bereits registriert");
+        }
+        for (String dependency : dependencies) {
+            if (!stageEndpoints.containsKey(dependency)) {
+                throw new IllegalArgumentException("Unbekannte Abhängigkeit '" + dependency +
+                        "' für Stage '" + stageName + "'");
+            }
+        }
+        if (dependencies.size() > 1 && merger == null) {
+            throw new IllegalArgumentException("Stage '" + stageName +
+                    "' hat mehrere Abhängigkeiten und benötigt einen StageInputMerger");
+        }
+        
+        stageDependencies.put(stageName, List.copyOf(dependencies));
+        if (merger != null) {
+            stageMergers.put(stageName, merger);
+        }
+        stageEndpoints.put(stageName, endpoint);
+        stageSequence.add(stageName);
+        metrics.stage(stageName);
+        dagMode = true;
+        LOGGER.info("Stage '{}' mit Abhängigkeiten {} zur verteilten Pipeline '{}' hinzugefügt",
+                stageName, dependencies, name);
+        return this;
+    }
+    
     /**
      * Führt die verteilte Pipeline mit der angegebenen Eingabe aus.
      * 
@@ -63,21 +246,103 @@ public class DistributedPipeline<I, O> {
      * @return Das Ergebnis der Pipeline
      * @throws PipelineException Wenn ein Fehler während der Ausführung auftritt
      */
-    @SuppressWarnings("unchecked")
     public O execute(I input) throws PipelineException {
+        if (dagMode) {
+            return executeDag(input);
+        }
+        // Ohne vorgegebene ID könnte der Aufrufer einen Checkpoint nie fortsetzen
+        return executeLinear(new PipelineContext(), input, 0, null);
+    }
+    
+    /**
+     * Führt die verteilte Pipeline unter einer vorgegebenen Ausführungs-ID aus.
+     * 
+     * Ist ein {@link CheckpointStore} gesetzt, kann ein fehlgeschlagener Durchlauf über
+     * diese ID mit {@link #resume(String)} fortgesetzt werden.
+     * 
+     * @param input Die Eingabe für die Pipeline
+     * @param executionId Die ID des Pipeline-Durchlaufs
+     * @return Das Ergebnis der Pipeline
+     * @throws PipelineException Wenn ein Fehler während der Ausführung auftritt
+     * @throws IllegalStateException Wenn die Pipeline im DAG-Modus arbeitet
+     */
+    public O execute(I input, String executionId) throws PipelineException {
+        if (dagMode) {
+            throw new IllegalStateException("Durchläufe im DAG-Modus können nicht unter einer Ausführungs-ID fortgesetzt werden");
+        }
+        return executeLinear(new PipelineContext(executionId), input, 0, checkpointStore);
+    }
+    
+    /**
+     * Setzt einen fehlgeschlagenen Durchlauf nach der zuletzt abgeschlossenen Stage fort.
+     * 
+     * @param executionId Die ID des Pipeline-Durchlaufs
+     * @return Das Ergebnis der Pipeline
+     * @throws PipelineException Wenn kein passender Checkpoint vorliegt oder ein Fehler
+     *                           während der Ausführung auftritt
+     * @throws IllegalStateException Wenn kein Checkpoint-Speicher gesetzt ist oder die
+     *                               Pipeline im DAG-Modus arbeitet
+     */
+    public O resume(String executionId) throws PipelineException {
+        if (checkpointStore == null) {
+            throw new IllegalStateException("Für die verteilte Pipeline '" + name + "' ist kein Checkpoint-Speicher gesetzt");
+        }
+        if (dagMode) {
+            throw new IllegalStateException("Durchläufe im DAG-Modus können nicht fortgesetzt werden");
+        }
+        
+        Checkpoint checkpoint;
+        try {
+            checkpoint = checkpointStore.load(executionId);
+        } catch (IOException e) {
+            throw new PipelineException("Checkpoint für Ausführung '" + executionId + "' kann nicht gelesen werden", e);
+        }
+        if (checkpoint == null) {
+            throw new PipelineException("Kein Checkpoint für Ausführung '" + executionId + "' gefunden");
+        }
+        
+        // Der Checkpoint muss zur aktuellen Stage-Reihenfolge passen
+        int index = checkpoint.getStageIndex();
+        if (index >= stageSequence.size()
+                || (index != Checkpoint.INPUT_INDEX && !stageSequence.get(index).equals(checkpoint.getStageName()))) {
+            throw new PipelineException("Checkpoint für Ausführung '" + executionId + "' nach Stage '" +
+                    checkpoint.getStageName() + "' passt nicht zur verteilten Pipeline '" + name + "'");
+        }
+        
+        LOGGER.info("Setze Ausführung '{}' der verteilten Pipeline '{}' nach Stage {} fort",
+                executionId, name, index + 1);
+        PipelineContext context = new PipelineContext(executionId);
+        context.incrementAttemptCount();
+        context.setAttribute("pipeline.resumed", true);
+        return executeLinear(context, checkpoint.getValue(), index + 1, checkpointStore);
+    }
+    
+    /**
+     * Ruft die Stages ab dem angegebenen Index nacheinander auf und speichert nach jeder
+     * Stage einen Checkpoint, sofern ein Speicher übergeben wird.
+     */
+    @SuppressWarnings("unchecked")
+    private O executeLinear(PipelineContext context, Object input, int firstStage, CheckpointStore store)
+            throws PipelineException {
         LOGGER.info("Starte Ausführung der verteilten Pipeline '{}'", name);
         
-        // Erstelle einen neuen Kontext für diesen Pipeline-Durchlauf
-        PipelineContext context = new PipelineContext();
-        context.setAttribute("pipeline.name", name);
-        context.setAttribute("pipeline.type", "distributed");
+        context.set(ContextKey.PIPELINE_NAME, name);
+        context.set(ContextKey.PIPELINE_TYPE, "distributed");
         
         // Der aktuelle Wert, der durch die Pipeline fließt
         Object current = input;
+        long runStart = metrics.runs().start();
+        
+        // Abschluss aller Versuche der Endpunkt-Pools, auf den die Freigabe wartet
+        List<CompletableFuture<?>> attempts = new ArrayList<>();
         
         try {
+            if (firstStage == 0) {
+                saveCheckpoint(store, context, Checkpoint.INPUT_INDEX, null, current);
+            }
+            
             // Durchlaufe alle Stages der Pipeline in der definierten Reihenfolge
-            for (int i = 0; i < stageSequence.size(); i++) {
+            for (int i = firstStage; i < stageSequence.size(); i++) {
                 String stageName = stageSequence.get(i);
                 ServiceEndpoint<Object, Object> endpoint = (ServiceEndpoint<Object, Object>) stageEndpoints.get(stageName);
                 
@@ -88,13 +353,17 @@ public class DistributedPipeline<I, O> {
                 LOGGER.info("Führe verteilte Stage '{}' ({}. von {}) aus", 
                         stageName, i + 1, stageSequence.size());
                 
+                StageMetrics stageMetrics = metrics.stage(stageName);
+                long stageStart = stageMetrics.start();
                 try {
                     // Führe den Service aus und erhalte das Ergebnis
-                    current = endpoint.invokeService(current, context);
+                    current = invokeBlocking(endpoint, current, context, attempts);
+                    stageMetrics.success(stageStart);
                     
                     LOGGER.info("Verteilte Stage '{}' erfolgreich abgeschlossen", stageName);
                     
                 } catch (Exception e) {
+                    stageMetrics.failure(stageStart);
                     LOGGER.error("Fehler in verteilter Stage '{}': {}", stageName, e.getMessage(), e);
                     
                     // Setze den Fehler im Kontext und wirf eine PipelineException
@@ -102,8 +371,13 @@ public class DistributedPipeline<I, O> {
                     throw new PipelineException("Fehler während der Verarbeitung in verteilter Stage '" + 
                             stageName + "'", e);
                 }
+                
+                saveCheckpoint(store, context, i, stageName, current);
             }
             
+            removeCheckpoint(store, context);
+            releaseWhenSettled(context, current, attempts);
+            metrics.runs().success(runStart);
             LOGGER.info("Verteilte Pipeline '{}' erfolgreich abgeschlossen in {}ms", 
                     name, context.getDuration());
             
@@ -111,14 +385,349 @@ public class DistributedPipeline<I, O> {
             return (O) current;
             
         } catch (PipelineException e) {
+            releaseWhenSettled(context, null, attempts);
+            metrics.runs().failure(runStart);
             LOGGER.error("Verteilte Pipeline '{}' fehlgeschlagen: {}", name, e.getMessage());
             throw e;
         } catch (Exception e) {
+            releaseWhenSettled(context, null, attempts);
+            metrics.runs().failure(runStart);
             LOGGER.error("Unerwarteter Fehler in verteilter Pipeline '{}': {}", name, e.getMessage(), e);
             throw new PipelineException("Unerwarteter Fehler in verteilter Pipeline: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Ruft einen Endpunkt blockierend auf. Bei Endpunkt-Pools wird zusätzlich vermerkt,
+     * wann auch ein unterlegener abgesicherter Versuch beendet ist.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object invokeBlocking(ServiceEndpoint<Object, Object> endpoint, Object input,
+                                         PipelineContext context, Collection<CompletableFuture<?>> attempts)
+            throws Exception {
+        if (!(endpoint instanceof LoadBalancedServiceEndpoint)) {
+            return endpoint.invokeService(input, context);
+        }
+        
+        CompletableFuture<Void> settled = new CompletableFuture<>();
+        attempts.add(settled);
+        try {
+            return ((LoadBalancedServiceEndpoint<Object, Object>) endpoint)
+                    .invokeServiceAsync(input, context, settled).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Fügt dem Ergebnis eine Referenz für den Aufrufer hinzu und gibt die Ressourcen des
+     * Durchlaufs frei, sobald kein Versuch der Endpunkt-Pools mehr auf sie zugreift.
+     */
+    private static void releaseWhenSettled(PipelineContext context, Object result,
+                                           Collection<CompletableFuture<?>> attempts) {
+        context.retainResult(result);
+        CompletableFuture.allOf(attempts.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((ignored, error) -> context.releaseResources(null));
+    }
+    
+    /**
+     * Speichert den Zwischenstand nach einer Stage. Ein Fehler beim Speichern bricht den
+     * Durchlauf nicht ab, da eine Wiederaufnahme dann nur früher ansetzt.
+     */
+    private static void saveCheckpoint(CheckpointStore store, PipelineContext context, int stageIndex,
+                                       String stageName, Object value) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.save(new Checkpoint(context.getExecutionId(), stageIndex, stageName, value,
+                    System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.warn("Checkpoint für Ausführung '{}' nach Stage '{}' konnte nicht gespeichert werden: {}",
+                    context.getExecutionId(), stageName, e.getMessage());
+        }
+    }
+    
+    private static void removeCheckpoint(CheckpointStore store, PipelineContext context) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.remove(context.getExecutionId());
+        } catch (IOException e) {
+            LOGGER.warn("Checkpoint für Ausführung '{}' konnte nicht entfernt werden: {}",
+                    context.getExecutionId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Führt die verteilte Pipeline asynchron aus.
+     * 
+     * Endpunkte, die {@link AsyncServiceEndpoint} implementieren, werden direkt über ihre
+     * Futures verkettet, sodass während eines Aufrufs kein Thread blockiert. Alle anderen
+     * Endpunkte werden auf dem Executor der Pipeline aufgerufen. Im DAG-Modus starten
+     * unabhängige Stages wie bei {@link #execute(Object)} parallel.
+     * 
+     * @param input Die Eingabe für die Pipeline
+     * @return Ein CompletableFuture mit dem Ergebnis, das bei einem Fehler mit einer
+     *         {@link PipelineException} abgeschlossen wird
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<O> executeAsync(I input) {
+        LOGGER.info("Starte asynchrone Ausführung der verteilten Pipeline '{}'", name);
+        if (stageSequence.isEmpty()) {
+            return CompletableFuture.completedFuture((O) input);
+        }
+        return executeGraph(input);
+    }
+    
+    /**
+     * Führt die Pipeline als DAG aus und wartet auf das Ergebnis.
+     */
+    private O executeDag(I input) throws PipelineException {
+        LOGGER.info("Starte DAG-Ausführung der verteilten Pipeline '{}' mit {} Stages", name, stageSequence.size());
+        
+        try {
+            return executeGraph(input).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PipelineException("Ausführung der verteilten Pipeline wurde unterbrochen", e);
+        } catch (ExecutionException e) {
+            // executeGraph schließt nur mit PipelineExceptions ab
+            throw (PipelineException) e.getCause();
+        }
+    }
+    
+    /**
+     * Baut den Durchlauf als Graph von Futures auf: Jede Stage startet, sobald ihre
+     * Abhängigkeiten abgeschlossen sind. Schlägt eine Stage fehl, endet der Durchlauf
+     * sofort mit deren Fehler; bereits laufende unabhängige Aufrufe werden nicht abgebrochen.
+     * Ohne DAG-Modus hängt jede Stage von der vorherigen ab.
+     * 
+     * Die Ressourcen des Kontexts werden erst freigegeben, wenn alle Stages und alle
+     * abgesicherten Versuche beendet sind, da sie bis dahin noch darauf zugreifen können.
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<O> executeGraph(I input) {
+        PipelineContext context = new PipelineContext();
+        context.set(ContextKey.PIPELINE_NAME, name);
+        context.set(ContextKey.PIPELINE_TYPE, "distributed");
+        long runStart = metrics.runs().start();
+        
+        Map<String, CompletableFuture<Object>> futures = new HashMap<>();
+        Collection<CompletableFuture<?>> attempts = new ConcurrentLinkedQueue<>();
+        CompletableFuture<O> outcome = new CompletableFuture<>();
+        
+        for (String stageName : stageSequence) {
+            List<String> dependencies = stageDependencies.get(stageName);
+            CompletableFuture<Object> future;
+            
+            if (dependencies.isEmpty()) {
+                future = invokeStage(stageName, input, context, attempts);
+            } else if (dependencies.size() == 1 && !stageMergers.containsKey(stageName)) {
+                future = futures.get(dependencies.get(0))
+                        .thenCompose(value -> invokeStage(stageName, value, context, attempts));
+            } else {
+                CompletableFuture<?>[] upstream = new CompletableFuture<?>[dependencies.size()];
+                for (int i = 0; i < upstream.length; i++) {
+                    upstream[i] = futures.get(dependencies.get(i));
+                }
+                future = CompletableFuture.allOf(upstream).thenCompose(ignored -> invokeStage(stageName,
+                        mergeInputs(stageName, dependencies, futures, context), context, attempts));
+            }
+            
+            // Der erste Fehler beendet den gesamten Durchlauf
+            future.whenComplete((result, error) -> {
+                if (error != null) {
+                    outcome.completeExceptionally(asPipelineException(unwrap(error)));
+                }
+            });
+            futures.put(stageName, future);
+        }
+        
+        CompletableFuture<Object> last = futures.get(stageSequence.get(stageSequence.size() - 1));
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                .whenComplete((ignored, error) -> {
+                    Object result = error == null ? last.join() : null;
+                    releaseWhenSettled(context, result, attempts);
+                    if (error == null) {
+                        outcome.complete((O) result);
+                    }
+                });
+        
+        return outcome.whenComplete((result, error) -> {
+            if (error == null) {
+                metrics.runs().success(runStart);
+                LOGGER.info("Verteilte Pipeline '{}' erfolgreich abgeschlossen in {}ms", 
+                        name, context.getDuration());
+            } else {
+                metrics.runs().failure(runStart);
+                LOGGER.error("Verteilte Pipeline '{}' fehlgeschlagen: {}", name, error.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Ruft den Endpunkt einer Stage auf, ohne den aufrufenden Thread zu blockieren.
+     * Asynchrone Endpunkte werden direkt aufgerufen, alle anderen auf dem Executor. Fehler
+     * werden als {@link CompletionException} mit einer {@link PipelineException} weitergereicht.
+     * Bei Endpunkt-Pools wird der Abschluss aller Versuche in {@code attempts} vermerkt.
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Object> invokeStage(String stageName, Object input, PipelineContext context,
+                                                  Collection<CompletableFuture<?>> attempts) {
+        ServiceEndpoint<Object, Object> endpoint = (ServiceEndpoint<Object, Object>) stageEndpoints.get(stageName);
+        LOGGER.info("Führe verteilte Stage '{}' aus", stageName);
+        
+        StageMetrics stageMetrics = metrics.stage(stageName);
+        long stageStart = stageMetrics.start();
+        
+        CompletableFuture<Object> call;
+        if (endpoint instanceof LoadBalancedServiceEndpoint) {
+            CompletableFuture<Void> settled = new CompletableFuture<>();
+            attempts.add(settled);
+            call = ((LoadBalancedServiceEndpoint<Object, Object>) endpoint).invokeServiceAsync(input, context, settled);
+        } else if (endpoint instanceof AsyncServiceEndpoint) {
+            try {
+                call = ((AsyncServiceEndpoint<Object, Object>) endpoint).invokeServiceAsync(input, context);
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+        } else {
+            try {
+                call = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return endpoint.invokeService(input, context);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor);
+            } catch (RejectedExecutionException e) {
+                // Der Executor wurde bereits beendet
+                call = CompletableFuture.failedFuture(e);
+            }
+        }
+        
+        return call.handle((result, error) -> {
+            if (error == null) {
+                stageMetrics.success(stageStart);
+                LOGGER.info("Verteilte Stage '{}' erfolgreich abgeschlossen", stageName);
+                return result;
+            }
+            
+            Throwable cause = unwrap(error);
+            stageMetrics.failure(stageStart);
+            LOGGER.error("Fehler in verteilter Stage '{}': {}", stageName, cause.getMessage(), cause);
+            
+            context.setError(cause);
+            throw new CompletionException(new PipelineException(
+                    "Fehler während der Verarbeitung in verteilter Stage '" + stageName + "'", cause));
+        });
+    }
+    
+    /**
+     * Sammelt die Ausgaben der Abhängigkeiten einer Stage und führt sie zusammen.
+     */
+    private Object mergeInputs(String stageName, List<String> dependencies,
+                               Map<String, CompletableFuture<Object>> futures, PipelineContext context) {
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        for (String dependency : dependencies) {
+            inputs.put(dependency, futures.get(dependency).join());
+        }
+        
+        StageInputMerger merger = stageMergers.get(stageName);
+        if (merger == null) {
+            return inputs.values().iterator().next();
+        }
+        try {
+            return merger.merge(inputs, context);
+        } catch (Exception e) {
+            LOGGER.error("Fehler beim Zusammenführen der Eingaben für Stage '{}': {}", stageName, e.getMessage(), e);
+            context.setError(e);
+            throw new CompletionException(new PipelineException(
+                    "Fehler beim Zusammenführen der Eingaben für verteilte Stage '" + stageName + "'", e));
+        }
+    }
+    
+    /**
+     * Verpackt unerwartete Fehler in eine {@link PipelineException}.
+     */
+    private static PipelineException asPipelineException(Throwable error) {
+        if (error instanceof PipelineException) {
+            return (PipelineException) error;
+        }
+        return new PipelineException("Unerwarteter Fehler in verteilter Pipeline: " + error.getMessage(), error);
+    }
+    
+    /**
+     * Entfernt die Hüllen von CompletableFuture-Fehlern.
+     */
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+    
+    /**
+     * Setzt den Speicher, in dem nach jeder Stage ein Checkpoint abgelegt wird.
+     * 
+     * Checkpoints werden nur bei sequenzieller Ausführung mit {@link #execute(Object, String)}
+     * und {@link #resume(String)} geschrieben und nach erfolgreichem Abschluss wieder
+     * entfernt. {@link #execute(Object)} schreibt keine Checkpoints, da der Aufrufer die
+     * erzeugte Ausführungs-ID nicht kennt.
+     * 
+     * @param checkpointStore Der Checkpoint-Speicher oder null, um Checkpoints abzuschalten
+     * @return Diese Pipeline für Method Chaining
+     */
+    public DistributedPipeline<I, O> setCheckpointStore(CheckpointStore checkpointStore) {
+        this.checkpointStore = checkpointStore;
+        return this;
+    }
+    
+    /**
+     * Gibt den Checkpoint-Speicher zurück.
+     * 
+     * @return Der Checkpoint-Speicher oder null, wenn keiner gesetzt ist
+     */
+    public CheckpointStore getCheckpointStore() {
+        return checkpointStore;
+    }
+    
+    /**
+     * Gibt den Endpunkt einer Stage zurück.
+     * 
+     * @param stageName Der Name der Stage
+     * @return Der Endpunkt oder null, wenn die Stage nicht registriert ist
+     */
+    public ServiceEndpoint<?, ?> getEndpoint(String stageName) {
+        return stageEndpoints.get(stageName);
+    }
+    
+    /**
+     * Gibt die Abhängigkeiten einer Stage zurück.
+     * 
+     * @param stageName Der Name der Stage
+     * @return Die Namen der Stages, von denen die Stage abhängt, oder eine leere Liste
+     */
+    public List<String> getDependencies(String stageName) {
+        return stageDependencies.getOrDefault(stageName, Collections.emptyList());
+    }
+    
+    /**
+     * Prüft, ob die Pipeline im DAG-Modus ausgeführt wird.
+     * 
+     * @return true, wenn mindestens eine Stage explizite Abhängigkeiten deklariert hat
+     */
+    public boolean isDagMode() {
+        return dagMode;
+    }
+    
     /**
      * Gibt den Namen der Pipeline zurück.
      * 
@@ -127,4 +736,30 @@ public class DistributedPipeline<I, O> {
     public String getName() {
         return name;
     }
+    
+    /**
+     * Gibt die Metriken dieser Pipeline zurück.
+     * 
+     * @return Die Metriken der Pipeline
+     */
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Schließt die von der Pipeline erzeugten Endpunkt-Pools und beendet den eigenen
+     * Thread-Pool. Laufende Aufrufe werden noch abgeschlossen, neue asynchrone Aufrufe
+     * blockierender Endpunkte schlagen fehl. Ein im Konstruktor übergebener Executor und
+     * selbst registrierte Endpunkte bleiben unberührt.
+     */
+    @Override
+    public void close() {
+        for (LoadBalancedServiceEndpoint<?, ?> pool : ownedEndpoints) {
+            pool.close();
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+        LOGGER.info("Verteilte Pipeline '{}' geschlossen", name);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,440 @@
+package de.becke.vs.pattern.pipeline.distributed;
+
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.metrics.Histogram;
+import de.becke.vs.pattern.pipeline.metrics.HistogramSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ein Endpunkt, der die Aufrufe einer Stage auf mehrere gleichwertige Endpunkte verteilt.
+ *
+ * Für jeden Aufruf werden zwei Endpunkte zufällig gezogen und der mit der geringeren Last
+ * gewählt ("Power of Two Choices"). Die Last eines Endpunkts ist sein exponentiell
+ * gleitender Mittelwert der Latenz (EWMA), gewichtet mit der Anzahl seiner laufenden
+ * Aufrufe. Fehlgeschlagene Aufrufe verdoppeln den Mittelwert, damit ein schnell
+ * fehlschlagender Endpunkt nicht bevorzugt wird. Ohne neue Messwerte klingt der Mittelwert
+ * ab, sodass ein gemiedener Endpunkt nach einer Weile erneut ausprobiert wird.
+ *
+ * Optional werden Aufrufe abgesichert ("Hedging"): Dauert ein Aufruf länger als das
+ * 95. Perzentil der bisherigen Latenzen, wird derselbe Aufruf zusätzlich an einen zweiten
+ * Endpunkt gesendet und das erste erfolgreiche Ergebnis verwendet. Das setzt idempotente
+ * Endpunkte voraus; beide Aufrufe erhalten denselben Kontext.
+ *
+ * Blockierende Endpunkte werden auf dem Executor aufgerufen, {@link AsyncServiceEndpoint}s direkt.
+ *
+ * @param <I> Der Typ der Eingabedaten
+ * @param <O> Der Typ der Ausgabedaten
+ */
+public class LoadBalancedServiceEndpoint<I, O> implements AsyncServiceEndpoint<I, O>, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadBalancedServiceEndpoint.class);
+
+    // Gewicht eines neuen Messwerts im gleitenden Mittelwert
+    private static final double EWMA_WEIGHT = 0.3;
+
+    // Zeitkonstante, mit der der Mittelwert ohne neue Messwerte abklingt
+    private static final double EWMA_DECAY_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    // Ab so vielen Messwerten wird abgesichert
+    private static final int MIN_HEDGE_SAMPLES = 20;
+
+    // Nach so vielen Aufrufen wird die Absicherungsschwelle neu berechnet
+    private static final int HEDGE_REFRESH_INTERVAL = 256;
+
+    // Nach so vielen Messwerten beginnt ein neues Latenzfenster
+    private static final long LATENCY_WINDOW = 10_000;
+
+    private final String address;
+    private final List<EndpointState<I, O>> endpoints;
+    private final Executor executor;
+
+    // Latenzen aller Aufrufe im aktuellen Fenster
+    private volatile Histogram latencies = new Histogram();
+    private volatile long hedgeDelayNanos;
+    private final AtomicInteger callsSinceRefresh = new AtomicInteger();
+
+    private volatile boolean hedging;
+
+    // Wird von close() auf null gesetzt und daher nur über eine lokale Kopie gelesen
+    private volatile ScheduledExecutorService scheduler;
+
+    private final LongAdder hedgedCalls = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    /**
+     * Erstellt einen lastverteilenden Endpunkt.
+     *
+     * @param address Die Adresse, unter der der Pool geführt wird
+     * @param endpoints Die gleichwertigen Endpunkte
+     * @param executor Der Executor für blockierende Endpunkte
+     * @throws IllegalArgumentException Wenn keine Endpunkte angegeben wurden
+     */
+    public LoadBalancedServiceEndpoint(String address, List<? extends ServiceEndpoint<I, O>> endpoints,
+                                       Executor executor) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("Der Pool '" + address + "' benötigt mindestens einen Endpunkt");
+        }
+
+        this.address = address;
+        this.executor = executor;
+        List<EndpointState<I, O>> states = new ArrayList<>(endpoints.size());
+        for (ServiceEndpoint<I, O> endpoint : endpoints) {
+            states.add(new EndpointState<>(endpoint));
+        }
+        this.endpoints = Collections.unmodifiableList(states);
+
+        LOGGER.info("Endpunkt-Pool '{}' mit {} Endpunkten erstellt", address, endpoints.size());
+    }
+
+    /**
+     * Schaltet das Absichern langsamer Aufrufe ein oder aus.
+     *
+     * @param enabled true, um Aufrufe oberhalb des 95. Perzentils an einen zweiten Endpunkt zu senden
+     * @return Dieser Endpunkt für Method Chaining
+     */
+    public synchronized LoadBalancedServiceEndpoint<I, O> setHedging(boolean enabled) {
+        if (enabled && scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, address + "-hedging");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.hedging = enabled;
+        return this;
+    }
+
+    @Override
+    public CompletableFuture<O> invokeServiceAsync(I input, PipelineContext context) {
+        return invokeServiceAsync(input, context, null);
+    }
+
+    /**
+     * Ruft den Pool auf und meldet zusätzlich, wann alle Versuche beendet sind.
+     *
+     * Das Ergebnis steht fest, sobald ein Versuch erfolgreich war; ein unterlegener
+     * abgesicherter Versuch kann danach noch auf den Kontext und seine Ressourcen zugreifen.
+     *
+     * @param input Die Eingabedaten
+     * @param context Der Pipeline-Kontext
+     * @param settled Wird abgeschlossen, wenn kein Versuch mehr läuft oder starten kann, oder null
+     * @return Ein CompletableFuture mit dem ersten erfolgreichen Ergebnis
+     */
+    CompletableFuture<O> invokeServiceAsync(I input, PipelineContext context, CompletableFuture<Void> settled) {
+        EndpointState<I, O> primary = choose(null);
+        CompletableFuture<O> result = new CompletableFuture<>();
+
+        // Laufende Aufrufe; der Fehler des letzten wird gemeldet
+        AtomicInteger outstanding = new AtomicInteger(1);
+
+        // Laufende und noch geplante Versuche
+        AtomicInteger pending = new AtomicInteger(1);
+        Runnable attemptDone = () -> {
+            if (pending.decrementAndGet() == 0 && settled != null) {
+                settled.complete(null);
+            }
+        };
+        attempt(primary, input, context, result, outstanding, attemptDone);
+
+        long delay = hedgeDelayNanos;
+        ScheduledExecutorService hedgeScheduler = scheduler;
+        if (hedging && delay > 0 && endpoints.size() > 1 && hedgeScheduler != null) {
+            pending.incrementAndGet();
+            ScheduledFuture<?> hedge;
+            try {
+                hedge = hedgeScheduler.schedule(() -> {
+                    if (!result.isDone()) {
+                        outstanding.incrementAndGet();
+                        hedge(primary, input, context, result, outstanding, attemptDone);
+                    } else {
+                        attemptDone.run();
+                    }
+                }, delay, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // Der Endpunkt wird gerade geschlossen, der Aufruf läuft ohne Absicherung weiter
+                attemptDone.run();
+                return result;
+            }
+            result.whenComplete((value, error) -> {
+                // Eine nie gestartete Absicherung zählt nicht mehr als laufender Versuch
+                if (hedge.cancel(false)) {
+                    attemptDone.run();
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Sendet den Aufruf zusätzlich an einen zweiten Endpunkt. Das erste erfolgreiche
+     * Ergebnis gewinnt.
+     */
+    private void hedge(EndpointState<I, O> primary, I input, PipelineContext context,
+                       CompletableFuture<O> result, AtomicInteger outstanding, Runnable attemptDone) {
+        EndpointState<I, O> secondary = choose(primary);
+        hedgedCalls.increment();
+        LOGGER.debug("Aufruf an '{}' überschreitet {}µs, sichere über '{}' ab",
+                primary.endpoint.getEndpointAddress(), TimeUnit.NANOSECONDS.toMicros(hedgeDelayNanos),
+                secondary.endpoint.getEndpointAddress());
+
+        attempt(secondary, input, context, result, outstanding, attemptDone).thenRun(() -> hedgeWins.increment());
+    }
+
+    /**
+     * Führt einen Versuch aus und überträgt sein Ergebnis auf den gemeinsamen Aufruf.
+     *
+     * @return Ein Future, das abgeschlossen wird, wenn dieser Versuch das Ergebnis geliefert hat
+     */
+    private CompletableFuture<Void> attempt(EndpointState<I, O> state, I input, PipelineContext context,
+                                            CompletableFuture<O> result, AtomicInteger outstanding,
+                                            Runnable attemptDone) {
+        CompletableFuture<Void> won = new CompletableFuture<>();
+        call(state, input, context).whenComplete((value, error) -> {
+            if (error == null) {
+                if (result.complete(value)) {
+                    won.complete(null);
+                }
+            } else if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(unwrap(error));
+            }
+            attemptDone.run();
+        });
+        return won;
+    }
+
+    /**
+     * Ruft einen Endpunkt auf und zeichnet Latenz und Last auf.
+     */
+    private CompletableFuture<O> call(EndpointState<I, O> state, I input, PipelineContext context) {
+        ServiceEndpoint<I, O> endpoint = state.endpoint;
+        state.inFlight.incrementAndGet();
+        long start = System.nanoTime();
+
+        CompletableFuture<O> call;
+        if (endpoint instanceof AsyncServiceEndpoint) {
+            try {
+                call = ((AsyncServiceEndpoint<I, O>) endpoint).invokeServiceAsync(input, context);
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+        } else {
+            try {
+                call = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return endpoint.invokeService(input, context);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor);
+            } catch (RejectedExecutionException e) {
+                // Der Executor wurde bereits beendet
+                call = CompletableFuture.failedFuture(e);
+            }
+        }
+
+        return call.whenComplete((value, error) -> {
+            long now = System.nanoTime();
+            long elapsed = now - start;
+            state.inFlight.decrementAndGet();
+            if (error == null) {
+                state.update(elapsed, now);
+                recordLatency(elapsed);
+            } else {
+                state.penalize(elapsed, now);
+            }
+        });
+    }
+
+    /**
+     * Wählt nach "Power of Two Choices" den weniger belasteten von zwei zufälligen Endpunkten.
+     *
+     * @param excluded Ein Endpunkt, der nicht gewählt werden soll, oder null
+     */
+    private EndpointState<I, O> choose(EndpointState<I, O> excluded) {
+        int size = endpoints.size();
+        if (size == 1) {
+            return endpoints.get(0);
+        }
+
+        long now = System.nanoTime();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        EndpointState<I, O> first = pick(random, excluded);
+        EndpointState<I, O> second = pick(random, excluded);
+        if (first == second && size > (excluded == null ? 1 : 2)) {
+            // Der zweite Kandidat ist der nächste Endpunkt nach dem ersten
+            int index = endpoints.indexOf(first);
+            do {
+                index = (index + 1) % size;
+                second = endpoints.get(index);
+            } while (second == excluded);
+        }
+        return first.load(now) <= second.load(now) ? first : second;
+    }
+
+    private EndpointState<I, O> pick(ThreadLocalRandom random, EndpointState<I, O> excluded) {
+        if (excluded == null) {
+            return endpoints.get(random.nextInt(endpoints.size()));
+        }
+        // Gleichverteilt über alle Endpunkte außer dem ausgeschlossenen
+        int index = random.nextInt(endpoints.size() - 1);
+        EndpointState<I, O> candidate = endpoints.get(index);
+        return candidate == excluded ? endpoints.get(endpoints.size() - 1) : candidate;
+    }
+
+    /**
+     * Zeichnet eine erfolgreiche Latenz auf und berechnet die Absicherungsschwelle in
+     * regelmäßigen Abständen neu. Die erste Schwelle entsteht, sobald genügend Messwerte
+     * vorliegen, ohne dass vorher bei jedem Aufruf ein Snapshot erstellt wird.
+     */
+    private void recordLatency(long elapsedNanos) {
+        Histogram current = latencies;
+        current.record(elapsedNanos);
+
+        int calls = callsSinceRefresh.incrementAndGet();
+        if (calls >= HEDGE_REFRESH_INTERVAL || (calls == MIN_HEDGE_SAMPLES && hedgeDelayNanos == 0)) {
+            callsSinceRefresh.set(0);
+            HistogramSnapshot snapshot = current.snapshot();
+            if (snapshot.getCount() >= MIN_HEDGE_SAMPLES) {
+                hedgeDelayNanos = snapshot.getValueAtPercentile(95.0);
+            }
+            if (snapshot.getCount() >= LATENCY_WINDOW) {
+                latencies = new Histogram();
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    @Override
+    public String getEndpointAddress() {
+        return address;
+    }
+
+    /**
+     * Gibt die Endpunkte des Pools zurück.
+     *
+     * @return Eine unveränderliche Liste der Endpunkte
+     */
+    public List<ServiceEndpoint<I, O>> getEndpoints() {
+        List<ServiceEndpoint<I, O>> result = new ArrayList<>(endpoints.size());
+        for (EndpointState<I, O> state : endpoints) {
+            result.add(state.endpoint);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Gibt den gleitenden Mittelwert der Latenz eines Endpunkts zurück.
+     *
+     * @param index Die Position des Endpunkts im Pool
+     * @return Die mittlere Latenz in Nanosekunden oder 0, wenn noch kein Aufruf abgeschlossen wurde
+     */
+    public long getEwmaLatencyNanos(int index) {
+        return (long) endpoints.get(index).ewma(System.nanoTime());
+    }
+
+    /**
+     * Gibt die aktuelle Schwelle zurück, ab der ein Aufruf abgesichert wird.
+     *
+     * @return Das 95. Perzentil der Latenz in Nanosekunden oder 0, solange zu wenige Messwerte vorliegen
+     */
+    public long getHedgeDelayNanos() {
+        return hedgeDelayNanos;
+    }
+
+    /**
+     * Prüft, ob langsame Aufrufe abgesichert werden.
+     *
+     * @return true, wenn Hedging aktiviert ist
+     */
+    public boolean isHedging() {
+        return hedging;
+    }
+
+    /**
+     * Gibt die Anzahl der Aufrufe zurück, die an einen zweiten Endpunkt gesendet wurden.
+     *
+     * @return Die Anzahl der abgesicherten Aufrufe
+     */
+    public long getHedgedCalls() {
+        return hedgedCalls.sum();
+    }
+
+    /**
+     * Gibt die Anzahl der abgesicherten Aufrufe zurück, bei denen der zweite Endpunkt schneller war.
+     *
+     * @return Die Anzahl der gewonnenen Absicherungen
+     */
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * Beendet den Scheduler für das Absichern. Laufende Aufrufe werden nicht abgebrochen.
+     */
+    @Override
+    public synchronized void close() {
+        hedging = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Ein Endpunkt mit seiner gemessenen Latenz und seinen laufenden Aufrufen.
+     */
+    private static final class EndpointState<I, O> {
+        private final ServiceEndpoint<I, O> endpoint;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        // Gelegentlich verlorene Aktualisierungen sind für die Auswahl unerheblich
+        private volatile double ewmaNanos;
+        private volatile long lastUpdateNanos;
+
+        EndpointState(ServiceEndpoint<I, O> endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        double ewma(long now) {
+            return ewmaNanos * Math.exp(-(now - lastUpdateNanos) / EWMA_DECAY_NANOS);
+        }
+
+        void update(long elapsedNanos, long now) {
+            double current = ewma(now);
+            ewmaNanos = current == 0 ? elapsedNanos : current + EWMA_WEIGHT * (elapsedNanos - current);
+            lastUpdateNanos = now;
+        }
+
+        void penalize(long elapsedNanos, long now) {
+            ewmaNanos = Math.max(ewma(now) * 2, Math.max(elapsedNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+            lastUpdateNanos = now;
+        }
+
+        double load(long now) {
+            return ewma(now) * (inFlight.get() + 1);
+        }
+    }
+}
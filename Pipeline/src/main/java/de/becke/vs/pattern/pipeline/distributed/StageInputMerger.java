@@ -0,0 +1,25 @@
+package de.becke.vs.pattern.pipeline.distributed;
+
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+
+import java.util.Map;
+
+/**
+ * Führt die Ausgaben mehrerer vorgelagerter Stages zur Eingabe einer Stage zusammen.
+ * 
+ * Wird im DAG-Modus der {@link DistributedPipeline} für Stages mit mehr als einer
+ * Abhängigkeit verwendet.
+ */
+@FunctionalInterface
+public interface StageInputMerger {
+    
+    /**
+     * Führt die Ausgaben der Abhängigkeiten zusammen.
+     * 
+     * @param inputs Die Ausgaben der Abhängigkeiten, nach Stage-Namen in der deklarierten Reihenfolge
+     * @param context Der Pipeline-Kontext des Durchlaufs
+     * @return Die Eingabe für die Stage
+     * @throws Exception Wenn die Ausgaben nicht zusammengeführt werden können
+     */
+    Object merge(Map<String, Object> inputs, PipelineContext context) throws Exception;
+}
@@ -0,0 +1,92 @@
+package de.becke.vs.pattern.pipeline.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ein lock-freies Histogramm mit logarithmisch-linearen Buckets nach dem Vorbild von
+ * HdrHistogram.
+ *
+ * Jede Zweierpotenz wird in {@value #SUB_BUCKETS} gleich breite Buckets unterteilt, sodass
+ * der relative Fehler eines Perzentils unter 4% liegt, unabhängig davon, ob Nanosekunden
+ * oder Sekunden gemessen werden. Das Aufzeichnen ist ein einzelnes atomares Inkrement
+ * ohne Allokation und kann daher im Produktivbetrieb aktiv bleiben.
+ *
+ * Das Histogramm ist nicht auf Latenzen beschränkt und kann beliebige nicht-negative
+ * Werte wie Batch-Größen aufnehmen.
+ */
+public final class Histogram {
+
+    // Anzahl der Bits und Buckets pro Zweierpotenz
+    private static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Werte bis 2^63 - 1 benötigen (63 - SUB_BUCKET_BITS) Oktaven zu je SUB_BUCKETS Buckets
+    private static final int BUCKET_COUNT = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Zeichnet einen Wert auf. Negative Werte werden als 0 gezählt.
+     *
+     * @param value Der aufzuzeichnende Wert
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(bucketIndex(v));
+        sum.add(v);
+
+        // Nur bei einem neuen Maximum ist ein CAS nötig
+        long currentMax = max.get();
+        while (v > currentMax && !max.compareAndSet(currentMax, v)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Erstellt eine Momentaufnahme des Histogramms.
+     *
+     * Während der Momentaufnahme aufgezeichnete Werte sind möglicherweise nur teilweise
+     * enthalten; die Momentaufnahme selbst ist in sich konsistent.
+     *
+     * @return Die Momentaufnahme
+     */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new HistogramSnapshot(copy, count, sum.sum(), max.get());
+    }
+
+    /**
+     * Berechnet den Bucket für einen nicht-negativen Wert.
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Berechnet den größten Wert, der in den angegebenen Bucket fällt.
+     */
+    static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + subBucket) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,103 @@
+package de.becke.vs.pattern.pipeline.metrics;
+
+/**
+ * Eine unveränderliche Momentaufnahme eines {@link Histogram}s.
+ */
+public final class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    HistogramSnapshot(long[] counts, long count, long sum, long max) {
+        this.counts = counts;
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+    }
+
+    /**
+     * Gibt den Wert am angegebenen Perzentil zurück.
+     *
+     * Der Wert ist die obere Grenze des Buckets, in den das Perzentil fällt, jedoch nie
+     * größer als das aufgezeichnete Maximum.
+     *
+     * @param percentile Das Perzentil zwischen 0 und 100
+     * @return Der Wert am Perzentil oder 0, wenn keine Werte aufgezeichnet wurden
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(Histogram.highestValueInBucket(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Gibt die Anzahl der aufgezeichneten Werte zurück.
+     *
+     * @return Die Anzahl der Werte
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gibt den Mittelwert der aufgezeichneten Werte zurück.
+     *
+     * @return Der Mittelwert oder 0, wenn keine Werte aufgezeichnet wurden
+     */
+    public double getMean() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    /**
+     * Gibt den Median zurück.
+     *
+     * @return Der Wert am 50. Perzentil
+     */
+    public long getP50() {
+        return getValueAtPercentile(50.0);
+    }
+
+    /**
+     * Gibt das 99. Perzentil zurück.
+     *
+     * @return Der Wert am 99. Perzentil
+     */
+    public long getP99() {
+        return getValueAtPercentile(99.0);
+    }
+
+    /**
+     * Gibt das 99,9. Perzentil zurück.
+     *
+     * @return Der Wert am 99,9. Perzentil
+     */
+    public long getP999() {
+        return getValueAtPercentile(99.9);
+    }
+
+    /**
+     * Gibt den größten aufgezeichneten Wert zurück.
+     *
+     * @return Das Maximum
+     */
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, p50=%d, p99=%d, p999=%d, max=%d",
+                count, getP50(), getP99(), getP999(), max);
+    }
+}
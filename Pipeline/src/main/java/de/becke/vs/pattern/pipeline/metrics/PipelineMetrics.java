@@ -0,0 +1,86 @@
+package de.becke.vs.pattern.pipeline.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Sammelt die Metriken einer Pipeline: einen Eintrag für die gesamten Durchläufe und
+ * einen Eintrag pro Stage.
+ *
+ * Wird von {@code Pipeline}, {@code CompiledPipeline}, {@code AsyncPipeline} und
+ * {@code DistributedPipeline} gemeinsam verwendet. Die Engines holen die
+ * {@link StageMetrics} einer Stage einmal ab und zeichnen danach direkt darin auf;
+ * {@link #snapshot()} liest alle Werte, ohne die aufzeichnenden Threads zu blockieren.
+ */
+public final class PipelineMetrics {
+
+    private final String pipelineName;
+    private final StageMetrics runs;
+    private final ConcurrentMap<String, StageMetrics> stagesByName = new ConcurrentHashMap<>();
+    private final List<StageMetrics> stages = new CopyOnWriteArrayList<>();
+    private final long createdNanos = System.nanoTime();
+
+    /**
+     * Erstellt eine neue Metrik-Sammlung für die angegebene Pipeline.
+     *
+     * @param pipelineName Der Name der Pipeline
+     */
+    public PipelineMetrics(String pipelineName) {
+        this.pipelineName = pipelineName;
+        this.runs = new StageMetrics(pipelineName);
+    }
+
+    /**
+     * Gibt die Metriken der gesamten Pipeline-Durchläufe zurück.
+     *
+     * @return Die Metriken der Durchläufe
+     */
+    public StageMetrics runs() {
+        return runs;
+    }
+
+    /**
+     * Gibt die Metriken der Stage mit dem angegebenen Namen zurück und legt sie bei
+     * Bedarf an. Stages mit gleichem Namen teilen sich einen Eintrag.
+     *
+     * @param stageName Der Name der Stage
+     * @return Die Metriken der Stage
+     */
+    public StageMetrics stage(String stageName) {
+        StageMetrics metrics = stagesByName.get(stageName);
+        if (metrics != null) {
+            return metrics;
+        }
+        return stagesByName.computeIfAbsent(stageName, key -> {
+            StageMetrics created = new StageMetrics(key);
+            stages.add(created);
+            return created;
+        });
+    }
+
+    /**
+     * Erstellt eine Momentaufnahme aller Metriken.
+     *
+     * @return Die Momentaufnahme mit den Stages in der Reihenfolge ihrer Registrierung
+     */
+    public PipelineMetricsSnapshot snapshot() {
+        long elapsed = System.nanoTime() - createdNanos;
+        List<StageMetricsSnapshot> stageSnapshots = new ArrayList<>(stages.size());
+        for (StageMetrics stage : stages) {
+            stageSnapshots.add(stage.snapshot(elapsed));
+        }
+        return new PipelineMetricsSnapshot(pipelineName, runs.snapshot(elapsed), stageSnapshots);
+    }
+
+    /**
+     * Gibt den Namen der Pipeline zurück.
+     *
+     * @return Der Name der Pipeline
+     */
+    public String getPipelineName() {
+        return pipelineName;
+    }
+}
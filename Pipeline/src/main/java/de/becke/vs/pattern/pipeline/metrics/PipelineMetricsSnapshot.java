@@ -0,0 +1,71 @@
+package de.becke.vs.pattern.pipeline.metrics;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Eine unveränderliche Momentaufnahme von {@link PipelineMetrics}.
+ */
+public final class PipelineMetricsSnapshot {
+
+    private final String pipelineName;
+    private final StageMetricsSnapshot runs;
+    private final List<StageMetricsSnapshot> stages;
+
+    PipelineMetricsSnapshot(String pipelineName, StageMetricsSnapshot runs, List<StageMetricsSnapshot> stages) {
+        this.pipelineName = pipelineName;
+        this.runs = runs;
+        this.stages = Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Gibt den Namen der Pipeline zurück.
+     *
+     * @return Der Name der Pipeline
+     */
+    public String getPipelineName() {
+        return pipelineName;
+    }
+
+    /**
+     * Gibt die Metriken der gesamten Pipeline-Durchläufe zurück.
+     *
+     * @return Die Momentaufnahme der Durchläufe
+     */
+    public StageMetricsSnapshot getRuns() {
+        return runs;
+    }
+
+    /**
+     * Gibt die Metriken aller Stages zurück.
+     *
+     * @return Die Momentaufnahmen in der Reihenfolge der Registrierung
+     */
+    public List<StageMetricsSnapshot> getStages() {
+        return stages;
+    }
+
+    /**
+     * Gibt die Metriken der Stage mit dem angegebenen Namen zurück.
+     *
+     * @param stageName Der Name der Stage
+     * @return Die Momentaufnahme oder null, wenn die Stage unbekannt ist
+     */
+    public StageMetricsSnapshot getStage(String stageName) {
+        for (StageMetricsSnapshot stage : stages) {
+            if (stage.getName().equals(stageName)) {
+                return stage;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Pipeline ").append(runs);
+        for (StageMetricsSnapshot stage : stages) {
+            builder.append(System.lineSeparator()).append("  Stage ").append(stage);
+        }
+        return builder.toString();
+    }
+}
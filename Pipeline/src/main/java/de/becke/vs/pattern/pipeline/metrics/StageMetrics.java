@@ -0,0 +1,103 @@
+package de.becke.vs.pattern.pipeline.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metriken einer einzelnen Stage oder eines gesamten Pipeline-Durchlaufs.
+ *
+ * Erfasst die Latenz in Nanosekunden, die Anzahl der Aufrufe und Fehler sowie die Anzahl
+ * der gerade laufenden Aufrufe. Alle Zähler sind {@link LongAdder}s, sodass viele Threads
+ * ohne gegenseitige Blockierung aufzeichnen können.
+ *
+ * Typische Verwendung:
+ * <pre>
+ * long start = metrics.start();
+ * try {
+ *     ...
+ *     metrics.success(start);
+ * } catch (Exception e) {
+ *     metrics.failure(start);
+ * }
+ * </pre>
+ */
+public final class StageMetrics {
+
+    private final String name;
+    private final Histogram latency = new Histogram();
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+
+    /**
+     * Erstellt neue Metriken mit dem angegebenen Namen.
+     *
+     * @param name Der Name der Stage oder Pipeline
+     */
+    public StageMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Markiert den Beginn eines Aufrufs.
+     *
+     * @return Der Startzeitpunkt in Nanosekunden für {@link #success(long)} oder {@link #failure(long)}
+     */
+    public long start() {
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Markiert das erfolgreiche Ende eines Aufrufs.
+     *
+     * @param startNanos Der von {@link #start()} gelieferte Startzeitpunkt
+     */
+    public void success(long startNanos) {
+        finish(startNanos);
+    }
+
+    /**
+     * Markiert das fehlgeschlagene Ende eines Aufrufs.
+     *
+     * @param startNanos Der von {@link #start()} gelieferte Startzeitpunkt
+     */
+    public void failure(long startNanos) {
+        errors.increment();
+        finish(startNanos);
+    }
+
+    private void finish(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+        invocations.increment();
+        inFlight.decrement();
+    }
+
+    /**
+     * Gibt den Namen der Stage oder Pipeline zurück.
+     *
+     * @return Der Name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gibt das Latenz-Histogramm zurück.
+     *
+     * @return Das Histogramm mit Latenzen in Nanosekunden
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Erstellt eine Momentaufnahme dieser Metriken.
+     *
+     * @param elapsedNanos Die seit Beginn der Messung vergangene Zeit für die Durchsatzberechnung
+     * @return Die Momentaufnahme
+     */
+    StageMetricsSnapshot snapshot(long elapsedNanos) {
+        return new StageMetricsSnapshot(name, invocations.sum(), errors.sum(), inFlight.sum(),
+                latency.snapshot(), elapsedNanos);
+    }
+}
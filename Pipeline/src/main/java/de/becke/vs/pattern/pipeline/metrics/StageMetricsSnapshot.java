@@ -0,0 +1,120 @@
+package de.becke.vs.pattern.pipeline.metrics;
+
+/**
+ * Eine unveränderliche Momentaufnahme von {@link StageMetrics}.
+ */
+public final class StageMetricsSnapshot {
+
+    private final String name;
+    private final long invocations;
+    private final long errors;
+    private final long inFlight;
+    private final HistogramSnapshot latency;
+    private final long elapsedNanos;
+
+    StageMetricsSnapshot(String name, long invocations, long errors, long inFlight,
+                         HistogramSnapshot latency, long elapsedNanos) {
+        this.name = name;
+        this.invocations = invocations;
+        this.errors = errors;
+        this.inFlight = inFlight;
+        this.latency = latency;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gibt den Namen der Stage oder Pipeline zurück.
+     *
+     * @return Der Name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gibt die Anzahl der abgeschlossenen Aufrufe zurück.
+     *
+     * @return Die Anzahl der Aufrufe
+     */
+    public long getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * Gibt die Anzahl der fehlgeschlagenen Aufrufe zurück.
+     *
+     * @return Die Anzahl der Fehler
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Gibt die Anzahl der Aufrufe zurück, die zum Zeitpunkt der Momentaufnahme liefen.
+     *
+     * @return Die Anzahl der laufenden Aufrufe
+     */
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Gibt die Latenzverteilung in Nanosekunden zurück.
+     *
+     * @return Die Momentaufnahme des Latenz-Histogramms
+     */
+    public HistogramSnapshot getLatency() {
+        return latency;
+    }
+
+    /**
+     * Gibt den Median der Latenz zurück.
+     *
+     * @return Die Latenz am 50. Perzentil in Nanosekunden
+     */
+    public long getP50() {
+        return latency.getP50();
+    }
+
+    /**
+     * Gibt das 99. Perzentil der Latenz zurück.
+     *
+     * @return Die Latenz am 99. Perzentil in Nanosekunden
+     */
+    public long getP99() {
+        return latency.getP99();
+    }
+
+    /**
+     * Gibt das 99,9. Perzentil der Latenz zurück.
+     *
+     * @return Die Latenz am 99,9. Perzentil in Nanosekunden
+     */
+    public long getP999() {
+        return latency.getP999();
+    }
+
+    /**
+     * Gibt die höchste gemessene Latenz zurück.
+     *
+     * @return Die maximale Latenz in Nanosekunden
+     */
+    public long getMax() {
+        return latency.getMax();
+    }
+
+    /**
+     * Gibt den mittleren Durchsatz seit Beginn der Messung zurück.
+     *
+     * @return Die abgeschlossenen Aufrufe pro Sekunde
+     */
+    public double getThroughput() {
+        return elapsedNanos <= 0 ? 0.0 : invocations * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: invocations=%d, errors=%d, inFlight=%d, %.1f/s, latency[ns] %s",
+                name, invocations, errors, inFlight, getThroughput(), latency);
+    }
+}
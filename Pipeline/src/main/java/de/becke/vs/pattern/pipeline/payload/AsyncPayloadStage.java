@@ -0,0 +1,12 @@
+package de.becke.vs.pattern.pipeline.payload;
+
+import de.becke.vs.pattern.pipeline.async.AsyncPipelineStage;
+
+/**
+ * Eine asynchrone Stage, die einen {@link Payload} verarbeitet, ohne seine Bytes zu kopieren.
+ *
+ * Es gelten dieselben Regeln wie für {@link PayloadStage}. Da der Payload den Thread
+ * wechseln kann, darf er nach Abschluss des zurückgegebenen Futures nicht mehr verändert werden.
+ */
+public interface AsyncPayloadStage extends AsyncPipelineStage<Payload, Payload> {
+}
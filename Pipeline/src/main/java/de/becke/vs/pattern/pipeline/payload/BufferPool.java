@@ -0,0 +1,141 @@
+package de.becke.vs.pattern.pipeline.payload;
+
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ein Pool direkter Byte-Puffer in Größenklassen von Zweierpotenzen.
+ *
+ * Angeforderte Payloads erhalten einen Puffer der kleinsten passenden Klasse. Wird ein
+ * Payload vollständig freigegeben, kehrt sein Puffer in die Klasse zurück, solange dort
+ * weniger als {@code maxBuffersPerClass} Puffer warten. Anforderungen oberhalb der
+ * größten Klasse werden direkt allokiert und nicht zurückgenommen.
+ */
+public class BufferPool {
+
+    private static final int MIN_CLASS_SHIFT = 8;
+    private static final int MAX_CLASS_SHIFT = 24;
+
+    private final ArrayBlockingQueue<ByteBuffer>[] classes;
+
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    /**
+     * Erstellt einen Pool, der bis zu 64 Puffer je Größenklasse vorhält.
+     */
+    public BufferPool() {
+        this(64);
+    }
+
+    /**
+     * Erstellt einen Pool.
+     *
+     * @param maxBuffersPerClass Die maximale Anzahl wartender Puffer je Größenklasse
+     */
+    @SuppressWarnings("unchecked")
+    public BufferPool(int maxBuffersPerClass) {
+        if (maxBuffersPerClass < 1) {
+            throw new IllegalArgumentException("Es muss mindestens ein Puffer je Klasse erlaubt sein: " +
+                    maxBuffersPerClass);
+        }
+        this.classes = new ArrayBlockingQueue[MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new ArrayBlockingQueue<>(maxBuffersPerClass);
+        }
+    }
+
+    /**
+     * Fordert einen Payload an, der dem Aufrufer gehört und von ihm freigegeben werden muss.
+     *
+     * Der Inhalt eines wiederverwendeten Puffers wird nicht gelöscht.
+     *
+     * @param length Die Länge des Payloads in Bytes
+     * @return Ein Payload mit Referenzzähler 1
+     */
+    public Payload acquire(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Die Länge darf nicht negativ sein: " + length);
+        }
+
+        int classIndex = classIndex(length);
+        ByteBuffer buffer = classIndex < classes.length ? classes[classIndex].poll() : null;
+        if (buffer != null) {
+            reused.increment();
+        } else {
+            allocated.increment();
+            int capacity = classIndex < classes.length ? 1 << (classIndex + MIN_CLASS_SHIFT) : length;
+            buffer = ByteBuffer.allocateDirect(capacity);
+        }
+        return new Payload(new Payload.Memory(buffer, this), 0, length);
+    }
+
+    /**
+     * Fordert einen Payload an, der dem Durchlauf gehört und mit dessen Ende freigegeben wird.
+     *
+     * @param length Die Länge des Payloads in Bytes
+     * @param context Der Kontext des Durchlaufs
+     * @return Ein Payload, der am Kontext registriert ist
+     */
+    public Payload acquire(int length, PipelineContext context) {
+        Payload payload = acquire(length);
+        context.registerResource(payload);
+        return payload;
+    }
+
+    /**
+     * Nimmt einen Puffer zurück, dessen Payload vollständig freigegeben wurde.
+     */
+    void recycle(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (Integer.bitCount(capacity) != 1) {
+            return;
+        }
+        int classIndex = Integer.numberOfTrailingZeros(capacity) - MIN_CLASS_SHIFT;
+        if (classIndex >= 0 && classIndex < classes.length) {
+            buffer.clear();
+            classes[classIndex].offer(buffer);
+        }
+    }
+
+    private static int classIndex(int length) {
+        if (length <= 1 << MIN_CLASS_SHIFT) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(length - 1) - MIN_CLASS_SHIFT;
+    }
+
+    /**
+     * Gibt die Anzahl der neu allokierten Puffer zurück.
+     *
+     * @return Die Anzahl der Allokationen
+     */
+    public long getAllocatedCount() {
+        return allocated.sum();
+    }
+
+    /**
+     * Gibt die Anzahl der Anforderungen zurück, die aus dem Pool bedient wurden.
+     *
+     * @return Die Anzahl der wiederverwendeten Puffer
+     */
+    public long getReusedCount() {
+        return reused.sum();
+    }
+
+    /**
+     * Gibt die Anzahl der Puffer zurück, die im Pool auf Wiederverwendung warten.
+     *
+     * @return Die Anzahl der wartenden Puffer
+     */
+    public int getPooledCount() {
+        int count = 0;
+        for (ArrayBlockingQueue<ByteBuffer> queue : classes) {
+            count += queue.size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,209 @@
+package de.becke.vs.pattern.pipeline.payload;
+
+import de.becke.vs.pattern.pipeline.core.PipelineResource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ein Ausschnitt eines Byte-Puffers, der ohne Kopie zwischen Stages weitergereicht wird.
+ *
+ * Stages können die Bytes über {@link #getByte(int)}, {@link #putByte(int, byte)} oder die
+ * Sicht {@link #buffer()} direkt lesen und überschreiben. {@link #slice(int, int)} liefert
+ * einen Teilbereich, der sich Speicher und Referenzzähler mit diesem Payload teilt, sodass
+ * z.B. ein Header abgeschnitten werden kann, ohne Daten zu kopieren.
+ *
+ * Payloads aus einem {@link BufferPool} sind referenzgezählt: Erreicht der Zähler null,
+ * geht der Puffer an den Pool zurück, und alle Sichten auf ihn werden ungültig.
+ */
+public final class Payload implements PipelineResource {
+
+    private final Memory memory;
+    private final int offset;
+    private final int length;
+
+    Payload(Memory memory, int offset, int length) {
+        this.memory = memory;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Erstellt einen Payload über einem Byte-Array, ohne es zu kopieren.
+     *
+     * @param bytes Die Bytes
+     * @return Ein Payload, dessen Änderungen in das Array geschrieben werden
+     */
+    public static Payload wrap(byte[] bytes) {
+        return wrap(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Erstellt einen Payload über dem verbleibenden Bereich eines Puffers, ohne ihn zu kopieren.
+     *
+     * @param buffer Der Puffer; Position und Limit bestimmen den Bereich
+     * @return Ein Payload, der nicht zu einem Pool gehört
+     */
+    public static Payload wrap(ByteBuffer buffer) {
+        return new Payload(new Memory(buffer.slice(), null), 0, buffer.remaining());
+    }
+
+    /**
+     * Gibt die Länge des Payloads zurück.
+     *
+     * @return Die Anzahl der Bytes
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Liest ein Byte.
+     *
+     * @param index Die Position relativ zum Anfang des Payloads
+     * @return Das Byte
+     */
+    public byte getByte(int index) {
+        checkIndex(index, 1);
+        return memory.buffer.get(offset + index);
+    }
+
+    /**
+     * Überschreibt ein Byte.
+     *
+     * @param index Die Position relativ zum Anfang des Payloads
+     * @param value Das neue Byte
+     */
+    public void putByte(int index, byte value) {
+        checkIndex(index, 1);
+        memory.buffer.put(offset + index, value);
+    }
+
+    /**
+     * Gibt eine Sicht auf die Bytes des Payloads zurück.
+     *
+     * Die Sicht teilt sich den Speicher mit dem Payload und hat eigene Position und Limit.
+     * Sie darf nach der Freigabe des Payloads nicht mehr verwendet werden.
+     *
+     * @return Ein Puffer von Position 0 bis {@link #length()}
+     */
+    public ByteBuffer buffer() {
+        memory.ensureAccessible();
+        ByteBuffer view = memory.buffer.duplicate();
+        view.limit(offset + length).position(offset);
+        return view.slice();
+    }
+
+    /**
+     * Gibt einen Teilbereich zurück, der sich Speicher und Referenzzähler mit diesem
+     * Payload teilt.
+     *
+     * @param index Der Anfang relativ zum Anfang des Payloads
+     * @param sliceLength Die Länge des Teilbereichs
+     * @return Der Teilbereich
+     */
+    public Payload slice(int index, int sliceLength) {
+        checkIndex(index, sliceLength);
+        return new Payload(memory, offset + index, sliceLength);
+    }
+
+    /**
+     * Kopiert die Bytes in ein neues Array.
+     *
+     * @return Die Bytes des Payloads
+     */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[length];
+        buffer().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Dekodiert die Bytes als Zeichenkette.
+     *
+     * @param charset Der Zeichensatz
+     * @return Die Zeichenkette
+     */
+    public String toString(Charset charset) {
+        return charset.decode(buffer()).toString();
+    }
+
+    /**
+     * Gibt den aktuellen Referenzzähler zurück.
+     *
+     * @return Die Anzahl der Referenzen oder 0, wenn der Payload freigegeben wurde
+     */
+    public int refCount() {
+        return memory.refCount.get();
+    }
+
+    /**
+     * Prüft, ob der Payload aus einem Pool stammt.
+     *
+     * @return true, wenn der Puffer nach der Freigabe wiederverwendet wird
+     */
+    public boolean isPooled() {
+        return memory.pool != null;
+    }
+
+    @Override
+    public void retain() {
+        int current;
+        do {
+            current = memory.refCount.get();
+            if (current <= 0) {
+                throw new IllegalStateException("Payload wurde bereits freigegeben");
+            }
+        } while (!memory.refCount.compareAndSet(current, current + 1));
+    }
+
+    @Override
+    public boolean release() {
+        int remaining = memory.refCount.decrementAndGet();
+        if (remaining < 0) {
+            memory.refCount.incrementAndGet();
+            throw new IllegalStateException("Payload wurde bereits freigegeben");
+        }
+        if (remaining == 0) {
+            if (memory.pool != null) {
+                memory.pool.recycle(memory.buffer);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void checkIndex(int index, int count) {
+        memory.ensureAccessible();
+        if (index < 0 || count < 0 || index + count > length) {
+            throw new IndexOutOfBoundsException("Bereich " + index + "+" + count +
+                    " liegt außerhalb des Payloads der Länge " + length);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Payload{length=" + length + ", refCount=" + refCount() + ", pooled=" + isPooled() + "}";
+    }
+
+    /**
+     * Der gemeinsame Speicher eines Payloads und seiner Teilbereiche.
+     */
+    static final class Memory {
+        private final ByteBuffer buffer;
+        private final BufferPool pool;
+        private final AtomicInteger refCount = new AtomicInteger(1);
+
+        Memory(ByteBuffer buffer, BufferPool pool) {
+            this.buffer = buffer;
+            this.pool = pool;
+        }
+
+        void ensureAccessible() {
+            if (refCount.get() <= 0) {
+                throw new IllegalStateException("Payload wurde bereits freigegeben");
+            }
+        }
+    }
+}
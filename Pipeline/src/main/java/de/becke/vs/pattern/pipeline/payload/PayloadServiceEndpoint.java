@@ -0,0 +1,13 @@
+package de.becke.vs.pattern.pipeline.payload;
+
+import de.becke.vs.pattern.pipeline.distributed.ServiceEndpoint;
+
+/**
+ * Ein Dienst-Endpunkt, der einen {@link Payload} entgegennimmt und zurückgibt.
+ *
+ * Der Endpunkt kann die Sicht {@link Payload#buffer()} direkt an einen Kanal übergeben
+ * und die Antwort in einen Puffer aus einem {@link BufferPool} lesen, der am Kontext
+ * registriert ist, sodass zwischen Netzwerk und Stages keine Byte-Arrays entstehen.
+ */
+public interface PayloadServiceEndpoint extends ServiceEndpoint<Payload, Payload> {
+}
@@ -0,0 +1,14 @@
+package de.becke.vs.pattern.pipeline.payload;
+
+import de.becke.vs.pattern.pipeline.core.PipelineStage;
+
+/**
+ * Eine Stage, die einen {@link Payload} verarbeitet, ohne seine Bytes zu kopieren.
+ *
+ * Eine Stage darf den Eingabe-Payload in-place verändern und ihn oder einen
+ * {@link Payload#slice(int, int) Teilbereich} davon zurückgeben. Neue Puffer sollte sie mit
+ * {@link BufferPool#acquire(int, de.becke.vs.pattern.pipeline.core.PipelineContext)}
+ * anfordern, damit sie mit dem Ende des Durchlaufs an den Pool zurückgehen.
+ */
+public interface PayloadStage extends PipelineStage<Payload, Payload> {
+}
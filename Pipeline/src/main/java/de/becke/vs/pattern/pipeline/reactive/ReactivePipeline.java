@@ -0,0 +1,426 @@
+package de.becke.vs.pattern.pipeline.reactive;
+
+import de.becke.vs.pattern.pipeline.async.AsyncPipeline;
+import de.becke.vs.pattern.pipeline.async.AsyncPipelineStage;
+import de.becke.vs.pattern.pipeline.core.ContextKey;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.metrics.PipelineMetrics;
+import de.becke.vs.pattern.pipeline.metrics.StageMetrics;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.functions.Function;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Eine reaktive Pipeline, die {@link AsyncPipelineStage}s zu einem RxJava-{@link Flowable}
+ * verbindet.
+ * 
+ * Jede Stage wird als {@code concatMapEager} (oder {@code flatMap}, wenn die Reihenfolge
+ * egal ist) mit begrenzter Nebenläufigkeit eingehängt. Damit laufen mehrere Elemente
+ * gleichzeitig durch eine Stage, während der Gegendruck der Reactive Streams bis zur
+ * Quelle durchgereicht wird: Es werden nur so viele Elemente angefordert, wie die Stages
+ * aufnehmen können. Optional wird jede Stage auf einem eigenen {@link Scheduler}
+ * gestartet, etwa {@code Schedulers.io()} für blockierende Aufrufe.
+ * 
+ * Jedes Element erhält einen eigenen {@link PipelineContext}. Schlägt eine Stage fehl,
+ * endet der Flow mit einer {@link PipelineException}. Die im Kontext registrierten
+ * Ressourcen werden freigegeben, wenn das Element ausgegeben wird, fehlschlägt oder der
+ * Flow vorher endet; läuft dann noch eine Stage für das Element, erst nach deren Ende.
+ * Elemente, die wegen eines Fehlers oder Abbruchs nicht mehr ausgegeben werden, zählen in
+ * den Metriken als fehlgeschlagene Durchläufe.
+ * 
+ * @param <I> Der Eingabetyp der Pipeline
+ * @param <O> Der Ausgabetyp der Pipeline
+ */
+public class ReactivePipeline<I, O> {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactivePipeline.class);
+    
+    // Standardwert für die Anzahl gleichzeitig verarbeiteter Elemente pro Stage
+    private static final int DEFAULT_MAX_CONCURRENCY = 16;
+    
+    // Name der Pipeline
+    private final String name;
+    
+    // Konfigurierte Stages
+    private final List<StageSpec> stages = new ArrayList<>();
+    
+    // Anzahl der vorab angeforderten Elemente pro Stage
+    private int prefetch = Flowable.bufferSize();
+    
+    // Ob die Ergebnisse in der Reihenfolge der Eingaben ausgegeben werden
+    private boolean preserveOrder = true;
+    
+    // Latenzen und Zähler aller Durchläufe und Stages
+    private final PipelineMetrics metrics;
+    
+    // Zähler für die IDs der Durchläufe
+    private final AtomicLong executionCounter = new AtomicLong();
+    
+    /**
+     * Erstellt eine neue reaktive Pipeline mit einem Namen.
+     * 
+     * @param name Der Name der Pipeline
+     */
+    public ReactivePipeline(String name) {
+        this.name = name;
+        this.metrics = new PipelineMetrics(name);
+        LOGGER.info("Reaktive Pipeline '{}' erstellt", name);
+    }
+    
+    /**
+     * Erstellt eine reaktive Pipeline mit den Stages einer asynchronen Pipeline.
+     * 
+     * Alle Stages werden ohne eigenen Scheduler und mit der Standard-Nebenläufigkeit
+     * übernommen.
+     * 
+     * @param pipeline Die asynchrone Pipeline, deren Stages übernommen werden
+     */
+    public ReactivePipeline(AsyncPipeline<I, O> pipeline) {
+        this(pipeline.getName());
+        for (AsyncPipelineStage<?, ?> stage : pipeline.getStages()) {
+            addStage(stage);
+        }
+    }
+    
+    /**
+     * Fügt eine Stage hinzu, die auf dem Thread des vorherigen Elements gestartet wird.
+     * 
+     * @param stage Die hinzuzufügende Stage
+     * @param <T> Der Eingabetyp der Stage
+     * @param <R> Der Ausgabetyp der Stage
+     * @return Diese Pipeline für Method Chaining
+     */
+    public <T, R> ReactivePipeline<I, O> addStage(AsyncPipelineStage<T, R> stage) {
+        return addStage(stage, null, DEFAULT_MAX_CONCURRENCY);
+    }
+    
+    /**
+     * Fügt eine Stage mit eigenem Scheduler und begrenzter Nebenläufigkeit hinzu.
+     * 
+     * @param stage Die hinzuzufügende Stage
+     * @param scheduler Der Scheduler, auf dem die Stage gestartet wird (null für keinen Wechsel)
+     * @param maxConcurrency Die maximale Anzahl gleichzeitig verarbeiteter Elemente
+     * @param <T> Der Eingabetyp der Stage
+     * @param <R> Der Ausgabetyp der Stage
+     * @return Diese Pipeline für Method Chaining
+     */
+    @SuppressWarnings("unchecked")
+    public <T, R> ReactivePipeline<I, O> addStage(AsyncPipelineStage<T, R> stage, Scheduler scheduler,
+                                                  int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Die Nebenläufigkeit muss mindestens 1 sein: " + maxConcurrency);
+        }
+        stages.add(new StageSpec((AsyncPipelineStage<Object, Object>) stage, scheduler, maxConcurrency,
+                metrics.stage(stage.getStageName())));
+        LOGGER.info("Stage '{}' zur reaktiven Pipeline '{}' hinzugefügt (Nebenläufigkeit {})",
+                stage.getStageName(), name, maxConcurrency);
+        return this;
+    }
+    
+    /**
+     * Legt fest, wie viele Elemente jede Stage vorab anfordert.
+     * 
+     * @param prefetch Die Anzahl der vorab angeforderten Elemente
+     * @return Diese Pipeline für Method Chaining
+     */
+    public ReactivePipeline<I, O> setPrefetch(int prefetch) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("Prefetch muss mindestens 1 sein: " + prefetch);
+        }
+        this.prefetch = prefetch;
+        return this;
+    }
+    
+    /**
+     * Legt fest, ob die Ergebnisse in der Reihenfolge der Eingaben ausgegeben werden.
+     * 
+     * Ohne Reihenfolge wird {@code flatMap} statt {@code concatMapEager} verwendet; schnelle
+     * Elemente müssen dann nicht auf langsame vorherige Elemente warten.
+     * 
+     * @param preserveOrder true, um die Reihenfolge beizubehalten
+     * @return Diese Pipeline für Method Chaining
+     */
+    public ReactivePipeline<I, O> setPreserveOrder(boolean preserveOrder) {
+        this.preserveOrder = preserveOrder;
+        return this;
+    }
+    
+    /**
+     * Baut den Flow für die angegebenen Eingaben auf.
+     * 
+     * Der Flow ist kalt: Die Verarbeitung beginnt erst mit dem Abonnieren, und jedes
+     * Abonnement verarbeitet die Eingaben erneut.
+     * 
+     * @param inputs Die Eingaben für die Pipeline
+     * @return Ein Flowable mit den Ergebnissen
+     */
+    @SuppressWarnings("unchecked")
+    public Flowable<O> execute(Publisher<? extends I> inputs) {
+        return Flowable.defer(() -> {
+            // Elemente dieses Abonnements, die noch nicht ausgegeben wurden
+            Set<Element> live = ConcurrentHashMap.newKeySet();
+            AtomicBoolean terminated = new AtomicBoolean();
+            Flowable<Element> flow = Flowable.<I>fromPublisher(inputs).map(input -> {
+                Element element = newElement(input);
+                live.add(element);
+                // Die Quelle kann nach einem Abbruch aus einem anderen Thread noch liefern
+                if (terminated.get() && element.abandon()) {
+                    metrics.runs().failure(element.startNanos);
+                }
+                return element;
+            });
+            
+            for (StageSpec spec : stages) {
+                Function<Element, Publisher<Element>> mapper = element -> invoke(spec, element);
+                flow = preserveOrder
+                        ? flow.concatMapEager(mapper, spec.maxConcurrency, prefetch)
+                        : flow.flatMap(mapper, false, spec.maxConcurrency, prefetch);
+            }
+            
+            return flow.map(element -> {
+                live.remove(element);
+                if (element.finish(element.value)) {
+                    metrics.runs().success(element.startNanos);
+                }
+                return (O) element.value;
+            }).doFinally(() -> {
+                // Durch einen Fehler oder Abbruch verlassene Elemente
+                terminated.set(true);
+                for (Element element : live) {
+                    if (element.abandon()) {
+                        metrics.runs().failure(element.startNanos);
+                    }
+                }
+            });
+        });
+    }
+    
+    /**
+     * Verarbeitet die Eingaben und fasst die Ergebnisse zu Listen zusammen.
+     * 
+     * Eine Liste wird ausgegeben, sobald sie {@code count} Elemente enthält oder
+     * {@code timespan} abgelaufen ist. Da der Zeitgeber nicht auf die Anforderungen des
+     * Abonnenten warten kann, werden fertige Listen bei einem langsamen Abonnenten
+     * unbegrenzt zwischengespeichert; der Gegendruck zur Quelle gilt dann nicht mehr. Für
+     * begrenzten Speicher {@link #execute(Publisher)} mit {@code buffer(count)} verwenden.
+     * 
+     * @param inputs Die Eingaben für die Pipeline
+     * @param count Die maximale Anzahl der Elemente pro Liste
+     * @param timespan Die maximale Wartezeit pro Liste
+     * @param unit Die Zeiteinheit der Wartezeit
+     * @return Ein Flowable mit Listen von Ergebnissen
+     */
+    public Flowable<List<O>> executeBuffered(Publisher<? extends I> inputs, int count, long timespan, TimeUnit unit) {
+        return execute(inputs).buffer(timespan, unit, count).onBackpressureBuffer();
+    }
+    
+    /**
+     * Verarbeitet die Eingaben und teilt die Ergebnisse in Fenster fester Größe.
+     * 
+     * @param inputs Die Eingaben für die Pipeline
+     * @param count Die Anzahl der Elemente pro Fenster
+     * @return Ein Flowable mit einem Flowable pro Fenster
+     */
+    public Flowable<Flowable<O>> executeWindowed(Publisher<? extends I> inputs, int count) {
+        return execute(inputs).window(count);
+    }
+    
+    /**
+     * Verarbeitet eine einzelne Eingabe.
+     * 
+     * @param input Die Eingabe für die Pipeline (nicht null)
+     * @return Ein CompletableFuture mit dem Ergebnis der Pipeline
+     */
+    public CompletableFuture<O> executeAsync(I input) {
+        return execute(Flowable.just(input)).firstOrError().toCompletionStage().toCompletableFuture();
+    }
+    
+    /**
+     * Startet eine Stage für ein Element, optional auf dem Scheduler der Stage.
+     */
+    private Flowable<Element> invoke(StageSpec spec, Element element) {
+        Flowable<Element> call = Flowable.defer(() -> {
+            long start = spec.metrics.start();
+            CompletableFuture<Object> future;
+            try {
+                future = spec.stage.processAsync(element.value, element.context);
+            } catch (Exception e) {
+                spec.metrics.failure(start);
+                return Flowable.error(stageFailure(spec, element, e));
+            }
+            if (future == null) {
+                spec.metrics.failure(start);
+                return Flowable.error(stageFailure(spec, element, new NullPointerException(
+                        "Stage '" + spec.stage.getStageName() + "' hat kein Future geliefert")));
+            }
+            element.call = future;
+            
+            return Flowable.fromCompletionStage(future.handle((result, error) -> {
+                if (error != null) {
+                    spec.metrics.failure(start);
+                    throw new CompletionException(stageFailure(spec, element, error));
+                }
+                spec.metrics.success(start);
+                element.value = result;
+                return element;
+            })).onErrorResumeNext(e -> Flowable.error(unwrap(e)));
+        });
+        
+        return spec.scheduler == null ? call : call.subscribeOn(spec.scheduler);
+    }
+    
+    /**
+     * Erzeugt für eine Eingabe ein Element mit eigenem Kontext.
+     */
+    private Element newElement(Object input) {
+        PipelineContext context = new PipelineContext(name + "-" + executionCounter.incrementAndGet());
+        context.set(ContextKey.PIPELINE_NAME, name);
+        context.set(ContextKey.PIPELINE_TYPE, "reactive");
+        return new Element(input, context, metrics.runs().start());
+    }
+    
+    /**
+     * Erzeugt die PipelineException für eine fehlgeschlagene Stage.
+     */
+    private PipelineException stageFailure(StageSpec spec, Element element, Throwable error) {
+        Throwable cause = unwrap(error);
+        String stageName = spec.stage.getStageName();
+        LOGGER.error("Fehler in reaktiver Stage '{}': {}", stageName, cause.getMessage(), cause);
+        
+        element.context.setError(cause);
+        if (element.finish(null)) {
+            metrics.runs().failure(element.startNanos);
+        }
+        return new PipelineException("Fehler während der Verarbeitung in Stage '" + stageName + "'", cause);
+    }
+    
+    /**
+     * Entfernt die Hüllen von CompletableFuture-Fehlern.
+     */
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+    
+    /**
+     * Gibt den Namen der Pipeline zurück.
+     * 
+     * @return Der Name der Pipeline
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Gibt die Metriken dieser Pipeline zurück.
+     * 
+     * @return Die Metriken der Pipeline
+     */
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Gibt eine unveränderliche Liste aller Stages in dieser Pipeline zurück.
+     * 
+     * @return Die Liste der Stages
+     */
+    public List<AsyncPipelineStage<?, ?>> getStages() {
+        List<AsyncPipelineStage<?, ?>> result = new ArrayList<>(stages.size());
+        for (StageSpec spec : stages) {
+            result.add(spec.stage);
+        }
+        return Collections.unmodifiableList(result);
+    }
+    
+    /**
+     * Eine Stage mit ihrer Konfiguration.
+     */
+    private static final class StageSpec {
+        private final AsyncPipelineStage<Object, Object> stage;
+        private final Scheduler scheduler;
+        private final int maxConcurrency;
+        private final StageMetrics metrics;
+        
+        StageSpec(AsyncPipelineStage<Object, Object> stage, Scheduler scheduler, int maxConcurrency,
+                  StageMetrics metrics) {
+            this.stage = stage;
+            this.scheduler = scheduler;
+            this.maxConcurrency = maxConcurrency;
+            this.metrics = metrics;
+        }
+    }
+    
+    /**
+     * Ein Element auf dem Weg durch die Pipeline. Der Wert wird von Stage zu Stage ersetzt,
+     * sodass pro Stage keine neuen Hüllen entstehen.
+     */
+    private static final class Element {
+        private Object value;
+        private final PipelineContext context;
+        private final long startNanos;
+        
+        // Der zuletzt gestartete Stage-Aufruf
+        private volatile CompletableFuture<?> call;
+        
+        // Ob die Ressourcen bereits freigegeben wurden oder werden
+        private final AtomicBoolean finished = new AtomicBoolean();
+        
+        Element(Object value, PipelineContext context, long startNanos) {
+            this.value = value;
+            this.context = context;
+            this.startNanos = startNanos;
+        }
+        
+        /**
+         * Gibt die Ressourcen nach Abschluss oder Fehler frei, sofern das noch nicht geschehen ist.
+         * 
+         * @return true, wenn das Element hiermit abgeschlossen wurde
+         */
+        boolean finish(Object result) {
+            if (!finished.compareAndSet(false, true)) {
+                return false;
+            }
+            context.releaseResources(result);
+            return true;
+        }
+        
+        /**
+         * Gibt die Ressourcen eines verlassenen Elements frei, sobald sein Stage-Aufruf endet.
+         * 
+         * @return true, wenn das Element hiermit abgeschlossen wurde
+         */
+        boolean abandon() {
+            if (!finished.compareAndSet(false, true)) {
+                return false;
+            }
+            CompletableFuture<?> running = call;
+            if (running == null) {
+                context.releaseResources(null);
+            } else {
+                running.whenComplete((result, error) -> context.releaseResources(null));
+            }
+            return true;
+        }
+    }
+}
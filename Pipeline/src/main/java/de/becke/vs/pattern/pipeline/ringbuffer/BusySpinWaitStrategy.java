@@ -0,0 +1,24 @@
+package de.becke.vs.pattern.pipeline.ringbuffer;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Wartestrategie mit aktivem Warten für die geringste Latenz.
+ *
+ * Jeder wartende Thread belegt dauerhaft einen CPU-Kern. Die Strategie eignet sich nur,
+ * wenn mindestens so viele freie Kerne wie Stage-Threads vorhanden sind.
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+
+    @Override
+    public long waitFor(long sequence, Sequence dependency, BooleanSupplier running) {
+        long available;
+        while ((available = dependency.get()) < sequence) {
+            if (!running.getAsBoolean()) {
+                return available;
+            }
+            Thread.onSpinWait();
+        }
+        return available;
+    }
+}
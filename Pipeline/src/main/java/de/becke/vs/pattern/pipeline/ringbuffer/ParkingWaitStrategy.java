@@ -0,0 +1,52 @@
+package de.becke.vs.pattern.pipeline.ringbuffer;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Wartestrategie, die kurz aktiv wartet und den Thread danach schlafen legt.
+ *
+ * Verbraucht im Leerlauf kaum CPU, erhöht aber die Latenz um bis zur angegebenen
+ * Schlafdauer, wenn eine Stage erst aufgeweckt werden muss.
+ */
+public class ParkingWaitStrategy implements WaitStrategy {
+
+    private final int spinTries;
+    private final long parkNanos;
+
+    /**
+     * Erstellt eine Parkstrategie mit 100 Spin-Versuchen und 50 Mikrosekunden Schlafdauer.
+     */
+    public ParkingWaitStrategy() {
+        this(100, 50_000);
+    }
+
+    /**
+     * Erstellt eine Parkstrategie mit angepassten Parametern.
+     *
+     * @param spinTries Die Anzahl aktiver Warteversuche vor dem ersten Parken
+     * @param parkNanos Die Schlafdauer pro Parkvorgang in Nanosekunden
+     */
+    public ParkingWaitStrategy(int spinTries, long parkNanos) {
+        this.spinTries = spinTries;
+        this.parkNanos = parkNanos;
+    }
+
+    @Override
+    public long waitFor(long sequence, Sequence dependency, BooleanSupplier running) {
+        long available;
+        int tries = 0;
+        while ((available = dependency.get()) < sequence) {
+            if (!running.getAsBoolean()) {
+                return available;
+            }
+            if (tries < spinTries) {
+                tries++;
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(parkNanos);
+            }
+        }
+        return available;
+    }
+}
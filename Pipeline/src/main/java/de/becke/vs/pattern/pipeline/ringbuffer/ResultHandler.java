@@ -0,0 +1,32 @@
+package de.becke.vs.pattern.pipeline.ringbuffer;
+
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+
+/**
+ * Empfänger für die Ergebnisse einer {@link RingBufferPipeline}.
+ *
+ * Die Methoden werden auf dem Thread der letzten Stage aufgerufen und sollten daher
+ * schnell zurückkehren. Der übergebene Kontext gehört zu einem wiederverwendeten Slot
+ * und darf nach der Rückkehr nicht mehr verwendet werden.
+ *
+ * @param <O> Der Ausgabetyp der Pipeline
+ */
+public interface ResultHandler<O> {
+
+    /**
+     * Wird für jedes erfolgreich verarbeitete Element aufgerufen.
+     *
+     * @param output Das Ergebnis der Pipeline
+     * @param context Der Kontext des Durchlaufs
+     */
+    void onResult(O output, PipelineContext context);
+
+    /**
+     * Wird für jedes Element aufgerufen, dessen Verarbeitung fehlgeschlagen ist.
+     *
+     * @param error Der aufgetretene Fehler mit dem Namen der Stage
+     * @param context Der Kontext des Durchlaufs
+     */
+    void onError(PipelineException error, PipelineContext context);
+}
@@ -0,0 +1,312 @@
+package de.becke.vs.pattern.pipeline.ringbuffer;
+
+import de.becke.vs.pattern.pipeline.core.Pipeline;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineStage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Eine Pipeline-Engine für minimale Latenz nach dem Vorbild des LMAX Disruptors.
+ *
+ * Alle Elemente wandern durch einen einzigen, vorab allokierten Ringpuffer mit
+ * wiederverwendbaren Slots. Jede Stage läuft auf einem eigenen Thread und folgt der
+ * Sequenz der vorherigen Stage; der Producer folgt der Sequenz der letzten Stage, damit
+ * kein Slot überschrieben wird, bevor er vollständig verarbeitet ist. Zwischen zwei
+ * Stages besteht so eine Single-Producer/Single-Consumer-Beziehung ohne Locks.
+ *
+ * Im eingeschwungenen Zustand allokiert die Engine selbst keine Objekte: Slots und ihre
+ * Kontexte werden wiederverwendet. Ergebnisse werden an einen {@link ResultHandler}
+ * übergeben, der auf dem Thread der letzten Stage läuft. Am Kontext registrierte
+ * Ressourcen werden direkt nach dem Handler freigegeben; ein Handler, der ein
+ * referenzgezähltes Ergebnis behalten will, muss es selbst {@code retain()}en.
+ *
+ * {@link #publish(Object)} darf immer nur von einem Thread gleichzeitig aufgerufen werden.
+ *
+ * @param <I> Der Eingabetyp der Pipeline
+ * @param <O> Der Ausgabetyp der Pipeline
+ */
+public class RingBufferPipeline<I, O> implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RingBufferPipeline.class);
+
+    // Name der Pipeline
+    private final String name;
+
+    // Vorab allokierte Slots des Ringpuffers
+    private final Slot[] slots;
+    private final String executionIdPrefix;
+    private final int mask;
+
+    // Stages, Sequenzen und Threads
+    private final PipelineStage<Object, Object>[] stages;
+    private final String[] stageNames;
+    private final Sequence[] stageSequences;
+    private final Thread[] workers;
+
+    // Vom Producer veröffentlichte Sequenz
+    private final Sequence cursor = new Sequence(-1);
+
+    // Nächste zu vergebende Sequenz (nur vom Producer-Thread gelesen und geschrieben)
+    private long nextSequence = 0;
+
+    private final WaitStrategy waitStrategy;
+    private final ResultHandler<O> resultHandler;
+
+    private volatile boolean running = true;
+    private final BooleanSupplier runningCheck = () -> running;
+
+    /**
+     * Erstellt eine Ringpuffer-Engine mit den Stages einer vorhandenen Pipeline.
+     *
+     * @param pipeline Die Pipeline, deren Stages übernommen werden
+     * @param bufferSize Die Anzahl der Slots (muss eine Zweierpotenz sein)
+     * @param waitStrategy Die Wartestrategie für Producer und Stages
+     * @param resultHandler Der Empfänger der Ergebnisse
+     */
+    public RingBufferPipeline(Pipeline<I, O> pipeline, int bufferSize, WaitStrategy waitStrategy,
+                              ResultHandler<O> resultHandler) {
+        this(pipeline.getName(), pipeline.getStages(), bufferSize, waitStrategy, resultHandler);
+    }
+
+    /**
+     * Erstellt eine Ringpuffer-Engine und startet einen Thread pro Stage.
+     *
+     * @param name Der Name der Pipeline
+     * @param stages Die Stages in Ausführungsreihenfolge
+     * @param bufferSize Die Anzahl der Slots (muss eine Zweierpotenz sein)
+     * @param waitStrategy Die Wartestrategie für Producer und Stages
+     * @param resultHandler Der Empfänger der Ergebnisse
+     */
+    @SuppressWarnings("unchecked")
+    public RingBufferPipeline(String name, List<PipelineStage<?, ?>> stages, int bufferSize,
+                              WaitStrategy waitStrategy, ResultHandler<O> resultHandler) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Die Puffergröße muss eine Zweierpotenz sein: " + bufferSize);
+        }
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("Die Pipeline muss mindestens eine Stage enthalten");
+        }
+
+        this.name = name;
+        this.waitStrategy = waitStrategy;
+        this.resultHandler = resultHandler;
+        this.mask = bufferSize - 1;
+
+        this.executionIdPrefix = name + "-";
+        this.slots = new Slot[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            slots[i] = new Slot(new PipelineContext(name + "#" + i));
+        }
+
+        this.stages = stages.toArray(new PipelineStage[0]);
+        this.stageNames = new String[this.stages.length];
+        this.stageSequences = new Sequence[this.stages.length];
+        this.workers = new Thread[this.stages.length];
+        for (int i = 0; i < this.stages.length; i++) {
+            stageNames[i] = this.stages[i].getStageName();
+            stageSequences[i] = new Sequence(-1);
+        }
+
+        for (int i = 0; i < workers.length; i++) {
+            final int stageIndex = i;
+            workers[i] = new Thread(() -> runStage(stageIndex), name + "-" + stageNames[i]);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        LOGGER.info("Ringpuffer-Pipeline '{}' mit {} Stages und {} Slots gestartet ({})",
+                name, workers.length, bufferSize, waitStrategy.getClass().getSimpleName());
+    }
+
+    /**
+     * Übergibt eine Eingabe an die Pipeline.
+     *
+     * Ist der Ringpuffer voll, wartet der Aufrufer gemäß der Wartestrategie, bis die
+     * letzte Stage einen Slot freigegeben hat.
+     *
+     * @param input Die Eingabe für die Pipeline
+     * @throws IllegalStateException Wenn die Pipeline bereits beendet wurde
+     */
+    public void publish(I input) {
+        if (!running) {
+            throw new IllegalStateException("Die Ringpuffer-Pipeline '" + name + "' wurde beendet");
+        }
+
+        long sequence = nextSequence;
+        long wrapPoint = sequence - slots.length;
+
+        Sequence lastStage = stageSequences[stageSequences.length - 1];
+        if (lastStage.get() < wrapPoint
+                && waitStrategy.waitFor(wrapPoint, lastStage, runningCheck) < wrapPoint) {
+            throw new IllegalStateException("Die Ringpuffer-Pipeline '" + name + "' wurde beendet");
+        }
+
+        publishAt(sequence, input);
+    }
+
+    /**
+     * Versucht, eine Eingabe zu übergeben, ohne auf einen freien Slot zu warten.
+     *
+     * @param input Die Eingabe für die Pipeline
+     * @return true, wenn die Eingabe übernommen wurde, false, wenn der Puffer voll ist
+     */
+    public boolean tryPublish(I input) {
+        long sequence = nextSequence;
+        if (!running || stageSequences[stageSequences.length - 1].get() < sequence - slots.length) {
+            return false;
+        }
+
+        publishAt(sequence, input);
+        return true;
+    }
+
+    /**
+     * Gibt die Anzahl der Elemente zurück, die übergeben, aber noch nicht vollständig
+     * verarbeitet wurden.
+     *
+     * @return Die Anzahl der Elemente im Puffer
+     */
+    public long getPendingCount() {
+        return cursor.get() - stageSequences[stageSequences.length - 1].get();
+    }
+
+    /**
+     * Gibt den Namen der Pipeline zurück.
+     *
+     * @return Der Name der Pipeline
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Beendet alle Stage-Threads. Noch nicht verarbeitete Elemente werden verworfen.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        for (Thread worker : workers) {
+            try {
+                worker.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        LOGGER.info("Ringpuffer-Pipeline '{}' beendet", name);
+    }
+
+    /**
+     * Schreibt die Eingabe in den Slot der angegebenen Sequenz und veröffentlicht ihn.
+     */
+    private void publishAt(long sequence, Object input) {
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.value = input;
+        slot.error = null;
+        slot.failedStage = -1;
+        slot.context.reset(executionIdPrefix, sequence);
+
+        nextSequence = sequence + 1;
+        cursor.set(sequence);
+    }
+
+    /**
+     * Schleife des Threads einer Stage: verfügbare Slots stapelweise verarbeiten.
+     *
+     * Fehler einer Stage, auch {@link Error}s, werden dem jeweiligen Element zugeordnet.
+     * Endet die Schleife dennoch unerwartet, wird die Pipeline beendet, damit wartende
+     * Producer nicht auf eine Sequenz warten, die nie mehr fortschreitet.
+     */
+    private void runStage(int stageIndex) {
+        try {
+            processSlots(stageIndex);
+        } catch (Throwable e) {
+            LOGGER.error("Stage '{}' der Ringpuffer-Pipeline '{}' ist ausgefallen, die Pipeline wird beendet",
+                    stageNames[stageIndex], name, e);
+            running = false;
+        }
+    }
+
+    private void processSlots(int stageIndex) {
+        PipelineStage<Object, Object> stage = stages[stageIndex];
+        Sequence own = stageSequences[stageIndex];
+        Sequence upstream = stageIndex == 0 ? cursor : stageSequences[stageIndex - 1];
+        boolean last = stageIndex == stages.length - 1;
+
+        long next = own.get() + 1;
+        while (running) {
+            long available = waitStrategy.waitFor(next, upstream, runningCheck);
+            if (available < next) {
+                continue;
+            }
+
+            for (long sequence = next; sequence <= available; sequence++) {
+                Slot slot = slots[(int) (sequence & mask)];
+
+                if (slot.error == null) {
+                    try {
+                        slot.value = stage.process(slot.value, slot.context);
+                    } catch (Throwable e) {
+                        slot.error = e;
+                        slot.failedStage = stageIndex;
+                        slot.context.setError(e);
+                    }
+                }
+
+                if (last) {
+                    complete(slot);
+                }
+            }
+
+            own.set(available);
+            next = available + 1;
+        }
+    }
+
+    /**
+     * Übergibt das Ergebnis eines Slots an den ResultHandler und gibt die Referenzen frei.
+     */
+    @SuppressWarnings("unchecked")
+    private void complete(Slot slot) {
+        try {
+            if (slot.error == null) {
+                resultHandler.onResult((O) slot.value, slot.context);
+            } else {
+                String stageName = stageNames[slot.failedStage];
+                LOGGER.error("Fehler in Stage '{}': {}", stageName, slot.error.getMessage(), slot.error);
+                resultHandler.onError(new PipelineException("Fehler während der Verarbeitung in Stage '" +
+                        stageName + "'", slot.error), slot.context);
+            }
+        } catch (Throwable e) {
+            LOGGER.error("Fehler im ResultHandler der Ringpuffer-Pipeline '{}': {}", name, e.getMessage(), e);
+        } finally {
+            slot.context.releaseResources(null);
+            slot.value = null;
+            slot.error = null;
+        }
+    }
+
+    /**
+     * Ein wiederverwendbarer Slot des Ringpuffers.
+     */
+    private static final class Slot {
+        private Object value;
+        private Throwable error;
+        private int failedStage = -1;
+        private final PipelineContext context;
+
+        Slot(PipelineContext context) {
+            this.context = context;
+        }
+    }
+}
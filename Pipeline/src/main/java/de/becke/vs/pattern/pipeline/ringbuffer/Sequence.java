@@ -0,0 +1,70 @@
+package de.becke.vs.pattern.pipeline.ringbuffer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Ein Sequenzzähler, der gegen False Sharing mit benachbarten Feldern aufgefüllt ist.
+ *
+ * Producer und Stages veröffentlichen ihren Fortschritt über je eine Sequenz. Jede
+ * Sequenz wird nur von genau einem Thread geschrieben und von anderen gelesen.
+ */
+public final class Sequence extends SequenceValue {
+
+    // Auffüllung hinter dem Wert, damit er eine eigene Cache-Line belegt
+    @SuppressWarnings("unused")
+    private long p9, p10, p11, p12, p13, p14, p15;
+
+    /**
+     * Erstellt eine neue Sequenz mit dem angegebenen Startwert.
+     *
+     * @param initialValue Der Startwert
+     */
+    Sequence(long initialValue) {
+        VALUE.setRelease(this, initialValue);
+    }
+
+    /**
+     * Liest den aktuellen Wert mit Acquire-Semantik.
+     *
+     * @return Der aktuelle Wert
+     */
+    public long get() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    /**
+     * Veröffentlicht einen neuen Wert mit Release-Semantik.
+     *
+     * @param value Der neue Wert
+     */
+    void set(long value) {
+        VALUE.setRelease(this, value);
+    }
+}
+
+/**
+ * Auffüllung vor dem Wert einer {@link Sequence}.
+ */
+class SequencePadding {
+    @SuppressWarnings("unused")
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+/**
+ * Der eigentliche Wert einer {@link Sequence}.
+ */
+class SequenceValue extends SequencePadding {
+
+    static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    protected volatile long value;
+}
@@ -0,0 +1,23 @@
+package de.becke.vs.pattern.pipeline.ringbuffer;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Strategie, mit der ein Thread auf den Fortschritt eines anderen Threads wartet.
+ *
+ * Die Wahl der Strategie ist ein Kompromiss zwischen Latenz und CPU-Verbrauch:
+ * Aktives Warten reagiert am schnellsten, belegt aber einen Kern vollständig.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Wartet, bis die abhängige Sequenz mindestens den angegebenen Wert erreicht hat.
+     *
+     * @param sequence Der benötigte Wert
+     * @param dependency Die Sequenz, auf die gewartet wird
+     * @param running Liefert false, sobald das Warten abgebrochen werden soll
+     * @return Der höchste verfügbare Wert oder ein Wert kleiner als {@code sequence},
+     *         wenn das Warten abgebrochen wurde
+     */
+    long waitFor(long sequence, Sequence dependency, BooleanSupplier running);
+}
@@ -0,0 +1,145 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.async.AdaptiveConcurrencyLimiter;
+import de.becke.vs.pattern.pipeline.async.AsyncPipeline;
+import de.becke.vs.pattern.pipeline.async.AsyncPipelineStage;
+import de.becke.vs.pattern.pipeline.async.ConcurrencyLimitExceededException;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineRejectedException;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    public void testLimitGrowsWhileLatencyIsStable() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100);
+
+        for (int round = 0; round < 20; round++) {
+            saturate(limiter, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        assertTrue("Limit: " + limiter.getLimit(), limiter.getLimit() > 10);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testLimitShrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 1, 100);
+        saturate(limiter, TimeUnit.MILLISECONDS.toNanos(1));
+        int before = limiter.getLimit();
+
+        for (int round = 0; round < 5; round++) {
+            saturate(limiter, TimeUnit.MILLISECONDS.toNanos(20));
+        }
+
+        assertTrue("Limit: " + limiter.getLimit(), limiter.getLimit() < before);
+    }
+
+    @Test
+    public void testDroppedCallsBackOff() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 100);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.onDropped();
+        }
+
+        assertEquals(5, limiter.getLimit());
+        assertEquals(20, limiter.getDroppedCount());
+    }
+
+    @Test
+    public void testPipelineRejectsCallsAboveLimit() throws Exception {
+        CompletableFuture<String> gate = new CompletableFuture<>();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+        AsyncPipeline<String, String> pipeline = new AsyncPipeline<>("TestPipeline");
+        pipeline.addStage(new GatedStage(gate), limiter);
+
+        CompletableFuture<String> first = pipeline.executeAsync("a");
+        CompletableFuture<String> second = pipeline.executeAsync("b");
+
+        try {
+            pipeline.execute("c");
+            fail("ConcurrencyLimitExceededException expected");
+        } catch (ConcurrencyLimitExceededException e) {
+            assertTrue(e instanceof PipelineRejectedException);
+            assertEquals("GatedStage", e.getStageName());
+            assertEquals(2, e.getLimit());
+        }
+        assertEquals(1, limiter.getRejectedCount());
+        assertEquals(2, limiter.getInFlight());
+
+        gate.complete("!");
+        assertEquals("a!", first.get(5, TimeUnit.SECONDS));
+        assertEquals("b!", second.get(5, TimeUnit.SECONDS));
+        assertEquals(0, limiter.getInFlight());
+        assertSame(limiter, pipeline.getConcurrencyLimiter("GatedStage"));
+    }
+
+    @Test
+    public void testFailuresDoNotChangeLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(3, 1, 10);
+        AsyncPipeline<String, String> pipeline = new AsyncPipeline<>("TestPipeline");
+        pipeline.addStage(new FailingStage(), limiter);
+
+        for (int i = 0; i < 5; i++) {
+            try {
+                pipeline.execute("x");
+                fail("PipelineException expected");
+            } catch (PipelineException e) {
+                assertFalse(e instanceof PipelineRejectedException);
+            }
+        }
+
+        assertEquals(3, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * Schöpft das Limit aus und beendet alle Aufrufe mit der angegebenen Latenz.
+     */
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, long latencyNanos) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limiter.onSuccess(latencyNanos);
+        }
+    }
+
+    private static class GatedStage implements AsyncPipelineStage<String, String> {
+        private final CompletableFuture<String> gate;
+
+        GatedStage(CompletableFuture<String> gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public CompletableFuture<String> processAsync(String input, PipelineContext context) {
+            return gate.thenApply(suffix -> input + suffix);
+        }
+
+        @Override
+        public String getStageName() {
+            return "GatedStage";
+        }
+    }
+
+    private static class FailingStage implements AsyncPipelineStage<String, String> {
+        @Override
+        public CompletableFuture<String> processAsync(String input, PipelineContext context) {
+            return CompletableFuture.failedFuture(new PipelineException("Intentional error"));
+        }
+
+        @Override
+        public String getStageName() {
+            return "FailingStage";
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.distributed.BatchServiceEndpoint;
+import de.becke.vs.pattern.pipeline.distributed.BatchingServiceEndpoint;
+import de.becke.vs.pattern.pipeline.metrics.HistogramSnapshot;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BatchingServiceEndpointTest {
+
+    @Test
+    public void testConcurrentCallsAreBatched() throws Exception {
+        RecordingEndpoint delegate = new RecordingEndpoint(false);
+        try (BatchingServiceEndpoint<Integer, Integer> endpoint =
+                     new BatchingServiceEndpoint<>(delegate, 8, 50_000, 1)) {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(endpoint.invokeServiceAsync(i, new PipelineContext()));
+            }
+
+            for (int i = 0; i < 20; i++) {
+                assertEquals(Integer.valueOf(i * 10), futures.get(i).get(5, TimeUnit.SECONDS));
+            }
+
+            // 20 Aufrufe bei höchstens 8 pro Batch ergeben mindestens 3 Batches
+            assertTrue(delegate.batchSizes.size() >= 3);
+            for (int size : delegate.batchSizes) {
+                assertTrue(size <= 8);
+            }
+
+            HistogramSnapshot sizes = endpoint.getBatchSizes();
+            assertEquals(delegate.batchSizes.size(), sizes.getCount());
+            assertEquals(8, sizes.getMax());
+        }
+    }
+
+    @Test
+    public void testLingerSendsPartialBatch() throws Exception {
+        RecordingEndpoint delegate = new RecordingEndpoint(false);
+        try (BatchingServiceEndpoint<Integer, Integer> endpoint =
+                     new BatchingServiceEndpoint<>(delegate, 100, 1_000, 2)) {
+            assertEquals(Integer.valueOf(70), endpoint.invokeService(7, new PipelineContext()));
+            assertEquals(List.of(1), delegate.batchSizes);
+        }
+    }
+
+    @Test
+    public void testBatchFailureReachesEveryCaller() throws Exception {
+        RecordingEndpoint delegate = new RecordingEndpoint(true);
+        try (BatchingServiceEndpoint<Integer, Integer> endpoint =
+                     new BatchingServiceEndpoint<>(delegate, 4, 10_000, 1)) {
+            CompletableFuture<Integer> first = endpoint.invokeServiceAsync(1, new PipelineContext());
+            CompletableFuture<Integer> second = endpoint.invokeServiceAsync(2, new PipelineContext());
+
+            for (CompletableFuture<Integer> future : List.of(first, second)) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                    fail("ExecutionException expected");
+                } catch (ExecutionException e) {
+                    assertEquals("Intentional error", e.getCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private static class RecordingEndpoint implements BatchServiceEndpoint<Integer, Integer> {
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        private final boolean failing;
+
+        RecordingEndpoint(boolean failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public List<Integer> invokeBatch(List<Integer> inputs, List<PipelineContext> contexts) throws Exception {
+            batchSizes.add(inputs.size());
+            assertEquals(inputs.size(), contexts.size());
+            if (failing) {
+                throw new IllegalStateException("Intentional error");
+            }
+            // Simulierter Roundtrip
+            Thread.sleep(5);
+            List<Integer> results = new ArrayList<>(inputs.size());
+            for (Integer input : inputs) {
+                results.add(input * 10);
+            }
+            return results;
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "local://batch";
+        }
+    }
+}
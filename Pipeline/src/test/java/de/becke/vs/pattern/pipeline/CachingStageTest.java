@@ -0,0 +1,171 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.cache.CachingStage;
+import de.becke.vs.pattern.pipeline.core.Pipeline;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineStage;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CachingStageTest {
+
+    @Test
+    public void testRepeatedInputsHitCache() throws PipelineException {
+        CountingStage stage = new CountingStage(null);
+        CachingStage<Integer, Integer> caching = new CachingStage<>(stage, 100, Duration.ofMinutes(1));
+
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(caching);
+
+        assertEquals(Integer.valueOf(2), pipeline.execute(1));
+        assertEquals(Integer.valueOf(2), pipeline.execute(1));
+        assertEquals(Integer.valueOf(4), pipeline.execute(2));
+
+        assertEquals(2, stage.calls.get());
+        assertEquals(1, caching.getStatistics().hitCount());
+        assertEquals(2, caching.getStatistics().missCount());
+        assertEquals("CountingStage", caching.getStageName());
+    }
+
+    @Test
+    public void testConcurrentMissesRunStageOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingStage stage = new CountingStage(release);
+        CachingStage<Integer, Integer> caching = new CachingStage<>(stage);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> caching.process(21, new PipelineContext())));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<Integer> future : futures) {
+                assertEquals(Integer.valueOf(42), future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, stage.calls.get());
+    }
+
+    @Test
+    public void testConcurrentMissesShareStageError() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        FailingStage stage = new FailingStage(release);
+        CachingStage<Integer, Integer> caching = new CachingStage<>(stage);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> caching.process(1, new PipelineContext())));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<Integer> future : futures) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                    fail("PipelineException expected");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof PipelineException);
+                    assertEquals("Intentional error", e.getCause().getMessage());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, stage.calls.get());
+        assertEquals(0, caching.getSize());
+    }
+
+    @Test
+    public void testErrorsAreNotCached() {
+        FailingStage stage = new FailingStage(null);
+        CachingStage<Integer, Integer> caching = new CachingStage<>(stage);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                caching.process(1, new PipelineContext());
+                fail("PipelineException expected");
+            } catch (PipelineException e) {
+                assertEquals("Intentional error", e.getMessage());
+            }
+        }
+        assertEquals(2, stage.calls.get());
+        assertEquals(0, caching.getSize());
+    }
+
+    private static class CountingStage implements PipelineStage<Integer, Integer> {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch release;
+
+        CountingStage(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public Integer process(Integer input, PipelineContext context) throws PipelineException {
+            calls.incrementAndGet();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new PipelineException("Unterbrochen", e);
+                }
+            }
+            return input * 2;
+        }
+
+        @Override
+        public String getStageName() {
+            return "CountingStage";
+        }
+    }
+
+    private static class FailingStage implements PipelineStage<Integer, Integer> {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch release;
+
+        FailingStage(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public Integer process(Integer input, PipelineContext context) throws PipelineException {
+            calls.incrementAndGet();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            throw new PipelineException("Intentional error");
+        }
+
+        @Override
+        public String getStageName() {
+            return "FailingStage";
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.checkpoint.Checkpoint;
+import de.becke.vs.pattern.pipeline.checkpoint.InMemoryCheckpointStore;
+import de.becke.vs.pattern.pipeline.checkpoint.MappedFileCheckpointStore;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.distributed.DistributedPipeline;
+import de.becke.vs.pattern.pipeline.distributed.ServiceEndpoint;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CheckpointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testResumeSkipsFinishedStages() throws PipelineException {
+        InMemoryCheckpointStore store = new InMemoryCheckpointStore();
+        CountingEndpoint expensive = new CountingEndpoint("A");
+        FlakyEndpoint flaky = new FlakyEndpoint("B", 1);
+
+        DistributedPipeline<String, String> pipeline = new DistributedPipeline<String, String>("TestPipeline")
+                .registerStage("Expensive", expensive)
+                .registerStage("Flaky", flaky)
+                .registerStage("Last", new CountingEndpoint("C"))
+                .setCheckpointStore(store);
+
+        try {
+            pipeline.execute("x", "run-1");
+            fail("PipelineException expected");
+        } catch (PipelineException e) {
+            assertEquals("Fehler während der Verarbeitung in verteilter Stage 'Flaky'", e.getMessage());
+        }
+        assertEquals(1, store.size());
+
+        assertEquals("xABC", pipeline.resume("run-1"));
+        assertEquals(1, expensive.calls.get());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testResumeFromInputWhenFirstStageFailed() throws PipelineException {
+        InMemoryCheckpointStore store = new InMemoryCheckpointStore();
+        DistributedPipeline<String, String> pipeline = new DistributedPipeline<String, String>("TestPipeline")
+                .registerStage("Flaky", new FlakyEndpoint("A", 1))
+                .setCheckpointStore(store);
+
+        try {
+            pipeline.execute("x", "run-1");
+            fail("PipelineException expected");
+        } catch (PipelineException e) {
+            assertEquals(Checkpoint.INPUT_INDEX, store.load("run-1").getStageIndex());
+        }
+        assertEquals("xA", pipeline.resume("run-1"));
+    }
+
+    @Test
+    public void testExecuteWithoutExecutionIdWritesNoCheckpoints() {
+        InMemoryCheckpointStore store = new InMemoryCheckpointStore();
+        DistributedPipeline<String, String> pipeline = new DistributedPipeline<String, String>("TestPipeline")
+                .registerStage("A", new CountingEndpoint("A"))
+                .registerStage("Flaky", new FlakyEndpoint("B", 1))
+                .setCheckpointStore(store);
+
+        try {
+            pipeline.execute("x");
+            fail("PipelineException expected");
+        } catch (PipelineException e) {
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExecuteWithExecutionIdRejectsDagMode() throws PipelineException {
+        new DistributedPipeline<String, String>("TestPipeline")
+                .registerStage("A", new CountingEndpoint("A"), List.of(), null)
+                .setCheckpointStore(new InMemoryCheckpointStore())
+                .execute("x", "run-1");
+    }
+
+    @Test(expected = PipelineException.class)
+    public void testResumeWithoutCheckpointFails() throws PipelineException {
+        new DistributedPipeline<String, String>("TestPipeline")
+                .registerStage("A", new CountingEndpoint("A"))
+                .setCheckpointStore(new InMemoryCheckpointStore())
+                .resume("unknown");
+    }
+
+    @Test
+    public void testMappedStoreSurvivesReopen() throws Exception {
+        Path directory = folder.newFolder("checkpoints").toPath();
+        CountingEndpoint expensive = new CountingEndpoint("A");
+
+        try (MappedFileCheckpointStore store = new MappedFileCheckpointStore(directory)) {
+            DistributedPipeline<String, String> pipeline = new DistributedPipeline<String, String>("TestPipeline")
+                    .registerStage("Expensive", expensive)
+                    .registerStage("Broken", new FlakyEndpoint("B", Integer.MAX_VALUE))
+                    .setCheckpointStore(store);
+            try {
+                pipeline.execute("x", "run-1");
+                fail("PipelineException expected");
+            } catch (PipelineException e) {
+                // erwartet
+            }
+        }
+
+        try (MappedFileCheckpointStore store = new MappedFileCheckpointStore(directory)) {
+            Checkpoint checkpoint = store.load("run-1");
+            assertEquals(0, checkpoint.getStageIndex());
+            assertEquals("Expensive", checkpoint.getStageName());
+
+            DistributedPipeline<String, String> pipeline = new DistributedPipeline<String, String>("TestPipeline")
+                    .registerStage("Expensive", expensive)
+                    .registerStage("Fixed", new CountingEndpoint("B"))
+                    .setCheckpointStore(store);
+            assertEquals("xAB", pipeline.resume("run-1"));
+            assertEquals(1, expensive.calls.get());
+            assertNull(store.load("run-1"));
+        }
+
+        try (MappedFileCheckpointStore store = new MappedFileCheckpointStore(directory)) {
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    public void testMappedStoreRollsAndDeletesSegments() throws IOException {
+        Path directory = folder.newFolder("segments").toPath();
+        try (MappedFileCheckpointStore store = new MappedFileCheckpointStore(directory, 1024)) {
+            for (int i = 0; i < 50; i++) {
+                store.save(new Checkpoint("run-" + i, 0, "A", "value-" + i, i));
+            }
+            assertTrue(store.getSegmentCount() > 1);
+
+            for (int i = 0; i < 50; i++) {
+                assertEquals("value-" + i, store.load("run-" + i).getValue());
+                store.remove("run-" + i);
+            }
+            assertEquals(0, store.size());
+            assertEquals(1, store.getSegmentCount());
+        }
+        try (MappedFileCheckpointStore store = new MappedFileCheckpointStore(directory, 1024)) {
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    public void testMappedStoreCompactsSegmentsBehindLongLivedCheckpoint() throws IOException {
+        Path directory = folder.newFolder("compaction").toPath();
+        try (MappedFileCheckpointStore store = new MappedFileCheckpointStore(directory, 1024)) {
+            // Ein nie fortgesetzter Durchlauf im ältesten Segment
+            store.save(new Checkpoint("stuck", 1, "A", "kept", 0));
+            for (int i = 0; i < 200; i++) {
+                store.save(new Checkpoint("run-" + i, 0, "A", "value-" + i, i));
+                store.remove("run-" + i);
+            }
+            assertTrue(store.getSegmentCount() <= 2);
+            assertEquals("kept", store.load("stuck").getValue());
+        }
+        try (MappedFileCheckpointStore store = new MappedFileCheckpointStore(directory, 1024)) {
+            assertEquals(1, store.size());
+            assertEquals("kept", store.load("stuck").getValue());
+            assertEquals(1, store.load("stuck").getStageIndex());
+        }
+    }
+
+    @Test
+    public void testMappedStoreIgnoresTornRecord() throws IOException {
+        Path directory = folder.newFolder("torn").toPath();
+        try (MappedFileCheckpointStore store = new MappedFileCheckpointStore(directory, 4096)) {
+            store.save(new Checkpoint("run-1", 0, "A", "first", 1));
+            store.save(new Checkpoint("run-2", 0, "A", "second", 2));
+        }
+
+        // Prüfsumme des zweiten Datensatzes zerstören, als wäre das Schreiben abgebrochen
+        Path segment;
+        try (var files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, 0);
+            int second = 8 + length.flip().getInt();
+            channel.write(ByteBuffer.allocate(4).putInt(0, 42), second + 4);
+        }
+
+        try (MappedFileCheckpointStore store = new MappedFileCheckpointStore(directory, 4096)) {
+            assertEquals("first", store.load("run-1").getValue());
+            assertNull(store.load("run-2"));
+
+            store.save(new Checkpoint("run-3", 0, "A", "third", 3));
+        }
+        try (MappedFileCheckpointStore store = new MappedFileCheckpointStore(directory, 4096)) {
+            assertEquals("third", store.load("run-3").getValue());
+            assertEquals(2, store.size());
+        }
+    }
+
+    private static class CountingEndpoint implements ServiceEndpoint<String, String> {
+        private final String suffix;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        CountingEndpoint(String suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public String invokeService(String input, PipelineContext context) {
+            calls.incrementAndGet();
+            return input + suffix;
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "local://" + suffix;
+        }
+    }
+
+    /**
+     * Schlägt bei den ersten Aufrufen fehl.
+     */
+    private static class FlakyEndpoint implements ServiceEndpoint<String, String> {
+        private final String suffix;
+        private final AtomicInteger failures;
+
+        FlakyEndpoint(String suffix, int failures) {
+            this.suffix = suffix;
+            this.failures = new AtomicInteger(failures);
+        }
+
+        @Override
+        public String invokeService(String input, PipelineContext context) {
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("Dienst nicht erreichbar");
+            }
+            return input + suffix;
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "flaky://" + suffix;
+        }
+    }
+}
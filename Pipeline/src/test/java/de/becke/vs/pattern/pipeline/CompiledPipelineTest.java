@@ -0,0 +1,246 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.core.CompiledPipeline;
+import de.becke.vs.pattern.pipeline.core.ContextKey;
+import de.becke.vs.pattern.pipeline.core.Pipeline;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineStage;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompiledPipelineTest {
+
+    @Test
+    public void testCompiledResultMatchesExecute() throws PipelineException {
+        Pipeline<String, String> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new UpperCaseStage())
+                .addStage(new AppendStage("123"));
+
+        CompiledPipeline<String, String> compiled = pipeline.compile();
+
+        assertEquals(pipeline.execute("test"), compiled.execute("test"));
+        assertEquals("TEST123", compiled.execute("test"));
+    }
+
+    @Test
+    public void testCompiledPlanIsFrozen() throws PipelineException {
+        Pipeline<String, String> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new UpperCaseStage());
+
+        CompiledPipeline<String, String> compiled = pipeline.compile();
+        pipeline.addStage(new AppendStage("123"));
+
+        assertEquals("TEST", compiled.execute("test"));
+        assertEquals(Arrays.asList("UpperCaseStage"), compiled.getStageNames());
+    }
+
+    @Test
+    public void testErrorHandling() {
+        Pipeline<String, String> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new ErrorStage());
+
+        try {
+            pipeline.compile().execute("test");
+            fail("PipelineException expected");
+        } catch (PipelineException e) {
+            assertEquals("Fehler während der Verarbeitung in Stage 'ErrorStage'", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testPooledContextIsResetBetweenRuns() throws PipelineException {
+        Pipeline<String, String> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new CountingStage());
+
+        CompiledPipeline<String, String> compiled = pipeline.compile();
+
+        // Der Zähler darf keinen Zustand aus dem vorherigen Durchlauf sehen
+        assertEquals("1", compiled.execute("test"));
+        assertEquals("1", compiled.execute("test"));
+    }
+
+    @Test
+    public void testNestedExecutionUsesOwnContext() throws PipelineException {
+        Pipeline<String, String> inner = new Pipeline<>("InnerPipeline");
+        inner.addStage(new CountingStage());
+        CompiledPipeline<String, String> compiledInner = inner.compile();
+
+        Pipeline<String, String> outer = new Pipeline<>("OuterPipeline");
+        outer.addStage(new CountingStage())
+                .addStage(new NestedStage(compiledInner))
+                .addStage(new CountingStage());
+
+        // Der äußere Kontext zählt zweimal, der innere Durchlauf darf ihn nicht verändern
+        assertEquals("2", outer.compile().execute("test"));
+    }
+
+    @Test
+    public void testExecuteWithCallerContext() throws PipelineException {
+        Pipeline<String, String> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new CountingStage());
+
+        PipelineContext context = new PipelineContext("caller");
+        CompiledPipeline<String, String> compiled = pipeline.compile();
+
+        compiled.execute("test", context);
+        assertEquals("2", compiled.execute("test", context));
+    }
+
+    @Test
+    public void testExecutionIdsAreUniqueAcrossPlans() throws PipelineException {
+        Pipeline<String, String> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new ExecutionIdStage());
+
+        // Zwei Pläne derselben Pipeline beginnen beide mit dem ersten Durchlauf
+        String first = pipeline.compile().execute("test");
+        String second = pipeline.compile().execute("test");
+
+        assertTrue(first.startsWith("TestPipeline-"));
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    public void testDeclaredContextKeySharesSlotWithStringApi() throws PipelineException {
+        Pipeline<String, String> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new KeyedStage(ContextKey.of("test.seen", String.class)))
+                .addStage(new CountingStage());
+
+        PipelineContext context = new PipelineContext("caller");
+        CompiledPipeline<String, String> compiled = pipeline.compile();
+
+        assertEquals("1", compiled.execute("test", context));
+        assertEquals("test", context.getAttribute("test.seen"));
+        assertEquals("test", context.get(ContextKey.of("test.seen", String.class)));
+    }
+
+    @Test
+    public void testConflictingContextKeyTypesAreRejected() {
+        Pipeline<String, String> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new KeyedStage(ContextKey.of("test.seen", String.class)))
+                .addStage(new KeyedStage(ContextKey.of("test.seen", Object.class)));
+
+        try {
+            pipeline.compile();
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("test.seen"));
+        }
+    }
+
+    private static class UpperCaseStage implements PipelineStage<String, String> {
+        @Override
+        public String process(String input, PipelineContext context) {
+            return input.toUpperCase();
+        }
+
+        @Override
+        public String getStageName() {
+            return "UpperCaseStage";
+        }
+    }
+
+    private static class AppendStage implements PipelineStage<String, String> {
+        private final String suffix;
+
+        public AppendStage(String suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public String process(String input, PipelineContext context) {
+            return input + suffix;
+        }
+
+        @Override
+        public String getStageName() {
+            return "AppendStage";
+        }
+    }
+
+    private static class CountingStage implements PipelineStage<String, String> {
+        @Override
+        public String process(String input, PipelineContext context) {
+            Integer count = context.getAttribute("count", Integer.class);
+            int next = count == null ? 1 : count + 1;
+            context.setAttribute("count", next);
+            return String.valueOf(next);
+        }
+
+        @Override
+        public String getStageName() {
+            return "CountingStage";
+        }
+    }
+
+    private static class NestedStage implements PipelineStage<String, String> {
+        private final CompiledPipeline<String, String> inner;
+
+        public NestedStage(CompiledPipeline<String, String> inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public String process(String input, PipelineContext context) throws PipelineException {
+            return inner.execute(input);
+        }
+
+        @Override
+        public String getStageName() {
+            return "NestedStage";
+        }
+    }
+
+    private static class ExecutionIdStage implements PipelineStage<String, String> {
+        @Override
+        public String process(String input, PipelineContext context) {
+            return context.getExecutionId();
+        }
+
+        @Override
+        public String getStageName() {
+            return "ExecutionIdStage";
+        }
+    }
+
+    private static class KeyedStage implements PipelineStage<String, String> {
+        private final ContextKey<? super String> key;
+
+        public KeyedStage(ContextKey<? super String> key) {
+            this.key = key;
+        }
+
+        @Override
+        public String process(String input, PipelineContext context) {
+            context.setAttribute(key.getName(), input);
+            return input;
+        }
+
+        @Override
+        public String getStageName() {
+            return "KeyedStage";
+        }
+
+        @Override
+        public Collection<ContextKey<?>> getContextKeys() {
+            return List.of(key);
+        }
+    }
+
+    private static class ErrorStage implements PipelineStage<String, String> {
+        @Override
+        public String process(String input, PipelineContext context) throws PipelineException {
+            throw new PipelineException("Intentional error");
+        }
+
+        @Override
+        public String getStageName() {
+            return "ErrorStage";
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.distributed.AsyncServiceEndpoint;
+import de.becke.vs.pattern.pipeline.distributed.DistributedPipeline;
+import de.becke.vs.pattern.pipeline.distributed.ServiceEndpoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DistributedPipelineAsyncTest {
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testManyRunsInFlightWithoutBlockingThreads() throws Exception {
+        DistributedPipeline<String, String> pipeline = new DistributedPipeline<>("TestPipeline", executor);
+        pipeline.registerStage("A", new DelayedEndpoint("A", 100))
+                .registerStage("B", new DelayedEndpoint("B", 100));
+
+        // 200 Durchläufe mit je 200ms Dienstlatenz auf einem einzigen Thread
+        long start = System.nanoTime();
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(pipeline.executeAsync("x" + i));
+        }
+        for (int i = 0; i < 200; i++) {
+            assertEquals("x" + i + "AB", futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue("Aufrufe wurden blockierend ausgeführt: " + elapsedMillis + "ms", elapsedMillis < 2000);
+        assertEquals(200, pipeline.getMetrics().snapshot().getRuns().getInvocations());
+    }
+
+    @Test
+    public void testBlockingEndpointsRunOnExecutor() throws Exception {
+        DistributedPipeline<String, String> pipeline = new DistributedPipeline<>("TestPipeline", executor);
+        pipeline.registerStage("Async", new DelayedEndpoint("A", 10))
+                .registerStage("Blocking", new BlockingEndpoint("B"));
+
+        assertEquals("xAB", pipeline.executeAsync("x").get(5, TimeUnit.SECONDS));
+        assertEquals("xAB", pipeline.execute("x"));
+    }
+
+    @Test
+    public void testOwnExecutorRunsBlockingEndpointsAndIsClosed() throws Exception {
+        DistributedPipeline<String, String> pipeline = new DistributedPipeline<>("OwnPool");
+        pipeline.registerStage("Thread", new ThreadNameEndpoint());
+
+        assertTrue(pipeline.executeAsync("x").get(5, TimeUnit.SECONDS).startsWith("OwnPool-call-"));
+
+        pipeline.close();
+        try {
+            pipeline.executeAsync("x").get(5, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof PipelineException);
+        }
+    }
+
+    @Test
+    public void testDagModeRunsAsynchronously() throws Exception {
+        DistributedPipeline<String, String> pipeline = new DistributedPipeline<>("TestPipeline", executor);
+        pipeline.registerStage("Left", new DelayedEndpoint("L", 200), List.of(), null)
+                .registerStage("Right", new DelayedEndpoint("R", 200), List.of(), null)
+                .registerStage("Join", new DelayedEndpoint("J", 0), List.of("Left", "Right"),
+                        (inputs, context) -> inputs.get("Left") + "|" + inputs.get("Right"));
+
+        long start = System.nanoTime();
+        String result = pipeline.executeAsync("x").get(5, TimeUnit.SECONDS);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("xL|xRJ", result);
+        assertTrue("Stages liefen nicht parallel: " + elapsedMillis + "ms", elapsedMillis < 380);
+    }
+
+    @Test
+    public void testStageErrorCompletesFutureWithPipelineException() throws InterruptedException {
+        DistributedPipeline<String, String> pipeline = new DistributedPipeline<>("TestPipeline", executor);
+        pipeline.registerStage("Ok", new DelayedEndpoint("O", 0))
+                .registerStage("Broken", new FailingEndpoint())
+                .registerStage("Never", new DelayedEndpoint("N", 0));
+
+        try {
+            pipeline.executeAsync("x").get();
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof PipelineException);
+            assertEquals("Fehler während der Verarbeitung in verteilter Stage 'Broken'", e.getCause().getMessage());
+        }
+
+        try {
+            pipeline.execute("x");
+            fail("PipelineException expected");
+        } catch (PipelineException e) {
+            assertEquals("Fehler während der Verarbeitung in verteilter Stage 'Broken'", e.getMessage());
+        }
+        assertEquals(0, pipeline.getMetrics().snapshot().getStage("Never").getInvocations());
+    }
+
+    @Test
+    public void testAsyncEndpointBridgesBlockingCalls() throws Exception {
+        DelayedEndpoint endpoint = new DelayedEndpoint("A", 10);
+        assertEquals("xA", endpoint.invokeService("x", new PipelineContext()));
+
+        try {
+            new FailingEndpoint().invokeService("x", new PipelineContext());
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals("Dienst nicht erreichbar", e.getMessage());
+        }
+    }
+
+    /**
+     * Schließt jeden Aufruf nach einer Verzögerung auf dem Scheduler ab, ohne einen Thread zu belegen.
+     */
+    private class DelayedEndpoint implements AsyncServiceEndpoint<String, String> {
+        private final String suffix;
+        private final long delayMillis;
+
+        DelayedEndpoint(String suffix, long delayMillis) {
+            this.suffix = suffix;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public CompletableFuture<String> invokeServiceAsync(String input, PipelineContext context) {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            scheduler.schedule(() -> future.complete(input + suffix), delayMillis, TimeUnit.MILLISECONDS);
+            return future;
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "delayed://" + suffix;
+        }
+    }
+
+    private static class BlockingEndpoint implements ServiceEndpoint<String, String> {
+        private final String suffix;
+
+        BlockingEndpoint(String suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public String invokeService(String input, PipelineContext context) {
+            return input + suffix;
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "blocking://" + suffix;
+        }
+    }
+
+    private static class ThreadNameEndpoint implements ServiceEndpoint<String, String> {
+        @Override
+        public String invokeService(String input, PipelineContext context) {
+            return Thread.currentThread().getName();
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "thread://";
+        }
+    }
+
+    private static class FailingEndpoint implements AsyncServiceEndpoint<String, String> {
+        @Override
+        public CompletableFuture<String> invokeServiceAsync(String input, PipelineContext context) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Dienst nicht erreichbar"));
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "failing://";
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.distributed.DistributedPipeline;
+import de.becke.vs.pattern.pipeline.distributed.ServiceEndpoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class DistributedPipelineDagTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testIndependentStagesRunConcurrently() throws PipelineException {
+        DistributedPipeline<String, String> pipeline = new DistributedPipeline<>("TestPipeline", executor);
+        pipeline.registerStage("Left", new SlowEndpoint("L", 300), List.of(), null)
+                .registerStage("Right", new SlowEndpoint("R", 300), List.of(), null)
+                .registerStage("Join", new SlowEndpoint("J", 0), List.of("Left", "Right"),
+                        (inputs, context) -> inputs.get("Left") + "|" + inputs.get("Right"));
+
+        long start = System.nanoTime();
+        String result = pipeline.execute("x");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("xL|xRJ", result);
+        assertTrue("Stages liefen nicht parallel: " + elapsedMillis + "ms", elapsedMillis < 550);
+        assertTrue(pipeline.isDagMode());
+    }
+
+    @Test
+    public void testLinearStageAfterDagStageDependsOnPrevious() throws PipelineException {
+        DistributedPipeline<String, String> pipeline = new DistributedPipeline<>("TestPipeline", executor);
+        pipeline.registerStage("A", new SlowEndpoint("A", 0), List.of(), null)
+                .registerStage("B", new SlowEndpoint("B", 0));
+
+        assertEquals(List.of("A"), pipeline.getDependencies("B"));
+        assertEquals("xAB", pipeline.execute("x"));
+    }
+
+    @Test
+    public void testStageErrorFailsRun() {
+        DistributedPipeline<String, String> pipeline = new DistributedPipeline<>("TestPipeline", executor);
+        pipeline.registerStage("Ok", new SlowEndpoint("O", 0), List.of(), null)
+                .registerStage("Broken", new FailingEndpoint(), List.of(), null)
+                .registerStage("Join", new SlowEndpoint("J", 0), List.of("Ok", "Broken"),
+                        (inputs, context) -> inputs.toString());
+
+        try {
+            pipeline.execute("x");
+            fail("PipelineException expected");
+        } catch (PipelineException e) {
+            assertEquals("Fehler während der Verarbeitung in verteilter Stage 'Broken'", e.getMessage());
+        }
+        assertEquals(1, pipeline.getMetrics().snapshot().getRuns().getErrors());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownDependencyIsRejected() {
+        new DistributedPipeline<String, String>("TestPipeline", executor)
+                .registerStage("A", new SlowEndpoint("A", 0), List.of("Missing"), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMultipleDependenciesRequireMerger() {
+        new DistributedPipeline<String, String>("TestPipeline", executor)
+                .registerStage("A", new SlowEndpoint("A", 0), List.of(), null)
+                .registerStage("B", new SlowEndpoint("B", 0), List.of(), null)
+                .registerStage("C", new SlowEndpoint("C", 0), List.of("A", "B"), null);
+    }
+
+    @Test
+    public void testContextAcceptsConcurrentAttributesAndNullRemoves() {
+        PipelineContext context = new PipelineContext();
+        context.setAttribute("key", "value");
+        context.setAttribute("key", null);
+        assertNull(context.getAttribute("key"));
+        assertFalse(context.getAttributes().containsKey("key"));
+    }
+
+    private static class SlowEndpoint implements ServiceEndpoint<String, String> {
+        private final String suffix;
+        private final long delayMillis;
+
+        SlowEndpoint(String suffix, long delayMillis) {
+            this.suffix = suffix;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public String invokeService(String input, PipelineContext context) throws Exception {
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+            context.setAttribute("visited." + suffix, true);
+            return input + suffix;
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "local://" + suffix;
+        }
+    }
+
+    private static class FailingEndpoint implements ServiceEndpoint<String, String> {
+        @Override
+        public String invokeService(String input, PipelineContext context) throws Exception {
+            throw new IllegalStateException("Intentional error");
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "local://failing";
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.distributed.AsyncServiceEndpoint;
+import de.becke.vs.pattern.pipeline.distributed.DistributedPipeline;
+import de.becke.vs.pattern.pipeline.distributed.LoadBalancedServiceEndpoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LoadBalancedServiceEndpointTest {
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        scheduler = Executors.newScheduledThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testFasterEndpointIsPreferred() throws Exception {
+        DelayedEndpoint fast = new DelayedEndpoint("fast", 1);
+        DelayedEndpoint slow = new DelayedEndpoint("slow", 20);
+        LoadBalancedServiceEndpoint<String, String> pool =
+                new LoadBalancedServiceEndpoint<>("Pool", List.of(fast, slow), executor);
+
+        for (int i = 0; i < 100; i++) {
+            pool.invokeServiceAsync("x", new PipelineContext()).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(100, fast.calls.get() + slow.calls.get());
+        assertTrue("Langsamer Endpunkt zu oft gewählt: " + slow.calls.get(), slow.calls.get() < 25);
+        assertTrue(pool.getEwmaLatencyNanos(1) > pool.getEwmaLatencyNanos(0));
+    }
+
+    @Test
+    public void testHedgingCutsTailLatency() throws Exception {
+        // Jeder 50. Aufruf hängt, unabhängig vom Endpunkt
+        AtomicInteger sequence = new AtomicInteger();
+        LoadBalancedServiceEndpoint<String, String> pool = new LoadBalancedServiceEndpoint<>("Pool",
+                List.of(new StallingEndpoint("a", sequence), new StallingEndpoint("b", sequence)), executor);
+
+        // Aufwärmen, damit ein 95. Perzentil vorliegt
+        for (int i = 0; i < 40; i++) {
+            pool.invokeServiceAsync("x", new PipelineContext()).get(5, TimeUnit.SECONDS);
+        }
+        assertTrue(pool.getHedgeDelayNanos() > 0);
+        assertTrue(pool.getHedgeDelayNanos() < TimeUnit.MILLISECONDS.toNanos(100));
+
+        pool.setHedging(true);
+        long worst = 0;
+        for (int i = 0; i < 100; i++) {
+            long start = System.nanoTime();
+            assertTrue(pool.invokeServiceAsync("x", new PipelineContext()).get(5, TimeUnit.SECONDS).startsWith("x"));
+            worst = Math.max(worst, System.nanoTime() - start);
+        }
+        pool.close();
+
+        assertTrue(pool.getHedgedCalls() > 0);
+        assertTrue(pool.getHedgeWins() > 0);
+        assertTrue("Langsamster Aufruf: " + TimeUnit.NANOSECONDS.toMillis(worst) + "ms",
+                worst < TimeUnit.MILLISECONDS.toNanos(250));
+    }
+
+    @Test
+    public void testErrorIsReportedWhenNoOtherAttemptRuns() throws InterruptedException, TimeoutException {
+        LoadBalancedServiceEndpoint<String, String> pool = new LoadBalancedServiceEndpoint<>("Pool",
+                List.of(new FailingEndpoint(), new FailingEndpoint()), executor).setHedging(true);
+
+        try {
+            pool.invokeServiceAsync("x", new PipelineContext()).get(5, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertEquals("Dienst nicht erreichbar", e.getCause().getMessage());
+        }
+        pool.close();
+    }
+
+    @Test
+    public void testPipelineStageBackedByPool() throws PipelineException {
+        DistributedPipeline<String, String> pipeline = new DistributedPipeline<>("TestPipeline", executor);
+        pipeline.registerStage("Pooled", List.of(new DelayedEndpoint("A", 0), new DelayedEndpoint("A", 0)));
+
+        assertEquals("xA", pipeline.execute("x"));
+        assertTrue(pipeline.getEndpoint("Pooled") instanceof LoadBalancedServiceEndpoint);
+        assertEquals("Pooled", pipeline.getEndpoint("Pooled").getEndpointAddress());
+    }
+
+    @Test
+    public void testPipelineClosesPoolsItCreated() throws Exception {
+        DistributedPipeline<String, String> pipeline = new DistributedPipeline<>("TestPipeline", executor);
+        pipeline.registerStage("Pooled", List.of(new DelayedEndpoint("A", 0), new DelayedEndpoint("A", 0)), true);
+        LoadBalancedServiceEndpoint<?, ?> pool = (LoadBalancedServiceEndpoint<?, ?>) pipeline.getEndpoint("Pooled");
+        assertTrue(pool.isHedging());
+
+        pipeline.close();
+
+        // Ohne Scheduler laufen Aufrufe ohne Absicherung weiter
+        assertFalse(pool.isHedging());
+        assertEquals("xA", pipeline.executeAsync("x").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCallsSurviveConcurrentClose() throws Exception {
+        DelayedEndpoint a = new DelayedEndpoint("A", 0);
+        DelayedEndpoint b = new DelayedEndpoint("A", 0);
+        for (int round = 0; round < 20; round++) {
+            LoadBalancedServiceEndpoint<String, String> pool =
+                    new LoadBalancedServiceEndpoint<>("Pool", List.of(a, b), executor);
+            for (int i = 0; i < 25; i++) {
+                pool.invokeServiceAsync("x", new PipelineContext()).get(5, TimeUnit.SECONDS);
+            }
+            pool.setHedging(true);
+
+            CompletableFuture<Void> closer = CompletableFuture.runAsync(pool::close, executor);
+            for (int i = 0; i < 50; i++) {
+                assertEquals("xA", pool.invokeServiceAsync("x", new PipelineContext()).get(5, TimeUnit.SECONDS));
+            }
+            closer.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private class DelayedEndpoint implements AsyncServiceEndpoint<String, String> {
+        private final String suffix;
+        private final long delayMillis;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        DelayedEndpoint(String suffix, long delayMillis) {
+            this.suffix = suffix;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public CompletableFuture<String> invokeServiceAsync(String input, PipelineContext context) {
+            calls.incrementAndGet();
+            CompletableFuture<String> future = new CompletableFuture<>();
+            scheduler.schedule(() -> future.complete(input + suffix), delayMillis, TimeUnit.MILLISECONDS);
+            return future;
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "delayed://" + suffix;
+        }
+    }
+
+    private class StallingEndpoint implements AsyncServiceEndpoint<String, String> {
+        private final String suffix;
+        private final AtomicInteger sequence;
+
+        StallingEndpoint(String suffix, AtomicInteger sequence) {
+            this.suffix = suffix;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public CompletableFuture<String> invokeServiceAsync(String input, PipelineContext context) {
+            long delayMillis = sequence.incrementAndGet() % 50 == 0 ? 500 : 2;
+            CompletableFuture<String> future = new CompletableFuture<>();
+            scheduler.schedule(() -> future.complete(input + suffix), delayMillis, TimeUnit.MILLISECONDS);
+            return future;
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "stalling://" + suffix;
+        }
+    }
+
+    private static class FailingEndpoint implements AsyncServiceEndpoint<String, String> {
+        @Override
+        public CompletableFuture<String> invokeServiceAsync(String input, PipelineContext context) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Dienst nicht erreichbar"));
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "failing://";
+        }
+    }
+}
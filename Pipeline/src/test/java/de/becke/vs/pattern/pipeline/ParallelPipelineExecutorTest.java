@@ -0,0 +1,169 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.core.BatchPipelineStage;
+import de.becke.vs.pattern.pipeline.core.BatchResult;
+import de.becke.vs.pattern.pipeline.core.Pipeline;
+import de.becke.vs.pattern.pipeline.core.ParallelPipelineExecutor;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineStage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelPipelineExecutorTest {
+
+    @Test
+    public void testOutputOrderIsPreserved() {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new AddStage(1))
+                .addStage(new DoubleBatchStage());
+
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            inputs.add(i);
+        }
+
+        try (ParallelPipelineExecutor<Integer, Integer> executor =
+                     new ParallelPipelineExecutor<>(pipeline.compile(), 4)) {
+            BatchResult<Integer> result = executor.execute(inputs);
+
+            assertFalse(result.hasFailures());
+            assertEquals(inputs.size(), result.getResults().size());
+            for (int i = 0; i < inputs.size(); i++) {
+                assertEquals(Integer.valueOf((i + 1) * 2), result.getResults().get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testFailuresAreReportedPerElement() {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new AddStage(1))
+                .addStage(new FailOnMultipleStage(10))
+                .addStage(new DoubleBatchStage());
+
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            inputs.add(i);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            BatchResult<Integer> result = pipeline.executeParallel(inputs, pool);
+
+            // Elemente 9, 19, ..., 99 werden nach der ersten Stage zu Vielfachen von 10
+            assertEquals(10, result.getFailures().size());
+            for (int i = 0; i < inputs.size(); i++) {
+                if ((i + 1) % 10 == 0) {
+                    assertFalse(result.isSuccess(i));
+                    assertNull(result.getResults().get(i));
+                    assertEquals("FailOnMultipleStage", result.getFailures().get(i).getStageName());
+                } else {
+                    assertEquals(Integer.valueOf((i + 1) * 2), result.getResults().get(i));
+                }
+            }
+            assertTrue(result.getContext().hasError());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailingBatchStageFallsBackToSingleElements() {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new StrictBatchStage());
+
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            inputs.add(i);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            BatchResult<Integer> result = new ParallelPipelineExecutor<>(pipeline.compile(), pool, 5)
+                    .execute(inputs);
+
+            assertEquals(1, result.getFailures().size());
+            assertFalse(result.isSuccess(7));
+            assertEquals(Integer.valueOf(3), result.getResults().get(3));
+            assertEquals(Integer.valueOf(4), result.getContext().getAttribute("pipeline.chunks"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static class AddStage implements PipelineStage<Integer, Integer> {
+        private final int value;
+
+        public AddStage(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public Integer process(Integer input, PipelineContext context) {
+            return input + value;
+        }
+
+        @Override
+        public String getStageName() {
+            return "AddStage";
+        }
+    }
+
+    private static class DoubleBatchStage implements BatchPipelineStage<Integer, Integer> {
+        @Override
+        public List<Integer> processBatch(List<Integer> inputs, PipelineContext context) {
+            List<Integer> results = new ArrayList<>(inputs.size());
+            for (Integer input : inputs) {
+                results.add(input * 2);
+            }
+            return results;
+        }
+
+        @Override
+        public String getStageName() {
+            return "DoubleBatchStage";
+        }
+    }
+
+    private static class FailOnMultipleStage implements PipelineStage<Integer, Integer> {
+        private final int divisor;
+
+        public FailOnMultipleStage(int divisor) {
+            this.divisor = divisor;
+        }
+
+        @Override
+        public Integer process(Integer input, PipelineContext context) throws PipelineException {
+            if (input % divisor == 0) {
+                throw new PipelineException("Intentional error");
+            }
+            return input;
+        }
+
+        @Override
+        public String getStageName() {
+            return "FailOnMultipleStage";
+        }
+    }
+
+    private static class StrictBatchStage implements BatchPipelineStage<Integer, Integer> {
+        @Override
+        public List<Integer> processBatch(List<Integer> inputs, PipelineContext context) throws PipelineException {
+            if (inputs.contains(7)) {
+                throw new PipelineException("Element 7 ist ungültig");
+            }
+            return new ArrayList<>(inputs);
+        }
+
+        @Override
+        public String getStageName() {
+            return "StrictBatchStage";
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.async.AsyncPipeline;
+import de.becke.vs.pattern.pipeline.async.AsyncPipelineStage;
+import de.becke.vs.pattern.pipeline.async.OverflowPolicy;
+import de.becke.vs.pattern.pipeline.async.StageQueueConfig;
+import de.becke.vs.pattern.pipeline.async.StagedAsyncPipeline;
+import de.becke.vs.pattern.pipeline.core.BatchResult;
+import de.becke.vs.pattern.pipeline.core.Pipeline;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.distributed.DistributedPipeline;
+import de.becke.vs.pattern.pipeline.payload.AsyncPayloadStage;
+import de.becke.vs.pattern.pipeline.payload.BufferPool;
+import de.becke.vs.pattern.pipeline.payload.Payload;
+import de.becke.vs.pattern.pipeline.payload.PayloadServiceEndpoint;
+import de.becke.vs.pattern.pipeline.payload.PayloadStage;
+import de.becke.vs.pattern.pipeline.reactive.ReactivePipeline;
+import io.reactivex.rxjava3.core.Flowable;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PayloadTest {
+
+    @Test
+    public void testSliceSharesMemory() {
+        byte[] bytes = "HEADER:body".getBytes(StandardCharsets.US_ASCII);
+        Payload payload = Payload.wrap(bytes);
+        Payload body = payload.slice(7, 4);
+
+        body.putByte(0, (byte) 'B');
+
+        assertEquals("Body", body.toString(StandardCharsets.US_ASCII));
+        assertEquals('B', bytes[7]);
+        assertEquals(4, body.buffer().remaining());
+    }
+
+    @Test
+    public void testReleasedPayloadReturnsToPool() {
+        BufferPool pool = new BufferPool();
+        Payload first = pool.acquire(100);
+        Payload slice = first.slice(10, 10);
+        slice.retain();
+
+        assertFalse(first.release());
+        assertEquals(0, pool.getPooledCount());
+        assertTrue(slice.release());
+        assertEquals(1, pool.getPooledCount());
+
+        try {
+            first.getByte(0);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals("Payload wurde bereits freigegeben", e.getMessage());
+        }
+
+        // Gleiche Größenklasse: der Puffer wird wiederverwendet
+        Payload second = pool.acquire(200);
+        assertEquals(1, pool.getAllocatedCount());
+        assertEquals(1, pool.getReusedCount());
+        second.release();
+    }
+
+    @Test
+    public void testPipelineReleasesRunBuffers() throws PipelineException {
+        BufferPool pool = new BufferPool();
+        Pipeline<Payload, Payload> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new UpperCaseStage())
+                .addStage(new FrameStage(pool))
+                .addStage(new StripHeaderStage());
+
+        for (int i = 0; i < 3; i++) {
+            Payload result = pipeline.execute(Payload.wrap("hallo welt".getBytes(StandardCharsets.US_ASCII)));
+
+            assertEquals("HALLO WELT", result.toString(StandardCharsets.US_ASCII));
+            assertEquals(1, result.refCount());
+            assertEquals(0, pool.getPooledCount());
+            result.release();
+            assertEquals(1, pool.getPooledCount());
+        }
+        assertEquals(1, pool.getAllocatedCount());
+    }
+
+    @Test
+    public void testFailedRunReleasesBuffers() {
+        BufferPool pool = new BufferPool();
+        Pipeline<Payload, Payload> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new FrameStage(pool))
+                .addStage(new FailingStage());
+
+        try {
+            pipeline.execute(Payload.wrap(new byte[16]));
+            fail("PipelineException expected");
+        } catch (PipelineException e) {
+            assertEquals(1, pool.getPooledCount());
+        }
+    }
+
+    @Test
+    public void testCompiledPipelineReleasesRunBuffers() throws PipelineException {
+        BufferPool pool = new BufferPool();
+        Pipeline<Payload, Payload> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new FrameStage(pool))
+                .addStage(new StripHeaderStage());
+
+        Payload result = pipeline.compile().execute(Payload.wrap("abc".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("abc", result.toString(StandardCharsets.US_ASCII));
+        result.release();
+        assertEquals(1, pool.getPooledCount());
+    }
+
+    @Test
+    public void testAsyncPipelineReleasesRunBuffers() {
+        BufferPool pool = new BufferPool();
+        AsyncPipeline<Payload, Payload> pipeline = new AsyncPipeline<>("TestPipeline");
+        pipeline.addStage(new AsyncFrameStage(pool));
+
+        Payload result = pipeline.executeAsync(Payload.wrap("abc".getBytes(StandardCharsets.US_ASCII))).join();
+        assertEquals("#abc", result.toString(StandardCharsets.US_ASCII));
+        assertEquals(0, pool.getPooledCount());
+        result.release();
+        assertEquals(1, pool.getPooledCount());
+    }
+
+    @Test
+    public void testDistributedPipelineReleasesRunBuffers() throws Exception {
+        BufferPool pool = new BufferPool();
+        DistributedPipeline<Payload, Payload> pipeline = new DistributedPipeline<>("TestPipeline");
+        pipeline.registerStage("Echo", new EchoEndpoint(pool))
+                .registerStage("Strip", new StripEndpoint());
+
+        Payload result = pipeline.execute(Payload.wrap("abc".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("abc", result.toString(StandardCharsets.US_ASCII));
+        result.release();
+
+        result = pipeline.executeAsync(Payload.wrap("xyz".getBytes(StandardCharsets.US_ASCII))).get();
+        assertEquals("xyz", result.toString(StandardCharsets.US_ASCII));
+        result.release();
+
+        assertEquals(1, pool.getAllocatedCount());
+        assertEquals(1, pool.getPooledCount());
+    }
+
+    @Test
+    public void testParallelExecutionReleasesChunkBuffers() {
+        BufferPool pool = new BufferPool();
+        Pipeline<Payload, Payload> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new FrameStage(pool))
+                .addStage(new StripHeaderStage());
+
+        List<Payload> inputs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            inputs.add(Payload.wrap(("abc" + i).getBytes(StandardCharsets.US_ASCII)));
+        }
+
+        ForkJoinPool forkJoinPool = new ForkJoinPool(2);
+        try {
+            BatchResult<Payload> result = pipeline.executeParallel(inputs, forkJoinPool);
+            assertTrue(result.getFailures().isEmpty());
+
+            // Die Ergebnisse halten ihre Puffer noch
+            assertEquals(0, pool.getPooledCount());
+            for (int i = 0; i < 8; i++) {
+                Payload output = result.getResults().get(i);
+                assertEquals("abc" + i, output.toString(StandardCharsets.US_ASCII));
+                output.release();
+            }
+            assertEquals(pool.getAllocatedCount(), pool.getPooledCount());
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Test
+    public void testDagKeepsBuffersUntilSiblingsFinished() throws Exception {
+        BufferPool pool = new BufferPool();
+        CountDownLatch proceed = new CountDownLatch(1);
+        CompletableFuture<String> seen = new CompletableFuture<>();
+        try (DistributedPipeline<Payload, Payload> pipeline = new DistributedPipeline<>("TestPipeline")) {
+            pipeline.registerStage("Echo", new EchoEndpoint(pool), List.of(), null)
+                    .registerStage("Broken", new FailingEndpoint(), List.of("Echo"), null)
+                    .registerStage("Slow", new BlockingReadEndpoint(proceed, seen), List.of("Echo"), null);
+
+            try {
+                pipeline.executeAsync(Payload.wrap("abc".getBytes(StandardCharsets.US_ASCII))).get(5, TimeUnit.SECONDS);
+                fail("ExecutionException expected");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof PipelineException);
+            }
+
+            // Der Puffer gehört noch der laufenden Stage "Slow"
+            assertEquals(0, pool.getPooledCount());
+            proceed.countDown();
+            assertEquals("#abc", seen.get(5, TimeUnit.SECONDS));
+            awaitPooled(pool, 1);
+        }
+    }
+
+    @Test
+    public void testStagedPipelineReleasesRunBuffers() throws Exception {
+        BufferPool pool = new BufferPool();
+        AsyncPipeline<Payload, Payload> pipeline = new AsyncPipeline<>("TestPipeline");
+        pipeline.addStage(new AsyncFrameStage(pool));
+
+        try (StagedAsyncPipeline<Payload, Payload> staged = new StagedAsyncPipeline<>(pipeline,
+                new StageQueueConfig(4, 1, OverflowPolicy.BLOCK))) {
+            Payload result = staged.executeAsync(Payload.wrap("abc".getBytes(StandardCharsets.US_ASCII)))
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals("#abc", result.toString(StandardCharsets.US_ASCII));
+            assertEquals(0, pool.getPooledCount());
+            result.release();
+            assertEquals(1, pool.getPooledCount());
+        }
+    }
+
+    @Test
+    public void testReactivePipelineKeepsBuffersOfAbandonedElements() throws Exception {
+        BufferPool pool = new BufferPool();
+        CountDownLatch acquired = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        CompletableFuture<String> seen = new CompletableFuture<>();
+        ReactivePipeline<String, Payload> pipeline = new ReactivePipeline<String, Payload>("TestPipeline")
+                .addStage(new AcquireOrFailStage(pool, acquired, proceed, seen), null, 2)
+                .setPreserveOrder(false);
+
+        try {
+            pipeline.execute(Flowable.just("slow", "bad")).toList().blockingGet();
+            fail("PipelineException expected");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof PipelineException);
+        }
+
+        // Das verlassene Element "slow" liest seinen Puffer noch
+        assertEquals(0, pool.getPooledCount());
+        proceed.countDown();
+        assertEquals("abc", seen.get(5, TimeUnit.SECONDS));
+        awaitPooled(pool, 1);
+    }
+
+    private static void awaitPooled(BufferPool pool, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getPooledCount() != expected) {
+            assertTrue("Puffer wurde nicht freigegeben", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Wandelt ASCII-Kleinbuchstaben in-place in Großbuchstaben um.
+     */
+    private static class UpperCaseStage implements PayloadStage {
+        @Override
+        public Payload process(Payload input, PipelineContext context) {
+            for (int i = 0; i < input.length(); i++) {
+                byte b = input.getByte(i);
+                if (b >= 'a' && b <= 'z') {
+                    input.putByte(i, (byte) (b - 32));
+                }
+            }
+            return input;
+        }
+
+        @Override
+        public String getStageName() {
+            return "UpperCaseStage";
+        }
+    }
+
+    /**
+     * Schreibt die Eingabe mit einem Header-Byte in einen Puffer aus dem Pool.
+     */
+    private static class FrameStage implements PayloadStage {
+        private final BufferPool pool;
+
+        FrameStage(BufferPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public Payload process(Payload input, PipelineContext context) {
+            return frame(pool, input, context);
+        }
+
+        @Override
+        public String getStageName() {
+            return "FrameStage";
+        }
+    }
+
+    private static class StripHeaderStage implements PayloadStage {
+        @Override
+        public Payload process(Payload input, PipelineContext context) {
+            return input.slice(1, input.length() - 1);
+        }
+
+        @Override
+        public String getStageName() {
+            return "StripHeaderStage";
+        }
+    }
+
+    private static class FailingStage implements PayloadStage {
+        @Override
+        public Payload process(Payload input, PipelineContext context) throws PipelineException {
+            throw new PipelineException("Intentional error");
+        }
+
+        @Override
+        public String getStageName() {
+            return "FailingStage";
+        }
+    }
+
+    private static class AsyncFrameStage implements AsyncPayloadStage {
+        private final BufferPool pool;
+
+        AsyncFrameStage(BufferPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public CompletableFuture<Payload> processAsync(Payload input, PipelineContext context) {
+            return CompletableFuture.supplyAsync(() -> frame(pool, input, context));
+        }
+
+        @Override
+        public String getStageName() {
+            return "AsyncFrameStage";
+        }
+    }
+
+    private static class EchoEndpoint implements PayloadServiceEndpoint {
+        private final BufferPool pool;
+
+        EchoEndpoint(BufferPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public Payload invokeService(Payload input, PipelineContext context) {
+            return frame(pool, input, context);
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "local://echo";
+        }
+    }
+
+    private static class StripEndpoint implements PayloadServiceEndpoint {
+        @Override
+        public Payload invokeService(Payload input, PipelineContext context) {
+            return input.slice(1, input.length() - 1);
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "local://strip";
+        }
+    }
+
+    private static class FailingEndpoint implements PayloadServiceEndpoint {
+        @Override
+        public Payload invokeService(Payload input, PipelineContext context) throws PipelineException {
+            throw new PipelineException("Intentional error");
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "local://broken";
+        }
+    }
+
+    /**
+     * Wartet auf die Freigabe durch den Test und liest danach die Eingabe.
+     */
+    private static class BlockingReadEndpoint implements PayloadServiceEndpoint {
+        private final CountDownLatch proceed;
+        private final CompletableFuture<String> seen;
+
+        BlockingReadEndpoint(CountDownLatch proceed, CompletableFuture<String> seen) {
+            this.proceed = proceed;
+            this.seen = seen;
+        }
+
+        @Override
+        public Payload invokeService(Payload input, PipelineContext context) throws InterruptedException {
+            proceed.await();
+            try {
+                seen.complete(input.toString(StandardCharsets.US_ASCII));
+            } catch (RuntimeException e) {
+                seen.completeExceptionally(e);
+                throw e;
+            }
+            return input;
+        }
+
+        @Override
+        public String getEndpointAddress() {
+            return "local://slow";
+        }
+    }
+
+    /**
+     * Schlägt für "bad" fehl, sobald das andere Element seinen Puffer belegt hat. Alle
+     * anderen Elemente warten mit dem Puffer auf die Freigabe durch den Test.
+     */
+    private static class AcquireOrFailStage implements AsyncPipelineStage<String, Payload> {
+        private final BufferPool pool;
+        private final CountDownLatch acquired;
+        private final CountDownLatch proceed;
+        private final CompletableFuture<String> seen;
+
+        AcquireOrFailStage(BufferPool pool, CountDownLatch acquired, CountDownLatch proceed,
+                           CompletableFuture<String> seen) {
+            this.pool = pool;
+            this.acquired = acquired;
+            this.proceed = proceed;
+            this.seen = seen;
+        }
+
+        @Override
+        public CompletableFuture<Payload> processAsync(String input, PipelineContext context) {
+            return CompletableFuture.supplyAsync(() -> {
+                if (input.equals("bad")) {
+                    try {
+                        acquired.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IllegalStateException("Intentional error");
+                }
+                try {
+                    Payload payload = pool.acquire(3, context);
+                    payload.buffer().put("abc".getBytes(StandardCharsets.US_ASCII));
+                    acquired.countDown();
+                    proceed.await();
+                    seen.complete(payload.toString(StandardCharsets.US_ASCII));
+                    return payload;
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } catch (RuntimeException e) {
+                    seen.completeExceptionally(e);
+                    throw e;
+                }
+            });
+        }
+
+        @Override
+        public String getStageName() {
+            return "AcquireOrFailStage";
+        }
+    }
+
+    private static Payload frame(BufferPool pool, Payload input, PipelineContext context) {
+        Payload framed = pool.acquire(input.length() + 1, context);
+        ByteBuffer target = framed.buffer();
+        target.put((byte) '#').put(input.buffer());
+        return framed;
+    }
+}
@@ -0,0 +1,162 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.core.BatchPipelineStage;
+import de.becke.vs.pattern.pipeline.core.Pipeline;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineStage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PipelineBatchTest {
+
+    @Test
+    public void testExecuteBatchWithSingleElementStages() throws PipelineException {
+        Pipeline<String, String> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new UpperCaseStage())
+                .addStage(new AppendStage("!"));
+
+        List<String> results = pipeline.executeBatch(Arrays.asList("a", "b", "c"));
+        assertEquals(Arrays.asList("A!", "B!", "C!"), results);
+    }
+
+    @Test
+    public void testExecuteBatchIsStageMajor() throws PipelineException {
+        List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+        Pipeline<String, String> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new RecordingBatchStage("first", calls))
+                .addStage(new RecordingBatchStage("second", calls));
+
+        List<String> results = pipeline.executeBatch(Arrays.asList("a", "b"));
+
+        // Jede Batch-Stage wird genau einmal mit dem gesamten Batch aufgerufen
+        assertEquals(Arrays.asList("first:2", "second:2"), calls);
+        assertEquals(Arrays.asList("a", "b"), results);
+    }
+
+    @Test
+    public void testExecuteBatchMixesBatchAndSingleStages() throws PipelineException {
+        List<String> calls = new ArrayList<>();
+
+        Pipeline<String, String> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new UpperCaseStage())
+                .addStage(new RecordingBatchStage("batch", calls))
+                .addStage(new AppendStage("1"));
+
+        List<String> results = pipeline.executeBatch(Arrays.asList("x", "y", "z"));
+
+        assertEquals(Arrays.asList("X1", "Y1", "Z1"), results);
+        assertEquals(Collections.singletonList("batch:3"), calls);
+    }
+
+    @Test
+    public void testBatchStageAsSingleStage() throws PipelineException {
+        List<String> calls = new ArrayList<>();
+
+        Pipeline<String, String> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new RecordingBatchStage("batch", calls));
+
+        assertEquals("a", pipeline.execute("a"));
+        assertEquals(Collections.singletonList("batch:1"), calls);
+    }
+
+    @Test
+    public void testExecuteBatchErrorNamesStageAndElement() {
+        Pipeline<String, String> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new FailOnStage("b"));
+
+        try {
+            pipeline.executeBatch(Arrays.asList("a", "b", "c"));
+            fail("PipelineException expected");
+        } catch (PipelineException e) {
+            assertEquals("Fehler während der Verarbeitung in Stage 'FailOnStage' bei Element 1", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testExecuteBatchWithEmptyInput() throws PipelineException {
+        Pipeline<String, String> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new UpperCaseStage());
+
+        assertTrue(pipeline.executeBatch(Collections.emptyList()).isEmpty());
+    }
+
+    private static class UpperCaseStage implements PipelineStage<String, String> {
+        @Override
+        public String process(String input, PipelineContext context) {
+            return input.toUpperCase();
+        }
+
+        @Override
+        public String getStageName() {
+            return "UpperCaseStage";
+        }
+    }
+
+    private static class AppendStage implements PipelineStage<String, String> {
+        private final String suffix;
+
+        public AppendStage(String suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public String process(String input, PipelineContext context) {
+            return input + suffix;
+        }
+
+        @Override
+        public String getStageName() {
+            return "AppendStage";
+        }
+    }
+
+    private static class RecordingBatchStage implements BatchPipelineStage<String, String> {
+        private final String name;
+        private final List<String> calls;
+
+        public RecordingBatchStage(String name, List<String> calls) {
+            this.name = name;
+            this.calls = calls;
+        }
+
+        @Override
+        public List<String> processBatch(List<String> inputs, PipelineContext context) {
+            calls.add(name + ":" + inputs.size());
+            return new ArrayList<>(inputs);
+        }
+
+        @Override
+        public String getStageName() {
+            return name;
+        }
+    }
+
+    private static class FailOnStage implements PipelineStage<String, String> {
+        private final String failingInput;
+
+        public FailOnStage(String failingInput) {
+            this.failingInput = failingInput;
+        }
+
+        @Override
+        public String process(String input, PipelineContext context) throws PipelineException {
+            if (failingInput.equals(input)) {
+                throw new PipelineException("Intentional error");
+            }
+            return input;
+        }
+
+        @Override
+        public String getStageName() {
+            return "FailOnStage";
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.core.ContextKey;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PipelineContextTest {
+
+    private static final ContextKey<Integer> RETRIES = ContextKey.of("test.retries", Integer.class);
+
+    @Test
+    public void testTypedKeySharesSlotWithStringApi() {
+        PipelineContext context = new PipelineContext();
+        context.set(RETRIES, 3);
+
+        assertEquals(Integer.valueOf(3), context.get(RETRIES));
+        assertEquals(3, context.getAttribute("test.retries"));
+
+        context.setAttribute("test.retries", 4);
+        assertEquals(Integer.valueOf(4), context.get(RETRIES));
+
+        assertEquals(Integer.valueOf(4), context.remove(RETRIES));
+        assertNull(context.getAttribute("test.retries"));
+    }
+
+    @Test
+    public void testStringApiAcceptsAnyTypeForKnownName() {
+        PipelineContext context = new PipelineContext();
+        context.setAttribute("pipeline.name", 42);
+        context.setAttribute("test.retries", "drei");
+
+        assertEquals(42, context.getAttribute("pipeline.name"));
+        assertEquals("drei", context.getAttribute("test.retries"));
+
+        // Über den typisierten Schlüssel ist ein Wert anderen Typs nicht sichtbar
+        assertNull(context.get(ContextKey.PIPELINE_NAME));
+        assertNull(context.get(RETRIES));
+    }
+
+    @Test
+    public void testKeysWithSameNameAndTypeAreEqual() {
+        assertEquals(RETRIES, ContextKey.of("test.retries", Integer.class));
+        assertNotEquals(RETRIES, ContextKey.of("test.retries", String.class));
+
+        PipelineContext context = new PipelineContext();
+        context.set(ContextKey.of("test.retries", Integer.class), 5);
+        assertEquals(Integer.valueOf(5), context.get(RETRIES));
+    }
+
+    @Test
+    public void testKeyCreatedAfterContextStillWorks() {
+        PipelineContext context = new PipelineContext();
+        ContextKey<String> late = ContextKey.of("test.late", String.class);
+
+        context.set(late, "spät");
+        assertEquals("spät", context.get(late));
+        assertEquals("spät", context.getAttributes().get("test.late"));
+    }
+
+    @Test
+    public void testAttributeViewIsLiveAndReadOnly() {
+        PipelineContext context = new PipelineContext();
+        Map<String, Object> view = context.getAttributes();
+        assertTrue(view.isEmpty());
+
+        context.set(ContextKey.PIPELINE_NAME, "TestPipeline");
+        context.setAttribute("custom", 42);
+
+        assertEquals(2, view.size());
+        assertTrue(view.containsKey("pipeline.name"));
+        assertEquals(42, view.get("custom"));
+        assertEquals(Set.of("pipeline.name", "custom"), new HashSet<>(view.keySet()));
+
+        try {
+            view.put("custom", 43);
+            fail("UnsupportedOperationException expected");
+        } catch (UnsupportedOperationException e) {
+            assertEquals(42, context.getAttribute("custom"));
+        }
+    }
+
+    @Test
+    public void testNullKeysAndValues() {
+        PipelineContext context = new PipelineContext();
+        assertNull(context.getAttribute(null));
+        assertNull(context.getAttribute(null, String.class));
+        assertNull(context.removeAttribute(null));
+
+        // Ein null-Wert entfernt das Attribut auch aus der Sicht auf alle Attribute
+        context.setAttribute("custom", 42);
+        context.setAttribute("custom", null);
+        assertNull(context.getAttribute("custom"));
+        assertFalse(context.getAttributes().containsKey("custom"));
+        assertTrue(context.getAttributes().isEmpty());
+
+        try {
+            context.setAttribute(null, 42);
+            fail("NullPointerException expected");
+        } catch (NullPointerException e) {
+            assertTrue(context.getAttributes().isEmpty());
+        }
+    }
+
+    @Test
+    public void testExecutionIdsAreUnique() {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(new PipelineContext().getExecutionId());
+        }
+        assertEquals(1000, ids.size());
+    }
+
+    @Test
+    public void testResetWithSequence() {
+        PipelineContext context = new PipelineContext("fest");
+        context.set(RETRIES, 1);
+        context.setAttribute("custom", "x");
+        context.incrementAttemptCount();
+
+        context.reset("TestPipeline-", 7);
+
+        assertEquals("TestPipeline-7", context.getExecutionId());
+        assertTrue(context.getAttributes().isEmpty());
+        assertEquals(1, context.getAttemptCount());
+    }
+}
@@ -0,0 +1,173 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.async.AsyncPipeline;
+import de.becke.vs.pattern.pipeline.async.AsyncPipelineStage;
+import de.becke.vs.pattern.pipeline.core.BatchResult;
+import de.becke.vs.pattern.pipeline.core.CompiledPipeline;
+import de.becke.vs.pattern.pipeline.core.FusablePipelineStage;
+import de.becke.vs.pattern.pipeline.core.Pipeline;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.metrics.Histogram;
+import de.becke.vs.pattern.pipeline.metrics.HistogramSnapshot;
+import de.becke.vs.pattern.pipeline.metrics.PipelineMetricsSnapshot;
+import de.becke.vs.pattern.pipeline.metrics.StageMetricsSnapshot;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class PipelineMetricsTest {
+
+    @Test
+    public void testHistogramPercentilesWithinRelativeError() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(100_000, snapshot.getMax());
+        assertEquals(50_000, snapshot.getP50(), 50_000 * 0.04);
+        assertEquals(99_000, snapshot.getP99(), 99_000 * 0.04);
+        assertEquals(99_900, snapshot.getP999(), 99_900 * 0.04);
+        assertEquals(50_000.5, snapshot.getMean(), 0.001);
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        HistogramSnapshot snapshot = new Histogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getP99());
+        assertEquals(0.0, snapshot.getMean(), 0.0);
+    }
+
+    @Test
+    public void testPipelineRecordsRunsStagesAndErrors() {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new AddStage("A"))
+                .addStage(new FailOnNegativeStage());
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                pipeline.execute(i - 2);
+            } catch (PipelineException e) {
+                // erwartet für negative Eingaben
+            }
+        }
+
+        PipelineMetricsSnapshot snapshot = pipeline.getMetrics().snapshot();
+        assertEquals(3, snapshot.getRuns().getInvocations());
+        assertEquals(1, snapshot.getRuns().getErrors());
+        assertEquals(0, snapshot.getRuns().getInFlight());
+
+        assertEquals(2, snapshot.getStages().size());
+        assertEquals(3, snapshot.getStage("A").getInvocations());
+        StageMetricsSnapshot failing = snapshot.getStage("FailOnNegativeStage");
+        assertEquals(3, failing.getInvocations());
+        assertEquals(1, failing.getErrors());
+        assertTrue(failing.getMax() >= failing.getP50());
+    }
+
+    @Test
+    public void testParallelExecutionRecordsRunPerElement() {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new AddStage("A"))
+                .addStage(new FailOnNegativeStage());
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            BatchResult<Integer> result = pipeline.executeParallel(List.of(-3, -2, -1, 0, 1, 2), pool);
+            assertEquals(2, result.getFailures().size());
+        } finally {
+            pool.shutdown();
+        }
+
+        PipelineMetricsSnapshot snapshot = pipeline.getMetrics().snapshot();
+        assertEquals(6, snapshot.getRuns().getInvocations());
+        assertEquals(2, snapshot.getRuns().getErrors());
+        assertEquals(0, snapshot.getRuns().getInFlight());
+
+        assertEquals(6, snapshot.getStage("A").getInvocations());
+        assertEquals(6, snapshot.getStage("FailOnNegativeStage").getInvocations());
+        assertEquals(2, snapshot.getStage("FailOnNegativeStage").getErrors());
+    }
+
+    @Test
+    public void testFusedStagesRecordUnderOriginalNames() throws PipelineException {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new AddStage("A"))
+                .addStage(new AddStage("B"));
+
+        CompiledPipeline<Integer, Integer> compiled = pipeline.compile(true);
+        compiled.execute(1);
+        compiled.execute(2);
+
+        PipelineMetricsSnapshot snapshot = compiled.getMetrics().snapshot();
+        assertNull(snapshot.getStage("A+B"));
+        assertEquals(2, snapshot.getStage("A").getInvocations());
+        assertEquals(2, snapshot.getStage("B").getInvocations());
+        assertEquals(2, snapshot.getRuns().getInvocations());
+    }
+
+    @Test
+    public void testAsyncPipelineRecordsStages() throws PipelineException {
+        AsyncPipeline<String, String> pipeline = new AsyncPipeline<>("TestPipeline");
+        pipeline.addStage(new AsyncUpperCaseStage());
+
+        assertEquals("TEST", pipeline.execute("test"));
+
+        PipelineMetricsSnapshot snapshot = pipeline.getMetrics().snapshot();
+        assertEquals(1, snapshot.getRuns().getInvocations());
+        assertEquals(1, snapshot.getStage("AsyncUpperCaseStage").getInvocations());
+    }
+
+    private static class AddStage implements FusablePipelineStage<Integer, Integer> {
+        private final String name;
+
+        public AddStage(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Integer process(Integer input, PipelineContext context) {
+            return input + 1;
+        }
+
+        @Override
+        public String getStageName() {
+            return name;
+        }
+    }
+
+    private static class FailOnNegativeStage implements FusablePipelineStage<Integer, Integer> {
+        @Override
+        public Integer process(Integer input, PipelineContext context) throws PipelineException {
+            if (input < 0) {
+                throw new PipelineException("Intentional error");
+            }
+            return input;
+        }
+
+        @Override
+        public String getStageName() {
+            return "FailOnNegativeStage";
+        }
+    }
+
+    private static class AsyncUpperCaseStage implements AsyncPipelineStage<String, String> {
+        @Override
+        public CompletableFuture<String> processAsync(String input, PipelineContext context) {
+            return CompletableFuture.completedFuture(input.toUpperCase());
+        }
+
+        @Override
+        public String getStageName() {
+            return "AsyncUpperCaseStage";
+        }
+    }
+}
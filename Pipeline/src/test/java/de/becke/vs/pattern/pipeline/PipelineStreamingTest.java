@@ -0,0 +1,194 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.core.Pipeline;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineStage;
+import de.becke.vs.pattern.pipeline.core.UncheckedPipelineException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class PipelineStreamingTest {
+
+    @Test
+    public void testStreamIsLazy() {
+        CountingStage counting = new CountingStage();
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(counting);
+
+        // Unbeschränkte Eingabe: Nur die angeforderten Elemente dürfen verarbeitet werden
+        List<Integer> results = pipeline.executeStream(Stream.iterate(0, i -> i + 1))
+                .limit(5)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(0, 2, 4, 6, 8), results);
+        assertEquals(5, counting.calls.get());
+    }
+
+    @Test
+    public void testIteratorProcessesOnNext() {
+        CountingStage counting = new CountingStage();
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(counting);
+
+        Iterator<Integer> results = pipeline.executeIterator(List.of(1, 2, 3).iterator());
+        assertEquals(0, counting.calls.get());
+        assertEquals(Integer.valueOf(2), results.next());
+        assertEquals(1, counting.calls.get());
+    }
+
+    @Test
+    public void testStreamWrapsErrors() {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new FailOnThreeStage());
+
+        try {
+            pipeline.executeStream(Stream.of(1, 2, 3, 4)).collect(Collectors.toList());
+            fail("UncheckedPipelineException expected");
+        } catch (UncheckedPipelineException e) {
+            assertEquals("Fehler während der Verarbeitung in Stage 'FailOnThreeStage'", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testPublisherForwardsDemand() throws InterruptedException {
+        CountingStage counting = new CountingStage();
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(counting);
+
+        RangePublisher source = new RangePublisher(100);
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        pipeline.executePublisher(source).subscribe(subscriber);
+
+        subscriber.subscription.request(3);
+        assertEquals(List.of(0, 2, 4), subscriber.results);
+        assertEquals(3, source.requested.get());
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(100, subscriber.results.size());
+        assertEquals(100, counting.calls.get());
+    }
+
+    @Test
+    public void testPublisherCancelsUpstreamOnError() throws InterruptedException {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new FailOnThreeStage());
+
+        RangePublisher source = new RangePublisher(10);
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        pipeline.executePublisher(source).subscribe(subscriber);
+        subscriber.subscription.request(10);
+
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof PipelineException);
+        assertTrue(source.cancelled);
+        assertEquals(List.of(0, 1, 2), subscriber.results);
+    }
+
+    /**
+     * Ein synchroner Publisher, der 0 bis count - 1 nur auf Anforderung liefert.
+     */
+    private static class RangePublisher implements Flow.Publisher<Integer> {
+        private final int count;
+        private final AtomicLong requested = new AtomicLong();
+        private volatile boolean cancelled;
+
+        RangePublisher(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super Integer> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                private int next;
+
+                @Override
+                public void request(long n) {
+                    requested.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+                    for (long i = 0; i < n && next < count && !cancelled; i++) {
+                        subscriber.onNext(next++);
+                    }
+                    if (next == count && !cancelled) {
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<Integer> {
+        private final List<Integer> results = new ArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            results.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    private static class CountingStage implements PipelineStage<Integer, Integer> {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Integer process(Integer input, PipelineContext context) {
+            calls.incrementAndGet();
+            return input * 2;
+        }
+
+        @Override
+        public String getStageName() {
+            return "CountingStage";
+        }
+    }
+
+    private static class FailOnThreeStage implements PipelineStage<Integer, Integer> {
+        @Override
+        public Integer process(Integer input, PipelineContext context) throws PipelineException {
+            if (input == 3) {
+                throw new PipelineException("Intentional error");
+            }
+            return input;
+        }
+
+        @Override
+        public String getStageName() {
+            return "FailOnThreeStage";
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.async.AsyncPipeline;
+import de.becke.vs.pattern.pipeline.async.AsyncPipelineStage;
+import de.becke.vs.pattern.pipeline.async.PriorityStageScheduler;
+import de.becke.vs.pattern.pipeline.core.DeadlineExceededException;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PriorityStageSchedulerTest {
+
+    @Test
+    public void testOrdersByPriorityThenDeadline() throws Exception {
+        try (PriorityStageScheduler scheduler = new PriorityStageScheduler("TestScheduler", 1)) {
+            CountDownLatch gate = blockWorker(scheduler);
+            List<String> order = Collections.synchronizedList(new ArrayList<>());
+            long now = System.currentTimeMillis();
+
+            List<CompletableFuture<String>> futures = Arrays.asList(
+                    record(scheduler, order, "bulk", 0, 0),
+                    record(scheduler, order, "interactive-late", 10, now + 60_000),
+                    record(scheduler, order, "bulk-deadline", 0, now + 30_000),
+                    record(scheduler, order, "interactive-early", 10, now + 10_000));
+            gate.countDown();
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+            assertEquals(Arrays.asList("interactive-early", "interactive-late", "bulk-deadline", "bulk"), order);
+        }
+    }
+
+    @Test
+    public void testExpiredWorkIsDroppedBeforeStart() throws Exception {
+        try (PriorityStageScheduler scheduler = new PriorityStageScheduler("TestScheduler", 1)) {
+            CountDownLatch gate = blockWorker(scheduler);
+            AtomicInteger invocations = new AtomicInteger();
+            AsyncPipeline<String, String> pipeline = new AsyncPipeline<>("TestPipeline");
+            pipeline.addStage(new CountingStage(invocations)).setScheduler(scheduler);
+
+            PipelineContext context = new PipelineContext();
+            context.setDeadline(System.currentTimeMillis() + 50);
+            CompletableFuture<String> future = pipeline.executeAsync("x", context);
+
+            Thread.sleep(100);
+            gate.countDown();
+
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("DeadlineExceededException expected");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause().getCause() instanceof DeadlineExceededException);
+            }
+            assertEquals(0, invocations.get());
+            assertEquals(1, scheduler.getExpiredCount());
+            assertTrue(context.getError() instanceof DeadlineExceededException);
+        }
+    }
+
+    @Test
+    public void testExpiredWorkIsPurgedWhileWorkersAreBusy() throws Exception {
+        try (PriorityStageScheduler scheduler = new PriorityStageScheduler("TestScheduler", 1)) {
+            CountDownLatch gate = blockWorker(scheduler);
+            PipelineContext urgent = new PipelineContext();
+            urgent.setDeadline(System.currentTimeMillis() + 50);
+            CompletableFuture<Object> expiring = scheduler.schedule(urgent, "Urgent",
+                    () -> CompletableFuture.completedFuture("urgent"));
+            CompletableFuture<Object> waiting = scheduler.schedule(new PipelineContext(), "Bulk",
+                    () -> CompletableFuture.completedFuture("bulk"));
+
+            // Der Worker ist noch belegt, die Frist wird trotzdem gemeldet
+            try {
+                expiring.get(5, TimeUnit.SECONDS);
+                fail("DeadlineExceededException expected");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof DeadlineExceededException);
+            }
+            assertEquals(1, scheduler.getQueueSize());
+            assertEquals(1, scheduler.getExpiredCount());
+
+            gate.countDown();
+            assertEquals("bulk", waiting.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testPipelineSkipsStagesAfterDeadlineWithoutScheduler() throws Exception {
+        AtomicInteger invocations = new AtomicInteger();
+        AsyncPipeline<String, String> pipeline = new AsyncPipeline<>("TestPipeline");
+        pipeline.addStage(new CountingStage(invocations));
+
+        PipelineContext context = new PipelineContext();
+        context.setDeadline(System.currentTimeMillis() - 1);
+
+        try {
+            pipeline.executeAsync("x", context).get(5, TimeUnit.SECONDS);
+            fail("DeadlineExceededException expected");
+        } catch (ExecutionException e) {
+            DeadlineExceededException cause = (DeadlineExceededException) e.getCause().getCause();
+            assertEquals("CountingStage", cause.getStageName());
+        }
+        assertEquals(0, invocations.get());
+    }
+
+    @Test
+    public void testScheduledPipelineRunsStages() throws Exception {
+        try (PriorityStageScheduler scheduler = new PriorityStageScheduler("TestScheduler", 2)) {
+            AtomicInteger invocations = new AtomicInteger();
+            AsyncPipeline<String, String> pipeline = new AsyncPipeline<>("TestPipeline");
+            pipeline.addStage(new CountingStage(invocations))
+                    .addStage(new CountingStage(invocations))
+                    .setScheduler(scheduler);
+
+            PipelineContext context = new PipelineContext();
+            context.setPriority(5);
+            context.setDeadline(System.currentTimeMillis() + 60_000);
+
+            assertEquals("x!!", pipeline.executeAsync("x", context).get(5, TimeUnit.SECONDS));
+            assertEquals(2, invocations.get());
+            assertEquals(2, scheduler.getExecutedCount());
+        }
+    }
+
+    /**
+     * Belegt den einzigen Worker, bis der zurückgegebene Latch geöffnet wird.
+     */
+    private static CountDownLatch blockWorker(PriorityStageScheduler scheduler) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        scheduler.schedule(new PipelineContext(), "Blocker", () -> {
+            started.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return gate;
+    }
+
+    private static CompletableFuture<String> record(PriorityStageScheduler scheduler, List<String> order,
+                                                    String label, int priority, long deadline) {
+        PipelineContext context = new PipelineContext();
+        context.setPriority(priority);
+        context.setDeadline(deadline);
+        return scheduler.schedule(context, label, () -> {
+            order.add(label);
+            return CompletableFuture.completedFuture(label);
+        });
+    }
+
+    private static class CountingStage implements AsyncPipelineStage<String, String> {
+        private final AtomicInteger invocations;
+
+        CountingStage(AtomicInteger invocations) {
+            this.invocations = invocations;
+        }
+
+        @Override
+        public CompletableFuture<String> processAsync(String input, PipelineContext context) {
+            invocations.incrementAndGet();
+            return CompletableFuture.completedFuture(input + "!");
+        }
+
+        @Override
+        public String getStageName() {
+            return "CountingStage";
+        }
+    }
+}
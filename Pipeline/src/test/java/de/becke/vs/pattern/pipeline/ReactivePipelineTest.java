@@ -0,0 +1,196 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.async.AsyncPipeline;
+import de.becke.vs.pattern.pipeline.async.AsyncPipelineStage;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.metrics.PipelineMetricsSnapshot;
+import de.becke.vs.pattern.pipeline.metrics.StageMetricsSnapshot;
+import de.becke.vs.pattern.pipeline.reactive.ReactivePipeline;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ReactivePipelineTest {
+
+    @Test
+    public void testStagesOfAsyncPipeline() throws Exception {
+        AsyncPipeline<String, String> asyncPipeline = new AsyncPipeline<>("TestPipeline");
+        asyncPipeline.addStage(new UpperCaseStage())
+                .addStage(new AppendStage("!"));
+
+        ReactivePipeline<String, String> pipeline = new ReactivePipeline<>(asyncPipeline);
+
+        assertEquals("TEST!", pipeline.executeAsync("test").get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("A!", "B!"), pipeline.execute(Flowable.just("a", "b")).toList().blockingGet());
+        assertEquals(3, pipeline.getMetrics().snapshot().getStage("AppendStage").getInvocations());
+    }
+
+    @Test
+    public void testOrderPreservedWithConcurrentScheduler() {
+        ReactivePipeline<Integer, Integer> pipeline = new ReactivePipeline<Integer, Integer>("TestPipeline")
+                .addStage(new JitterStage(), Schedulers.io(), 8);
+
+        List<Integer> results = pipeline.execute(Flowable.range(0, 200)).toList().blockingGet();
+
+        assertEquals(200, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(Integer.valueOf(i), results.get(i));
+        }
+    }
+
+    @Test
+    public void testBackpressureLimitsRequestedInputs() {
+        AtomicInteger emitted = new AtomicInteger();
+        ReactivePipeline<Integer, Integer> pipeline = new ReactivePipeline<Integer, Integer>("TestPipeline")
+                .addStage(new JitterStage(), null, 2)
+                .setPrefetch(4);
+
+        TestSubscriber<Integer> subscriber = pipeline
+                .execute(Flowable.range(0, 1_000_000).doOnNext(i -> emitted.incrementAndGet()))
+                .test(0);
+        subscriber.request(3);
+        subscriber.awaitCount(3);
+
+        subscriber.assertValues(0, 1, 2);
+        assertTrue("Zu viele Eingaben angefordert: " + emitted.get(), emitted.get() < 100);
+        subscriber.cancel();
+    }
+
+    @Test
+    public void testBufferedResults() {
+        ReactivePipeline<Integer, Integer> pipeline = new ReactivePipeline<Integer, Integer>("TestPipeline")
+                .addStage(new JitterStage());
+
+        List<List<Integer>> batches = pipeline
+                .executeBuffered(Flowable.range(0, 10), 4, 1, TimeUnit.SECONDS)
+                .toList().blockingGet();
+
+        assertEquals(List.of(List.of(0, 1, 2, 3), List.of(4, 5, 6, 7), List.of(8, 9)), batches);
+    }
+
+    @Test
+    public void testStageErrorEndsFlow() {
+        ReactivePipeline<String, String> pipeline = new ReactivePipeline<String, String>("TestPipeline")
+                .addStage(new ErrorStage());
+
+        pipeline.execute(Flowable.just("a", "b")).test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertError(e -> e instanceof PipelineException
+                        && "Fehler während der Verarbeitung in Stage 'ErrorStage'".equals(e.getMessage())
+                        && "Intentional error".equals(e.getCause().getMessage()));
+    }
+
+    @Test
+    public void testCancelledElementsLeaveNoRunsInFlight() throws Exception {
+        ReactivePipeline<Integer, Integer> pipeline = new ReactivePipeline<Integer, Integer>("TestPipeline")
+                .addStage(new JitterStage(), Schedulers.io(), 8)
+                .setPreserveOrder(false);
+
+        assertEquals(3, pipeline.execute(Flowable.range(0, 100)).take(3).toList().blockingGet().size());
+        assertEquals(Integer.valueOf(7), pipeline.executeAsync(7).get(5, TimeUnit.SECONDS));
+
+        StageMetricsSnapshot runs = pipeline.getMetrics().snapshot().getRuns();
+        assertEquals(0, runs.getInFlight());
+        assertEquals(runs.getInvocations() - 4, runs.getErrors());
+    }
+
+    @Test
+    public void testNullFutureFailsStage() {
+        ReactivePipeline<String, String> pipeline = new ReactivePipeline<String, String>("TestPipeline")
+                .addStage(new NullFutureStage());
+
+        pipeline.execute(Flowable.just("a")).test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertError(e -> e instanceof PipelineException && e.getCause() instanceof NullPointerException);
+
+        PipelineMetricsSnapshot snapshot = pipeline.getMetrics().snapshot();
+        assertEquals(1, snapshot.getStage("NullFutureStage").getErrors());
+        assertEquals(0, snapshot.getStage("NullFutureStage").getInFlight());
+        assertEquals(0, snapshot.getRuns().getInFlight());
+    }
+
+    private static class NullFutureStage implements AsyncPipelineStage<String, String> {
+        @Override
+        public CompletableFuture<String> processAsync(String input, PipelineContext context) {
+            return null;
+        }
+
+        @Override
+        public String getStageName() {
+            return "NullFutureStage";
+        }
+    }
+
+    private static class UpperCaseStage implements AsyncPipelineStage<String, String> {
+        @Override
+        public CompletableFuture<String> processAsync(String input, PipelineContext context) {
+            return CompletableFuture.completedFuture(input.toUpperCase());
+        }
+
+        @Override
+        public String getStageName() {
+            return "UpperCaseStage";
+        }
+    }
+
+    private static class AppendStage implements AsyncPipelineStage<String, String> {
+        private final String suffix;
+
+        public AppendStage(String suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public CompletableFuture<String> processAsync(String input, PipelineContext context) {
+            return CompletableFuture.completedFuture(input + suffix);
+        }
+
+        @Override
+        public String getStageName() {
+            return "AppendStage";
+        }
+    }
+
+    private static class JitterStage implements AsyncPipelineStage<Integer, Integer> {
+        @Override
+        public CompletableFuture<Integer> processAsync(Integer input, PipelineContext context) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(2));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return input;
+            });
+        }
+
+        @Override
+        public String getStageName() {
+            return "JitterStage";
+        }
+    }
+
+    private static class ErrorStage implements AsyncPipelineStage<String, String> {
+        @Override
+        public CompletableFuture<String> processAsync(String input, PipelineContext context) {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("Intentional error"));
+            return future;
+        }
+
+        @Override
+        public String getStageName() {
+            return "ErrorStage";
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.core.Pipeline;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineStage;
+import de.becke.vs.pattern.pipeline.ringbuffer.BusySpinWaitStrategy;
+import de.becke.vs.pattern.pipeline.ringbuffer.ParkingWaitStrategy;
+import de.becke.vs.pattern.pipeline.ringbuffer.ResultHandler;
+import de.becke.vs.pattern.pipeline.ringbuffer.RingBufferPipeline;
+import de.becke.vs.pattern.pipeline.ringbuffer.WaitStrategy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RingBufferPipelineTest {
+
+    @Test
+    public void testResultsArriveInOrderWithParking() throws InterruptedException {
+        assertResultsInOrder(new ParkingWaitStrategy(), 10_000);
+    }
+
+    @Test
+    public void testResultsArriveInOrderWithBusySpin() throws InterruptedException {
+        assertResultsInOrder(new BusySpinWaitStrategy(), 1_000);
+    }
+
+    @Test
+    public void testErrorsAreReportedWithStageName() throws InterruptedException {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new AddStage(1))
+                .addStage(new FailOnEvenStage())
+                .addStage(new AddStage(1));
+
+        CollectingHandler handler = new CollectingHandler(4);
+        try (RingBufferPipeline<Integer, Integer> ring =
+                     new RingBufferPipeline<>(pipeline, 4, new ParkingWaitStrategy(), handler)) {
+            for (int i = 0; i < 4; i++) {
+                ring.publish(i);
+            }
+            assertTrue(handler.done.await(5, TimeUnit.SECONDS));
+        }
+
+        // 0 -> 1 -> 2, 1 -> 2 (Fehler), 2 -> 3 -> 4, 3 -> 4 (Fehler)
+        assertEquals(List.of(2, 4), handler.results);
+        assertEquals(2, handler.errors.size());
+        assertEquals("Fehler während der Verarbeitung in Stage 'FailOnEvenStage'", handler.errors.get(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPublishAfterCloseFails() {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new AddStage(1));
+
+        RingBufferPipeline<Integer, Integer> ring =
+                new RingBufferPipeline<>(pipeline, 4, new ParkingWaitStrategy(), new CollectingHandler(0));
+        ring.close();
+        ring.publish(1);
+    }
+
+    @Test
+    public void testErrorsDoNotStopStageThreads() throws InterruptedException {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new AssertOnEvenStage());
+
+        // Der Handler wirft beim ersten Ergebnis selbst einen Error
+        CollectingHandler handler = new CollectingHandler(8) {
+            @Override
+            public void onResult(Integer output, PipelineContext context) {
+                super.onResult(output, context);
+                if (output == 1) {
+                    throw new AssertionError("Intentional handler error");
+                }
+            }
+        };
+        // Mehr Elemente als Slots: Der Producer wartet auf die Stage
+        try (RingBufferPipeline<Integer, Integer> ring =
+                     new RingBufferPipeline<>(pipeline, 2, new ParkingWaitStrategy(), handler)) {
+            for (int i = 0; i < 8; i++) {
+                ring.publish(i);
+            }
+            assertTrue(handler.done.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(List.of(1, 3, 5, 7), handler.results);
+        assertEquals(4, handler.errors.size());
+        assertEquals("Fehler während der Verarbeitung in Stage 'AssertOnEvenStage'", handler.errors.get(0));
+    }
+
+    private void assertResultsInOrder(WaitStrategy waitStrategy, int count) throws InterruptedException {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new AddStage(1))
+                .addStage(new AddStage(10))
+                .addStage(new AddStage(100));
+
+        CollectingHandler handler = new CollectingHandler(count);
+        // Ein kleiner Puffer erzwingt, dass der Producer auf freie Slots warten muss
+        try (RingBufferPipeline<Integer, Integer> ring =
+                     new RingBufferPipeline<>(pipeline, 16, waitStrategy, handler)) {
+            for (int i = 0; i < count; i++) {
+                ring.publish(i);
+            }
+            assertTrue(handler.done.await(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(count, handler.results.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(Integer.valueOf(i + 111), handler.results.get(i));
+        }
+    }
+
+    private static class CollectingHandler implements ResultHandler<Integer> {
+        private final List<Integer> results = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch done;
+
+        CollectingHandler(int expected) {
+            this.done = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onResult(Integer output, PipelineContext context) {
+            results.add(output);
+            done.countDown();
+        }
+
+        @Override
+        public void onError(PipelineException error, PipelineContext context) {
+            errors.add(error.getMessage());
+            done.countDown();
+        }
+    }
+
+    private static class AddStage implements PipelineStage<Integer, Integer> {
+        private final int value;
+
+        public AddStage(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public Integer process(Integer input, PipelineContext context) {
+            return input + value;
+        }
+
+        @Override
+        public String getStageName() {
+            return "AddStage";
+        }
+    }
+
+    private static class AssertOnEvenStage implements PipelineStage<Integer, Integer> {
+        @Override
+        public Integer process(Integer input, PipelineContext context) {
+            if (input % 2 == 0) {
+                throw new AssertionError("Intentional error");
+            }
+            return input;
+        }
+
+        @Override
+        public String getStageName() {
+            return "AssertOnEvenStage";
+        }
+    }
+
+    private static class FailOnEvenStage implements PipelineStage<Integer, Integer> {
+        @Override
+        public Integer process(Integer input, PipelineContext context) throws PipelineException {
+            if (input % 2 == 0) {
+                throw new PipelineException("Intentional error");
+            }
+            return input;
+        }
+
+        @Override
+        public String getStageName() {
+            return "FailOnEvenStage";
+        }
+    }
+}
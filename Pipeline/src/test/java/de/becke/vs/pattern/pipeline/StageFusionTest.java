@@ -0,0 +1,113 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.core.CompiledPipeline;
+import de.becke.vs.pattern.pipeline.core.FusablePipelineStage;
+import de.becke.vs.pattern.pipeline.core.FusedPipelineStage;
+import de.becke.vs.pattern.pipeline.core.Pipeline;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineStage;
+import de.becke.vs.pattern.pipeline.core.StageFusionOptimizer;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StageFusionTest {
+
+    @Test
+    public void testAdjacentFusableStagesAreMerged() {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new AddStage("A", 1))
+                .addStage(new AddStage("B", 2))
+                .addStage(new PlainStage())
+                .addStage(new AddStage("C", 3));
+
+        List<PipelineStage<?, ?>> fused = StageFusionOptimizer.fuse(pipeline.getStages());
+
+        assertEquals(3, fused.size());
+        assertTrue(fused.get(0) instanceof FusedPipelineStage);
+        assertEquals("A+B", fused.get(0).getStageName());
+        assertEquals("PlainStage", fused.get(1).getStageName());
+        assertEquals("C", fused.get(2).getStageName());
+    }
+
+    @Test
+    public void testFusedPipelineProducesSameResult() throws PipelineException {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new AddStage("A", 1))
+                .addStage(new AddStage("B", 10))
+                .addStage(new AddStage("C", 100));
+
+        CompiledPipeline<Integer, Integer> compiled = pipeline.compile(true);
+
+        assertEquals(1, compiled.getStageCount());
+        assertEquals(List.of("A", "B", "C"), compiled.getStageNames());
+        assertEquals(Integer.valueOf(111), compiled.execute(0));
+        assertEquals(List.of(111, 112), compiled.executeBatch(List.of(0, 1)));
+    }
+
+    @Test
+    public void testErrorNamesOriginalStage() {
+        Pipeline<Integer, Integer> pipeline = new Pipeline<>("TestPipeline");
+        pipeline.addStage(new AddStage("A", 1))
+                .addStage(new FailingStage())
+                .addStage(new AddStage("C", 3));
+
+        CompiledPipeline<Integer, Integer> compiled = pipeline.compile(true);
+        assertEquals(1, compiled.getStageCount());
+
+        try {
+            compiled.execute(0);
+            fail("PipelineException expected");
+        } catch (PipelineException e) {
+            assertEquals("Fehler während der Verarbeitung in Stage 'FailingStage'", e.getMessage());
+            assertEquals("Intentional error", e.getCause().getMessage());
+        }
+    }
+
+    private static class AddStage implements FusablePipelineStage<Integer, Integer> {
+        private final String name;
+        private final int value;
+
+        public AddStage(String name, int value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public Integer process(Integer input, PipelineContext context) {
+            return input + value;
+        }
+
+        @Override
+        public String getStageName() {
+            return name;
+        }
+    }
+
+    private static class FailingStage implements FusablePipelineStage<Integer, Integer> {
+        @Override
+        public Integer process(Integer input, PipelineContext context) throws PipelineException {
+            throw new PipelineException("Intentional error");
+        }
+
+        @Override
+        public String getStageName() {
+            return "FailingStage";
+        }
+    }
+
+    private static class PlainStage implements PipelineStage<Integer, Integer> {
+        @Override
+        public Integer process(Integer input, PipelineContext context) {
+            return input;
+        }
+
+        @Override
+        public String getStageName() {
+            return "PlainStage";
+        }
+    }
+}
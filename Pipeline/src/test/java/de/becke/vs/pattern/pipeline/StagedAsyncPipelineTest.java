@@ -0,0 +1,272 @@
+package de.becke.vs.pattern.pipeline;
+
+import de.becke.vs.pattern.pipeline.async.AsyncPipeline;
+import de.becke.vs.pattern.pipeline.async.AsyncPipelineStage;
+import de.becke.vs.pattern.pipeline.async.OverflowPolicy;
+import de.becke.vs.pattern.pipeline.async.StageQueueConfig;
+import de.becke.vs.pattern.pipeline.async.StageQueueMetrics;
+import de.becke.vs.pattern.pipeline.async.StagedAsyncPipeline;
+import de.becke.vs.pattern.pipeline.core.PipelineContext;
+import de.becke.vs.pattern.pipeline.core.PipelineException;
+import de.becke.vs.pattern.pipeline.core.PipelineRejectedException;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StagedAsyncPipelineTest {
+
+    @Test
+    public void testExecuteAsyncThroughAllStages() throws Exception {
+        AsyncPipeline<String, String> pipeline = new AsyncPipeline<>("TestPipeline");
+        pipeline.addStage(new UpperCaseStage())
+                .addStage(new AppendStage("123"));
+
+        try (StagedAsyncPipeline<String, String> staged = new StagedAsyncPipeline<>(pipeline,
+                new StageQueueConfig(16, 2, OverflowPolicy.BLOCK))) {
+            assertEquals("TEST123", staged.executeAsync("test").get(5, TimeUnit.SECONDS));
+
+            StageQueueMetrics metrics = staged.getStageMetrics().get(1);
+            assertEquals("AppendStage", metrics.getStageName());
+            assertEquals(1, metrics.getProcessed());
+        }
+    }
+
+    @Test
+    public void testTryExecuteAsyncReportsSaturation() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncPipeline<String, String> pipeline = new AsyncPipeline<>("TestPipeline");
+        pipeline.addStage(new BlockingStage(release));
+
+        try (StagedAsyncPipeline<String, String> staged = new StagedAsyncPipeline<>(pipeline,
+                new StageQueueConfig(1, 1, OverflowPolicy.FAIL_FAST))) {
+            // Das erste Element belegt den Worker, das zweite die Warteschlange
+            CompletableFuture<String> first = staged.executeAsync("a");
+            awaitBusyWorker(staged);
+            Optional<CompletableFuture<String>> second = staged.tryExecuteAsync("b");
+            assertTrue(second.isPresent());
+
+            assertTrue(staged.isSaturated());
+            assertFalse(staged.tryExecuteAsync("c").isPresent());
+
+            CompletableFuture<String> rejected = staged.executeAsync("d");
+            assertRejected(rejected);
+            assertEquals(2, staged.getStageMetrics().get(0).getRejected());
+
+            release.countDown();
+            assertEquals("a", first.get(5, TimeUnit.SECONDS));
+            assertEquals("b", second.get().get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testDropPolicyDiscardsOldestElement() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncPipeline<String, String> pipeline = new AsyncPipeline<>("TestPipeline");
+        pipeline.addStage(new BlockingStage(release));
+
+        try (StagedAsyncPipeline<String, String> staged = new StagedAsyncPipeline<>(pipeline,
+                new StageQueueConfig(1, 1, OverflowPolicy.DROP))) {
+            CompletableFuture<String> first = staged.executeAsync("a");
+            awaitBusyWorker(staged);
+            CompletableFuture<String> second = staged.executeAsync("b");
+            CompletableFuture<String> third = staged.executeAsync("c");
+
+            assertRejected(second);
+            assertEquals(1, staged.getStageMetrics().get(0).getDropped());
+
+            release.countDown();
+            assertEquals("a", first.get(5, TimeUnit.SECONDS));
+            assertEquals("c", third.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testStageErrorFailsFuture() throws Exception {
+        AsyncPipeline<String, String> pipeline = new AsyncPipeline<>("TestPipeline");
+        pipeline.addStage(new ErrorStage());
+
+        try (StagedAsyncPipeline<String, String> staged = new StagedAsyncPipeline<>(pipeline,
+                new StageQueueConfig(4, 1, OverflowPolicy.BLOCK))) {
+            staged.executeAsync("test").get(5, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof PipelineException);
+            assertEquals("Fehler in Stage 'ErrorStage': Intentional error", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testItemsForwardedAfterCloseAreRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncPipeline<String, String> pipeline = new AsyncPipeline<>("TestPipeline");
+        pipeline.addStage(new BlockingStage(release))
+                .addStage(new BlockingStage(new CountDownLatch(0)));
+
+        StagedAsyncPipeline<String, String> staged = new StagedAsyncPipeline<>(pipeline,
+                new StageQueueConfig(4, 1, OverflowPolicy.BLOCK));
+        CompletableFuture<String> inFlight = staged.executeAsync("a");
+        awaitBusyWorker(staged);
+
+        // Der laufende Aufruf endet erst nach close() und darf nicht in der zweiten Stage hängen bleiben
+        staged.close();
+        release.countDown();
+        assertRejected(inFlight);
+        assertRejected(staged.executeAsync("b"));
+    }
+
+    @Test
+    public void testForwardingDoesNotBlockSharedExecutor() throws Exception {
+        // Beide Stages schließen ihre Futures auf demselben Thread ab
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AsyncPipeline<String, String> pipeline = new AsyncPipeline<>("TestPipeline");
+        pipeline.addStage(new ExecutorStage("Fast", executor, 1))
+                .addStage(new ExecutorStage("Slow", executor, 5));
+
+        // Mehrere Aufrufe der ersten Stage enden, während die zweite bereits voll ist
+        try (StagedAsyncPipeline<String, String> staged = new StagedAsyncPipeline<>(pipeline,
+                new StageQueueConfig(1, 1, OverflowPolicy.BLOCK),
+                Collections.singletonMap("Fast", new StageQueueConfig(4, 4, OverflowPolicy.BLOCK)))) {
+            List<CompletableFuture<String>> results = new CopyOnWriteArrayList<>();
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 20; i++) {
+                    results.add(staged.executeAsync("item-" + i));
+                }
+            });
+            producer.start();
+            producer.join(10000);
+            assertFalse("Aufrufer hängt im Gegendruck fest", producer.isAlive());
+
+            for (int i = 0; i < 20; i++) {
+                assertEquals("item-" + i, results.get(i).get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitBusyWorker(StagedAsyncPipeline<?, ?> staged) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (staged.getStageMetrics().get(0).getBusyWorkers() == 0) {
+            assertTrue("Worker hat das Element nicht übernommen", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static void assertRejected(CompletableFuture<?> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("PipelineRejectedException expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof PipelineRejectedException);
+        }
+    }
+
+    private static class UpperCaseStage implements AsyncPipelineStage<String, String> {
+        @Override
+        public CompletableFuture<String> processAsync(String input, PipelineContext context) {
+            return CompletableFuture.completedFuture(input.toUpperCase());
+        }
+
+        @Override
+        public String getStageName() {
+            return "UpperCaseStage";
+        }
+    }
+
+    private static class AppendStage implements AsyncPipelineStage<String, String> {
+        private final String suffix;
+
+        public AppendStage(String suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public CompletableFuture<String> processAsync(String input, PipelineContext context) {
+            return CompletableFuture.completedFuture(input + suffix);
+        }
+
+        @Override
+        public String getStageName() {
+            return "AppendStage";
+        }
+    }
+
+    private static class BlockingStage implements AsyncPipelineStage<String, String> {
+        private final CountDownLatch release;
+
+        public BlockingStage(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public CompletableFuture<String> processAsync(String input, PipelineContext context) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return input;
+            });
+        }
+
+        @Override
+        public String getStageName() {
+            return "BlockingStage";
+        }
+    }
+
+    private static class ExecutorStage implements AsyncPipelineStage<String, String> {
+        private final String name;
+        private final ExecutorService executor;
+        private final long delayMillis;
+
+        public ExecutorStage(String name, ExecutorService executor, long delayMillis) {
+            this.name = name;
+            this.executor = executor;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public CompletableFuture<String> processAsync(String input, PipelineContext context) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return input;
+            }, executor);
+        }
+
+        @Override
+        public String getStageName() {
+            return name;
+        }
+    }
+
+    private static class ErrorStage implements AsyncPipelineStage<String, String> {
+        @Override
+        public CompletableFuture<String> processAsync(String input, PipelineContext context) {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            future.completeExceptionally(new PipelineException("Intentional error", null, getStageName()));
+            return future;
+        }
+
+        @Override
+        public String getStageName() {
+            return "ErrorStage";
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package de.becke.vs.pattern.proxy.caching;
+
+/**
+ * Ein Eintrag im Cache des CachingProxy.
+ * 
+ * Neben dem Ergebnis wird der Zeitpunkt gespeichert, zu dem es vom Zieldienst geladen
+ * wurde. Daraus ergibt sich, ob der Eintrag frisch ist, im Hintergrund aktualisiert
+ * werden soll oder nur noch als Ersatz bei Fehlern des Zieldienstes dient.
+ */
+final class CacheEntry {
+    
+    private final String value;
+    private final long writeTime;
+    
+    /**
+     * Erstellt einen neuen Cache-Eintrag.
+     * 
+     * @param value Das Ergebnis der Anfrage
+     * @param writeTime Der Ladezeitpunkt in Nanosekunden ({@link System#nanoTime()})
+     */
+    CacheEntry(String value, long writeTime) {
+        this.value = value;
+        this.writeTime = writeTime;
+    }
+    
+    /**
+     * Gibt das Ergebnis der Anfrage zurück.
+     * 
+     * @return Das zwischengespeicherte Ergebnis
+     */
+    String getValue() {
+        return value;
+    }
+    
+    /**
+     * Gibt den Ladezeitpunkt zurück.
+     * 
+     * @return Der Ladezeitpunkt in Nanosekunden ({@link System#nanoTime()})
+     */
+    long getWriteTime() {
+        return writeTime;
+    }
+    
+    /**
+     * Gibt das Alter des Eintrags zurück.
+     * 
+     * @param now Der aktuelle Zeitpunkt in Nanosekunden
+     * @return Das Alter in Nanosekunden
+     */
+    long age(long now) {
+        return now - writeTime;
+    }
+}
@@ -1,5 +1,6 @@
 package de.becke.vs.pattern.proxy.caching;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -12,12 +13,35 @@ import java.util.Objects;
  */
 public class CacheKey {
     
-    // Konstante für den Anfrage-Typ
-    private static final int SIMPLE_REQUEST = 1;
-    private static final int PARAMETERIZED_REQUEST = 2;
-    private static final int COMPLEX_REQUEST = 3;
+    /**
+     * Die Art einer Anfrage an den RemoteService.
+     */
+    public enum RequestType {
+        /** Eine Anfrage ohne Parameter. */
+        SIMPLE_REQUEST(1),
+        /** Eine Anfrage mit einem Parameter. */
+        PARAMETERIZED_REQUEST(2),
+        /** Eine komplexe Anfrage mit ID, Daten und Optionen. */
+        COMPLEX_REQUEST(3);
+        
+        // Kennung im Binärformat der Cache-Snapshots und im 64-Bit-Hash
+        private final int code;
+        
+        RequestType(int code) {
+            this.code = code;
+        }
+        
+        static RequestType fromCode(int code) {
+            for (RequestType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
     
-    private final int requestType;
+    private final RequestType requestType;
     private final Integer id;
     private final String parameter;
     private final String data;
@@ -27,7 +51,7 @@ public class CacheKey {
      * Privater Konstruktor für einfache Anfragen.
      */
     private CacheKey() {
-        this.requestType = SIMPLE_REQUEST;
+        this.requestType = RequestType.SIMPLE_REQUEST;
         this.id = null;
         this.parameter = null;
         this.data = null;
@@ -40,7 +64,7 @@ public class CacheKey {
      * @param parameter Der Anfrageparameter
      */
     private CacheKey(String parameter) {
-        this.requestType = PARAMETERIZED_REQUEST;
+        this.requestType = RequestType.PARAMETERIZED_REQUEST;
         this.id = null;
         this.parameter = parameter;
         this.data = null;
@@ -55,7 +79,7 @@ public class CacheKey {
      * @param options Die Anfrageoptionen
      */
     private CacheKey(int id, String data, String[] options) {
-        this.requestType = COMPLEX_REQUEST;
+        this.requestType = RequestType.COMPLEX_REQUEST;
         this.id = id;
         this.parameter = null;
         this.data = data;
@@ -93,6 +117,15 @@ public class CacheKey {
         return new CacheKey(id, data, options);
     }
     
+    /**
+     * Gibt die Art der Anfrage zurück.
+     * 
+     * @return Der Anfrage-Typ
+     */
+    public RequestType getRequestType() {
+        return requestType;
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -119,7 +152,7 @@ public class CacheKey {
     
     @Override
     public int hashCode() {
-        int result = requestType;
+        int result = requestType.code;
         
         // Hash basierend auf dem Anfrage-Typ
         switch (requestType) {
@@ -138,6 +171,126 @@ public class CacheKey {
         return result;
     }
     
+    /**
+     * Berechnet einen 64-Bit-Hash des Schlüssels für die Off-Heap-Cache-Ebene.
+     * 
+     * Anders als {@link #hashCode()} ist der Hash breit genug, um den Schlüssel dort ohne
+     * Vergleich der Felder zu vertreten. Trennzeichen und Längen verhindern, dass
+     * verschiedene Aufteilungen derselben Zeichen gleich gehasht werden.
+     * 
+     * @return Der 64-Bit-Hash
+     */
+    long hash64() {
+        long hash = mix(0xcbf29ce484222325L, requestType.code);
+    
+        switch (requestType) {
+            case PARAMETERIZED_REQUEST:
+                hash = mix(hash, parameter);
+                break;
+            case COMPLEX_REQUEST:
+                hash = mix(hash, id);
+                hash = mix(hash, data);
+                if (options == null) {
+                    hash = mix(hash, -1);
+                } else {
+                    hash = mix(hash, options.length);
+                    for (String option : options) {
+                        hash = mix(hash, option);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    
+        // Abschluss von MurmurHash3, damit sich jedes Eingabebit auf alle Ausgabebits verteilt
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+    
+    private static long mix(long hash, int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return mix(hash, -1);
+        }
+        hash = mix(hash, value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * 0x100000001b3L;
+            hash = (hash ^ (c >>> 8)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    /**
+     * Schreibt den Schlüssel in einen Cache-Snapshot.
+     * 
+     * @param out Die Ausgabe des Snapshots
+     * @throws IOException Wenn das Schreiben fehlschlägt
+     */
+    void writeTo(CacheSnapshot.Output out) throws IOException {
+        out.writeInt(requestType.code);
+        switch (requestType) {
+            case PARAMETERIZED_REQUEST:
+                out.writeString(parameter);
+                break;
+            case COMPLEX_REQUEST:
+                out.writeInt(id);
+                out.writeString(data);
+                out.writeInt(options != null ? options.length : -1);
+                if (options != null) {
+                    for (String option : options) {
+                        out.writeString(option);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * Liest einen Schlüssel aus einem Cache-Snapshot.
+     * 
+     * @param in Die Eingabe des Snapshots
+     * @return Der gelesene Schlüssel
+     * @throws IOException Wenn das Lesen fehlschlägt oder der Anfrage-Typ unbekannt ist
+     */
+    static CacheKey readFrom(CacheSnapshot.Input in) throws IOException {
+        int code = in.readInt();
+        RequestType type = RequestType.fromCode(code);
+        if (type == null) {
+            throw new IOException("Unbekannter Anfrage-Typ im Cache-Snapshot: " + code);
+        }
+        switch (type) {
+            case SIMPLE_REQUEST:
+                return forSimpleRequest();
+            case PARAMETERIZED_REQUEST:
+                return forParameterizedRequest(in.readString());
+            case COMPLEX_REQUEST:
+                int id = in.readInt();
+                String data = in.readString();
+                int count = in.readInt();
+                String[] options = count < 0 ? null : new String[count];
+                for (int i = 0; i < count; i++) {
+                    options[i] = in.readString();
+                }
+                return forComplexRequest(id, data, options);
+            default:
+                throw new IOException("Unbekannter Anfrage-Typ im Cache-Snapshot: " + code);
+        }
+    }
+    
     @Override
     public String toString() {
         switch (requestType) {
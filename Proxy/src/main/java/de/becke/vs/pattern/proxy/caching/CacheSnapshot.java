@@ -0,0 +1,143 @@
+package de.becke.vs.pattern.proxy.caching;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Das Binärformat der Cache-Snapshots des CachingProxy.
+ * 
+ * Eine Snapshot-Datei besteht aus einem Kopf (Kennung, Version, Zeitpunkt der Erstellung)
+ * und einer Folge von Datensätzen, beginnend mit dem meistgenutzten Eintrag. Jeder Datensatz
+ * enthält den Ablaufzeitpunkt in Millisekunden seit der Epoche, den Schlüssel und den Wert.
+ * Das Ende der Folge markiert ein Ablaufzeitpunkt von 0. Zeichenketten werden als Länge
+ * in Bytes (-1 für null) und UTF-8-Bytes abgelegt.
+ * 
+ * Geschrieben und gelesen wird über einen Puffer fester Größe direkt auf einem Kanal,
+ * sodass auch große Snapshots nicht vollständig im Speicher liegen.
+ */
+final class CacheSnapshot {
+    
+    static final int MAGIC = 0x43505331; // "CPS1"
+    static final int VERSION = 1;
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private CacheSnapshot() {
+    }
+    
+    /**
+     * Schreibt primitive Werte gepuffert in einen Kanal.
+     */
+    static final class Output {
+    
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+    
+        void writeInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+    
+        void writeLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+    
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            for (int offset = 0; offset < bytes.length; ) {
+                ensure(1);
+                int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+    
+        /**
+         * Schreibt den Puffer in den Kanal, falls weniger als die angegebene Anzahl Bytes frei ist.
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+    
+    /**
+     * Liest primitive Werte gepuffert aus einem Kanal.
+     */
+    static final class Input {
+    
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    
+        Input(ReadableByteChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+    
+        int readInt() throws IOException {
+            require(Integer.BYTES);
+            return buffer.getInt();
+        }
+    
+        long readLong() throws IOException {
+            require(Long.BYTES);
+            return buffer.getLong();
+        }
+    
+        String readString() throws IOException {
+            int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            for (int offset = 0; offset < length; ) {
+                require(1);
+                int chunk = Math.min(buffer.remaining(), length - offset);
+                buffer.get(bytes, offset, chunk);
+                offset += chunk;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    
+        /**
+         * Liest nach, bis mindestens die angegebene Anzahl Bytes im Puffer liegt.
+         * 
+         * @throws EOFException Wenn der Kanal vorher endet
+         */
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Unerwartetes Ende des Cache-Snapshots");
+                }
+            }
+            buffer.flip();
+        }
+    }
+}
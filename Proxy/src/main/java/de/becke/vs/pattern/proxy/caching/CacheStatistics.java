@@ -0,0 +1,295 @@
+package de.becke.vs.pattern.proxy.caching;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Eine unveränderliche Momentaufnahme der Statistik eines CachingProxy.
+ * 
+ * Treffer, Fehlschläge und Ladezeiten werden je {@link CacheKey.RequestType} geführt;
+ * {@link #getTotal()} fasst sie über alle Anfrage-Typen zusammen, wobei die Perzentile der
+ * Ladezeit aus den zusammengeführten Histogrammen berechnet werden. Die Gesamtzahl und das
+ * Gewicht der Verdrängungen stammen aus der Statistik des zugrunde liegenden Caffeine-Caches.
+ */
+public final class CacheStatistics {
+    
+    private final Map<CacheKey.RequestType, RequestTypeStatistics> byRequestType;
+    private final RequestTypeStatistics total;
+    private final long evictionCount;
+    private final long evictionWeight;
+    private final long coalescedCallCount;
+    private final long refreshCount;
+    private final long staleServedCount;
+    private final long estimatedSize;
+    
+    CacheStatistics(Map<CacheKey.RequestType, RequestTypeStatistics> byRequestType, RequestTypeStatistics total,
+                    long evictionCount, long evictionWeight, long coalescedCallCount, long refreshCount,
+                    long staleServedCount, long estimatedSize) {
+        this.byRequestType = Collections.unmodifiableMap(new EnumMap<>(byRequestType));
+        this.total = total;
+        this.evictionCount = evictionCount;
+        this.evictionWeight = evictionWeight;
+        this.coalescedCallCount = coalescedCallCount;
+        this.refreshCount = refreshCount;
+        this.staleServedCount = staleServedCount;
+        this.estimatedSize = estimatedSize;
+    }
+    
+    /**
+     * Gibt die Statistik eines Anfrage-Typs zurück.
+     * 
+     * @param requestType Der Anfrage-Typ
+     * @return Die Statistik des Anfrage-Typs
+     */
+    public RequestTypeStatistics forRequestType(CacheKey.RequestType requestType) {
+        return byRequestType.get(requestType);
+    }
+    
+    /**
+     * Gibt die Statistik aller Anfrage-Typen zurück.
+     * 
+     * @return Eine unveränderliche Map vom Anfrage-Typ auf seine Statistik
+     */
+    public Map<CacheKey.RequestType, RequestTypeStatistics> getByRequestType() {
+        return byRequestType;
+    }
+    
+    /**
+     * Gibt die Statistik über alle Anfrage-Typen zurück.
+     * 
+     * @return Die zusammengefasste Statistik einschließlich der Perzentile der Ladezeit
+     */
+    public RequestTypeStatistics getTotal() {
+        return total;
+    }
+    
+    /**
+     * Gibt die Anzahl der Cache-Treffer zurück.
+     * 
+     * @return Die Anzahl der Treffer über alle Anfrage-Typen
+     */
+    public long getHitCount() {
+        return total.getHitCount();
+    }
+    
+    /**
+     * Gibt die Anzahl der Cache-Fehlschläge zurück.
+     * 
+     * @return Die Anzahl der Fehlschläge über alle Anfrage-Typen
+     */
+    public long getMissCount() {
+        return total.getMissCount();
+    }
+    
+    /**
+     * Gibt die Trefferrate zurück.
+     * 
+     * @return Der Anteil der Treffer an allen Anfragen zwischen 0 und 1; 0, solange keine
+     *         Anfrage gestellt wurde
+     */
+    public double getHitRate() {
+        return total.getHitRate();
+    }
+    
+    /**
+     * Gibt die Anzahl der erfolgreichen Aufrufe des Zieldienstes zurück.
+     * 
+     * @return Die Anzahl der erfolgreichen Ladevorgänge über alle Anfrage-Typen
+     */
+    public long getLoadSuccessCount() {
+        return total.getLoadSuccessCount();
+    }
+    
+    /**
+     * Gibt die Anzahl der fehlgeschlagenen Aufrufe des Zieldienstes zurück.
+     * 
+     * @return Die Anzahl der fehlgeschlagenen Ladevorgänge über alle Anfrage-Typen
+     */
+    public long getLoadFailureCount() {
+        return total.getLoadFailureCount();
+    }
+    
+    /**
+     * Gibt die Anzahl der aus dem Cache verdrängten Einträge zurück.
+     * 
+     * @return Die Anzahl der wegen Größe oder Ablauf verdrängten Einträge
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+    
+    /**
+     * Gibt das Gesamtgewicht der verdrängten Einträge zurück.
+     * 
+     * @return Das Gewicht der verdrängten Einträge
+     */
+    public long getEvictionWeight() {
+        return evictionWeight;
+    }
+    
+    /**
+     * Gibt die Anzahl der zusammengefassten Aufrufe zurück.
+     * 
+     * @return Die Anzahl der Aufrufe, die auf einen laufenden Ladevorgang gewartet haben
+     */
+    public long getCoalescedCallCount() {
+        return coalescedCallCount;
+    }
+    
+    /**
+     * Gibt die Anzahl der Aktualisierungen im Hintergrund zurück.
+     * 
+     * @return Die Anzahl der Aktualisierungen
+     */
+    public long getRefreshCount() {
+        return refreshCount;
+    }
+    
+    /**
+     * Gibt die Anzahl der ersatzweise ausgelieferten abgelaufenen Werte zurück.
+     * 
+     * @return Die Anzahl der ersatzweise ausgelieferten Werte
+     */
+    public long getStaleServedCount() {
+        return staleServedCount;
+    }
+    
+    /**
+     * Gibt die geschätzte Anzahl der Einträge im Cache zurück.
+     * 
+     * @return Die geschätzte Cache-Größe
+     */
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+    
+    private static double rate(long hits, long misses) {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+    
+    /**
+     * Die Statistik eines einzelnen Anfrage-Typs.
+     * 
+     * Ladezeiten sind die Dauer der Aufrufe des Zieldienstes einschließlich fehlgeschlagener
+     * und Aktualisierungen im Hintergrund; Perzentile sind Obergrenzen mit einer Genauigkeit
+     * von etwa 12,5 %.
+     */
+    public static final class RequestTypeStatistics {
+    
+        private final long hitCount;
+        private final long missCount;
+        private final long loadSuccessCount;
+        private final long loadFailureCount;
+        private final long evictionCount;
+        private final long loadTimeP50Nanos;
+        private final long loadTimeP90Nanos;
+        private final long loadTimeP99Nanos;
+        private final long loadTimeMaxNanos;
+    
+        RequestTypeStatistics(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+                              long evictionCount, long loadTimeP50Nanos, long loadTimeP90Nanos,
+                              long loadTimeP99Nanos, long loadTimeMaxNanos) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.loadSuccessCount = loadSuccessCount;
+            this.loadFailureCount = loadFailureCount;
+            this.evictionCount = evictionCount;
+            this.loadTimeP50Nanos = loadTimeP50Nanos;
+            this.loadTimeP90Nanos = loadTimeP90Nanos;
+            this.loadTimeP99Nanos = loadTimeP99Nanos;
+            this.loadTimeMaxNanos = loadTimeMaxNanos;
+        }
+    
+        /**
+         * Gibt die Anzahl der Cache-Treffer zurück.
+         * 
+         * @return Die Anzahl der Treffer
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+    
+        /**
+         * Gibt die Anzahl der Cache-Fehlschläge zurück.
+         * 
+         * @return Die Anzahl der Fehlschläge
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+    
+        /**
+         * Gibt die Trefferrate zurück.
+         * 
+         * @return Der Anteil der Treffer zwischen 0 und 1; 0, solange keine Anfrage gestellt wurde
+         */
+        public double getHitRate() {
+            return rate(hitCount, missCount);
+        }
+    
+        /**
+         * Gibt die Anzahl der erfolgreichen Aufrufe des Zieldienstes zurück.
+         * 
+         * @return Die Anzahl der erfolgreichen Ladevorgänge
+         */
+        public long getLoadSuccessCount() {
+            return loadSuccessCount;
+        }
+    
+        /**
+         * Gibt die Anzahl der fehlgeschlagenen Aufrufe des Zieldienstes zurück.
+         * 
+         * @return Die Anzahl der fehlgeschlagenen Ladevorgänge
+         */
+        public long getLoadFailureCount() {
+            return loadFailureCount;
+        }
+    
+        /**
+         * Gibt die Anzahl der verdrängten Einträge dieses Anfrage-Typs zurück.
+         * 
+         * @return Die Anzahl der verdrängten Einträge
+         */
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+    
+        /**
+         * Gibt den Median der Ladezeit zurück.
+         * 
+         * @return Der Median in Nanosekunden oder 0 ohne Ladevorgänge
+         */
+        public long getLoadTimeP50Nanos() {
+            return loadTimeP50Nanos;
+        }
+    
+        /**
+         * Gibt das 90. Perzentil der Ladezeit zurück.
+         * 
+         * @return Das 90. Perzentil in Nanosekunden oder 0 ohne Ladevorgänge
+         */
+        public long getLoadTimeP90Nanos() {
+            return loadTimeP90Nanos;
+        }
+    
+        /**
+         * Gibt das 99. Perzentil der Ladezeit zurück.
+         * 
+         * @return Das 99. Perzentil in Nanosekunden oder 0 ohne Ladevorgänge
+         */
+        public long getLoadTimeP99Nanos() {
+            return loadTimeP99Nanos;
+        }
+    
+        /**
+         * Gibt die längste Ladezeit zurück.
+         * 
+         * @return Die längste Ladezeit in Nanosekunden oder 0 ohne Ladevorgänge
+         */
+        public long getLoadTimeMaxNanos() {
+            return loadTimeMaxNanos;
+        }
+    }
+}
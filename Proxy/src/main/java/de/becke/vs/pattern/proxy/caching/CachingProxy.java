@@ -1,15 +1,35 @@
 package de.becke.vs.pattern.proxy.caching;
 
-import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import de.becke.vs.pattern.proxy.common.RemoteService;
 import de.becke.vs.pattern.proxy.common.ServiceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Ein Caching-Proxy für RemoteServices, der Anfrageergebnisse zwischenspeichert.
@@ -17,17 +37,53 @@ import java.util.concurrent.atomic.AtomicInteger;
  * Diese Implementierung speichert die Ergebnisse von Service-Anfragen zwischen,
  * um wiederholte Anfragen effizienter zu bedienen und die Last auf dem Zieldienst
  * zu reduzieren.
+ * 
+ * Ein Eintrag durchläuft drei Phasen:
+ * <ul>
+ *   <li>Bis {@code refreshAfter} ist er frisch und wird direkt ausgeliefert.</li>
+ *   <li>Bis {@code expireAfter} wird er weiter ausgeliefert, aber einmalig im Hintergrund
+ *       neu geladen, sodass beliebte Schlüssel nie synchron ablaufen.</li>
+ *   <li>Bis {@code expireAfter + gracePeriod} gilt er als abgelaufen und wird synchron neu
+ *       geladen; meldet der Zieldienst dabei eine {@link ServiceException}, wird stattdessen
+ *       der alte Wert ausgeliefert.</li>
+ * </ul>
+ * 
+ * Optional kann eine {@link OffHeapCacheTier} als zweite Ebene angehängt werden: Einträge,
+ * die wegen der Größenbeschränkung verdrängt werden, wandern dorthin und werden bei einem
+ * Treffer mit ihrer verbleibenden Lebensdauer zurückgeholt.
+ * 
+ * Mit {@link #snapshotTo(Path)} und {@link #warmFrom(Path)} überdauern die meistgenutzten
+ * Einträge einen Neustart, sodass der Zieldienst danach nicht die volle Last trägt.
  */
-public class CachingProxy implements RemoteService {
+public class CachingProxy implements RemoteService, AutoCloseable {
     
     private static final Logger LOGGER = LoggerFactory.getLogger(CachingProxy.class);
     
     private final RemoteService targetService;
-    private final Cache<CacheKey, String> cache;
+    private final AsyncCache<CacheKey, CacheEntry> cache;
+    
+    // Weiche und harte Ablaufzeit sowie Kulanzzeit in Nanosekunden (0 = keine Aktualisierung)
+    private final long refreshAfterNanos;
+    private final long expireAfterNanos;
+    private final long gracePeriodNanos;
+    
+    // Executor für Aktualisierungen im Hintergrund (null, wenn nicht aktualisiert wird)
+    private final Executor refreshExecutor;
+    private final ExecutorService ownedRefreshExecutor;
+    private final Set<CacheKey> refreshing = ConcurrentHashMap.newKeySet();
+    
+    // Zweite Cache-Ebene außerhalb des Heaps (null = keine)
+    private volatile OffHeapCacheTier secondLevel;
     
-    // Cache-Statistik
-    private final AtomicInteger cacheHits = new AtomicInteger(0);
-    private final AtomicInteger cacheMisses = new AtomicInteger(0);
+    // Cache-Statistik je Anfrage-Typ (nach dem Konstruktor nur noch gelesen)
+    private final Map<CacheKey.RequestType, RequestTypeRecorder> recorders = new EnumMap<>(CacheKey.RequestType.class);
+    
+    // Anzahl der Aufrufe, die auf einen bereits laufenden Ladevorgang gewartet haben
+    private final LongAdder coalescedCalls = new LongAdder();
+    
+    // Anzahl der Aktualisierungen im Hintergrund und der ersatzweise ausgelieferten alten Werte
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
     
     /**
      * Erstellt einen Caching-Proxy mit Standardkonfiguration.
@@ -47,17 +103,83 @@ public class CachingProxy implements RemoteService {
      * @param timeUnit Die Zeiteinheit für die Ablaufzeit
      */
     public CachingProxy(RemoteService targetService, long maximumSize, long expireAfter, TimeUnit timeUnit) {
+        this(targetService, maximumSize, expireAfter, 0, 0, timeUnit);
+    }
+    
+    /**
+     * Erstellt einen Caching-Proxy, der Einträge vor ihrem Ablauf im Hintergrund aktualisiert.
+     * 
+     * Die Aktualisierungen laufen auf einem eigenen Thread-Pool, der mit {@link #close()}
+     * beendet wird.
+     * 
+     * @param targetService Der Zieldienst, an den Anfragen bei Cache-Misses weitergeleitet werden
+     * @param maximumSize Die maximale Anzahl von Einträgen im Cache
+     * @param expireAfter Die Ablaufzeit der Cache-Einträge
+     * @param refreshAfter Das Alter, ab dem ein Eintrag im Hintergrund neu geladen wird (0 = nie)
+     * @param gracePeriod Die Zeit nach dem Ablauf, in der ein alter Eintrag bei Fehlern des
+     *                    Zieldienstes ausgeliefert wird (0 = nie)
+     * @param timeUnit Die Zeiteinheit für alle Zeitangaben
+     */
+    public CachingProxy(RemoteService targetService, long maximumSize, long expireAfter, long refreshAfter,
+                        long gracePeriod, TimeUnit timeUnit) {
+        this(targetService, maximumSize, expireAfter, refreshAfter, gracePeriod, timeUnit, null);
+    }
+    
+    /**
+     * Erstellt einen Caching-Proxy, der Einträge auf dem angegebenen Executor aktualisiert.
+     * 
+     * @param targetService Der Zieldienst, an den Anfragen bei Cache-Misses weitergeleitet werden
+     * @param maximumSize Die maximale Anzahl von Einträgen im Cache
+     * @param expireAfter Die Ablaufzeit der Cache-Einträge
+     * @param refreshAfter Das Alter, ab dem ein Eintrag im Hintergrund neu geladen wird (0 = nie)
+     * @param gracePeriod Die Zeit nach dem Ablauf, in der ein alter Eintrag bei Fehlern des
+     *                    Zieldienstes ausgeliefert wird (0 = nie)
+     * @param timeUnit Die Zeiteinheit für alle Zeitangaben
+     * @param refreshExecutor Der Executor für Aktualisierungen oder null für einen eigenen Thread-Pool
+     */
+    public CachingProxy(RemoteService targetService, long maximumSize, long expireAfter, long refreshAfter,
+                        long gracePeriod, TimeUnit timeUnit, Executor refreshExecutor) {
+        if (refreshAfter < 0 || gracePeriod < 0) {
+            throw new IllegalArgumentException("Aktualisierungs- und Kulanzzeit dürfen nicht negativ sein");
+        }
+        if (refreshAfter >= expireAfter && refreshAfter > 0) {
+            throw new IllegalArgumentException("Die Aktualisierung muss vor dem Ablauf erfolgen: refreshAfter=" +
+                    refreshAfter + ", expireAfter=" + expireAfter);
+        }
+        
         this.targetService = targetService;
+        for (CacheKey.RequestType requestType : CacheKey.RequestType.values()) {
+            recorders.put(requestType, new RequestTypeRecorder());
+        }
+        this.refreshAfterNanos = timeUnit.toNanos(refreshAfter);
+        this.expireAfterNanos = timeUnit.toNanos(expireAfter);
+        this.gracePeriodNanos = timeUnit.toNanos(gracePeriod);
+        
+        if (refreshAfter == 0) {
+            this.refreshExecutor = null;
+            this.ownedRefreshExecutor = null;
+        } else if (refreshExecutor != null) {
+            this.refreshExecutor = refreshExecutor;
+            this.ownedRefreshExecutor = null;
+        } else {
+            this.ownedRefreshExecutor = Executors.newFixedThreadPool(2, runnable -> {
+                Thread thread = new Thread(runnable, "CachingProxy-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.refreshExecutor = ownedRefreshExecutor;
+        }
         
-        // Konfiguriere den Cache
+        // Konfiguriere den Cache; Einträge bleiben für die Kulanzzeit über den Ablauf hinaus erhalten
         this.cache = Caffeine.newBuilder()
                 .maximumSize(maximumSize)
-                .expireAfterWrite(expireAfter, timeUnit)
+                .expireAfterWrite(expireAfterNanos + gracePeriodNanos, TimeUnit.NANOSECONDS)
+                .evictionListener(this::onEviction)
                 .recordStats()
-                .build();
+                .buildAsync();
         
-        LOGGER.info("CachingProxy initialisiert mit maximaler Größe {}, Ablaufzeit {} {}", 
-                maximumSize, expireAfter, timeUnit);
+        LOGGER.info("CachingProxy initialisiert mit maximaler Größe {}, Ablaufzeit {} {}, Aktualisierung nach {} {}, Kulanzzeit {} {}", 
+                maximumSize, expireAfter, timeUnit, refreshAfter, timeUnit, gracePeriod, timeUnit);
     }
     
     @Override
@@ -67,27 +189,7 @@ public class CachingProxy implements RemoteService {
         // Erstelle einen Cache-Schlüssel für die Anfrage
         CacheKey cacheKey = CacheKey.forSimpleRequest();
         
-        // Versuche, das Ergebnis aus dem Cache zu holen
-        String cachedResult = cache.getIfPresent(cacheKey);
-        
-        if (cachedResult != null) {
-            // Cache-Treffer
-            cacheHits.incrementAndGet();
-            LOGGER.info("CachingProxy: Cache-Treffer für einfache Anfrage");
-            return cachedResult;
-        }
-        
-        // Cache-Miss: Leite die Anfrage an den Zieldienst weiter
-        cacheMisses.incrementAndGet();
-        LOGGER.info("CachingProxy: Cache-Miss für einfache Anfrage, leite weiter an Zieldienst");
-        
-        String result = targetService.request();
-        
-        // Speichere das Ergebnis im Cache
-        cache.put(cacheKey, result);
-        LOGGER.info("CachingProxy: Ergebnis im Cache gespeichert");
-        
-        return result;
+        return getOrLoad(cacheKey, "einfache Anfrage", targetService::request);
     }
     
     @Override
@@ -97,27 +199,8 @@ public class CachingProxy implements RemoteService {
         // Erstelle einen Cache-Schlüssel für die Anfrage
         CacheKey cacheKey = CacheKey.forParameterizedRequest(parameter);
         
-        // Versuche, das Ergebnis aus dem Cache zu holen
-        String cachedResult = cache.getIfPresent(cacheKey);
-        
-        if (cachedResult != null) {
-            // Cache-Treffer
-            cacheHits.incrementAndGet();
-            LOGGER.info("CachingProxy: Cache-Treffer für Anfrage mit Parameter '{}'", parameter);
-            return cachedResult;
-        }
-        
-        // Cache-Miss: Leite die Anfrage an den Zieldienst weiter
-        cacheMisses.incrementAndGet();
-        LOGGER.info("CachingProxy: Cache-Miss für Anfrage mit Parameter '{}', leite weiter an Zieldienst", parameter);
-        
-        String result = targetService.request(parameter);
-        
-        // Speichere das Ergebnis im Cache
-        cache.put(cacheKey, result);
-        LOGGER.info("CachingProxy: Ergebnis für Parameter '{}' im Cache gespeichert", parameter);
-        
-        return result;
+        return getOrLoad(cacheKey, "Anfrage mit Parameter '" + parameter + "'",
+                () -> targetService.request(parameter));
     }
     
     @Override
@@ -128,27 +211,219 @@ public class CachingProxy implements RemoteService {
         // Erstelle einen Cache-Schlüssel für die komplexe Anfrage
         CacheKey cacheKey = CacheKey.forComplexRequest(id, data, options);
         
+        return getOrLoad(cacheKey, "komplexe Anfrage (ID: " + id + ")",
+                () -> targetService.complexRequest(id, data, options));
+    }
+    
+    /**
+     * Liefert das Ergebnis aus dem Cache oder lädt es über den Zieldienst.
+     * 
+     * Gleichzeitige Fehlschläge für denselben Schlüssel werden zusammengefasst: Nur der
+     * erste Aufrufer leitet die Anfrage an den Zieldienst weiter, alle weiteren warten auf
+     * dessen Ergebnis oder Fehler. Fehlgeschlagene Ladevorgänge entfernt der Cache selbst,
+     * sodass die nächste Anfrage erneut lädt.
+     * 
+     * @param cacheKey Der Cache-Schlüssel der Anfrage
+     * @param description Die Beschreibung der Anfrage für das Logging
+     * @param call Der Aufruf des Zieldienstes
+     * @return Das Ergebnis der Anfrage
+     * @throws ServiceException Wenn der Zieldienst einen Fehler meldet und kein alter Wert vorliegt
+     */
+    private String getOrLoad(CacheKey cacheKey, String description, ServiceCall call) throws ServiceException {
         // Versuche, das Ergebnis aus dem Cache zu holen
-        String cachedResult = cache.getIfPresent(cacheKey);
+        CompletableFuture<CacheEntry> cached = cache.getIfPresent(cacheKey);
+        if (cached == null && secondLevel != null) {
+            cached = promoteFromSecondLevel(cacheKey);
+        }
+        CacheEntry stale = null;
+        RequestTypeRecorder recorder = recorders.get(cacheKey.getRequestType());
+        
+        if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+            CacheEntry entry = cached.join();
+            long age = entry.age(System.nanoTime());
+            
+            if (age < expireAfterNanos) {
+                // Cache-Treffer
+                recorder.recordHit();
+                LOGGER.info("CachingProxy: Cache-Treffer für {}", description);
+                if (refreshExecutor != null && age >= refreshAfterNanos) {
+                    refreshAsync(cacheKey, cached, description, call, recorder);
+                }
+                return entry.getValue();
+            }
+            if (age < expireAfterNanos + gracePeriodNanos) {
+                // Abgelaufen, aber als Ersatz bei Fehlern des Zieldienstes noch verwendbar
+                stale = entry;
+            }
+        }
+        
+        recorder.recordMiss();
+        
+        // Ein fehlgeschlagener Ladevorgang, den der Cache noch nicht entfernt hat, zählt als fehlend
+        if (cached != null && cached.isCompletedExceptionally()) {
+            cache.asMap().remove(cacheKey, cached);
+            cached = null;
+        }
         
-        if (cachedResult != null) {
-            // Cache-Treffer
-            cacheHits.incrementAndGet();
-            LOGGER.info("CachingProxy: Cache-Treffer für komplexe Anfrage (ID: {})", id);
-            return cachedResult;
+        CompletableFuture<CacheEntry> loading = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> inFlight;
+        if (cached == null) {
+            inFlight = cache.asMap().putIfAbsent(cacheKey, loading);
+        } else if (!cached.isDone()) {
+            inFlight = cached;
+        } else if (cache.asMap().replace(cacheKey, cached, loading)) {
+            inFlight = null;
+        } else {
+            // Ein anderer Aufrufer hat den abgelaufenen Eintrag bereits ersetzt
+            inFlight = cache.asMap().putIfAbsent(cacheKey, loading);
+        }
+        
+        if (inFlight != null) {
+            // Ein anderer Aufrufer lädt bereits: auf dessen Ergebnis warten
+            coalescedCalls.increment();
+            LOGGER.info("CachingProxy: Cache-Miss für {}, warte auf laufende Anfrage an Zieldienst", description);
+            return await(inFlight).getValue();
         }
         
         // Cache-Miss: Leite die Anfrage an den Zieldienst weiter
-        cacheMisses.incrementAndGet();
-        LOGGER.info("CachingProxy: Cache-Miss für komplexe Anfrage (ID: {}), leite weiter an Zieldienst", id);
+        LOGGER.info("CachingProxy: Cache-Miss für {}, leite weiter an Zieldienst", description);
+        long loadStart = System.nanoTime();
+        try {
+            String result = call.call();
+            recorder.recordLoad(System.nanoTime() - loadStart, true);
+            loading.complete(new CacheEntry(result, System.nanoTime()));
+            LOGGER.info("CachingProxy: Ergebnis für {} im Cache gespeichert", description);
+            return result;
+        } catch (ServiceException e) {
+            recorder.recordLoad(System.nanoTime() - loadStart, false);
+            if (stale != null) {
+                // Der alte Eintrag bleibt mit seinem Ladezeitpunkt erhalten, bis die Kulanzzeit endet
+                staleServed.increment();
+                loading.complete(stale);
+                LOGGER.warn("CachingProxy: Zieldienst für {} nicht verfügbar ({}), liefere abgelaufenen Wert aus",
+                        description, e.getMessage());
+                return stale.getValue();
+            }
+            loading.completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            // Ein nicht abgeschlossener Ladevorgang bliebe im Cache und ließe alle Wartenden hängen
+            recorder.recordLoad(System.nanoTime() - loadStart, false);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Lädt einen Eintrag im Hintergrund neu, während Aufrufer weiter den alten Wert erhalten.
+     * 
+     * Pro Schlüssel läuft höchstens eine Aktualisierung. Schlägt sie fehl, bleibt der alte
+     * Eintrag bis zu seinem Ablauf erhalten.
+     */
+    private void refreshAsync(CacheKey cacheKey, CompletableFuture<CacheEntry> current, String description,
+                              ServiceCall call, RequestTypeRecorder recorder) {
+        if (!refreshing.add(cacheKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                long loadStart = System.nanoTime();
+                try {
+                    String result = call.call();
+                    recorder.recordLoad(System.nanoTime() - loadStart, true);
+                    // Nur ersetzen, wenn der Eintrag inzwischen nicht entfernt oder neu geladen wurde
+                    if (cache.asMap().replace(cacheKey, current,
+                            CompletableFuture.completedFuture(new CacheEntry(result, System.nanoTime())))) {
+                        refreshes.increment();
+                        LOGGER.info("CachingProxy: Ergebnis für {} im Hintergrund aktualisiert", description);
+                    }
+                } catch (Exception e) {
+                    recorder.recordLoad(System.nanoTime() - loadStart, false);
+                    LOGGER.warn("CachingProxy: Aktualisierung für {} fehlgeschlagen: {}", description, e.getMessage());
+                } finally {
+                    refreshing.remove(cacheKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(cacheKey);
+            LOGGER.warn("CachingProxy: Aktualisierung für {} abgelehnt: {}", description, e.getMessage());
+        }
+    }
+    
+    /**
+     * Zählt einen verdrängten Eintrag und legt ihn, wenn er wegen der Größenbeschränkung
+     * verdrängt wurde, in der zweiten Ebene ab.
+     * 
+     * Abgelaufene Einträge und Einträge, die noch geladen werden, werden nicht übernommen.
+     * Die Ablaufzeit in der zweiten Ebene entspricht der verbleibenden Zeit bis zum Ende
+     * der Kulanzzeit.
+     */
+    private void onEviction(CacheKey cacheKey, CacheEntry entry, RemovalCause cause) {
+        recorders.get(cacheKey.getRequestType()).recordEviction();
         
-        String result = targetService.complexRequest(id, data, options);
+        OffHeapCacheTier tier = secondLevel;
+        if (tier == null || entry == null || cause != RemovalCause.SIZE) {
+            return;
+        }
+        long remainingNanos = expireAfterNanos + gracePeriodNanos - entry.age(System.nanoTime());
+        if (remainingNanos <= 0) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(remainingNanos);
+        if (tier.put(cacheKey.hash64(), entry.getValue(), expiresAt)) {
+            LOGGER.debug("CachingProxy: Eintrag {} in die zweite Ebene verschoben", cacheKey);
+        }
+    }
+    
+    /**
+     * Holt einen Eintrag aus der zweiten Ebene zurück in den Cache.
+     * 
+     * Der Ladezeitpunkt wird aus der verbleibenden Lebensdauer zurückgerechnet, sodass der
+     * Eintrag danach wie jeder andere als frisch, zu aktualisieren oder abgelaufen gilt.
+     * 
+     * Der Eintrag bleibt in der zweiten Ebene und ist dort als gelesen markiert, damit ihn
+     * deren Clock-Verdrängung als häufig genutzt erkennt. Wird er erneut verdrängt, ersetzt
+     * er die vorhandene Kopie; bei einer Invalidierung wird diese mit entfernt.
+     * 
+     * @return Der Eintrag im Cache oder null, wenn die zweite Ebene ihn nicht enthält
+     */
+    private CompletableFuture<CacheEntry> promoteFromSecondLevel(CacheKey cacheKey) {
+        OffHeapCacheTier tier = secondLevel;
+        OffHeapCacheTier.Entry demoted = tier == null ? null : tier.get(cacheKey.hash64());
+        if (demoted == null) {
+            return null;
+        }
         
-        // Speichere das Ergebnis im Cache
-        cache.put(cacheKey, result);
-        LOGGER.info("CachingProxy: Ergebnis für komplexe Anfrage (ID: {}) im Cache gespeichert", id);
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(demoted.getExpiresAt() - System.currentTimeMillis());
+        long writeTime = System.nanoTime() - (expireAfterNanos + gracePeriodNanos - remainingNanos);
+        CompletableFuture<CacheEntry> promoted =
+                CompletableFuture.completedFuture(new CacheEntry(demoted.getValue(), writeTime));
         
-        return result;
+        CompletableFuture<CacheEntry> existing = cache.asMap().putIfAbsent(cacheKey, promoted);
+        LOGGER.debug("CachingProxy: Eintrag {} aus der zweiten Ebene zurückgeholt", cacheKey);
+        return existing != null ? existing : promoted;
+    }
+    
+    /**
+     * Wartet auf einen laufenden Ladevorgang und reicht dessen Fehler unverändert weiter.
+     */
+    private static CacheEntry await(CompletableFuture<CacheEntry> inFlight) throws ServiceException {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ServiceException) {
+                throw (ServiceException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ServiceException("Fehler beim Laden des Cache-Eintrags",
+                    ServiceException.ErrorType.UNKNOWN_ERROR, cause);
+        }
     }
     
     /**
@@ -156,7 +431,11 @@ public class CachingProxy implements RemoteService {
      */
     public void clearCache() {
         LOGGER.info("CachingProxy: Cache wird geleert");
-        cache.invalidateAll();
+        cache.synchronous().invalidateAll();
+        OffHeapCacheTier tier = secondLevel;
+        if (tier != null) {
+            tier.clear();
+        }
     }
     
     /**
@@ -166,7 +445,255 @@ public class CachingProxy implements RemoteService {
      */
     public void invalidateCacheEntry(CacheKey cacheKey) {
         LOGGER.info("CachingProxy: Cache-Eintrag wird entfernt: {}", cacheKey);
-        cache.invalidate(cacheKey);
+        cache.synchronous().invalidate(cacheKey);
+        OffHeapCacheTier tier = secondLevel;
+        if (tier != null) {
+            tier.remove(cacheKey.hash64());
+        }
+    }
+    
+    /**
+     * Führt ausstehende Wartungsarbeiten des Caches sofort aus.
+     * 
+     * Verdrängungen und damit das Verschieben in die zweite Ebene erledigt der Cache sonst
+     * asynchron; nach diesem Aufruf sind sie abgeschlossen.
+     */
+    public void cleanUp() {
+        cache.synchronous().cleanUp();
+    }
+    
+    /**
+     * Hängt eine zweite Cache-Ebene außerhalb des Heaps an oder entfernt sie.
+     * 
+     * Die Ebene gehört weiterhin dem Aufrufer und wird von {@link #close()} nicht geschlossen.
+     * 
+     * @param secondLevel Die zweite Ebene oder null, um keine zu verwenden
+     */
+    public void setSecondLevelCache(OffHeapCacheTier secondLevel) {
+        this.secondLevel = secondLevel;
+        LOGGER.info("CachingProxy: Zweite Cache-Ebene {}", secondLevel != null ? "angehängt" : "entfernt");
+    }
+    
+    /**
+     * Gibt die zweite Cache-Ebene zurück.
+     * 
+     * @return Die zweite Ebene oder null, wenn keine angehängt ist
+     */
+    public OffHeapCacheTier getSecondLevelCache() {
+        return secondLevel;
+    }
+    
+    /**
+     * Schreibt alle Einträge des Caches in eine Snapshot-Datei.
+     * 
+     * @param file Die Snapshot-Datei
+     * @return Die Anzahl der geschriebenen Einträge
+     * @throws IOException Wenn die Datei nicht geschrieben werden kann
+     * @see #snapshotTo(Path, int)
+     */
+    public int snapshotTo(Path file) throws IOException {
+        return snapshotTo(file, (int) Math.min(Integer.MAX_VALUE, cache.synchronous().estimatedSize()));
+    }
+    
+    /**
+     * Schreibt die meistgenutzten Einträge des Caches in eine Snapshot-Datei.
+     * 
+     * Die Einträge werden in der Reihenfolge ihrer Nutzung, beginnend mit dem meistgenutzten,
+     * zusammen mit ihrem Ablaufzeitpunkt geschrieben. Einträge, die gerade geladen werden oder
+     * abgelaufen sind, werden übersprungen. Die Datei wird erst nach vollständigem Schreiben
+     * an ihren Platz verschoben, sodass ein abgebrochener Snapshot keinen alten ersetzt.
+     * 
+     * @param file Die Snapshot-Datei
+     * @param maxEntries Die maximale Anzahl zu schreibender Einträge
+     * @return Die Anzahl der geschriebenen Einträge
+     * @throws IOException Wenn die Datei nicht geschrieben werden kann
+     */
+    public int snapshotTo(Path file, int maxEntries) throws IOException {
+        Map<CacheKey, CacheEntry> hottest = cache.synchronous().policy().eviction()
+                .map(eviction -> eviction.hottest(maxEntries))
+                .orElseGet(() -> cache.synchronous().asMap());
+        
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        int written = 0;
+        try {
+            written = writeSnapshot(temporary, hottest, maxEntries);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        
+        LOGGER.info("CachingProxy: {} Einträge in Snapshot {} geschrieben", written, file);
+        return written;
+    }
+    
+    private int writeSnapshot(Path temporary, Map<CacheKey, CacheEntry> hottest, int maxEntries)
+            throws IOException {
+        int written = 0;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CacheSnapshot.Output out = new CacheSnapshot.Output(channel);
+            out.writeInt(CacheSnapshot.MAGIC);
+            long nanoNow = System.nanoTime();
+            long millisNow = System.currentTimeMillis();
+            out.writeInt(CacheSnapshot.VERSION);
+            out.writeLong(millisNow);
+            
+            for (Map.Entry<CacheKey, CacheEntry> entry : hottest.entrySet()) {
+                if (written >= maxEntries) {
+                    break;
+                }
+                long remainingNanos = expireAfterNanos + gracePeriodNanos - entry.getValue().age(nanoNow);
+                if (remainingNanos <= 0) {
+                    continue;
+                }
+                out.writeLong(millisNow + TimeUnit.NANOSECONDS.toMillis(remainingNanos));
+                entry.getKey().writeTo(out);
+                out.writeString(entry.getValue().getValue());
+                written++;
+            }
+            out.writeLong(0);
+            out.flush();
+            channel.force(false);
+        }
+        return written;
+    }
+    
+    /**
+     * Lädt einen Snapshot im Hintergrund in den Cache.
+     * 
+     * @param file Die Snapshot-Datei
+     * @return Ein CompletableFuture mit der Anzahl der geladenen Einträge
+     * @see #warmFrom(Path, Executor)
+     */
+    public CompletableFuture<Integer> warmFrom(Path file) {
+        return warmFrom(file, refreshExecutor != null ? refreshExecutor : ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Lädt einen Snapshot auf dem angegebenen Executor in den Cache.
+     * 
+     * Der Proxy beantwortet währenddessen bereits Anfragen; Einträge, die inzwischen
+     * geladen wurden, werden nicht überschrieben. Abgelaufene Einträge werden übersprungen,
+     * die übrigen behalten ihre verbleibende Lebensdauer. Das Laden endet, sobald der Cache
+     * voll ist, sodass die zuerst gespeicherten, meistgenutzten Einträge erhalten bleiben.
+     * Fehlt die Datei, wird das Ergebnis mit 0 abgeschlossen.
+     * 
+     * @param file Die Snapshot-Datei
+     * @param executor Der Executor, auf dem der Snapshot gelesen wird
+     * @return Ein CompletableFuture mit der Anzahl der geladenen Einträge oder einer
+     *         IOException, wenn die Datei nicht gelesen werden kann
+     */
+    public CompletableFuture<Integer> warmFrom(Path file, Executor executor) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                int loaded = readSnapshot(file);
+                LOGGER.info("CachingProxy: {} Einträge aus Snapshot {} geladen", loaded, file);
+                result.complete(loaded);
+            } catch (NoSuchFileException e) {
+                LOGGER.info("CachingProxy: Kein Snapshot unter {} vorhanden", file);
+                result.complete(0);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("CachingProxy: Snapshot {} konnte nicht geladen werden: {}", file, e.getMessage());
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+    
+    private int readSnapshot(Path file) throws IOException {
+        long capacity = cache.synchronous().policy().eviction()
+                .map(eviction -> eviction.getMaximum())
+                .orElse(Long.MAX_VALUE);
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CacheSnapshot.Input in = new CacheSnapshot.Input(channel);
+            if (in.readInt() != CacheSnapshot.MAGIC) {
+                throw new IOException("Keine Snapshot-Datei: " + file);
+            }
+            int version = in.readInt();
+            if (version != CacheSnapshot.VERSION) {
+                throw new IOException("Nicht unterstützte Snapshot-Version " + version + ": " + file);
+            }
+            in.readLong(); // Erstellungszeitpunkt
+            
+            int loaded = 0;
+            // Die Größe schließt Einträge ein, die der Proxy währenddessen selbst geladen hat
+            for (long expiresAt = in.readLong();
+                 expiresAt != 0 && cache.synchronous().estimatedSize() < capacity;
+                 expiresAt = in.readLong()) {
+                CacheKey cacheKey = CacheKey.readFrom(in);
+                String value = in.readString();
+                
+                long remainingNanos = TimeUnit.MILLISECONDS.toNanos(expiresAt - System.currentTimeMillis());
+                if (remainingNanos <= 0) {
+                    continue;
+                }
+                long writeTime = System.nanoTime() - (expireAfterNanos + gracePeriodNanos - remainingNanos);
+                if (cache.asMap().putIfAbsent(cacheKey,
+                        CompletableFuture.completedFuture(new CacheEntry(value, writeTime))) == null) {
+                    loaded++;
+                }
+            }
+            return loaded;
+        }
+    }
+    
+    /**
+     * Gibt die Anzahl der Aufrufe zurück, die keinen eigenen Aufruf an den Zieldienst
+     * ausgelöst, sondern auf einen laufenden Ladevorgang für denselben Schlüssel gewartet haben.
+     * 
+     * @return Die Anzahl der zusammengefassten Aufrufe
+     */
+    public long getCoalescedCallCount() {
+        return coalescedCalls.sum();
+    }
+    
+    /**
+     * Gibt die Anzahl der erfolgreichen Aktualisierungen im Hintergrund zurück.
+     * 
+     * @return Die Anzahl der Aktualisierungen
+     */
+    public long getRefreshCount() {
+        return refreshes.sum();
+    }
+    
+    /**
+     * Gibt die Anzahl der Anfragen zurück, für die wegen eines Fehlers des Zieldienstes ein
+     * abgelaufener Wert ausgeliefert wurde.
+     * 
+     * @return Die Anzahl der ersatzweise ausgelieferten Werte
+     */
+    public long getStaleServedCount() {
+        return staleServed.sum();
+    }
+    
+    /**
+     * Beendet den eigenen Thread-Pool für Aktualisierungen, falls einer erzeugt wurde.
+     */
+    @Override
+    public void close() {
+        if (ownedRefreshExecutor != null) {
+            ownedRefreshExecutor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Gibt eine Momentaufnahme der Cache-Statistik zurück.
+     * 
+     * @return Die Statistik mit Treffern, Fehlschlägen, Ladezeiten und Verdrängungen je Anfrage-Typ
+     */
+    public CacheStatistics getStatistics() {
+        Map<CacheKey.RequestType, CacheStatistics.RequestTypeStatistics> byRequestType =
+                new EnumMap<>(CacheKey.RequestType.class);
+        long[] loadTimes = RequestTypeRecorder.newLoadTimeHistogram();
+        recorders.forEach((requestType, recorder) -> byRequestType.put(requestType, recorder.snapshot(loadTimes)));
+        CacheStatistics.RequestTypeStatistics total = RequestTypeRecorder.merge(byRequestType.values(), loadTimes);
+        
+        CacheStats stats = cache.synchronous().stats();
+        return new CacheStatistics(byRequestType, total, stats.evictionCount(), stats.evictionWeight(),
+                coalescedCalls.sum(), refreshes.sum(), staleServed.sum(), cache.synchronous().estimatedSize());
     }
     
     /**
@@ -175,18 +702,38 @@ public class CachingProxy implements RemoteService {
      * @return Ein String mit Cache-Statistiken
      */
     public String getCacheStatistics() {
-        double hitRate = (double) cacheHits.get() / (cacheHits.get() + cacheMisses.get());
+        CacheStatistics statistics = getStatistics();
         
-        return String.format(
+        StringBuilder result = new StringBuilder(String.format(
                 "Cache-Statistik:\n" +
                 "  Treffer: %d\n" +
                 "  Fehlschläge: %d\n" +
                 "  Trefferrate: %.2f%%\n" +
+                "  Zusammengefasste Aufrufe: %d\n" +
+                "  Ladezeit p50/p99: %.2f/%.2f ms\n" +
+                "  Verdrängungen: %d\n" +
                 "  Cache-Größe: %d",
-                cacheHits.get(),
-                cacheMisses.get(),
-                hitRate * 100,
-                cache.estimatedSize()
-        );
+                statistics.getHitCount(),
+                statistics.getMissCount(),
+                statistics.getHitRate() * 100,
+                statistics.getCoalescedCallCount(),
+                statistics.getTotal().getLoadTimeP50Nanos() / 1e6,
+                statistics.getTotal().getLoadTimeP99Nanos() / 1e6,
+                statistics.getEvictionCount(),
+                statistics.getEstimatedSize()
+        ));
+        statistics.getByRequestType().forEach((requestType, byType) -> result.append(String.format(
+                "\n  %s: Treffer %d, Fehlschläge %d, Ladezeit p50/p99 %.2f/%.2f ms",
+                requestType, byType.getHitCount(), byType.getMissCount(),
+                byType.getLoadTimeP50Nanos() / 1e6, byType.getLoadTimeP99Nanos() / 1e6)));
+        return result.toString();
+    }
+    
+    /**
+     * Ein Aufruf des Zieldienstes, der bei einem Cache-Miss ausgeführt wird.
+     */
+    @FunctionalInterface
+    private interface ServiceCall {
+        String call() throws ServiceException;
     }
-}
\ No newline at end of file
+}
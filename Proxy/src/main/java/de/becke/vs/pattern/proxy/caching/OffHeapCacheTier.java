@@ -0,0 +1,493 @@
+package de.becke.vs.pattern.proxy.caching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Eine zweite Cache-Ebene außerhalb des Java-Heaps für den CachingProxy.
+ * 
+ * Die Antworten liegen UTF-8-kodiert in direkten Puffern oder einer per Memory-Mapping
+ * eingeblendeten Datei, der Index ist eine offen adressierte Hash-Tabelle in einem weiteren
+ * direkten Puffer. Schlüssel sind 64-Bit-Hashes von {@link CacheKey}s, sodass die Ebene pro
+ * Eintrag kein Java-Objekt hält. Bei einer Hash-Kollision zweier Schlüssel überschreibt der
+ * jüngere den älteren; die Wahrscheinlichkeit, dass ein falscher Wert geliefert wird, ist
+ * bei 64 Bit vernachlässigbar.
+ * 
+ * Der Datenbereich ist in Segmente mit je eigenem Puffer von höchstens 1 GiB geteilt, sodass
+ * die Kapazität nicht auf einen einzelnen {@link ByteBuffer} beschränkt ist. Die Segmente
+ * werden reihum beschrieben. Ist das aktuelle Segment voll, wird das nächste nach dem
+ * Clock-Verfahren freigegeben: Einträge, die seit dem letzten Durchlauf gelesen wurden,
+ * werden an den Anfang des Segments verschoben und verlieren ihre Markierung, alle anderen
+ * werden verdrängt. Gelesene Einträge bleiben dafür in der Ebene, auch wenn der Aufrufer
+ * sie in eine schnellere Ebene übernimmt.
+ * 
+ * Die Inhalte überdauern keinen Neustart; die Datei dient nur dazu, den Speicher dem
+ * Seitencache des Betriebssystems statt dem Heap zu überlassen.
+ */
+public class OffHeapCacheTier implements AutoCloseable {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapCacheTier.class);
+    
+    private static final int MIN_SEGMENTS = 16;
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+    
+    // Der Index muss in einen einzelnen Puffer passen
+    private static final int MAX_ENTRIES = 1 << 24;
+    
+    // Aufbau eines Datensatzes: Hash, Ablaufzeit, Länge, Markierung, Bytes (auf 8 Byte ausgerichtet)
+    private static final int HASH_OFFSET = 0;
+    private static final int EXPIRES_OFFSET = 8;
+    private static final int LENGTH_OFFSET = 16;
+    private static final int FLAGS_OFFSET = 20;
+    private static final int HEADER_SIZE = 24;
+    
+    private static final int REFERENCED = 1;
+    
+    // Aufbau eines Index-Eintrags: Hash und Position des Datensatzes + 1 (0 = frei);
+    // die Position enthält das Segment in den oberen und den Offset in den unteren 32 Bit
+    private static final int SLOT_SIZE = 16;
+    
+    private final ByteBuffer[] segments;
+    private final ByteBuffer index;
+    private final int segmentSize;
+    private final int[] segmentFill;
+    private final int slotMask;
+    private final int maxEntries;
+    
+    private int currentSegment;
+    private int entryCount;
+    private boolean closed;
+    
+    // Zwischenpuffer zum Verschieben von Datensätzen innerhalb eines Segments
+    private byte[] scratch = new byte[256];
+    
+    // Statistik (nur unter der Sperre geschrieben)
+    private long hits;
+    private long misses;
+    private long evictions;
+    
+    /**
+     * Erstellt eine Cache-Ebene in direktem Speicher außerhalb des Heaps.
+     * 
+     * @param capacityBytes Die Größe des Datenbereichs in Bytes
+     * @param maxEntries Die maximale Anzahl von Einträgen (höchstens 2^24)
+     */
+    public OffHeapCacheTier(long capacityBytes, int maxEntries) {
+        this(allocate(capacityBytes), maxEntries);
+        LOGGER.info("Off-Heap-Cache mit {} Bytes und maximal {} Einträgen erstellt", getCapacity(), maxEntries);
+    }
+    
+    /**
+     * Erstellt eine Cache-Ebene in einer per Memory-Mapping eingeblendeten Datei.
+     * 
+     * Eine vorhandene Datei wird überschrieben.
+     * 
+     * @param file Die Datei für den Datenbereich
+     * @param capacityBytes Die Größe des Datenbereichs in Bytes
+     * @param maxEntries Die maximale Anzahl von Einträgen (höchstens 2^24)
+     * @throws IOException Wenn die Datei nicht angelegt oder eingeblendet werden kann
+     */
+    public OffHeapCacheTier(Path file, long capacityBytes, int maxEntries) throws IOException {
+        this(map(file, capacityBytes), maxEntries);
+        LOGGER.info("Dateibasierter Cache '{}' mit {} Bytes und maximal {} Einträgen erstellt",
+                file, getCapacity(), maxEntries);
+    }
+    
+    private OffHeapCacheTier(ByteBuffer[] segments, int maxEntries) {
+        if (maxEntries < 1 || maxEntries > MAX_ENTRIES) {
+            throw new IllegalArgumentException("Die maximale Anzahl von Einträgen muss zwischen 1 und " +
+                    MAX_ENTRIES + " liegen: " + maxEntries);
+        }
+        this.segments = segments;
+        this.segmentSize = segments[0].capacity();
+        this.segmentFill = new int[segments.length];
+        this.maxEntries = maxEntries;
+    
+        // Höchstens halb gefüllte Tabelle, damit die Suchketten kurz bleiben
+        int slots = Integer.highestOneBit(maxEntries) << 2;
+        this.index = ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+        this.slotMask = slots - 1;
+    }
+    
+    private static int segmentCount(long capacityBytes) {
+        long count = Math.max(MIN_SEGMENTS, (capacityBytes + MAX_SEGMENT_SIZE - 1) / MAX_SEGMENT_SIZE);
+        if (capacityBytes / count < HEADER_SIZE * 4 || count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ungültige Kapazität: " + capacityBytes);
+        }
+        return (int) count;
+    }
+    
+    private static int segmentSize(long capacityBytes, int segmentCount) {
+        return (int) (capacityBytes / segmentCount) & ~7;
+    }
+    
+    private static ByteBuffer[] allocate(long capacityBytes) {
+        int count = segmentCount(capacityBytes);
+        int size = segmentSize(capacityBytes, count);
+        ByteBuffer[] segments = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = ByteBuffer.allocateDirect(size);
+        }
+        return segments;
+    }
+    
+    private static ByteBuffer[] map(Path file, long capacityBytes) throws IOException {
+        int count = segmentCount(capacityBytes);
+        int size = segmentSize(capacityBytes, count);
+        ByteBuffer[] segments = new ByteBuffer[count];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Die Einblendungen bleiben nach dem Schließen des Kanals gültig
+            for (int i = 0; i < count; i++) {
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * size, size);
+            }
+        }
+        return segments;
+    }
+    
+    /**
+     * Speichert einen Wert.
+     * 
+     * @param hash Der 64-Bit-Hash des Schlüssels
+     * @param value Der Wert
+     * @param expiresAt Der Ablaufzeitpunkt in Millisekunden seit der Epoche
+     * @return true, wenn der Wert gespeichert wurde; false, wenn er größer als ein Segment ist
+     */
+    public synchronized boolean put(long hash, String value, long expiresAt) {
+        if (closed) {
+            return false;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int size = recordSize(bytes.length);
+        if (size > segmentSize) {
+            return false;
+        }
+    
+        int existing = find(hash);
+        if (existing >= 0) {
+            delete(existing);
+        }
+    
+        // Reihum Segmente freigeben, bis Platz ist; nach zwei Runden sind alle Markierungen gelöscht
+        long now = System.currentTimeMillis();
+        for (int attempts = 0; segmentFill[currentSegment] + size > segmentSize || entryCount >= maxEntries; attempts++) {
+            if (attempts > 2 * segments.length) {
+                return false;
+            }
+            currentSegment = (currentSegment + 1) % segments.length;
+            reclaim(currentSegment, now);
+        }
+    
+        ByteBuffer segment = segments[currentSegment];
+        int offset = segmentFill[currentSegment];
+        segment.putLong(offset + HASH_OFFSET, hash);
+        segment.putLong(offset + EXPIRES_OFFSET, expiresAt);
+        segment.putInt(offset + LENGTH_OFFSET, bytes.length);
+        segment.putInt(offset + FLAGS_OFFSET, 0);
+        ByteBuffer target = segment.duplicate();
+        target.position(offset + HEADER_SIZE);
+        target.put(bytes);
+        segmentFill[currentSegment] += size;
+    
+        insert(hash, location(currentSegment, offset));
+        return true;
+    }
+    
+    /**
+     * Liest einen Wert und markiert ihn als verwendet.
+     * 
+     * @param hash Der 64-Bit-Hash des Schlüssels
+     * @return Der Eintrag oder null, wenn er nicht vorhanden oder abgelaufen ist
+     */
+    public synchronized Entry get(long hash) {
+        int slot = closed ? -1 : find(hash);
+        if (slot < 0) {
+            misses++;
+            return null;
+        }
+    
+        long location = location(slot);
+        ByteBuffer segment = segments[segmentOf(location)];
+        int offset = offsetOf(location);
+        long expiresAt = segment.getLong(offset + EXPIRES_OFFSET);
+        if (expiresAt <= System.currentTimeMillis()) {
+            delete(slot);
+            misses++;
+            return null;
+        }
+    
+        segment.putInt(offset + FLAGS_OFFSET, REFERENCED);
+        byte[] bytes = new byte[segment.getInt(offset + LENGTH_OFFSET)];
+        ByteBuffer source = segment.duplicate();
+        source.position(offset + HEADER_SIZE);
+        source.get(bytes);
+        hits++;
+        return new Entry(new String(bytes, StandardCharsets.UTF_8), expiresAt);
+    }
+    
+    /**
+     * Entfernt einen Wert.
+     * 
+     * @param hash Der 64-Bit-Hash des Schlüssels
+     * @return true, wenn ein Wert entfernt wurde
+     */
+    public synchronized boolean remove(long hash) {
+        int slot = closed ? -1 : find(hash);
+        if (slot < 0) {
+            return false;
+        }
+        delete(slot);
+        return true;
+    }
+    
+    /**
+     * Entfernt alle Werte.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < index.capacity(); i += 8) {
+            index.putLong(i, 0);
+        }
+        for (int i = 0; i < segmentFill.length; i++) {
+            segmentFill[i] = 0;
+        }
+        entryCount = 0;
+    }
+    
+    /**
+     * Gibt ein Segment frei: markierte, nicht abgelaufene Einträge werden an den Anfang
+     * verschoben und verlieren ihre Markierung, alle anderen werden verdrängt.
+     */
+    private void reclaim(int segmentIndex, long now) {
+        ByteBuffer segment = segments[segmentIndex];
+        int fill = segmentFill[segmentIndex];
+        int write = 0;
+    
+        for (int read = 0; read < fill; ) {
+            int offset = read;
+            long hash = segment.getLong(offset + HASH_OFFSET);
+            int size = recordSize(segment.getInt(offset + LENGTH_OFFSET));
+            read += size;
+    
+            // Überschriebene oder entfernte Datensätze sind nicht mehr im Index
+            int slot = find(hash);
+            if (slot < 0 || location(slot) != location(segmentIndex, offset)) {
+                continue;
+            }
+    
+            boolean referenced = segment.getInt(offset + FLAGS_OFFSET) == REFERENCED;
+            if (!referenced || segment.getLong(offset + EXPIRES_OFFSET) <= now) {
+                delete(slot);
+                evictions++;
+                continue;
+            }
+    
+            segment.putInt(offset + FLAGS_OFFSET, 0);
+            if (write != offset) {
+                move(segment, offset, write, size);
+                index.putLong(slot * SLOT_SIZE + 8, location(segmentIndex, write) + 1);
+            }
+            write += size;
+        }
+    
+        segmentFill[segmentIndex] = write;
+    }
+    
+    /**
+     * Verschiebt einen Datensatz innerhalb eines Segments. Quelle und Ziel können sich
+     * überlappen, daher wird über einen Zwischenpuffer kopiert.
+     */
+    private void move(ByteBuffer segment, int from, int to, int size) {
+        if (scratch.length < size) {
+            scratch = new byte[Math.max(size, scratch.length * 2)];
+        }
+        ByteBuffer source = segment.duplicate();
+        source.position(from);
+        source.get(scratch, 0, size);
+        ByteBuffer target = segment.duplicate();
+        target.position(to);
+        target.put(scratch, 0, size);
+    }
+    
+    private static int recordSize(int length) {
+        return (HEADER_SIZE + length + 7) & ~7;
+    }
+    
+    private int home(long hash) {
+        // Die oberen Bits einmischen, da Hashes mit gleichem Ende sonst dieselbe Kette teilen
+        long mixed = hash ^ (hash >>> 29) ^ (hash >>> 47);
+        return (int) mixed & slotMask;
+    }
+    
+    private int find(long hash) {
+        for (int slot = home(hash); ; slot = (slot + 1) & slotMask) {
+            long location = index.getLong(slot * SLOT_SIZE + 8);
+            if (location == 0) {
+                return -1;
+            }
+            if (index.getLong(slot * SLOT_SIZE) == hash) {
+                return slot;
+            }
+        }
+    }
+    
+    private long location(int slot) {
+        return index.getLong(slot * SLOT_SIZE + 8) - 1;
+    }
+    
+    private static long location(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+    
+    private static int segmentOf(long location) {
+        return (int) (location >>> 32);
+    }
+    
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+    
+    private void insert(long hash, long location) {
+        int slot = home(hash);
+        while (index.getLong(slot * SLOT_SIZE + 8) != 0) {
+            slot = (slot + 1) & slotMask;
+        }
+        index.putLong(slot * SLOT_SIZE, hash);
+        index.putLong(slot * SLOT_SIZE + 8, location + 1);
+        entryCount++;
+    }
+    
+    /**
+     * Entfernt einen Index-Eintrag und rückt nachfolgende Einträge der Suchkette auf,
+     * sodass keine Grabsteine nötig sind.
+     */
+    private void delete(int slot) {
+        int hole = slot;
+        for (int next = (hole + 1) & slotMask; index.getLong(next * SLOT_SIZE + 8) != 0; next = (next + 1) & slotMask) {
+            int home = home(index.getLong(next * SLOT_SIZE));
+            // Bleibt stehen, wenn sein Heimatplatz zyklisch in (hole, next] liegt
+            boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!stays) {
+                index.putLong(hole * SLOT_SIZE, index.getLong(next * SLOT_SIZE));
+                index.putLong(hole * SLOT_SIZE + 8, index.getLong(next * SLOT_SIZE + 8));
+                hole = next;
+            }
+        }
+        index.putLong(hole * SLOT_SIZE, 0);
+        index.putLong(hole * SLOT_SIZE + 8, 0);
+        entryCount--;
+    }
+    
+    /**
+     * Gibt die Anzahl der Einträge zurück.
+     * 
+     * @return Die Anzahl der Einträge, einschließlich abgelaufener, die noch nicht verdrängt wurden
+     */
+    public synchronized int size() {
+        return entryCount;
+    }
+    
+    /**
+     * Gibt die Größe des Datenbereichs zurück.
+     * 
+     * @return Die Kapazität in Bytes
+     */
+    public long getCapacity() {
+        return (long) segmentSize * segments.length;
+    }
+    
+    /**
+     * Gibt die Anzahl der belegten Bytes zurück.
+     * 
+     * @return Die belegten Bytes einschließlich überschriebener, noch nicht freigegebener Datensätze
+     */
+    public synchronized long getUsedBytes() {
+        long used = 0;
+        for (int fill : segmentFill) {
+            used += fill;
+        }
+        return used;
+    }
+    
+    /**
+     * Gibt die Anzahl der Treffer zurück.
+     * 
+     * @return Die Anzahl der erfolgreichen Lesezugriffe
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+    
+    /**
+     * Gibt die Anzahl der Fehlschläge zurück.
+     * 
+     * @return Die Anzahl der Lesezugriffe ohne gültigen Eintrag
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+    
+    /**
+     * Gibt die Anzahl der verdrängten Einträge zurück.
+     * 
+     * @return Die Anzahl der Einträge, die für neue Einträge weichen mussten
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+    
+    /**
+     * Schreibt eine eingeblendete Datei zurück und nimmt keine Einträge mehr an.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (ByteBuffer segment : segments) {
+            if (segment instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) segment).force();
+            }
+        }
+        clear();
+    }
+    
+    /**
+     * Ein aus der Cache-Ebene gelesener Eintrag.
+     */
+    public static final class Entry {
+        private final String value;
+        private final long expiresAt;
+    
+        Entry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    
+        /**
+         * Gibt den Wert zurück.
+         * 
+         * @return Der gespeicherte Wert
+         */
+        public String getValue() {
+            return value;
+        }
+    
+        /**
+         * Gibt den Ablaufzeitpunkt zurück.
+         * 
+         * @return Der Ablaufzeitpunkt in Millisekunden seit der Epoche
+         */
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
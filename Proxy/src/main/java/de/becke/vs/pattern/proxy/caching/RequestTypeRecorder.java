@@ -0,0 +1,152 @@
+package de.becke.vs.pattern.proxy.caching;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Erfasst die Cache-Statistik eines Anfrage-Typs.
+ * 
+ * Treffer und Fehlschläge werden bei jeder Anfrage gezählt und liegen daher in
+ * {@link LongAdder}n, die unter Last nicht um eine gemeinsame Speicherzelle konkurrieren.
+ * Ladezeiten fallen nur bei Aufrufen des Zieldienstes an und werden in einem Histogramm mit
+ * logarithmischen Klassen erfasst: Jede Zweierpotenz ist in acht Klassen geteilt, sodass
+ * Perzentile auf etwa 12,5 % genau sind.
+ */
+final class RequestTypeRecorder {
+    
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    
+    // Klassen 0 bis 7 für Werte unter 8, danach acht Klassen je Zweierpotenz bis 2^62
+    private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicLongArray loadTimes = new AtomicLongArray(BUCKETS);
+    
+    void recordHit() {
+        hits.increment();
+    }
+    
+    void recordMiss() {
+        misses.increment();
+    }
+    
+    void recordEviction() {
+        evictions.increment();
+    }
+    
+    /**
+     * Erfasst einen Aufruf des Zieldienstes.
+     * 
+     * @param nanos Die Ladezeit in Nanosekunden
+     * @param success true, wenn der Zieldienst ein Ergebnis geliefert hat
+     */
+    void recordLoad(long nanos, boolean success) {
+        (success ? loadSuccesses : loadFailures).increment();
+        loadTimes.incrementAndGet(bucket(Math.max(0, nanos)));
+    }
+    
+    /**
+     * Erstellt ein leeres Histogramm, in dem {@link #snapshot(long[])} die Ladezeiten
+     * mehrerer Anfrage-Typen zusammenführt.
+     * 
+     * @return Die leeren Klassen des Histogramms
+     */
+    static long[] newLoadTimeHistogram() {
+        return new long[BUCKETS];
+    }
+    
+    /**
+     * Erstellt eine unveränderliche Momentaufnahme der Statistik.
+     * 
+     * @param mergedLoadTimes Ein Histogramm aus {@link #newLoadTimeHistogram()}, zu dem die
+     *                        Ladezeiten dieses Anfrage-Typs addiert werden
+     * @return Die Statistik des Anfrage-Typs
+     */
+    CacheStatistics.RequestTypeStatistics snapshot(long[] mergedLoadTimes) {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = loadTimes.get(i);
+            mergedLoadTimes[i] += counts[i];
+        }
+        return statistics(hits.sum(), misses.sum(), loadSuccesses.sum(), loadFailures.sum(), evictions.sum(),
+                counts);
+    }
+    
+    /**
+     * Fasst die Statistiken mehrerer Anfrage-Typen zusammen.
+     * 
+     * @param parts Die Statistiken der einzelnen Anfrage-Typen
+     * @param mergedLoadTimes Das zusammengeführte Histogramm ihrer Ladezeiten
+     * @return Die Gesamtstatistik
+     */
+    static CacheStatistics.RequestTypeStatistics merge(Iterable<CacheStatistics.RequestTypeStatistics> parts,
+                                                       long[] mergedLoadTimes) {
+        long hits = 0;
+        long misses = 0;
+        long loadSuccesses = 0;
+        long loadFailures = 0;
+        long evictions = 0;
+        for (CacheStatistics.RequestTypeStatistics part : parts) {
+            hits += part.getHitCount();
+            misses += part.getMissCount();
+            loadSuccesses += part.getLoadSuccessCount();
+            loadFailures += part.getLoadFailureCount();
+            evictions += part.getEvictionCount();
+        }
+        return statistics(hits, misses, loadSuccesses, loadFailures, evictions, mergedLoadTimes);
+    }
+    
+    private static CacheStatistics.RequestTypeStatistics statistics(long hits, long misses, long loadSuccesses,
+                                                                    long loadFailures, long evictions,
+                                                                    long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return new CacheStatistics.RequestTypeStatistics(
+                hits, misses, loadSuccesses, loadFailures, evictions,
+                percentile(counts, total, 0.5), percentile(counts, total, 0.9),
+                percentile(counts, total, 0.99), percentile(counts, total, 1.0));
+    }
+    
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+    
+    /**
+     * Gibt die Obergrenze einer Klasse zurück, damit Perzentile nie zu niedrig ausfallen.
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+    
+    private static long percentile(long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(counts.length - 1);
+    }
+}
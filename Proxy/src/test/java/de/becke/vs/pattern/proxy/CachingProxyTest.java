@@ -1,13 +1,26 @@
 package de.becke.vs.pattern.proxy;
 
 import de.becke.vs.pattern.proxy.caching.CacheKey;
+import de.becke.vs.pattern.proxy.caching.CacheStatistics;
 import de.becke.vs.pattern.proxy.caching.CachingProxy;
+import de.becke.vs.pattern.proxy.caching.OffHeapCacheTier;
 import de.becke.vs.pattern.proxy.common.RemoteService;
 import de.becke.vs.pattern.proxy.common.ServiceException;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
@@ -18,6 +31,9 @@ public class CachingProxyTest {
     private CachingProxy cachingProxy;
     private RemoteService mockService;
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Before
     public void setUp() {
         // Erstelle Mock-Objekt statt echter Implementierung
@@ -144,6 +160,72 @@ public class CachingProxyTest {
         assertTrue("Statistik sollte Fehlschläge enthalten", stats.contains("Fehlschläge: 2"));
     }
 
+    @Test
+    public void testStatisticsAreBrokenDownByRequestType() throws ServiceException {
+        // Vor der ersten Anfrage ist die Trefferrate 0 statt NaN
+        assertEquals(0.0, cachingProxy.getStatistics().getHitRate(), 0.0);
+        assertTrue(cachingProxy.getCacheStatistics().contains("Trefferrate: 0"));
+        
+        when(mockService.request()).thenReturn("Einfache Antwort");
+        when(mockService.request("p")).thenReturn("Antwort auf p");
+        
+        cachingProxy.request();
+        cachingProxy.request();
+        cachingProxy.request();
+        cachingProxy.request("p");
+        
+        CacheStatistics statistics = cachingProxy.getStatistics();
+        CacheStatistics.RequestTypeStatistics simple =
+                statistics.forRequestType(CacheKey.RequestType.SIMPLE_REQUEST);
+        CacheStatistics.RequestTypeStatistics parameterized =
+                statistics.forRequestType(CacheKey.RequestType.PARAMETERIZED_REQUEST);
+        CacheStatistics.RequestTypeStatistics complex =
+                statistics.forRequestType(CacheKey.RequestType.COMPLEX_REQUEST);
+        
+        assertEquals(2, simple.getHitCount());
+        assertEquals(1, simple.getMissCount());
+        assertEquals(1, simple.getLoadSuccessCount());
+        assertEquals(0, parameterized.getHitCount());
+        assertEquals(1, parameterized.getMissCount());
+        assertEquals(0, complex.getMissCount());
+        assertEquals(0, complex.getLoadTimeP99Nanos());
+        
+        assertEquals(2, statistics.getHitCount());
+        assertEquals(2, statistics.getMissCount());
+        assertEquals(0.5, statistics.getHitRate(), 0.0001);
+        assertTrue(simple.getLoadTimeP50Nanos() > 0);
+        assertTrue(simple.getLoadTimeP50Nanos() <= simple.getLoadTimeMaxNanos());
+        
+        // Die Gesamtwerte fassen alle Anfrage-Typen zusammen, auch die Ladezeiten
+        assertEquals(2, statistics.getLoadSuccessCount());
+        assertEquals(0, statistics.getLoadFailureCount());
+        assertEquals(Math.max(simple.getLoadTimeMaxNanos(), parameterized.getLoadTimeMaxNanos()),
+                statistics.getTotal().getLoadTimeMaxNanos());
+        assertTrue(statistics.getTotal().getLoadTimeP50Nanos() > 0);
+    }
+
+    @Test
+    public void testStatisticsCountEvictionsByRequestType() throws Exception {
+        when(mockService.request(anyString())).thenAnswer(invocation -> "Antwort auf " + invocation.getArgument(0));
+        
+        CachingProxy proxy = new CachingProxy(mockService, 2, 1, TimeUnit.MINUTES);
+        for (int i = 0; i < 10; i++) {
+            proxy.request("p" + i);
+        }
+        
+        // Die Verdrängung aus dem Cache läuft asynchron
+        long deadline = System.currentTimeMillis() + 5000;
+        while (proxy.getStatistics().getEvictionCount() < 8 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        
+        CacheStatistics statistics = proxy.getStatistics();
+        assertEquals(8, statistics.getEvictionCount());
+        assertEquals(8, statistics.getEvictionWeight());
+        assertEquals(8, statistics.forRequestType(CacheKey.RequestType.PARAMETERIZED_REQUEST).getEvictionCount());
+        assertEquals(0, statistics.forRequestType(CacheKey.RequestType.SIMPLE_REQUEST).getEvictionCount());
+    }
+
     @Test(expected = ServiceException.class)
     public void testServiceExceptionPassthrough() throws ServiceException {
         // Konfiguriere Mock-Verhalten um eine Exception zu werfen
@@ -153,4 +235,317 @@ public class CachingProxyTest {
         // Sollte die Exception durchreichen
         cachingProxy.request("exception");
     }
+
+    @Test
+    public void testConcurrentMissesAreCoalesced() throws Exception {
+        int callers = 8;
+        
+        // Der Zieldienst antwortet erst, wenn alle anderen Aufrufer warten
+        when(mockService.request("burst")).thenAnswer(invocation -> {
+            awaitCoalesced(callers - 1);
+            return "Antwort auf burst";
+        });
+        
+        List<Future<String>> results = runConcurrently(callers, () -> cachingProxy.request("burst"));
+        for (Future<String> result : results) {
+            assertEquals("Antwort auf burst", result.get(5, TimeUnit.SECONDS));
+        }
+        
+        verify(mockService, times(1)).request("burst");
+        assertEquals(callers - 1, cachingProxy.getCoalescedCallCount());
+    }
+
+    @Test
+    public void testCoalescedCallersShareException() throws Exception {
+        int callers = 4;
+        
+        when(mockService.request("failing")).thenAnswer(invocation -> {
+            awaitCoalesced(callers - 1);
+            throw new ServiceException("Testfehler", ServiceException.ErrorType.SERVICE_UNAVAILABLE);
+        }).thenReturn("Antwort nach Fehler");
+        
+        List<Future<String>> results = runConcurrently(callers, () -> cachingProxy.request("failing"));
+        for (Future<String> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("ServiceException erwartet");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof ServiceException);
+                assertEquals("Testfehler", e.getCause().getMessage());
+            }
+        }
+        
+        // Fehler werden nicht zwischengespeichert
+        assertEquals("Antwort nach Fehler", cachingProxy.request("failing"));
+        verify(mockService, times(2)).request("failing");
+    }
+
+    @Test
+    public void testErrorInServiceDoesNotBlockLaterCalls() throws Exception {
+        when(mockService.request("error"))
+            .thenThrow(new AssertionError("Testfehler"))
+            .thenReturn("Antwort nach Error");
+        
+        try {
+            cachingProxy.request("error");
+            fail("AssertionError erwartet");
+        } catch (AssertionError e) {
+            assertEquals("Testfehler", e.getMessage());
+        }
+        
+        // Der fehlgeschlagene Ladevorgang darf nicht im Cache hängen bleiben
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> retry = executor.submit(() -> cachingProxy.request("error"));
+            assertEquals("Antwort nach Error", retry.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(mockService, times(2)).request("error");
+    }
+
+    @Test
+    public void testRefreshAheadServesOldValueWhileReloading() throws Exception {
+        when(mockService.request("refresh")).thenReturn("Version 1", "Version 2");
+        
+        try (CachingProxy proxy = new CachingProxy(mockService, 100, 5000, 100, 0, TimeUnit.MILLISECONDS)) {
+            assertEquals("Version 1", proxy.request("refresh"));
+            Thread.sleep(150);
+            
+            // Weicher Ablauf erreicht: alter Wert, Aktualisierung läuft im Hintergrund
+            assertEquals("Version 1", proxy.request("refresh"));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (proxy.getRefreshCount() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            
+            assertEquals("Version 2", proxy.request("refresh"));
+            verify(mockService, times(2)).request("refresh");
+        }
+    }
+
+    @Test
+    public void testGracePeriodServesStaleValueOnServiceException() throws Exception {
+        when(mockService.request("grace"))
+            .thenReturn("Alte Antwort")
+            .thenThrow(new ServiceException("Testfehler", ServiceException.ErrorType.SERVICE_UNAVAILABLE));
+        
+        try (CachingProxy proxy = new CachingProxy(mockService, 100, 100, 0, 5000, TimeUnit.MILLISECONDS)) {
+            assertEquals("Alte Antwort", proxy.request("grace"));
+            Thread.sleep(150);
+            
+            // Abgelaufen: jede Anfrage versucht es erneut und erhält bei Fehlern den alten Wert
+            assertEquals("Alte Antwort", proxy.request("grace"));
+            assertEquals("Alte Antwort", proxy.request("grace"));
+            assertEquals(2, proxy.getStaleServedCount());
+            verify(mockService, times(3)).request("grace");
+        }
+    }
+
+    @Test
+    public void testExpiredEntryWithoutGracePeriodPassesException() throws Exception {
+        when(mockService.request("noGrace"))
+            .thenReturn("Alte Antwort")
+            .thenThrow(new ServiceException("Testfehler", ServiceException.ErrorType.SERVICE_UNAVAILABLE));
+        
+        CachingProxy proxy = new CachingProxy(mockService, 100, 100, TimeUnit.MILLISECONDS);
+        assertEquals("Alte Antwort", proxy.request("noGrace"));
+        Thread.sleep(150);
+        
+        try {
+            proxy.request("noGrace");
+            fail("ServiceException erwartet");
+        } catch (ServiceException e) {
+            assertEquals(0, proxy.getStaleServedCount());
+        }
+    }
+
+    @Test
+    public void testEvictedEntriesAreServedFromSecondLevel() throws Exception {
+        when(mockService.request("a")).thenReturn("Antwort auf a");
+        when(mockService.request("b")).thenReturn("Antwort auf b");
+        
+        try (OffHeapCacheTier tier = new OffHeapCacheTier(64 * 1024, 100)) {
+            CachingProxy proxy = new CachingProxy(mockService, 1, 1, TimeUnit.MINUTES);
+            proxy.setSecondLevelCache(tier);
+            
+            proxy.request("a");
+            proxy.request("b");
+            proxy.cleanUp();
+            assertEquals(1, tier.size());
+            
+            // Beide Anfragen werden ohne erneuten Aufruf des Zieldienstes beantwortet; der
+            // verdrängte Eintrag kommt dabei aus der zweiten Ebene
+            assertEquals("Antwort auf a", proxy.request("a"));
+            proxy.cleanUp();
+            assertEquals("Antwort auf b", proxy.request("b"));
+            assertTrue(tier.getHitCount() >= 1);
+            
+            // Zurückgeholte Einträge bleiben für die Clock-Verdrängung in der zweiten Ebene
+            proxy.cleanUp();
+            assertEquals(2, tier.size());
+            verify(mockService, times(1)).request("a");
+            verify(mockService, times(1)).request("b");
+        }
+    }
+
+    @Test
+    public void testOffHeapCacheTierEvictsAndExpires() throws Exception {
+        long later = System.currentTimeMillis() + 60_000;
+        
+        try (OffHeapCacheTier tier = new OffHeapCacheTier(temporaryFolder.newFile().toPath(), 16 * 1024, 8)) {
+            assertTrue(tier.put(1L, "eins", later));
+            assertTrue(tier.put(1L, "eins, überschrieben", later));
+            assertEquals("eins, überschrieben", tier.get(1L).getValue());
+            assertEquals(1, tier.size());
+            
+            // Werte größer als ein Segment werden abgelehnt
+            assertFalse(tier.put(2L, new String(new char[2048]), later));
+            
+            // Abgelaufene Werte werden nicht geliefert
+            assertTrue(tier.put(3L, "abgelaufen", System.currentTimeMillis() - 1));
+            assertNull(tier.get(3L));
+            
+            // Über die maximale Anzahl hinaus werden nicht gelesene Einträge segmentweise verdrängt
+            for (long hash = 10; hash < 30; hash++) {
+                assertTrue(tier.put(hash, "Wert " + hash, later));
+            }
+            assertTrue(tier.size() <= 8);
+            assertTrue(tier.getEvictionCount() > 0);
+            assertEquals("Wert 29", tier.get(29L).getValue());
+            assertNull(tier.get(10L));
+            
+            assertTrue(tier.remove(29L));
+            assertNull(tier.get(29L));
+        }
+    }
+
+    @Test
+    public void testOffHeapCacheTierKeepsReferencedEntries() {
+        long later = System.currentTimeMillis() + 60_000;
+        
+        try (OffHeapCacheTier tier = new OffHeapCacheTier(16 * 1024, 8)) {
+            for (long hash = 1; hash <= 8; hash++) {
+                assertTrue(tier.put(hash, "Wert " + hash, later));
+            }
+            assertNotNull(tier.get(1L));
+            
+            // Der neunte Eintrag erzwingt einen Clock-Durchlauf: nur der gelesene Eintrag bleibt
+            assertTrue(tier.put(9L, "Wert 9", later));
+            assertEquals("Wert 1", tier.get(1L).getValue());
+            assertNull(tier.get(2L));
+            assertEquals("Wert 9", tier.get(9L).getValue());
+            assertEquals(7, tier.getEvictionCount());
+        }
+    }
+
+    @Test
+    public void testOffHeapCacheTierCapacityIsNotLimitedToOneBuffer() throws Exception {
+        // Die Datei wird nur eingeblendet; Speicher belegen erst die beschriebenen Seiten
+        Path file = temporaryFolder.newFile().toPath();
+        try (OffHeapCacheTier tier = new OffHeapCacheTier(file, 3L * 1024 * 1024 * 1024, 16)) {
+            assertEquals(3L * 1024 * 1024 * 1024, tier.getCapacity());
+            assertTrue(tier.put(1L, "Wert", System.currentTimeMillis() + 60_000));
+            assertEquals("Wert", tier.get(1L).getValue());
+        }
+    }
+
+    @Test
+    public void testSnapshotRestoresHottestEntries() throws Exception {
+        when(mockService.request("a")).thenReturn("Antwort auf a");
+        when(mockService.request()).thenReturn("Einfache Antwort");
+        when(mockService.complexRequest(7, "Daten", new String[]{"x", null})).thenReturn("Komplexe Antwort");
+        
+        cachingProxy.request("a");
+        cachingProxy.request();
+        cachingProxy.complexRequest(7, "Daten", new String[]{"x", null});
+        
+        Path snapshot = temporaryFolder.getRoot().toPath().resolve("cache.snapshot");
+        assertEquals(3, cachingProxy.snapshotTo(snapshot));
+        assertEquals(1, cachingProxy.snapshotTo(snapshot, 1));
+        assertEquals(3, cachingProxy.snapshotTo(snapshot));
+        
+        // Ein neuer Proxy beantwortet die Anfragen aus dem Snapshot
+        CachingProxy restarted = new CachingProxy(mockService, 100, 1, TimeUnit.MINUTES);
+        assertEquals(Integer.valueOf(3), restarted.warmFrom(snapshot).get(5, TimeUnit.SECONDS));
+        assertEquals("Antwort auf a", restarted.request("a"));
+        assertEquals("Einfache Antwort", restarted.request());
+        assertEquals("Komplexe Antwort", restarted.complexRequest(7, "Daten", new String[]{"x", null}));
+        
+        verify(mockService, times(1)).request("a");
+        verify(mockService, times(1)).request();
+        verify(mockService, times(1)).complexRequest(7, "Daten", new String[]{"x", null});
+    }
+
+    @Test
+    public void testWarmFromStopsWhenCacheIsFull() throws Exception {
+        when(mockService.request(anyString())).thenAnswer(invocation -> "Antwort auf " + invocation.getArgument(0));
+        
+        CachingProxy proxy = new CachingProxy(mockService, 100, 1, TimeUnit.MINUTES);
+        for (int i = 0; i < 3; i++) {
+            proxy.request("s" + i);
+        }
+        Path snapshot = temporaryFolder.getRoot().toPath().resolve("cache.snapshot");
+        assertEquals(3, proxy.snapshotTo(snapshot));
+        
+        // Zwei eigene Einträge belegen bereits zwei der drei Plätze
+        CachingProxy restarted = new CachingProxy(mockService, 3, 1, TimeUnit.MINUTES);
+        restarted.request("live0");
+        restarted.request("live1");
+        assertEquals(Integer.valueOf(1), restarted.warmFrom(snapshot).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFailedSnapshotLeavesNoTemporaryFile() throws Exception {
+        when(mockService.request("a")).thenReturn("Antwort auf a");
+        cachingProxy.request("a");
+        
+        // Ein nicht leeres Verzeichnis am Zielort lässt das abschließende Verschieben scheitern
+        Path target = temporaryFolder.newFolder("snapshot").toPath();
+        temporaryFolder.newFile("snapshot/belegt");
+        try {
+            cachingProxy.snapshotTo(target);
+            fail("IOException erwartet");
+        } catch (IOException e) {
+            assertFalse(target.resolveSibling("snapshot.tmp").toFile().exists());
+        }
+    }
+
+    @Test
+    public void testWarmFromSkipsExpiredEntriesAndMissingFile() throws Exception {
+        when(mockService.request("kurz")).thenReturn("Antwort 1", "Antwort 2");
+        
+        CachingProxy proxy = new CachingProxy(mockService, 100, 100, TimeUnit.MILLISECONDS);
+        proxy.request("kurz");
+        Path snapshot = temporaryFolder.getRoot().toPath().resolve("cache.snapshot");
+        assertEquals(1, proxy.snapshotTo(snapshot));
+        Thread.sleep(150);
+        
+        CachingProxy restarted = new CachingProxy(mockService, 100, 100, TimeUnit.MILLISECONDS);
+        assertEquals(Integer.valueOf(0), restarted.warmFrom(snapshot).get(5, TimeUnit.SECONDS));
+        assertEquals("Antwort 2", restarted.request("kurz"));
+        
+        Path missing = temporaryFolder.getRoot().toPath().resolve("fehlt.snapshot");
+        assertEquals(Integer.valueOf(0), restarted.warmFrom(missing).get(5, TimeUnit.SECONDS));
+    }
+
+    private void awaitCoalesced(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cachingProxy.getCoalescedCallCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static List<Future<String>> runConcurrently(int callers, Callable<String> call) {
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(call));
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
 }